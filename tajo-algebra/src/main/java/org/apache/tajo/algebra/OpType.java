@@ -44,6 +44,7 @@ public enum OpType {
   // Data definition language
   CreateTable(CreateTable.class),
   DropTable(DropTable.class),
+  AnalyzeTable(AnalyzeTable.class),
 
   // Insert or Update
   Insert(Insert.class),
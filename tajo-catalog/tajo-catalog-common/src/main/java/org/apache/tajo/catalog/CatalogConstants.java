@@ -35,6 +35,7 @@ public class CatalogConstants {
   public static final String TB_OPTIONS = "OPTIONS";
   public static final String TB_INDEXES = "INDEXES";
   public static final String TB_STATISTICS = "STATS";
+  public static final String TB_COLUMN_STATISTICS = "COLUMN_STATS";
   public static final String TB_PARTTIONS = "PARTITIONS";
   public static final String C_TABLE_ID = "TABLE_ID";
 
@@ -67,6 +67,8 @@ public class CatalogUtil {
       return StoreType.RCFILE;
     } else if (typeStr.equalsIgnoreCase(StoreType.TREVNI.name())) {
       return StoreType.TREVNI;
+    } else if (typeStr.equalsIgnoreCase(StoreType.COLUMNFILE.name())) {
+      return StoreType.COLUMNFILE;
     } else {
       return null;
     }
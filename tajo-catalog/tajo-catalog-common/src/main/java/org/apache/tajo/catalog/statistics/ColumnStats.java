@@ -33,6 +33,9 @@ import org.apache.tajo.common.ProtoObject;
 import org.apache.tajo.datum.Datum;
 import org.apache.tajo.util.TUtil;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class ColumnStats implements ProtoObject<CatalogProtos.ColumnStatsProto>, Cloneable, GsonObject {
   private CatalogProtos.ColumnStatsProto.Builder builder = CatalogProtos.ColumnStatsProto.newBuilder();
 
@@ -41,6 +44,8 @@ public class ColumnStats implements ProtoObject<CatalogProtos.ColumnStatsProto>,
   @Expose private Long numNulls = null; // optional
   @Expose private Datum minValue = null; // optional
   @Expose private Datum maxValue = null; // optional
+  @Expose private List<Datum> histogram = null; // optional
+  private byte [] distValSketch = null; // optional
 
   public ColumnStats(Column column) {
     this.column = column;
@@ -63,6 +68,15 @@ public class ColumnStats implements ProtoObject<CatalogProtos.ColumnStatsProto>,
     if (proto.hasMaxValue()) {
       this.maxValue = DatumFactory.createFromBytes(getColumn().getDataType(), proto.getMaxValue().toByteArray());
     }
+    if (proto.getHistogramCount() > 0) {
+      this.histogram = new ArrayList<Datum>(proto.getHistogramCount());
+      for (ByteString bound : proto.getHistogramList()) {
+        this.histogram.add(DatumFactory.createFromBytes(getColumn().getDataType(), bound.toByteArray()));
+      }
+    }
+    if (proto.hasDistValSketch()) {
+      this.distValSketch = proto.getDistValSketch().toByteArray();
+    }
   }
 
   public Column getColumn() {
@@ -101,6 +115,38 @@ public class ColumnStats implements ProtoObject<CatalogProtos.ColumnStatsProto>,
     this.maxValue = maxValue;
   }
 
+  public boolean hasHistogram() {
+    return histogram != null && histogram.size() > 1;
+  }
+
+  /**
+   * An equi-depth histogram is given as the sorted bounds of its buckets. Each pair of adjacent
+   * bounds is a bucket, and every bucket holds about the same number of non-null values.
+   */
+  public List<Datum> getHistogram() {
+    return this.histogram;
+  }
+
+  public void setHistogram(List<Datum> histogram) {
+    this.histogram = histogram;
+  }
+
+  public boolean hasDistValSketch() {
+    return distValSketch != null;
+  }
+
+  /**
+   * A serialized HyperLogLog sketch of the values, which is kept in order to merge the numbers of distinct
+   * values of table parts. It is given only when the statistics are collected by ANALYZE.
+   */
+  public byte [] getDistValSketch() {
+    return this.distValSketch;
+  }
+
+  public void setDistValSketch(byte [] distValSketch) {
+    this.distValSketch = distValSketch;
+  }
+
   public Long getNumNulls() {
     return this.numNulls;
   }
@@ -116,7 +162,8 @@ public class ColumnStats implements ProtoObject<CatalogProtos.ColumnStatsProto>,
           && getNumDistValues().equals(other.getNumDistValues())
           && getNumNulls().equals(other.getNumNulls())
           && TUtil.checkEquals(getMinValue(), other.getMinValue())
-          && TUtil.checkEquals(getMaxValue(), other.getMaxValue());
+          && TUtil.checkEquals(getMaxValue(), other.getMaxValue())
+          && TUtil.checkEquals(getHistogram(), other.getHistogram());
     } else {
       return false;
     }
@@ -134,6 +181,10 @@ public class ColumnStats implements ProtoObject<CatalogProtos.ColumnStatsProto>,
     stat.numNulls = numNulls;
     stat.minValue = minValue;
     stat.maxValue = maxValue;
+    if (histogram != null) {
+      stat.histogram = new ArrayList<Datum>(histogram);
+    }
+    stat.distValSketch = distValSketch;
 
     return stat;
   }
@@ -168,6 +219,17 @@ public class ColumnStats implements ProtoObject<CatalogProtos.ColumnStatsProto>,
     if (this.maxValue != null) {
       builder.setMaxValue(ByteString.copyFrom(this.maxValue.asByteArray()));
     }
+    builder.clearHistogram();
+    if (this.histogram != null) {
+      for (Datum bound : histogram) {
+        builder.addHistogram(ByteString.copyFrom(bound.asByteArray()));
+      }
+    }
+    if (this.distValSketch != null) {
+      builder.setDistValSketch(ByteString.copyFrom(this.distValSketch));
+    } else {
+      builder.clearDistValSketch();
+    }
 
     return builder.build();
   }
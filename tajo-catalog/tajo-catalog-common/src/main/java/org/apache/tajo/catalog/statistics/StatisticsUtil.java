@@ -21,7 +21,11 @@ package org.apache.tajo.catalog.statistics;
 import com.google.common.collect.Lists;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.util.HyperLogLog;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 public class StatisticsUtil {
@@ -63,6 +67,15 @@ public class StatisticsUtil {
       }
     }
 
+    // the column stats of each part and the number of its non-null values, which are used to merge
+    // the sketches and the histograms of columns.
+    List<List<ColumnStats>> parts = Lists.newArrayList();
+    List<List<Long>> nonNullNums = Lists.newArrayList();
+    for (int i = 0; css != null && i < css.length; i++) {
+      parts.add(new ArrayList<ColumnStats>());
+      nonNullNums.add(new ArrayList<Long>());
+    }
+
     for (TableStats ts : tableStatses) {
       // if there is empty stats
       if (ts.getColumnStats().size() > 0) {
@@ -73,6 +86,8 @@ public class StatisticsUtil {
             LOG.warn("ERROR: One of column stats is NULL (expected column: " + css[i].getColumn() + ")");
             continue;
           }
+          parts.get(i).add(cs);
+          nonNullNums.get(i).add(ts.getNumRows() - cs.getNumNulls());
           css[i].setNumDistVals(css[i].getNumDistValues() + cs.getNumDistValues());
           css[i].setNumNulls(css[i].getNumNulls() + cs.getNumNulls());
           if (!cs.minIsNotSet() && (css[i].minIsNotSet() ||
@@ -95,9 +110,109 @@ public class StatisticsUtil {
 
     //aggregated.setAvgRows(aggregated.getNumRows() / tableStats.size());
     if (css != null) {
+      for (int i = 0; i < css.length; i++) {
+        mergeDistValSketches(css[i], parts.get(i), nonNullNums.get(i));
+        css[i].setHistogram(mergeHistograms(parts.get(i), nonNullNums.get(i)));
+      }
       aggregated.setColumnStats(Lists.newArrayList(css));
     }
 
     return aggregated;
   }
+
+  /**
+   * If every part has a sketch, the number of distinct values is estimated from the merged sketch instead of
+   * the sum of the numbers of distinct values of the parts, which counts the values shared by parts repeatedly.
+   */
+  private static void mergeDistValSketches(ColumnStats merged, List<ColumnStats> parts, List<Long> nonNullNums) {
+    if (parts.isEmpty()) {
+      return;
+    }
+
+    HyperLogLog sketch = null;
+    long nonNullNum = 0;
+    for (int i = 0; i < parts.size(); i++) {
+      if (!parts.get(i).hasDistValSketch()) {
+        return;
+      }
+      HyperLogLog partSketch = HyperLogLog.fromBytes(parts.get(i).getDistValSketch());
+      if (sketch == null) {
+        sketch = partSketch;
+      } else {
+        sketch.merge(partSketch);
+      }
+      nonNullNum += nonNullNums.get(i);
+    }
+
+    merged.setNumDistVals(Math.min(sketch.cardinality(), nonNullNum));
+    merged.setDistValSketch(sketch.toBytes());
+  }
+
+  /**
+   * Each bucket of an equi-depth histogram of a part holds (the non-null values of the part / its bucket number)
+   * values. The bounds of the merged histogram are chosen at the equal intervals of the cumulative weights of
+   * the bucket bounds of all parts.
+   *
+   * @return the bounds of the merged histogram, or null if a part having values does not have its histogram.
+   */
+  private static List<Datum> mergeHistograms(List<ColumnStats> parts, List<Long> nonNullNums) {
+    List<WeightedBound> bounds = Lists.newArrayList();
+    Datum min = null;
+    int bucketNum = 0;
+    double totalWeight = 0;
+    for (int i = 0; i < parts.size(); i++) {
+      long nonNullNum = nonNullNums.get(i);
+      if (nonNullNum <= 0) {
+        continue;
+      }
+      if (!parts.get(i).hasHistogram()) {
+        return null;
+      }
+
+      List<Datum> histogram = parts.get(i).getHistogram();
+      int partBucketNum = histogram.size() - 1;
+      double weight = (double) nonNullNum / partBucketNum;
+      if (min == null || min.compareTo(histogram.get(0)) > 0) {
+        min = histogram.get(0);
+      }
+      for (int j = 1; j < histogram.size(); j++) {
+        bounds.add(new WeightedBound(histogram.get(j), weight));
+      }
+      bucketNum = Math.max(bucketNum, partBucketNum);
+      totalWeight += nonNullNum;
+    }
+    if (bounds.isEmpty()) {
+      return null;
+    }
+
+    Collections.sort(bounds);
+    List<Datum> merged = new ArrayList<Datum>(bucketNum + 1);
+    merged.add(min);
+    int idx = 0;
+    double cumulative = bounds.get(0).weight;
+    for (int k = 1; k <= bucketNum; k++) {
+      // a small tolerance keeps the rounding errors of the weights from skipping a bound
+      double target = totalWeight * k / bucketNum - 1e-9 * totalWeight;
+      while (cumulative < target && idx < bounds.size() - 1) {
+        cumulative += bounds.get(++idx).weight;
+      }
+      merged.add(bounds.get(idx).bound);
+    }
+    return merged;
+  }
+
+  private static class WeightedBound implements Comparable<WeightedBound> {
+    final Datum bound;
+    final double weight;
+
+    WeightedBound(Datum bound, double weight) {
+      this.bound = bound;
+      this.weight = weight;
+    }
+
+    @Override
+    public int compareTo(WeightedBound o) {
+      return bound.compareTo(o.bound);
+    }
+  }
 }
\ No newline at end of file
@@ -22,10 +22,14 @@ import org.apache.tajo.catalog.Column;
 import org.apache.tajo.catalog.json.CatalogGsonHelper;
 import org.apache.tajo.common.TajoDataTypes.Type;
 import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.util.HyperLogLog;
 import org.junit.Test;
 
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
 
 public class TestColumnStat {
 
@@ -68,6 +72,43 @@ public class TestColumnStat {
     assertEquals(stat, fromJson);
   }
 
+  @Test
+  public final void testHistogram() throws CloneNotSupportedException {
+    ColumnStats stat = new ColumnStats(new Column("test", Type.TEXT));
+    assertFalse(stat.hasHistogram());
+
+    List<Datum> histogram = new ArrayList<Datum>();
+    histogram.add(DatumFactory.createText("a"));
+    histogram.add(DatumFactory.createText("k"));
+    histogram.add(DatumFactory.createText("z"));
+    stat.setHistogram(histogram);
+    assertTrue(stat.hasHistogram());
+
+    ColumnStats fromProto = new ColumnStats(stat.getProto());
+    assertEquals(histogram, fromProto.getHistogram());
+    assertEquals(stat, fromProto);
+    assertEquals(stat, CatalogGsonHelper.fromJson(stat.toJson(), ColumnStats.class));
+    assertEquals(stat, stat.clone());
+  }
+
+  @Test
+  public final void testDistValSketch() {
+    ColumnStats stat = new ColumnStats(new Column("test", Type.INT8));
+    assertFalse(stat.hasDistValSketch());
+
+    HyperLogLog sketch = new HyperLogLog();
+    for (long i = 0; i < 100; i++) {
+      sketch.offer(i);
+    }
+    stat.setDistValSketch(sketch.toBytes());
+    ColumnStats fromProto = new ColumnStats(stat.getProto());
+    assertTrue(fromProto.hasDistValSketch());
+    assertEquals(sketch.cardinality(), HyperLogLog.fromBytes(fromProto.getDistValSketch()).cardinality());
+
+    stat.setDistValSketch(null);
+    assertFalse(new ColumnStats(stat.getProto()).hasDistValSketch());
+  }
+
   @Test
   public final void testClone() throws CloneNotSupportedException {
     ColumnStats stat = new ColumnStats(new Column("test", Type.INT8));
@@ -30,9 +30,11 @@ import org.apache.tajo.catalog.partition.PartitionDesc;
 import org.apache.tajo.catalog.partition.Specifier;
 import org.apache.tajo.catalog.proto.CatalogProtos;
 import org.apache.tajo.catalog.proto.CatalogProtos.ColumnProto;
+import org.apache.tajo.catalog.proto.CatalogProtos.ColumnStatsProto;
 import org.apache.tajo.catalog.proto.CatalogProtos.IndexDescProto;
 import org.apache.tajo.catalog.proto.CatalogProtos.IndexMethod;
 import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
+import org.apache.tajo.catalog.statistics.ColumnStats;
 import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.common.TajoDataTypes.Type;
 import org.apache.tajo.exception.InternalException;
@@ -279,6 +281,7 @@ public abstract class AbstractDBStore extends CatalogConstants implements Catalo
         }
         stmt.addBatch(sql);
         stmt.executeBatch();
+        addColumnStats(table);
       }
 
       //Partition
@@ -372,6 +375,58 @@ public abstract class AbstractDBStore extends CatalogConstants implements Catalo
     }
   }
 
+  /**
+   * Stores the statistics of each column, including the number of distinct values and the histogram,
+   * as a serialized ColumnStatsProto.
+   */
+  protected void addColumnStats(final TableDesc table) throws SQLException {
+    List<ColumnStats> columnStatsList = table.getStats().getColumnStats();
+    if (columnStatsList == null || columnStatsList.isEmpty()) {
+      return;
+    }
+
+    String sql = "INSERT INTO " + TB_COLUMN_STATISTICS + " (" + C_TABLE_ID + ", column_id, stats) "
+        + "VALUES (?, ?, ?)";
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(sql);
+    }
+    PreparedStatement pstmt = null;
+    try {
+      pstmt = getConnection().prepareStatement(sql);
+      int columnId = 0;
+      for (ColumnStats columnStats : columnStatsList) {
+        pstmt.setString(1, table.getName());
+        pstmt.setInt(2, columnId++);
+        pstmt.setBytes(3, columnStats.getProto().toByteArray());
+        pstmt.addBatch();
+      }
+      pstmt.executeBatch();
+    } finally {
+      CatalogUtil.closeSQLWrapper(pstmt);
+    }
+  }
+
+  protected List<ColumnStats> getColumnStats(final String name) throws SQLException, IOException {
+    String sql = "SELECT stats from " + TB_COLUMN_STATISTICS
+        + " WHERE " + C_TABLE_ID + "='" + name + "' ORDER by column_id asc";
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(sql);
+    }
+    Statement stmt = null;
+    ResultSet res = null;
+    List<ColumnStats> columnStatsList = new ArrayList<ColumnStats>();
+    try {
+      stmt = getConnection().createStatement();
+      res = stmt.executeQuery(sql);
+      while (res.next()) {
+        columnStatsList.add(new ColumnStats(ColumnStatsProto.parseFrom(res.getBytes("stats"))));
+      }
+    } finally {
+      CatalogUtil.closeSQLWrapper(res, stmt);
+    }
+    return columnStatsList;
+  }
+
   private String columnToSQL(final int tid, final TableDesc desc,
                              final int columnId, final Column col) {
     String sql =
@@ -458,6 +513,18 @@ public abstract class AbstractDBStore extends CatalogConstants implements Catalo
       CatalogUtil.closeSQLWrapper(stmt);
     }
 
+    try {
+      sql = "DELETE FROM " + TB_COLUMN_STATISTICS +
+          " WHERE " + C_TABLE_ID + " = '" + name + "'";
+      LOG.info(sql);
+      stmt = getConnection().createStatement();
+      stmt.execute(sql);
+    } catch (SQLException se) {
+      throw new IOException(se);
+    } finally {
+      CatalogUtil.closeSQLWrapper(stmt);
+    }
+
 
     try {
       sql = "DELETE FROM " + TB_PARTTIONS + " WHERE TID IN ("
@@ -585,6 +652,7 @@ public abstract class AbstractDBStore extends CatalogConstants implements Catalo
         stat = new TableStats();
         stat.setNumRows(res.getLong("num_rows"));
         stat.setNumBytes(res.getLong("num_bytes"));
+        stat.setColumnStats(getColumnStats(name));
       }
     } catch (SQLException se) {
       throw new IOException(se);
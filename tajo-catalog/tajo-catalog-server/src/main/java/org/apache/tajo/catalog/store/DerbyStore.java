@@ -223,6 +223,27 @@ public class DerbyStore extends AbstractDBStore {
         LOG.info("Table '" + TB_STATISTICS + "' is created.");
       }
 
+      if (!baseTableMaps.get(TB_COLUMN_STATISTICS)) {
+        String column_stats_ddl = "CREATE TABLE " + TB_COLUMN_STATISTICS + "("
+            + C_TABLE_ID + " VARCHAR(255) NOT NULL REFERENCES TABLES (" + C_TABLE_ID + ") "
+            + "ON DELETE CASCADE, "
+            + "column_id INT NOT NULL, "
+            + "stats BLOB)";
+        if (LOG.isDebugEnabled()) {
+          LOG.debug(column_stats_ddl);
+        }
+        stmt.addBatch(column_stats_ddl);
+
+        String idx_column_stats_table_name = "CREATE INDEX idx_column_stats_table_name ON "
+            + TB_COLUMN_STATISTICS + " (" + C_TABLE_ID + ")";
+        if (LOG.isDebugEnabled()) {
+          LOG.debug(idx_column_stats_table_name);
+        }
+        stmt.addBatch(idx_column_stats_table_name);
+        stmt.executeBatch();
+        LOG.info("Table '" + TB_COLUMN_STATISTICS + "' is created.");
+      }
+
       // PARTITION
       if (!baseTableMaps.get(TB_PARTTIONS)) {
         String partition_ddl = "CREATE TABLE " + TB_PARTTIONS + " ("
@@ -268,6 +289,7 @@ public class DerbyStore extends AbstractDBStore {
       baseTableMaps.put(TB_COLUMNS, false);
       baseTableMaps.put(TB_OPTIONS, false);
       baseTableMaps.put(TB_STATISTICS, false);
+      baseTableMaps.put(TB_COLUMN_STATISTICS, false);
       baseTableMaps.put(TB_INDEXES, false);
       baseTableMaps.put(TB_PARTTIONS, false);
 
@@ -370,6 +392,7 @@ public class DerbyStore extends AbstractDBStore {
           LOG.debug(sql);
         }
         stmt.executeUpdate(sql);
+        addColumnStats(table);
       }
 
       //Partition
@@ -559,6 +582,15 @@ public class DerbyStore extends AbstractDBStore {
         throw new IOException(se);
       }
 
+      try {
+        sql = "DELETE FROM " + TB_COLUMN_STATISTICS +
+            " WHERE " + C_TABLE_ID + " = '" + name + "'";
+        LOG.info(sql);
+        stmt.execute(sql);
+      } catch (SQLException se) {
+        throw new IOException(se);
+      }
+
       try {
         sql = "DELETE FROM " + TB_PARTTIONS + " WHERE TID IN ("
             + " SELECT TID FROM " + TB_TABLES
@@ -688,6 +720,7 @@ public class DerbyStore extends AbstractDBStore {
           stat = new TableStats();
           stat.setNumRows(res.getLong("num_rows"));
           stat.setNumBytes(res.getLong("num_bytes"));
+          stat.setColumnStats(getColumnStats(name));
         }
       } catch (SQLException se) {
         throw new IOException(se);
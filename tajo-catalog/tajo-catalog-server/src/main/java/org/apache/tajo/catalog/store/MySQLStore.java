@@ -152,6 +152,20 @@ public class MySQLStore extends AbstractDBStore  {
         result = stmt.executeUpdate(stats_ddl);
       }
 
+      if (!baseTableMaps.get(TB_COLUMN_STATISTICS)) {
+        String column_stats_ddl = "CREATE TABLE " + TB_COLUMN_STATISTICS + "("
+            + C_TABLE_ID + " VARCHAR(255) NOT NULL,"
+            + "column_id INT NOT NULL, "
+            + "stats MEDIUMBLOB,"
+            + "INDEX("+C_TABLE_ID+"),"
+            + "FOREIGN KEY("+C_TABLE_ID+") REFERENCES "+TB_TABLES+"("+C_TABLE_ID+") ON DELETE CASCADE)";
+        if (LOG.isDebugEnabled()) {
+          LOG.debug(column_stats_ddl);
+        }
+        LOG.info("Table '" + TB_COLUMN_STATISTICS + "' is created.");
+        result = stmt.executeUpdate(column_stats_ddl);
+      }
+
       // PARTITION
       if (!baseTableMaps.get(TB_PARTTIONS)) {
         String partition_ddl = "CREATE TABLE " + TB_PARTTIONS + " ("
@@ -183,6 +197,7 @@ public class MySQLStore extends AbstractDBStore  {
       baseTableMaps.put(TB_COLUMNS, false);
       baseTableMaps.put(TB_OPTIONS, false);
       baseTableMaps.put(TB_STATISTICS, false);
+      baseTableMaps.put(TB_COLUMN_STATISTICS, false);
       baseTableMaps.put(TB_INDEXES, false);
       baseTableMaps.put(TB_PARTTIONS, false);
 
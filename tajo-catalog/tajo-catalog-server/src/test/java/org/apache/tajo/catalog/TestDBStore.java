@@ -26,11 +26,14 @@ import org.apache.tajo.catalog.partition.PartitionDesc;
 import org.apache.tajo.catalog.partition.Specifier;
 import org.apache.tajo.catalog.proto.CatalogProtos;
 import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
+import org.apache.tajo.catalog.statistics.ColumnStats;
 import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.catalog.store.AbstractDBStore;
 import org.apache.tajo.catalog.store.DerbyStore;
 import org.apache.tajo.common.TajoDataTypes.Type;
 import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
 import org.apache.tajo.util.CommonTestingUtil;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -38,6 +41,8 @@ import org.junit.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -116,6 +121,52 @@ public class TestDBStore {
     store.deleteTable(tableName);
   }
   
+  @Test
+  public final void testColumnStats() throws Exception {
+    Schema schema = new Schema();
+    schema.addColumn("colstats.id", Type.INT4)
+    .addColumn("colstats.name", Type.TEXT);
+
+    String tableName = "colstats";
+    TableMeta meta = CatalogUtil.newTableMeta(StoreType.CSV);
+
+    TableStats stat = new TableStats();
+    stat.setNumRows(1000);
+    stat.setNumBytes(20000);
+    ColumnStats idStats = new ColumnStats(schema.getColumn(0));
+    idStats.setNumDistVals(1000);
+    idStats.setNumNulls(0);
+    idStats.setMinValue(DatumFactory.createInt4(1));
+    idStats.setMaxValue(DatumFactory.createInt4(1000));
+    List<Datum> histogram = new ArrayList<Datum>();
+    for (int i = 1; i <= 1000; i += 100) {
+      histogram.add(DatumFactory.createInt4(i));
+    }
+    idStats.setHistogram(histogram);
+    stat.addColumnStat(idStats);
+    ColumnStats nameStats = new ColumnStats(schema.getColumn(1));
+    nameStats.setNumDistVals(30);
+    nameStats.setNumNulls(5);
+    stat.addColumnStat(nameStats);
+
+    TableDesc desc = new TableDesc(tableName, schema, meta, new Path(CommonTestingUtil.getTestDir(), "colstats"));
+    desc.setStats(stat);
+    store.addTable(desc);
+
+    TableStats retrieved = store.getTable(tableName).getStats();
+    assertEquals(2, retrieved.getColumnStats().size());
+    assertEquals(idStats, retrieved.getColumnStats().get(0));
+    assertEquals(histogram, retrieved.getColumnStats().get(0).getHistogram());
+    assertEquals(nameStats, retrieved.getColumnStats().get(1));
+
+    // the column statistics are replaced with the table
+    store.deleteTable(tableName);
+    stat.setColumnStats(new ArrayList<ColumnStats>());
+    store.addTable(desc);
+    assertEquals(0, store.getTable(tableName).getStats().getColumnStats().size());
+    store.deleteTable(tableName);
+  }
+
   @Test
   public final void testGetAllTableNames() throws Exception {
     Schema schema = new Schema();
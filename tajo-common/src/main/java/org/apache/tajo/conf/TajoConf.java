@@ -100,6 +100,8 @@ public class TajoConf extends Configuration {
     WORKER_RESOURCE_AVAILABLE_MEMORY_MB("tajo.worker.resource.memory-mb", 1024),
     WORKER_RESOURCE_AVAILABLE_DISKS("tajo.worker.resource.disks", 1.0f),
     WORKER_EXECUTION_MAX_SLOTS("tajo.worker.parallel-execution.max-num", 2),
+    // the number of tasks which a TaskRunner runs concurrently. If it is 0, it is the number of cpu cores.
+    WORKER_TASKRUNNER_SLOTS("tajo.worker.task-runner.slots", 1),
 
     // Tajo Worker Dedicated Resources
     WORKER_RESOURCE_DEDICATED("tajo.worker.resource.dedicated", false),
@@ -136,6 +138,14 @@ public class TajoConf extends Configuration {
     PULLSERVER_PORT("tajo.pullserver.port", 0),
     SHUFFLE_SSL_ENABLED_KEY("tajo.pullserver.ssl.enabled", false),
     SHUFFLE_FILE_FORMAT("tajo.shuffle.file-format", "RAW"),
+    SHUFFLE_COMPRESSION_CODEC("tajo.shuffle.compression.codec", ""),
+    SHUFFLE_HASH_CONSOLIDATED_ENABLED("tajo.shuffle.hash.consolidated.enabled", true),
+    SHUFFLE_HASH_BUFFER_BYTES("tajo.shuffle.hash.buffer-bytes", (long)64 * 1048576),
+    SHUFFLE_FETCHER_CONNECTIONS_PER_HOST("tajo.shuffle.fetcher.connections-per-host", 2),
+    SHUFFLE_FETCHER_REQUESTS_PER_HOST("tajo.shuffle.fetcher.requests-per-host", 16),
+    SHUFFLE_FETCHER_CONNECT_TIMEOUT("tajo.shuffle.fetcher.connect-timeout-ms", 5000),
+    SHUFFLE_FETCH_STREAMING_ENABLED("tajo.shuffle.fetch.streaming.enabled", true),
+    SHUFFLE_FETCH_STREAMING_BUFFER_BYTES("tajo.shuffle.fetch.streaming.buffer-bytes", (long)64 * 1048576),
 
     //////////////////////////////////
     // Storage Configuration
@@ -150,6 +160,12 @@ public class TajoConf extends Configuration {
     STORAGE_MANAGER_DISK_SCHEDULER_REPORT_INTERVAL("tajo.storage-manager.disk-scheduler.report-interval", 60 * 1000),
     STORAGE_MANAGER_CONCURRENCY_PER_DISK("tajo.storage-manager.disk-scheduler.per-disk-concurrency", 2),
 
+    //////////////////////////////////
+    // Query Optimizer
+    //////////////////////////////////
+    // join orders of a query block with up to this number of relations are enumerated exhaustively
+    OPTIMIZER_JOIN_ORDER_DP_MAX_RELATIONS("tajo.optimizer.join-order.dp.max-relations", 10),
+
     //////////////////////////////////////////
     // Distributed Query Execution Parameters
     //////////////////////////////////////////
@@ -163,10 +179,36 @@ public class TajoConf extends Configuration {
     DIST_QUERY_SORT_PARTITION_VOLUME("tajo.dist-query.sort.partition-volume-mb", 256),
     DIST_QUERY_GROUPBY_PARTITION_VOLUME("tajo.dist-query.groupby.partition-volume-mb", 256),
 
+    DIST_QUERY_JOIN_SKEW_ENABLED("tajo.dist-query.join.skew.enabled", true),
+    DIST_QUERY_JOIN_SKEW_FACTOR("tajo.dist-query.join.skew.factor", 4.0f),
+    DIST_QUERY_JOIN_SKEW_MIN_VOLUME("tajo.dist-query.join.skew.min-volume-bytes", (long)64 * 1048576),
+
+    DIST_QUERY_JOIN_FILTER_ENABLED("tajo.dist-query.join.filter.enabled", true),
+    DIST_QUERY_JOIN_FILTER_MAX_BIT_NUM("tajo.dist-query.join.filter.max-bit-num", 8 * 1048576),
+    DIST_QUERY_JOIN_FILTER_FALSE_POSITIVE("tajo.dist-query.join.filter.false-positive", 0.05f),
+    DIST_QUERY_JOIN_FILTER_MAX_FALSE_POSITIVE("tajo.dist-query.join.filter.max-false-positive", 0.3f),
+
+    // disabled by default, because workers report only coarse progress of running attempts.
+    DIST_QUERY_SPECULATION_ENABLED("tajo.dist-query.speculation.enabled", false),
+    // an attempt is a straggler if its estimated running time is longer than this factor times the average
+    DIST_QUERY_SPECULATION_SLOW_TASK_FACTOR("tajo.dist-query.speculation.slow-task-factor", 2.0f),
+    DIST_QUERY_SPECULATION_MIN_RUNTIME("tajo.dist-query.speculation.min-runtime-ms", (long)10 * 1000),
+    DIST_QUERY_SPECULATION_MIN_FINISHED_RATIO("tajo.dist-query.speculation.min-finished-ratio", 0.25f),
+    DIST_QUERY_SPECULATION_MAX_RATIO("tajo.dist-query.speculation.max-ratio", 0.1f),
+
+    // disabled by default until the pipelined fetch path has been exercised in production.
+    DIST_QUERY_PIPELINING_ENABLED("tajo.dist-query.pipelining.enabled", false),
+    // the consumer of a hash shuffle starts when this ratio of the producer tasks are finished
+    DIST_QUERY_PIPELINING_SLOWSTART_RATIO("tajo.dist-query.pipelining.slowstart-ratio", 0.25f),
+
     //////////////////////////////////
     // Physical Executors
     //////////////////////////////////
-    EXECUTOR_SORT_EXTENAL_BUFFER_SIZE("tajo.executor.sort.external-buffer-num", 1000000),
+    EXECUTOR_SORT_EXTERNAL_MEMORY_BYTES("tajo.executor.sort.external.memory-bytes", (long)256 * 1048576),
+    EXECUTOR_SORT_MERGE_FANIN("tajo.executor.sort.merge-fanin", 64),
+    EXECUTOR_SORT_NORMALIZED_KEY_ENABLED("tajo.executor.sort.normalized-key.enabled", true),
+    EXECUTOR_SORT_NORMALIZED_KEY_LENGTH("tajo.executor.sort.normalized-key.length-bytes", 18),
+    EXECUTOR_SORT_TOPN_MAX_LIMIT("tajo.executor.sort.top-n.max-limit", (long)100000),
     EXECUTOR_INNER_JOIN_INMEMORY_HASH_TABLE_SIZE("tajo.executor.join.inner.in-memory-table-num", (long)1000000),
     EXECUTOR_INNER_JOIN_INMEMORY_HASH_THRESHOLD("tajo.executor.join.inner.in-memory-hash-threshold-bytes",
         (long)256 * 1048576),
@@ -174,6 +216,15 @@ public class TajoConf extends Configuration {
         (long)256 * 1048576),
     EXECUTOR_GROUPBY_INMEMORY_HASH_THRESHOLD("tajo.executor.groupby.in-memory-hash-threshold-bytes",
         (long)256 * 1048576),
+    EXECUTOR_GROUPBY_SPILL_ENABLED("tajo.executor.groupby.spill.enabled", true),
+    EXECUTOR_GROUPBY_SPILL_PARTITION_NUM("tajo.executor.groupby.spill-partition-num", 16),
+    EXECUTOR_GROUPBY_PARTIAL_ENABLED("tajo.executor.groupby.partial.enabled", true),
+    EXECUTOR_GROUPBY_PARTIAL_TABLE_SIZE("tajo.executor.groupby.partial.table-size", 65536),
+    EXECUTOR_GROUPBY_PARTIAL_MIN_REDUCTION("tajo.executor.groupby.partial.min-reduction", 0.5f),
+    EXECUTOR_JOIN_SPILL_PARTITION_NUM("tajo.executor.join.spill-partition-num", 16),
+    EXECUTOR_VECTORIZED_ENABLED("tajo.executor.vectorized.enabled", false),
+    EXECUTOR_VECTORIZED_BATCH_SIZE("tajo.executor.vectorized.batch-size", 1024),
+    EXECUTOR_CODEGEN_ENABLED("tajo.executor.codegen.enabled", true),
 
     //////////////////////////////////
     // RPC
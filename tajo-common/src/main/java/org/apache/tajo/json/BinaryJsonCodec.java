@@ -0,0 +1,216 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.json;
+
+import com.google.gson.*;
+import org.apache.hadoop.io.WritableUtils;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BinaryJsonCodec encodes a tree of {@link JsonElement} into a compact binary form, so an object is
+ * shipped without being printed and tokenized as JSON text. Numbers are written as variable-length
+ * integers or doubles, and each distinct string, including member names, is written only once
+ * and referred to by its index afterwards.
+ *
+ * The objects are still converted from and to the trees by the type adapters of {@link GsonHelper},
+ * so the binary form does not need its own schema for each class.
+ */
+public class BinaryJsonCodec {
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final byte VERSION = 1;
+
+  private static final byte NULL = 0;
+  private static final byte TRUE = 1;
+  private static final byte FALSE = 2;
+  private static final byte LONG = 3;
+  private static final byte DOUBLE = 4;
+  private static final byte DECIMAL = 5;
+  private static final byte STRING = 6;
+  private static final byte ARRAY = 7;
+  private static final byte OBJECT = 8;
+
+  private BinaryJsonCodec() {
+  }
+
+  public static byte [] encode(JsonElement element) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      out.writeByte(VERSION);
+      new Encoder(out).write(element);
+      out.flush();
+    } catch (IOException e) {
+      // it never happens on a byte array
+      throw new JsonIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  public static JsonElement decode(byte [] bytes) {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    try {
+      byte version = in.readByte();
+      if (version != VERSION) {
+        throw new JsonParseException("Unknown version of binary json: " + version);
+      }
+      return new Decoder(in).read();
+    } catch (IOException e) {
+      throw new JsonParseException(e);
+    }
+  }
+
+  private static class Encoder {
+    private final DataOutputStream out;
+    private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+    Encoder(DataOutputStream out) {
+      this.out = out;
+    }
+
+    void write(JsonElement element) throws IOException {
+      if (element == null || element.isJsonNull()) {
+        out.writeByte(NULL);
+      } else if (element.isJsonPrimitive()) {
+        writePrimitive(element.getAsJsonPrimitive());
+      } else if (element.isJsonArray()) {
+        JsonArray array = element.getAsJsonArray();
+        out.writeByte(ARRAY);
+        WritableUtils.writeVInt(out, array.size());
+        for (JsonElement e : array) {
+          write(e);
+        }
+      } else {
+        JsonObject object = element.getAsJsonObject();
+        out.writeByte(OBJECT);
+        WritableUtils.writeVInt(out, object.entrySet().size());
+        for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+          writeString(entry.getKey());
+          write(entry.getValue());
+        }
+      }
+    }
+
+    private void writePrimitive(JsonPrimitive primitive) throws IOException {
+      if (primitive.isBoolean()) {
+        out.writeByte(primitive.getAsBoolean() ? TRUE : FALSE);
+      } else if (primitive.isString()) {
+        out.writeByte(STRING);
+        writeString(primitive.getAsString());
+      } else {
+        Number number = primitive.getAsNumber();
+        if (number instanceof Long || number instanceof Integer || number instanceof Short
+            || number instanceof Byte) {
+          out.writeByte(LONG);
+          WritableUtils.writeVLong(out, number.longValue());
+        } else if (number instanceof Double || number instanceof Float) {
+          out.writeByte(DOUBLE);
+          out.writeDouble(number.doubleValue());
+        } else {
+          // BigDecimal, BigInteger or a lazily parsed number keeps its exact text
+          out.writeByte(DECIMAL);
+          writeString(number.toString());
+        }
+      }
+    }
+
+    /**
+     * A new string is written as its length followed by UTF-8 bytes, and it is numbered in the order of
+     * appearance. The header is (length << 1) for a new string or (index << 1 | 1) for a seen string.
+     */
+    private void writeString(String string) throws IOException {
+      Integer index = strings.get(string);
+      if (index != null) {
+        WritableUtils.writeVInt(out, (index << 1) | 1);
+      } else {
+        strings.put(string, strings.size());
+        byte [] bytes = string.getBytes(UTF8);
+        WritableUtils.writeVInt(out, bytes.length << 1);
+        out.write(bytes);
+      }
+    }
+  }
+
+  private static class Decoder {
+    private final DataInputStream in;
+    private final List<String> strings = new ArrayList<String>();
+
+    Decoder(DataInputStream in) {
+      this.in = in;
+    }
+
+    JsonElement read() throws IOException {
+      byte type = in.readByte();
+      switch (type) {
+        case NULL:
+          return JsonNull.INSTANCE;
+        case TRUE:
+          return new JsonPrimitive(true);
+        case FALSE:
+          return new JsonPrimitive(false);
+        case LONG:
+          return new JsonPrimitive(WritableUtils.readVLong(in));
+        case DOUBLE:
+          return new JsonPrimitive(in.readDouble());
+        case DECIMAL:
+          String decimal = readString();
+          return new JsonPrimitive(decimal.indexOf('.') < 0 && decimal.indexOf('e') < 0 &&
+              decimal.indexOf('E') < 0 ? new BigInteger(decimal) : new BigDecimal(decimal));
+        case STRING:
+          return new JsonPrimitive(readString());
+        case ARRAY:
+          int length = WritableUtils.readVInt(in);
+          JsonArray array = new JsonArray();
+          for (int i = 0; i < length; i++) {
+            array.add(read());
+          }
+          return array;
+        case OBJECT:
+          int size = WritableUtils.readVInt(in);
+          JsonObject object = new JsonObject();
+          for (int i = 0; i < size; i++) {
+            String name = readString();
+            object.add(name, read());
+          }
+          return object;
+        default:
+          throw new JsonParseException("Unknown type of binary json: " + type);
+      }
+    }
+
+    private String readString() throws IOException {
+      int header = WritableUtils.readVInt(in);
+      if ((header & 1) == 1) {
+        return strings.get(header >>> 1);
+      }
+      byte [] bytes = new byte[header >>> 1];
+      in.readFully(bytes);
+      String string = new String(bytes, UTF8);
+      strings.add(string);
+      return string;
+    }
+  }
+}
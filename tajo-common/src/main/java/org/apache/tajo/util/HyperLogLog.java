@@ -0,0 +1,236 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.util;
+
+import com.google.common.base.Preconditions;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * HyperLogLog is a sketch which estimates the number of distinct values with a fixed amount of memory.
+ * Its standard error is about <code>1.04 / sqrt(2^precision)</code>, e.g., 0.8% for the default precision 14.
+ * Sketches of the same precision can be merged, so that a sketch can be built in parallel.
+ *
+ * While few registers are set, they are kept in a sorted array of (index, rank) pairs instead of an array of
+ * all registers. It keeps the sketch of a small group small, both in memory and in its serialized form.
+ */
+public class HyperLogLog {
+  public static final int DEFAULT_PRECISION = 14;
+  private static final HashFunction HASH = Hashing.murmur3_128();
+  private static final int RANK_BITS = 6;
+  private static final int RANK_MASK = (1 << RANK_BITS) - 1;
+
+  private final int precision;
+  private final int registerNum;
+  /** all registers, or null in the sparse mode */
+  private byte [] registers;
+  /** the sorted pairs of (index << RANK_BITS | rank) in the sparse mode */
+  private int [] sparse;
+  private int sparseSize = 0;
+
+  public HyperLogLog() {
+    this(DEFAULT_PRECISION);
+  }
+
+  public HyperLogLog(int precision) {
+    Preconditions.checkArgument(precision >= 4 && precision <= 18, "precision must be between 4 and 18: %s",
+        precision);
+    this.precision = precision;
+    this.registerNum = 1 << precision;
+    this.sparse = new int[4];
+  }
+
+  public int getPrecision() {
+    return precision;
+  }
+
+  public void offer(byte [] bytes) {
+    offerHash(HASH.hashBytes(bytes).asLong());
+  }
+
+  public void offer(long value) {
+    offerHash(HASH.hashLong(value).asLong());
+  }
+
+  public void offerHash(long hash) {
+    int index = (int) (hash >>> (64 - precision));
+    // the sentinel bit bounds the rank by (64 - precision + 1)
+    int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+    update(index, rank);
+  }
+
+  private void update(int index, int rank) {
+    if (registers != null) {
+      if (rank > registers[index]) {
+        registers[index] = (byte) rank;
+      }
+      return;
+    }
+
+    int pos = findSparse(index);
+    if (pos >= 0) {
+      if (rank > (sparse[pos] & RANK_MASK)) {
+        sparse[pos] = (index << RANK_BITS) | rank;
+      }
+      return;
+    }
+
+    pos = -(pos + 1);
+    if (sparseSize == sparse.length) {
+      sparse = Arrays.copyOf(sparse, sparse.length * 2);
+    }
+    System.arraycopy(sparse, pos, sparse, pos + 1, sparseSize - pos);
+    sparse[pos] = (index << RANK_BITS) | rank;
+    sparseSize++;
+
+    // a sparse entry takes four bytes while a register takes a byte.
+    if (sparseSize > registerNum / 4) {
+      toDense();
+    }
+  }
+
+  /**
+   * @return the position of the given index, or (-(insertion point) - 1) if it does not exist.
+   */
+  private int findSparse(int index) {
+    int low = 0;
+    int high = sparseSize - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int midIndex = sparse[mid] >>> RANK_BITS;
+      if (midIndex < index) {
+        low = mid + 1;
+      } else if (midIndex > index) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  private void toDense() {
+    registers = new byte[registerNum];
+    for (int i = 0; i < sparseSize; i++) {
+      registers[sparse[i] >>> RANK_BITS] = (byte) (sparse[i] & RANK_MASK);
+    }
+    sparse = null;
+    sparseSize = 0;
+  }
+
+  public void merge(HyperLogLog other) {
+    Preconditions.checkArgument(precision == other.precision,
+        "Cannot merge sketches of different precisions: %s, %s", precision, other.precision);
+    if (other.registers != null) {
+      if (registers == null) {
+        toDense();
+      }
+      for (int i = 0; i < registerNum; i++) {
+        if (other.registers[i] > registers[i]) {
+          registers[i] = other.registers[i];
+        }
+      }
+    } else {
+      for (int i = 0; i < other.sparseSize; i++) {
+        update(other.sparse[i] >>> RANK_BITS, other.sparse[i] & RANK_MASK);
+      }
+    }
+  }
+
+  /**
+   * @return the estimated number of distinct values
+   */
+  public long cardinality() {
+    double sum = 0;
+    int zeros = 0;
+    if (registers != null) {
+      for (byte register : registers) {
+        sum += 1.0 / (1L << register);
+        if (register == 0) {
+          zeros++;
+        }
+      }
+    } else {
+      zeros = registerNum - sparseSize;
+      sum = zeros;
+      for (int i = 0; i < sparseSize; i++) {
+        sum += 1.0 / (1L << (sparse[i] & RANK_MASK));
+      }
+    }
+
+    double estimate = alpha() * registerNum * registerNum / sum;
+    // linear counting is more accurate for small cardinalities
+    if (estimate <= 2.5 * registerNum && zeros > 0) {
+      estimate = registerNum * Math.log((double) registerNum / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  private double alpha() {
+    switch (registerNum) {
+    case 16:
+      return 0.673;
+    case 32:
+      return 0.697;
+    case 64:
+      return 0.709;
+    default:
+      return 0.7213 / (1 + 1.079 / registerNum);
+    }
+  }
+
+  public byte [] toBytes() {
+    ByteBuffer buffer;
+    if (registers != null) {
+      buffer = ByteBuffer.allocate(2 + registerNum);
+      buffer.put((byte) precision);
+      buffer.put((byte) 0);
+      buffer.put(registers);
+    } else {
+      buffer = ByteBuffer.allocate(2 + 4 + sparseSize * 4);
+      buffer.put((byte) precision);
+      buffer.put((byte) 1);
+      buffer.putInt(sparseSize);
+      for (int i = 0; i < sparseSize; i++) {
+        buffer.putInt(sparse[i]);
+      }
+    }
+    return buffer.array();
+  }
+
+  public static HyperLogLog fromBytes(byte [] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    HyperLogLog sketch = new HyperLogLog(buffer.get());
+    if (buffer.get() == 0) {
+      sketch.registers = new byte[sketch.registerNum];
+      buffer.get(sketch.registers);
+      sketch.sparse = null;
+    } else {
+      sketch.sparseSize = buffer.getInt();
+      sketch.sparse = new int[Math.max(sketch.sparseSize, 4)];
+      for (int i = 0; i < sketch.sparseSize; i++) {
+        sketch.sparse[i] = buffer.getInt();
+      }
+    }
+    return sketch;
+  }
+}
@@ -0,0 +1,73 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.json;
+
+import com.google.gson.*;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.*;
+
+public class TestBinaryJsonCodec {
+
+  @Test
+  public final void testEncodeDecode() {
+    JsonObject object = new JsonObject();
+    object.addProperty("int", 7);
+    object.addProperty("long", Long.MIN_VALUE);
+    object.addProperty("double", 0.1);
+    object.addProperty("float", 1.5f);
+    object.addProperty("decimal", new BigDecimal("12345678901234567890.123"));
+    object.addProperty("bool", true);
+    object.addProperty("char", 'c');
+    object.addProperty("text", "\uD55C\uAE00 text");
+    object.addProperty("empty", "");
+    object.add("null", JsonNull.INSTANCE);
+
+    JsonArray array = new JsonArray();
+    for (int i = 0; i < 3; i++) {
+      JsonObject column = new JsonObject();
+      column.addProperty("name", "col");
+      column.addProperty("type", i);
+      array.add(column);
+    }
+    object.add("columns", array);
+
+    JsonElement decoded = BinaryJsonCodec.decode(BinaryJsonCodec.encode(object));
+    assertEquals(object, decoded);
+    assertEquals(Long.MIN_VALUE, decoded.getAsJsonObject().get("long").getAsLong());
+    assertEquals(1.5f, decoded.getAsJsonObject().get("float").getAsFloat(), 0.0f);
+    assertEquals('c', decoded.getAsJsonObject().get("char").getAsCharacter());
+  }
+
+  @Test
+  public final void testRepeatedStrings() {
+    JsonArray array = new JsonArray();
+    for (int i = 0; i < 100; i++) {
+      JsonObject object = new JsonObject();
+      object.addProperty("qualifiedName", "default.lineitem.l_orderkey");
+      array.add(object);
+    }
+    byte [] bytes = BinaryJsonCodec.encode(array);
+    // member names and values are written only once, so each object takes a few bytes.
+    assertTrue(bytes.length < array.toString().length() / 5);
+    assertEquals(array, BinaryJsonCodec.decode(bytes));
+  }
+}
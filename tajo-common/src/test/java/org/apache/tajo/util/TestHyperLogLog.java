@@ -0,0 +1,80 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestHyperLogLog {
+
+  private static void assertEstimate(long expected, long estimate, double error) {
+    assertTrue("expected " + expected + " but was " + estimate,
+        Math.abs(estimate - expected) <= Math.max(1, expected * error));
+  }
+
+  @Test
+  public void testCardinality() {
+    assertEquals(0, new HyperLogLog().cardinality());
+
+    HyperLogLog sketch = new HyperLogLog();
+    for (int i = 0; i < 100; i++) {
+      // duplicated values
+      sketch.offer(Bytes.toBytes(i));
+      sketch.offer(Bytes.toBytes(i));
+    }
+    assertEstimate(100, sketch.cardinality(), 0.02);
+
+    for (int i = 100; i < 100000; i++) {
+      sketch.offer(Bytes.toBytes(i));
+    }
+    assertEstimate(100000, sketch.cardinality(), 0.03);
+  }
+
+  @Test
+  public void testMergeAndSerialize() {
+    HyperLogLog sketch1 = new HyperLogLog();
+    HyperLogLog sketch2 = new HyperLogLog();
+    HyperLogLog sketch3 = new HyperLogLog();
+    for (int i = 0; i < 50000; i++) {
+      sketch1.offer(Bytes.toBytes(i));
+    }
+    for (int i = 25000; i < 75000; i++) {
+      sketch2.offer(Bytes.toBytes(i));
+    }
+    // a sparse sketch
+    for (int i = 0; i < 10; i++) {
+      sketch3.offer(Bytes.toBytes("value" + i));
+    }
+    assertTrue(sketch3.toBytes().length < 100);
+    assertEquals(sketch3.cardinality(), HyperLogLog.fromBytes(sketch3.toBytes()).cardinality());
+
+    HyperLogLog merged = HyperLogLog.fromBytes(sketch3.toBytes());
+    merged.merge(HyperLogLog.fromBytes(sketch1.toBytes()));
+    merged.merge(HyperLogLog.fromBytes(sketch2.toBytes()));
+    assertEstimate(75010, merged.cardinality(), 0.03);
+    assertEquals(merged.cardinality(), HyperLogLog.fromBytes(merged.toBytes()).cardinality());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMergeDifferentPrecisions() {
+    new HyperLogLog(10).merge(new HyperLogLog(12));
+  }
+}
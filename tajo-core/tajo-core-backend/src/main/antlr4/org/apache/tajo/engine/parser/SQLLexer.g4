@@ -219,6 +219,7 @@ ZONE : Z O N E;
   Non Reserved Keywords
 ===============================================================================
 */
+ANALYZE : A N A L Y Z E;
 AVG : A V G;
 
 BETWEEN : B E T W E E N;
@@ -266,7 +267,8 @@ TO : T O;
 VALUES : V A L U E S;
 
 Nonreserved_keywords
-  : AVG
+  : ANALYZE
+  | AVG
   | BETWEEN
   | BY
 
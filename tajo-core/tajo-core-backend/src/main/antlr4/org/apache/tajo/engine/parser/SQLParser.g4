@@ -56,6 +56,7 @@ data_change_statement
 schema_statement
   : create_table_statement
   | drop_table_statement
+  | analyze_table_statement
   ;
 
 index_statement
@@ -171,6 +172,10 @@ drop_table_statement
   : DROP TABLE table_name (PURGE)?
   ;
 
+analyze_table_statement
+  : ANALYZE TABLE table_name
+  ;
+
 /*
 ===============================================================================
   5.3 <literal>
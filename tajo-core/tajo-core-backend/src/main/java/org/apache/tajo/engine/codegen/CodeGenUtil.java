@@ -0,0 +1,148 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.codegen;
+
+import org.apache.tajo.datum.BooleanDatum;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+
+import static org.apache.tajo.datum.BooleanDatum.FALSE_INT;
+import static org.apache.tajo.datum.BooleanDatum.TRUE_INT;
+import static org.apache.tajo.datum.BooleanDatum.UNKNOWN_INT;
+
+/**
+ * Runtime helpers called by generated code. A boolean value is represented as a three-valued int
+ * (UNKNOWN_INT, TRUE_INT or FALSE_INT) like {@link BooleanDatum}. Comparisons follow
+ * the compareTo() and equalsTo() of numeric datums.
+ */
+public class CodeGenUtil {
+  public static final int NOT_EQUAL = 0;
+  public static final int LTH = 1;
+  public static final int LEQ = 2;
+  public static final int GTH = 3;
+  public static final int GEQ = 4;
+
+  private static final int [][] AND_LOGIC = new int [][] {
+      //  unknown      true         false
+      {UNKNOWN_INT, UNKNOWN_INT, FALSE_INT}, // unknown
+      {UNKNOWN_INT, TRUE_INT,    FALSE_INT}, // true
+      {FALSE_INT,   FALSE_INT,   FALSE_INT}  // false
+  };
+
+  private static final int [][] OR_LOGIC = new int [][] {
+      //  unknown      true      false
+      {UNKNOWN_INT, TRUE_INT, UNKNOWN_INT}, // unknown
+      {TRUE_INT,    TRUE_INT, TRUE_INT   }, // true
+      {UNKNOWN_INT, TRUE_INT, FALSE_INT  }  // false
+  };
+
+  private static final int [] NOT_LOGIC = new int [] {UNKNOWN_INT, FALSE_INT, TRUE_INT};
+
+  public static int and(int left, int right) {
+    return AND_LOGIC[left][right];
+  }
+
+  public static int or(int left, int right) {
+    return OR_LOGIC[left][right];
+  }
+
+  public static int not(int value) {
+    return NOT_LOGIC[value];
+  }
+
+  public static int toTriState(boolean value) {
+    return value ? TRUE_INT : FALSE_INT;
+  }
+
+  public static int toTriState(Datum datum) {
+    return datum.isNull() ? UNKNOWN_INT : toTriState(datum.asBool());
+  }
+
+  public static int isNull(boolean isNull, boolean isNot) {
+    return toTriState(isNot ^ isNull);
+  }
+
+  public static int isUnknown(int value, boolean isNot) {
+    return isNull(value == UNKNOWN_INT, isNot);
+  }
+
+  public static int compare(long left, long right) {
+    return left < right ? -1 : (left > right ? 1 : 0);
+  }
+
+  public static int compare(float left, float right) {
+    return left < right ? -1 : (left > right ? 1 : 0);
+  }
+
+  public static int compare(double left, double right) {
+    return left < right ? -1 : (left > right ? 1 : 0);
+  }
+
+  public static int equals(long left, long right) {
+    return toTriState(left == right);
+  }
+
+  public static int equals(float left, float right) {
+    return toTriState(left == right);
+  }
+
+  public static int equals(double left, double right) {
+    return toTriState(left == right);
+  }
+
+  /**
+   * @param cmp the result of compare()
+   * @param op one of NOT_EQUAL, LTH, LEQ, GTH and GEQ
+   */
+  public static int test(int cmp, int op) {
+    switch (op) {
+      case NOT_EQUAL: return toTriState(cmp != 0);
+      case LTH: return toTriState(cmp < 0);
+      case LEQ: return toTriState(cmp <= 0);
+      case GTH: return toTriState(cmp > 0);
+      case GEQ: return toTriState(cmp >= 0);
+      default: throw new IllegalArgumentException("Unknown comparison: " + op);
+    }
+  }
+
+  public static Datum toBoolDatum(int value) {
+    return BooleanDatum.THREE_VALUES[value];
+  }
+
+  public static Datum toInt2Datum(int value, boolean isNull) {
+    return isNull ? NullDatum.get() : DatumFactory.createInt2((short) value);
+  }
+
+  public static Datum toInt4Datum(int value, boolean isNull) {
+    return isNull ? NullDatum.get() : DatumFactory.createInt4(value);
+  }
+
+  public static Datum toInt8Datum(long value, boolean isNull) {
+    return isNull ? NullDatum.get() : DatumFactory.createInt8(value);
+  }
+
+  public static Datum toFloat4Datum(float value, boolean isNull) {
+    return isNull ? NullDatum.get() : DatumFactory.createFloat4(value);
+  }
+
+  public static Datum toFloat8Datum(double value, boolean isNull) {
+    return isNull ? NullDatum.get() : DatumFactory.createFloat8(value);
+  }
+}
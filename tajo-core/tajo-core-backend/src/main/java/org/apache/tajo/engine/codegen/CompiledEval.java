@@ -0,0 +1,65 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.codegen;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.engine.eval.EvalContext;
+import org.apache.tajo.engine.eval.EvalNode;
+import org.apache.tajo.storage.Tuple;
+
+/**
+ * CompiledEval evaluates an expression against a tuple in one call. Subclasses are generated by
+ * {@link EvalCodeGenerator}. The sub expressions which cannot be compiled are evaluated by
+ * the interpreter through {@link #callOut(int, org.apache.tajo.storage.Tuple)}.
+ *
+ * An instance keeps evaluation contexts, so it must not be shared by multiple threads.
+ */
+public abstract class CompiledEval {
+  private final Schema schema;
+  private final EvalNode [] callOuts;
+  private final EvalContext [] callOutContexts;
+
+  public CompiledEval(Schema schema, EvalNode [] callOuts) {
+    this.schema = schema;
+    this.callOuts = callOuts;
+    this.callOutContexts = new EvalContext[callOuts.length];
+    for (int i = 0; i < callOuts.length; i++) {
+      callOutContexts[i] = callOuts[i].newContext();
+    }
+  }
+
+  /**
+   * @return the result of the expression, which is a NullDatum if the result is null.
+   */
+  public abstract Datum eval(Tuple tuple);
+
+  /**
+   * @return true if the result of the expression is TRUE. A null or non-boolean result is not true.
+   */
+  public abstract boolean isTrue(Tuple tuple);
+
+  /**
+   * Evaluates a sub expression by the interpreter.
+   */
+  protected final Datum callOut(int id, Tuple tuple) {
+    callOuts[id].eval(callOutContexts[id], schema, tuple);
+    return callOuts[id].terminate(callOutContexts[id]);
+  }
+}
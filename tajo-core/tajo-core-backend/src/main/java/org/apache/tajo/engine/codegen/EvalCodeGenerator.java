@@ -0,0 +1,696 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.codegen;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.datum.BooleanDatum;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.engine.eval.*;
+import org.apache.tajo.storage.Tuple;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.apache.tajo.common.TajoDataTypes.Type.*;
+
+/**
+ * EvalCodeGenerator compiles an EvalNode tree into JVM bytecode. Numeric and boolean expressions
+ * (fields, constants, arithmetic, comparisons, AND, OR, NOT and IS NULL) are evaluated on primitive
+ * local values with null flags, so they do not allocate any EvalContext or Datum for each row.
+ * The other boolean sub expressions, such as text comparisons and LIKE, are evaluated by the interpreter. The results are the same as the
+ * interpreter including the result datum types of arithmetic and three-valued logic.
+ *
+ * Generated classes are cached by the JSON form of the expression and the input schema, so
+ * the same expression is compiled only once in a JVM.
+ */
+public class EvalCodeGenerator implements Opcodes {
+  private static final Log LOG = LogFactory.getLog(EvalCodeGenerator.class);
+
+  private static final int MAX_CACHED_CLASSES = 1024;
+  private static final Cache<String, Class<? extends CompiledEval>> classCache =
+      CacheBuilder.newBuilder().maximumSize(MAX_CACHED_CLASSES).build();
+  private static final AtomicInteger classSeq = new AtomicInteger(0);
+
+  private static final String CLASS_NAME_PREFIX = EvalCodeGenerator.class.getPackage().getName() + ".GeneratedEval";
+  private static final String BASE_CLASS = Type.getInternalName(CompiledEval.class);
+  private static final String UTIL_CLASS = Type.getInternalName(CodeGenUtil.class);
+  private static final String TUPLE_CLASS = Type.getInternalName(Tuple.class);
+  private static final String DATUM_DESC = Type.getDescriptor(Datum.class);
+  private static final String TUPLE_DESC = Type.getDescriptor(Tuple.class);
+  private static final String CONSTRUCTOR_DESC = "(" + Type.getDescriptor(Schema.class) +
+      Type.getDescriptor(EvalNode[].class) + ")V";
+
+  // local variables of generated methods
+  private static final int THIS = 0;
+  private static final int TUPLE = 1;
+  /** the null flag of the last evaluated numeric value */
+  private static final int WAS_NULL = 2;
+  private static final int FIRST_TEMP = 3;
+
+  /**
+   * @return a compiled expression if code generation is enabled and the expression can be compiled.
+   * Otherwise, an expression evaluated by the interpreter.
+   */
+  public static CompiledEval compile(TajoConf conf, EvalNode eval, Schema schema) {
+    if (conf.getBoolVar(ConfVars.EXECUTOR_CODEGEN_ENABLED)) {
+      CompiledEval compiled = tryCompile(eval, schema);
+      if (compiled != null) {
+        return compiled;
+      }
+    }
+    return new InterpretedEval(eval, schema);
+  }
+
+  /**
+   * @return a compiled expression, or null if the expression cannot be compiled or compiling it
+   * does not help, such as a single field reference.
+   */
+  public static CompiledEval tryCompile(EvalNode eval, Schema schema) {
+    if (eval.getType() == EvalType.FIELD || eval.getType() == EvalType.CONST) {
+      return null;
+    }
+
+    final List<EvalNode> callOuts = new ArrayList<EvalNode>();
+    final Expr root = plan(eval, schema, callOuts);
+    if (root == null || root.callOut >= 0) {
+      return null;
+    }
+
+    try {
+      String key = eval.toJson() + "\n" + schema.toJson();
+      Class<? extends CompiledEval> clazz = classCache.get(key, new Callable<Class<? extends CompiledEval>>() {
+        @Override
+        public Class<? extends CompiledEval> call() throws Exception {
+          return generate(root);
+        }
+      });
+      return clazz.getConstructor(Schema.class, EvalNode[].class)
+          .newInstance(schema, callOuts.toArray(new EvalNode[callOuts.size()]));
+    } catch (Throwable t) {
+      LOG.warn("Cannot compile the expression (" + eval + "). It will be interpreted.", t);
+      return null;
+    }
+  }
+
+  /**
+   * A compilation plan of an expression
+   */
+  private static class Expr {
+    final EvalNode eval;
+    /** the datum type of the result. BOOLEAN is represented as a three-valued int. */
+    final TajoDataTypes.Type type;
+    Expr left;
+    Expr right;
+    int fieldId = -1;
+    /** the index of the call-out if this expression is evaluated by the interpreter */
+    int callOut = -1;
+
+    Expr(EvalNode eval, TajoDataTypes.Type type) {
+      this.eval = eval;
+      this.type = type;
+    }
+  }
+
+  private static boolean isNumeric(TajoDataTypes.Type type) {
+    switch (type) {
+      case INT2:
+      case INT4:
+      case INT8:
+      case FLOAT4:
+      case FLOAT8:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isSupported(TajoDataTypes.Type type) {
+    return type == BOOLEAN || isNumeric(type);
+  }
+
+  private static Expr plan(EvalNode eval, Schema schema, List<EvalNode> callOuts) {
+    int mark = callOuts.size();
+    Expr expr = planNative(eval, schema, callOuts);
+    if (expr != null) {
+      return expr;
+    }
+    // discard call-outs of the children
+    callOuts.subList(mark, callOuts.size()).clear();
+
+    // Only boolean sub expressions are called out because the declared value type of a numeric
+    // expression may differ from the type of its result datum.
+    if (eval.getValueType() != null && eval.getValueType().getType() == BOOLEAN) {
+      expr = new Expr(eval, eval.getValueType().getType());
+      expr.callOut = callOuts.size();
+      callOuts.add(eval);
+      return expr;
+    }
+    return null;
+  }
+
+  private static Expr planNative(EvalNode eval, Schema schema, List<EvalNode> callOuts) {
+    Expr expr;
+    Expr left;
+    Expr right;
+
+    switch (eval.getType()) {
+      case FIELD: {
+        FieldEval field = (FieldEval) eval;
+        TajoDataTypes.Type type = field.getValueType().getType();
+        int fieldId = schema.getColumnId(field.getColumnRef().getQualifiedName());
+        if (fieldId < 0 || !isSupported(type)) {
+          return null;
+        }
+        expr = new Expr(eval, type);
+        expr.fieldId = fieldId;
+        return expr;
+      }
+
+      case CONST: {
+        TajoDataTypes.Type type = ((ConstEval) eval).getValue().type();
+        return isSupported(type) ? new Expr(eval, type) : null;
+      }
+
+      case PLUS:
+      case MINUS:
+      case MULTIPLY:
+      case DIVIDE:
+      case MODULAR:
+        left = plan(eval.getLeftExpr(), schema, callOuts);
+        right = plan(eval.getRightExpr(), schema, callOuts);
+        if (left == null || right == null || !isNumeric(left.type) || !isNumeric(right.type)) {
+          return null;
+        }
+        // FLOAT4 modular of datums is not a remainder, so it is left to the interpreter.
+        if (eval.getType() == EvalType.MODULAR && left.type == FLOAT4) {
+          return null;
+        }
+        expr = new Expr(eval, getArithmeticResultType(eval.getType(), left.type, right.type));
+        expr.left = left;
+        expr.right = right;
+        return expr;
+
+      case EQUAL:
+      case NOT_EQUAL:
+      case LTH:
+      case LEQ:
+      case GTH:
+      case GEQ:
+        left = plan(eval.getLeftExpr(), schema, callOuts);
+        right = plan(eval.getRightExpr(), schema, callOuts);
+        if (left == null || right == null || !isNumeric(left.type) || !isNumeric(right.type)) {
+          return null;
+        }
+        expr = new Expr(eval, BOOLEAN);
+        expr.left = left;
+        expr.right = right;
+        return expr;
+
+      case AND:
+      case OR:
+        left = plan(eval.getLeftExpr(), schema, callOuts);
+        right = plan(eval.getRightExpr(), schema, callOuts);
+        if (left == null || right == null || left.type != BOOLEAN || right.type != BOOLEAN) {
+          return null;
+        }
+        expr = new Expr(eval, BOOLEAN);
+        expr.left = left;
+        expr.right = right;
+        return expr;
+
+      case NOT:
+        left = plan(((NotEval) eval).getChild(), schema, callOuts);
+        if (left == null || left.type != BOOLEAN) {
+          return null;
+        }
+        expr = new Expr(eval, BOOLEAN);
+        expr.left = left;
+        return expr;
+
+      case IS_NULL:
+        left = plan(eval.getLeftExpr(), schema, callOuts);
+        if (left == null) {
+          return null;
+        }
+        expr = new Expr(eval, BOOLEAN);
+        expr.left = left;
+        return expr;
+
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Java type used to compute a value of a datum type
+   */
+  private static Type getJavaType(TajoDataTypes.Type type) {
+    switch (type) {
+      case BOOLEAN:
+      case INT2:
+      case INT4:
+        return Type.INT_TYPE;
+      case INT8:
+        return Type.LONG_TYPE;
+      case FLOAT4:
+        return Type.FLOAT_TYPE;
+      case FLOAT8:
+        return Type.DOUBLE_TYPE;
+      default:
+        throw new IllegalArgumentException("Not supported type: " + type);
+    }
+  }
+
+  /**
+   * @return the binary numeric promotion of two datum types
+   */
+  private static Type getComputeType(TajoDataTypes.Type left, TajoDataTypes.Type right) {
+    Type l = getJavaType(left);
+    Type r = getJavaType(right);
+    if (l == Type.DOUBLE_TYPE || r == Type.DOUBLE_TYPE) {
+      return Type.DOUBLE_TYPE;
+    } else if (l == Type.FLOAT_TYPE || r == Type.FLOAT_TYPE) {
+      return Type.FLOAT_TYPE;
+    } else if (l == Type.LONG_TYPE || r == Type.LONG_TYPE) {
+      return Type.LONG_TYPE;
+    } else {
+      return Type.INT_TYPE;
+    }
+  }
+
+  /**
+   * It follows the arithmetic of numeric datums. A value is computed in the binary numeric promotion of
+   * both operands, and the result datum is FLOAT8 if it is computed in float with INT8 or FLOAT4 operands.
+   * INT2 operands produce INT2 except multiplication.
+   */
+  private static TajoDataTypes.Type getArithmeticResultType(EvalType op, TajoDataTypes.Type left,
+                                                            TajoDataTypes.Type right) {
+    Type computeType = getComputeType(left, right);
+    if (computeType == Type.DOUBLE_TYPE) {
+      return FLOAT8;
+    } else if (computeType == Type.FLOAT_TYPE) {
+      boolean widened = (left == FLOAT4 && right == FLOAT4) || left == INT8 || right == INT8;
+      return widened ? FLOAT8 : FLOAT4;
+    } else if (computeType == Type.LONG_TYPE) {
+      return INT8;
+    } else {
+      return left == INT2 && right == INT2 && op != EvalType.MULTIPLY ? INT2 : INT4;
+    }
+  }
+
+  private static Class<? extends CompiledEval> generate(Expr root) {
+    String className = CLASS_NAME_PREFIX + classSeq.incrementAndGet();
+    String internalName = className.replace('.', '/');
+
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    cw.visit(V1_5, ACC_PUBLIC + ACC_FINAL + ACC_SUPER, internalName, null, BASE_CLASS, null);
+
+    MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", CONSTRUCTOR_DESC, null, null);
+    mv.visitCode();
+    mv.visitVarInsn(ALOAD, 0);
+    mv.visitVarInsn(ALOAD, 1);
+    mv.visitVarInsn(ALOAD, 2);
+    mv.visitMethodInsn(INVOKESPECIAL, BASE_CLASS, "<init>", CONSTRUCTOR_DESC);
+    mv.visitInsn(RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    // Datum eval(Tuple)
+    mv = cw.visitMethod(ACC_PUBLIC, "eval", "(" + TUPLE_DESC + ")" + DATUM_DESC, null, null);
+    mv.visitCode();
+    new MethodGenerator(mv).generate(root);
+    if (root.type == BOOLEAN) {
+      mv.visitMethodInsn(INVOKESTATIC, UTIL_CLASS, "toBoolDatum", "(I)" + DATUM_DESC);
+    } else {
+      mv.visitVarInsn(ILOAD, WAS_NULL);
+      String boxMethod;
+      switch (root.type) {
+        case INT2: boxMethod = "toInt2Datum"; break;
+        case INT4: boxMethod = "toInt4Datum"; break;
+        case INT8: boxMethod = "toInt8Datum"; break;
+        case FLOAT4: boxMethod = "toFloat4Datum"; break;
+        default: boxMethod = "toFloat8Datum"; break;
+      }
+      mv.visitMethodInsn(INVOKESTATIC, UTIL_CLASS, boxMethod,
+          "(" + getJavaType(root.type).getDescriptor() + "Z)" + DATUM_DESC);
+    }
+    mv.visitInsn(ARETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    // boolean isTrue(Tuple)
+    mv = cw.visitMethod(ACC_PUBLIC, "isTrue", "(" + TUPLE_DESC + ")Z", null, null);
+    mv.visitCode();
+    if (root.type == BOOLEAN) {
+      new MethodGenerator(mv).generate(root);
+      Label notTrue = new Label();
+      mv.visitInsn(ICONST_1);
+      mv.visitJumpInsn(IF_ICMPNE, notTrue);
+      mv.visitInsn(ICONST_1);
+      mv.visitInsn(IRETURN);
+      mv.visitLabel(notTrue);
+    }
+    mv.visitInsn(ICONST_0);
+    mv.visitInsn(IRETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    cw.visitEnd();
+
+    GeneratedClassLoader loader = new GeneratedClassLoader(CompiledEval.class.getClassLoader());
+    return loader.defineClass(className, cw.toByteArray()).asSubclass(CompiledEval.class);
+  }
+
+  /**
+   * Generates the code of an expression tree. The code of each expression leaves its value on the stack.
+   * A numeric expression also sets the WAS_NULL local variable.
+   */
+  private static class MethodGenerator {
+    private final MethodVisitor mv;
+    private int nextLocal = FIRST_TEMP;
+
+    MethodGenerator(MethodVisitor mv) {
+      this.mv = mv;
+    }
+
+    private int newLocal(Type type) {
+      int local = nextLocal;
+      nextLocal += type.getSize();
+      return local;
+    }
+
+    private void pushInt(int value) {
+      if (value >= -1 && value <= 5) {
+        mv.visitInsn(ICONST_0 + value);
+      } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+        mv.visitIntInsn(BIPUSH, value);
+      } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+        mv.visitIntInsn(SIPUSH, value);
+      } else {
+        mv.visitLdcInsn(value);
+      }
+    }
+
+    private void pushDefault(Type type) {
+      if (type == Type.LONG_TYPE) {
+        mv.visitInsn(LCONST_0);
+      } else if (type == Type.FLOAT_TYPE) {
+        mv.visitInsn(FCONST_0);
+      } else if (type == Type.DOUBLE_TYPE) {
+        mv.visitInsn(DCONST_0);
+      } else {
+        mv.visitInsn(ICONST_0);
+      }
+    }
+
+    private void setWasNull(boolean isNull) {
+      mv.visitInsn(isNull ? ICONST_1 : ICONST_0);
+      mv.visitVarInsn(ISTORE, WAS_NULL);
+    }
+
+    private void convert(Type from, Type to) {
+      if (from == to) {
+        return;
+      }
+      if (from == Type.INT_TYPE) {
+        mv.visitInsn(to == Type.LONG_TYPE ? I2L : (to == Type.FLOAT_TYPE ? I2F : I2D));
+      } else if (from == Type.LONG_TYPE) {
+        mv.visitInsn(to == Type.FLOAT_TYPE ? L2F : L2D);
+      } else if (from == Type.FLOAT_TYPE) {
+        mv.visitInsn(F2D);
+      } else {
+        throw new IllegalArgumentException("Cannot narrow " + from + " to " + to);
+      }
+    }
+
+    void generate(Expr expr) {
+      if (expr.callOut >= 0) {
+        generateCallOut(expr);
+        return;
+      }
+
+      switch (expr.eval.getType()) {
+        case FIELD:
+          generateField(expr);
+          break;
+        case CONST:
+          generateConst(expr);
+          break;
+        case PLUS:
+        case MINUS:
+        case MULTIPLY:
+        case DIVIDE:
+        case MODULAR:
+          generateArithmetic(expr);
+          break;
+        case EQUAL:
+        case NOT_EQUAL:
+        case LTH:
+        case LEQ:
+        case GTH:
+        case GEQ:
+          generateComparison(expr);
+          break;
+        case AND:
+        case OR:
+          generate(expr.left);
+          generate(expr.right);
+          mv.visitMethodInsn(INVOKESTATIC, UTIL_CLASS, expr.eval.getType() == EvalType.AND ? "and" : "or", "(II)I");
+          break;
+        case NOT:
+          generate(expr.left);
+          mv.visitMethodInsn(INVOKESTATIC, UTIL_CLASS, "not", "(I)I");
+          break;
+        case IS_NULL:
+          generateIsNull(expr);
+          break;
+        default:
+          throw new IllegalStateException("Cannot generate code for " + expr.eval.getType());
+      }
+    }
+
+    private void generateCallOut(Expr expr) {
+      mv.visitVarInsn(ALOAD, THIS);
+      pushInt(expr.callOut);
+      mv.visitVarInsn(ALOAD, TUPLE);
+      mv.visitMethodInsn(INVOKEVIRTUAL, BASE_CLASS, "callOut", "(I" + TUPLE_DESC + ")" + DATUM_DESC);
+      mv.visitMethodInsn(INVOKESTATIC, UTIL_CLASS, "toTriState", "(" + DATUM_DESC + ")I");
+    }
+
+    private void generateField(Expr expr) {
+      if (expr.type == BOOLEAN) {
+        mv.visitVarInsn(ALOAD, TUPLE);
+        pushInt(expr.fieldId);
+        mv.visitMethodInsn(INVOKEINTERFACE, TUPLE_CLASS, "get", "(I)" + DATUM_DESC);
+        mv.visitMethodInsn(INVOKESTATIC, UTIL_CLASS, "toTriState", "(" + DATUM_DESC + ")I");
+        return;
+      }
+
+      Label notNull = new Label();
+      Label end = new Label();
+      mv.visitVarInsn(ALOAD, TUPLE);
+      pushInt(expr.fieldId);
+      mv.visitMethodInsn(INVOKEINTERFACE, TUPLE_CLASS, "isNull", "(I)Z");
+      mv.visitJumpInsn(IFEQ, notNull);
+      setWasNull(true);
+      pushDefault(getJavaType(expr.type));
+      mv.visitJumpInsn(GOTO, end);
+      mv.visitLabel(notNull);
+      setWasNull(false);
+      mv.visitVarInsn(ALOAD, TUPLE);
+      pushInt(expr.fieldId);
+      switch (expr.type) {
+        case INT2:
+        case INT4:
+          mv.visitMethodInsn(INVOKEINTERFACE, TUPLE_CLASS, "getInt4", "(I)I");
+          break;
+        case INT8:
+          mv.visitMethodInsn(INVOKEINTERFACE, TUPLE_CLASS, "getInt8", "(I)J");
+          break;
+        case FLOAT4:
+          mv.visitMethodInsn(INVOKEINTERFACE, TUPLE_CLASS, "getFloat8", "(I)D");
+          mv.visitInsn(D2F);
+          break;
+        default:
+          mv.visitMethodInsn(INVOKEINTERFACE, TUPLE_CLASS, "getFloat8", "(I)D");
+          break;
+      }
+      mv.visitLabel(end);
+    }
+
+    private void generateConst(Expr expr) {
+      Datum value = ((ConstEval) expr.eval).getValue();
+      switch (expr.type) {
+        case BOOLEAN:
+          pushInt(CodeGenUtil.toTriState(value));
+          return;
+        case INT2:
+        case INT4:
+          pushInt(value.asInt4());
+          break;
+        case INT8:
+          mv.visitLdcInsn(value.asInt8());
+          break;
+        case FLOAT4:
+          mv.visitLdcInsn(value.asFloat4());
+          break;
+        default:
+          mv.visitLdcInsn(value.asFloat8());
+          break;
+      }
+      setWasNull(false);
+    }
+
+    /**
+     * Evaluates both operands and stores them into local variables. If either operand is null,
+     * it jumps to the given label.
+     */
+    private int [] generateOperands(Expr expr, Label ifNull) {
+      Type leftType = getJavaType(expr.left.type);
+      Type rightType = getJavaType(expr.right.type);
+
+      generate(expr.left);
+      int leftValue = newLocal(leftType);
+      mv.visitVarInsn(leftType.getOpcode(ISTORE), leftValue);
+      int leftNull = newLocal(Type.INT_TYPE);
+      mv.visitVarInsn(ILOAD, WAS_NULL);
+      mv.visitVarInsn(ISTORE, leftNull);
+
+      generate(expr.right);
+      int rightValue = newLocal(rightType);
+      mv.visitVarInsn(rightType.getOpcode(ISTORE), rightValue);
+
+      mv.visitVarInsn(ILOAD, leftNull);
+      mv.visitVarInsn(ILOAD, WAS_NULL);
+      mv.visitInsn(IOR);
+      mv.visitJumpInsn(IFNE, ifNull);
+      return new int [] {leftValue, rightValue};
+    }
+
+    private void loadOperands(Expr expr, int [] operands, Type computeType) {
+      Type leftType = getJavaType(expr.left.type);
+      Type rightType = getJavaType(expr.right.type);
+      mv.visitVarInsn(leftType.getOpcode(ILOAD), operands[0]);
+      convert(leftType, computeType);
+      mv.visitVarInsn(rightType.getOpcode(ILOAD), operands[1]);
+      convert(rightType, computeType);
+    }
+
+    private void generateArithmetic(Expr expr) {
+      Label ifNull = new Label();
+      Label end = new Label();
+      Type computeType = getComputeType(expr.left.type, expr.right.type);
+      Type resultType = getJavaType(expr.type);
+
+      int [] operands = generateOperands(expr, ifNull);
+      loadOperands(expr, operands, computeType);
+      int opcode;
+      switch (expr.eval.getType()) {
+        case PLUS: opcode = IADD; break;
+        case MINUS: opcode = ISUB; break;
+        case MULTIPLY: opcode = IMUL; break;
+        case DIVIDE: opcode = IDIV; break;
+        default: opcode = IREM; break;
+      }
+      mv.visitInsn(computeType.getOpcode(opcode));
+      if (expr.type == INT2) {
+        mv.visitInsn(I2S);
+      } else {
+        convert(computeType, resultType);
+      }
+      mv.visitJumpInsn(GOTO, end);
+
+      mv.visitLabel(ifNull);
+      setWasNull(true);
+      pushDefault(resultType);
+      mv.visitLabel(end);
+    }
+
+    private void generateComparison(Expr expr) {
+      Label ifNull = new Label();
+      Label end = new Label();
+      Type computeType = getComputeType(expr.left.type, expr.right.type);
+      if (computeType == Type.INT_TYPE) {
+        computeType = Type.LONG_TYPE;
+      }
+      String operandDesc = computeType.getDescriptor() + computeType.getDescriptor();
+
+      int [] operands = generateOperands(expr, ifNull);
+      loadOperands(expr, operands, computeType);
+      if (expr.eval.getType() == EvalType.EQUAL) {
+        mv.visitMethodInsn(INVOKESTATIC, UTIL_CLASS, "equals", "(" + operandDesc + ")I");
+      } else {
+        mv.visitMethodInsn(INVOKESTATIC, UTIL_CLASS, "compare", "(" + operandDesc + ")I");
+        int op;
+        switch (expr.eval.getType()) {
+          case NOT_EQUAL: op = CodeGenUtil.NOT_EQUAL; break;
+          case LTH: op = CodeGenUtil.LTH; break;
+          case LEQ: op = CodeGenUtil.LEQ; break;
+          case GTH: op = CodeGenUtil.GTH; break;
+          default: op = CodeGenUtil.GEQ; break;
+        }
+        pushInt(op);
+        mv.visitMethodInsn(INVOKESTATIC, UTIL_CLASS, "test", "(II)I");
+      }
+      mv.visitJumpInsn(GOTO, end);
+
+      mv.visitLabel(ifNull);
+      pushInt(BooleanDatum.UNKNOWN_INT);
+      mv.visitLabel(end);
+    }
+
+    private void generateIsNull(Expr expr) {
+      boolean isNot = ((IsNullEval) expr.eval).isNot();
+      generate(expr.left);
+      if (expr.left.type == BOOLEAN) {
+        mv.visitInsn(isNot ? ICONST_1 : ICONST_0);
+        mv.visitMethodInsn(INVOKESTATIC, UTIL_CLASS, "isUnknown", "(IZ)I");
+      } else {
+        mv.visitInsn(getJavaType(expr.left.type).getSize() == 2 ? POP2 : POP);
+        mv.visitVarInsn(ILOAD, WAS_NULL);
+        mv.visitInsn(isNot ? ICONST_1 : ICONST_0);
+        mv.visitMethodInsn(INVOKESTATIC, UTIL_CLASS, "isNull", "(ZZ)I");
+      }
+    }
+  }
+
+  private static class GeneratedClassLoader extends ClassLoader {
+    GeneratedClassLoader(ClassLoader parent) {
+      super(parent);
+    }
+
+    Class<?> defineClass(String name, byte [] bytes) {
+      return defineClass(name, bytes, 0, bytes.length);
+    }
+  }
+}
@@ -32,6 +32,7 @@ public class AggregationFunctionCallEval extends FunctionEval implements Cloneab
   @Expose protected AggFunction instance;
   @Expose boolean firstPhase = false;
   private Tuple params;
+  private Tuple partialParams;
 
   public AggregationFunctionCallEval(FunctionDesc desc, AggFunction instance, EvalNode[] givenArgs) {
     super(EvalType.AGG_FUNCTION, desc, givenArgs);
@@ -84,6 +85,29 @@ public class AggregationFunctionCallEval extends FunctionEval implements Cloneab
     }
   }
 
+  /**
+   * Returns the intermediate result of an aggregation regardless of the phase.
+   * It is used to spill the states of aggregations to disk.
+   */
+  public Datum getPartialResult(EvalContext ctx) {
+    return instance.getPartialResult(((AggFunctionCtx)ctx).funcCtx);
+  }
+
+  public DataType getPartialResultType() {
+    return instance.getPartialResultType();
+  }
+
+  /**
+   * Merges an intermediate result returned by {@link #getPartialResult(EvalContext)} into a given context.
+   */
+  public void mergePartialResult(EvalContext ctx, Datum partialResult) {
+    if (partialParams == null) {
+      partialParams = new VTuple(1);
+    }
+    partialParams.put(0, partialResult);
+    instance.merge(((AggFunctionCtx)ctx).funcCtx, partialParams);
+  }
+
   public Object clone() throws CloneNotSupportedException {
     return super.clone();
   }
@@ -92,6 +116,10 @@ public class AggregationFunctionCallEval extends FunctionEval implements Cloneab
     this.firstPhase = true;
   }
 
+  public boolean isFirstPhase() {
+    return firstPhase;
+  }
+
   protected class AggFunctionCtx extends FuncCallCtx {
     FunctionContext funcCtx;
 
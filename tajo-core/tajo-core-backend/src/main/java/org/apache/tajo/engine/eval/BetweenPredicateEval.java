@@ -46,6 +46,26 @@ public class BetweenPredicateEval extends EvalNode {
     this.end = end;
   }
 
+  public boolean isNot() {
+    return not;
+  }
+
+  public boolean isSymmetric() {
+    return symmetric;
+  }
+
+  public EvalNode getPredicand() {
+    return predicand;
+  }
+
+  public EvalNode getBegin() {
+    return begin;
+  }
+
+  public EvalNode getEnd() {
+    return end;
+  }
+
   private static interface Checker {
     void eval(BetweenContext context, Schema schema, Tuple param);
   }
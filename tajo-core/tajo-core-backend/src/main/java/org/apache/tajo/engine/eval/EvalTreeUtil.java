@@ -24,8 +24,11 @@ import com.google.common.collect.Sets;
 import org.apache.tajo.catalog.Column;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.common.TajoDataTypes.DataType;
+import org.apache.tajo.datum.Datum;
 import org.apache.tajo.engine.planner.Target;
 import org.apache.tajo.exception.InternalException;
+import org.apache.tajo.storage.ScanFilter;
+import org.apache.tajo.storage.ScanFilter.Operator;
 import org.apache.tajo.util.TUtil;
 
 import java.util.*;
@@ -199,6 +202,87 @@ public class EvalTreeUtil {
         expr.getRightExpr().getType() == EvalType.FIELD;
   }
   
+  /**
+   * Extracts the conjunctive predicates on single columns from a search condition, such as
+   * <code>col &lt; const</code>, <code>col BETWEEN const AND const</code> and <code>col IS NULL</code>.
+   * The other predicates are ignored, so the result is weaker than the search condition.
+   */
+  public static ScanFilter toScanFilter(EvalNode qual) {
+    ScanFilter filter = new ScanFilter();
+    for (EvalNode expr : AlgebraicUtil.toConjunctiveNormalFormArray(qual)) {
+      switch (expr.getType()) {
+        case EQUAL:
+        case NOT_EQUAL:
+        case LTH:
+        case LEQ:
+        case GTH:
+        case GEQ: {
+          EvalNode left = expr.getLeftExpr();
+          EvalNode right = expr.getRightExpr();
+          if (left.getType() == EvalType.FIELD && right.getType() == EvalType.CONST) {
+            addComparison(filter, (FieldEval) left, toOperator(expr.getType()), (ConstEval) right);
+          } else if (left.getType() == EvalType.CONST && right.getType() == EvalType.FIELD) {
+            // const op col is the same as col op' const, where op' is the mirrored operator
+            addComparison(filter, (FieldEval) right, mirror(toOperator(expr.getType())), (ConstEval) left);
+          }
+          break;
+        }
+
+        case BETWEEN: {
+          BetweenPredicateEval between = (BetweenPredicateEval) expr;
+          if (!between.isNot() && !between.isSymmetric() &&
+              between.getPredicand().getType() == EvalType.FIELD &&
+              between.getBegin().getType() == EvalType.CONST && between.getEnd().getType() == EvalType.CONST) {
+            FieldEval field = (FieldEval) between.getPredicand();
+            addComparison(filter, field, Operator.GEQ, (ConstEval) between.getBegin());
+            addComparison(filter, field, Operator.LEQ, (ConstEval) between.getEnd());
+          }
+          break;
+        }
+
+        case IS_NULL: {
+          IsNullEval isNull = (IsNullEval) expr;
+          if (isNull.getLeftExpr().getType() == EvalType.FIELD) {
+            filter.addPredicate(((FieldEval) isNull.getLeftExpr()).getColumnRef(),
+                isNull.isNot() ? Operator.IS_NOT_NULL : Operator.IS_NULL, null);
+          }
+          break;
+        }
+
+        default:
+      }
+    }
+    return filter;
+  }
+
+  private static void addComparison(ScanFilter filter, FieldEval field, Operator operator, ConstEval constant) {
+    Datum value = constant.getValue();
+    if (!value.isNull()) {
+      filter.addPredicate(field.getColumnRef(), operator, value);
+    }
+  }
+
+  private static Operator mirror(Operator operator) {
+    switch (operator) {
+      case LTH: return Operator.GTH;
+      case LEQ: return Operator.GEQ;
+      case GTH: return Operator.LTH;
+      case GEQ: return Operator.LEQ;
+      default: return operator;
+    }
+  }
+
+  private static Operator toOperator(EvalType type) {
+    switch (type) {
+      case EQUAL: return Operator.EQUAL;
+      case NOT_EQUAL: return Operator.NOT_EQUAL;
+      case LTH: return Operator.LTH;
+      case LEQ: return Operator.LEQ;
+      case GTH: return Operator.GTH;
+      default: return Operator.GEQ;
+    }
+  }
+
   public static class ChangeColumnRefVisitor implements EvalNodeVisitor {    
     private final String findColumn;
     private final String toBeChanged;
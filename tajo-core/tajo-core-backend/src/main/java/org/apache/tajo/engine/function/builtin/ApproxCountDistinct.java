@@ -0,0 +1,110 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.function.builtin;
+
+import com.google.protobuf.ByteString;
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.common.TajoDataTypes.DataType;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.Int8Datum;
+import org.apache.tajo.datum.ProtobufDatum;
+import org.apache.tajo.engine.function.AggFunction;
+import org.apache.tajo.engine.function.FunctionContext;
+import org.apache.tajo.engine.function.annotation.Description;
+import org.apache.tajo.engine.function.annotation.ParamTypes;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.util.HyperLogLog;
+
+import static org.apache.tajo.InternalTypes.HyperLogLogProto;
+
+/**
+ * Approximate count(distinct column) function. Unlike {@link CountValueDistinct}, it does not require
+ * sorted input, since the partial result is a mergeable HyperLogLog sketch.
+ */
+@Description(
+  functionName = "approx_count_distinct",
+  description = "the approximate number of distinct non-NULL values, estimated by HyperLogLog",
+  example = "> SELECT approx_count_distinct(expr);",
+  returnType = Type.INT8,
+  paramTypes = {@ParamTypes(paramTypes = {Type.BOOLEAN}),
+      @ParamTypes(paramTypes = {Type.INT2}),
+      @ParamTypes(paramTypes = {Type.INT4}),
+      @ParamTypes(paramTypes = {Type.INT8}),
+      @ParamTypes(paramTypes = {Type.FLOAT4}),
+      @ParamTypes(paramTypes = {Type.FLOAT8}),
+      @ParamTypes(paramTypes = {Type.CHAR}),
+      @ParamTypes(paramTypes = {Type.TEXT}),
+      @ParamTypes(paramTypes = {Type.DATE}),
+      @ParamTypes(paramTypes = {Type.TIME}),
+      @ParamTypes(paramTypes = {Type.TIMESTAMP}),
+      @ParamTypes(paramTypes = {Type.INET4}),
+      @ParamTypes(paramTypes = {Type.BLOB})}
+)
+public class ApproxCountDistinct extends AggFunction<Int8Datum> {
+
+  public ApproxCountDistinct() {
+    super(new Column[] {
+        new Column("expr", Type.ANY)
+    });
+  }
+
+  @Override
+  public FunctionContext newContext() {
+    return new HyperLogLogContext();
+  }
+
+  @Override
+  public void eval(FunctionContext ctx, Tuple params) {
+    Datum datum = params.get(0);
+    if (!datum.isNull()) {
+      ((HyperLogLogContext) ctx).sketch.offer(datum.asByteArray());
+    }
+  }
+
+  @Override
+  public void merge(FunctionContext ctx, Tuple part) {
+    ProtobufDatum datum = (ProtobufDatum) part.get(0);
+    HyperLogLogProto proto = (HyperLogLogProto) datum.get();
+    ((HyperLogLogContext) ctx).sketch.merge(HyperLogLog.fromBytes(proto.getSketch().toByteArray()));
+  }
+
+  @Override
+  public Datum getPartialResult(FunctionContext ctx) {
+    HyperLogLogProto.Builder builder = HyperLogLogProto.newBuilder();
+    builder.setSketch(ByteString.copyFrom(((HyperLogLogContext) ctx).sketch.toBytes()));
+    return new ProtobufDatum(builder.build());
+  }
+
+  @Override
+  public DataType getPartialResultType() {
+    return CatalogUtil.newDataType(Type.PROTOBUF, HyperLogLogProto.class.getName());
+  }
+
+  @Override
+  public Int8Datum terminate(FunctionContext ctx) {
+    return DatumFactory.createInt8(((HyperLogLogContext) ctx).sketch.cardinality());
+  }
+
+  protected class HyperLogLogContext implements FunctionContext {
+    HyperLogLog sketch = new HyperLogLog();
+  }
+}
@@ -87,4 +87,16 @@ public class CoreGsonHelper {
   public static <T extends GsonObject> T fromJson(String json, Class<T> clazz) {
     return getInstance().fromJson(json, clazz);
   }
+
+  /**
+   * Serializes an object into the compact binary form of {@link BinaryJsonCodec}. It is used to ship plans
+   * to workers without printing and parsing JSON text.
+   */
+  public static byte [] toBinary(GsonObject object, Class<? extends GsonObject> clazz) {
+    return BinaryJsonCodec.encode(getInstance().toJsonTree(object, clazz));
+  }
+
+  public static <T extends GsonObject> T fromBinary(byte [] bytes, Class<T> clazz) {
+    return getInstance().fromJson(BinaryJsonCodec.decode(bytes), clazz);
+  }
 }
@@ -43,6 +43,7 @@ public interface AlgebraVisitor<CONTEXT, RESULT> {
   // Data definition language
   RESULT visitCreateTable(CONTEXT ctx, Stack<Expr> stack, CreateTable expr) throws PlanningException;
   RESULT visitDropTable(CONTEXT ctx, Stack<Expr> stack, DropTable expr) throws PlanningException;
+  RESULT visitAnalyzeTable(CONTEXT ctx, Stack<Expr> stack, AnalyzeTable expr) throws PlanningException;
 
   // Insert or Update
   RESULT visitInsert(CONTEXT ctx, Stack<Expr> stack, Insert expr) throws PlanningException;
@@ -27,10 +27,13 @@ import org.apache.tajo.engine.eval.AlgebraicUtil;
 import org.apache.tajo.engine.eval.EvalNode;
 import org.apache.tajo.engine.planner.graph.DirectedGraphCursor;
 import org.apache.tajo.engine.planner.logical.*;
+import org.apache.tajo.engine.planner.logical.join.DynamicProgrammingJoinOrderAlgorithm;
 import org.apache.tajo.engine.planner.logical.join.FoundJoinOrder;
 import org.apache.tajo.engine.planner.logical.join.GreedyHeuristicJoinOrderAlgorithm;
+import org.apache.tajo.engine.planner.logical.join.JoinEdge;
 import org.apache.tajo.engine.planner.logical.join.JoinGraph;
 import org.apache.tajo.engine.planner.logical.join.JoinOrderAlgorithm;
+import org.apache.tajo.engine.planner.logical.join.SelectivityEstimator;
 import org.apache.tajo.engine.planner.rewrite.BasicQueryRewriteEngine;
 import org.apache.tajo.engine.planner.rewrite.FilterPushDownRule;
 import org.apache.tajo.engine.planner.rewrite.PartitionedTableRewriter;
@@ -50,9 +53,16 @@ import static org.apache.tajo.engine.planner.logical.join.GreedyHeuristicJoinOrd
 public class LogicalOptimizer {
   private BasicQueryRewriteEngine rulesBeforeJoinOpt;
   private BasicQueryRewriteEngine rulesAfterToJoinOpt;
-  private JoinOrderAlgorithm joinOrderAlgorithm = new GreedyHeuristicJoinOrderAlgorithm();
+  private JoinOrderAlgorithm greedyJoinOrderAlgorithm = new GreedyHeuristicJoinOrderAlgorithm();
+  private JoinOrderAlgorithm dpJoinOrderAlgorithm;
+  private int dpMaxRelationNum;
 
   public LogicalOptimizer(TajoConf systemConf) {
+    dpJoinOrderAlgorithm = new DynamicProgrammingJoinOrderAlgorithm(
+        systemConf.getLongVar(TajoConf.ConfVars.DIST_QUERY_BROADCAST_JOIN_THRESHOLD));
+    dpMaxRelationNum = Math.min(DynamicProgrammingJoinOrderAlgorithm.MAX_RELATION_NUM,
+        systemConf.getIntVar(TajoConf.ConfVars.OPTIMIZER_JOIN_ORDER_DP_MAX_RELATIONS));
+
     rulesBeforeJoinOpt = new BasicQueryRewriteEngine();
     rulesBeforeJoinOpt.addRewriteRule(new FilterPushDownRule());
 
@@ -86,6 +96,7 @@ public class LogicalOptimizer {
       JoinGraphContext joinGraphContext = JoinGraphBuilder.buildJoinGraph(plan, block);
 
       // finding join order and restore remain filter order
+      JoinOrderAlgorithm joinOrderAlgorithm = chooseJoinOrderAlgorithm(block, joinGraphContext.joinGraph);
       FoundJoinOrder order = joinOrderAlgorithm.findBestOrder(plan, block,
           joinGraphContext.joinGraph, joinGraphContext.relationsForProduct);
       JoinNode newJoinNode = order.getOrderedJoin();
@@ -108,6 +119,22 @@ public class LogicalOptimizer {
     }
   }
 
+  /**
+   * The exhaustive enumeration is used only for small join graphs which consist of inner joins.
+   * Otherwise, it falls back to the greedy heuristic.
+   */
+  private JoinOrderAlgorithm chooseJoinOrderAlgorithm(LogicalPlan.QueryBlock block, JoinGraph joinGraph) {
+    if (block.getRelations().size() > dpMaxRelationNum) {
+      return greedyJoinOrderAlgorithm;
+    }
+    for (JoinEdge edge : joinGraph.getEdgesAll()) {
+      if (!PlannerUtil.isCommutativeJoin(edge.getJoinType())) {
+        return greedyJoinOrderAlgorithm;
+      }
+    }
+    return dpJoinOrderAlgorithm;
+  }
+
   private static class JoinTargetCollector extends BasicLogicalPlanVisitor<Set<Target>, LogicalNode> {
     @Override
     public LogicalNode visitJoin(Set<Target> ctx, LogicalPlan plan, LogicalPlan.QueryBlock block, JoinNode node,
@@ -263,7 +290,7 @@ public class LogicalOptimizer {
       double filterFactor = 1;
       if (joinNode.hasJoinQual()) {
         EvalNode [] quals = AlgebraicUtil.toConjunctiveNormalFormArray(joinNode.getJoinQual());
-        filterFactor = Math.pow(GreedyHeuristicJoinOrderAlgorithm.DEFAULT_SELECTION_FACTOR, quals.length);
+        filterFactor = SelectivityEstimator.estimate(quals, joinNode.getLeftChild(), joinNode.getRightChild());
       }
 
       if (joinNode.getLeftChild() instanceof RelationNode) {
@@ -285,6 +285,13 @@ class LogicalPlanPreprocessor extends BaseAlgebraVisitor<LogicalPlanPreprocessor
     return dropTable;
   }
 
+  @Override
+  public LogicalNode visitAnalyzeTable(PreprocessContext ctx, Stack<Expr> stack, AnalyzeTable expr)
+      throws PlanningException {
+    AnalyzeTableNode analyzeTable = new AnalyzeTableNode(ctx.plan.newPID());
+    return analyzeTable;
+  }
+
   ///////////////////////////////////////////////////////////////////////////////////////////////////////////
   // Insert or Update Section
   ///////////////////////////////////////////////////////////////////////////////////////////////////////////
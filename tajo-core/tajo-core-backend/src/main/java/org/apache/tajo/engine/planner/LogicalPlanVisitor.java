@@ -76,4 +76,7 @@ public interface LogicalPlanVisitor<CONTEXT, RESULT> {
 
   RESULT visitDropTable(CONTEXT context, LogicalPlan plan, LogicalPlan.QueryBlock block, DropTableNode node,
                         Stack<LogicalNode> stack) throws PlanningException;
+
+  RESULT visitAnalyzeTable(CONTEXT context, LogicalPlan plan, LogicalPlan.QueryBlock block, AnalyzeTableNode node,
+                           Stack<LogicalNode> stack) throws PlanningException;
 }
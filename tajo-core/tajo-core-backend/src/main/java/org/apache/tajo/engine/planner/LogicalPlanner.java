@@ -1374,6 +1374,28 @@ public class LogicalPlanner extends BaseAlgebraVisitor<LogicalPlanner.PlanContex
     return dropTableNode;
   }
 
+  @Override
+  public LogicalNode visitAnalyzeTable(PlanContext context, Stack<Expr> stack, AnalyzeTable analyzeTable)
+      throws PlanningException {
+    AnalyzeTableNode analyzeTableNode = context.queryBlock.getNodeFromExpr(analyzeTable);
+    analyzeTableNode.setTableName(analyzeTable.getTableName());
+    if (!catalog.existsTable(analyzeTable.getTableName())) {
+      throw new VerifyException("table \"" + analyzeTable.getTableName() + "\" does not exist");
+    }
+
+    // The statistics are collected from every column of the table. The scan is registered as a relation,
+    // so the scan of a partitioned table is rewritten to read all of its partitions.
+    TableDesc desc = catalog.getTableDesc(analyzeTable.getTableName());
+    ScanNode scanNode = new ScanNode(context.plan.newPID(), desc);
+    scanNode.setTargets(PlannerUtil.schemaToTargets(scanNode.getOutSchema()));
+    context.queryBlock.addRelation(scanNode);
+
+    analyzeTableNode.setChild(scanNode);
+    analyzeTableNode.setInSchema(scanNode.getOutSchema());
+    analyzeTableNode.setOutSchema(new Schema());
+    return analyzeTableNode;
+  }
+
   /*===============================================================================================
     Util SECTION
   ===============================================================================================*/
@@ -32,7 +32,9 @@ import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.storage.fragment.FragmentConvertor;
 import org.apache.tajo.worker.TaskAttemptContext;
 import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Options;
 import org.apache.tajo.catalog.SortSpec;
+import org.apache.tajo.catalog.TableMeta;
 import org.apache.tajo.catalog.proto.CatalogProtos;
 import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.engine.planner.enforce.Enforcer;
@@ -72,10 +74,14 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
 
     try {
       execPlan = createPlanRecursive(context, logicalPlan);
+      if (conf.getBoolVar(TajoConf.ConfVars.EXECUTOR_VECTORIZED_ENABLED)) {
+        execPlan = buildBatchBoundaries(context, execPlan, false);
+      }
       if (execPlan instanceof StoreTableExec
           || execPlan instanceof RangeShuffleFileWriteExec
           || execPlan instanceof HashShuffleFileWriteExec
-          || execPlan instanceof ColumnPartitionedTableStoreExec) {
+          || execPlan instanceof ColumnPartitionedTableStoreExec
+          || execPlan instanceof AnalyzeTableExec) {
         return execPlan;
       } else if (context.getDataChannel() != null) {
         return buildOutputOperator(context, logicalPlan, execPlan);
@@ -87,6 +93,39 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
     }
   }
 
+  /**
+   * In the vectorized mode, executors which support tuple batches are driven by batches. This method inserts
+   * {@link BatchToRowExec} at the boundaries where a row-only executor consumes a chain of batch executors.
+   * An executor producing batches without any batch input (e.g., a single scan) is left in the row mode
+   * because its batches would be converted back into rows immediately.
+   *
+   * @param batchConsumer true if the parent consumes the given executor via {@link PhysicalExec#nextBatch()}.
+   */
+  private PhysicalExec buildBatchBoundaries(TaskAttemptContext context, PhysicalExec exec, boolean batchConsumer) {
+    boolean batchInput = false;
+
+    if (exec instanceof UnaryPhysicalExec) {
+      UnaryPhysicalExec unary = (UnaryPhysicalExec) exec;
+      PhysicalExec child = unary.getChild();
+      batchInput = exec.isBatchSupported() && child.isBatchSupported();
+      unary.setChild(buildBatchBoundaries(context, child, exec.isBatchSupported()));
+
+    } else if (exec instanceof BinaryPhysicalExec) {
+      BinaryPhysicalExec binary = (BinaryPhysicalExec) exec;
+      // a binary executor only consumes its left (probe) side via batches.
+      batchInput = exec.isBatchSupported() && binary.getLeftChild().isBatchSupported();
+      binary.setLeftChild(buildBatchBoundaries(context, binary.getLeftChild(), exec.isBatchSupported()));
+      binary.setRightChild(buildBatchBoundaries(context, binary.getRightChild(), false));
+    }
+
+    if (!batchConsumer && batchInput) {
+      LOG.info("Vectorized execution is enabled for " + exec.getClass().getSimpleName());
+      return new BatchToRowExec(context, exec);
+    } else {
+      return exec;
+    }
+  }
+
   private PhysicalExec buildOutputOperator(TaskAttemptContext context, LogicalNode plan,
                                            PhysicalExec execPlan) throws IOException {
     DataChannel channel = context.getDataChannel();
@@ -96,6 +135,11 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
     shuffleFileWriteNode.setInSchema(plan.getOutSchema());
     shuffleFileWriteNode.setOutSchema(plan.getOutSchema());
     shuffleFileWriteNode.setShuffle(channel.getShuffleType(), channel.getShuffleKeys(), channel.getShuffleOutputNum());
+    if (channel.hasCompressionCodec()) {
+      Options options = new Options();
+      options.put(TableMeta.COMPRESSION_CODEC, channel.getCompressionCodec());
+      shuffleFileWriteNode.setOptions(options);
+    }
     shuffleFileWriteNode.setChild(plan);
 
     PhysicalExec outExecPlan = createShuffleFileWritePlan(context, shuffleFileWriteNode, execPlan);
@@ -121,6 +165,11 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
         leftExec = createPlanRecursive(ctx, storeNode.getChild());
         return createStorePlan(ctx, storeNode, leftExec);
 
+      case ANALYZE_TABLE:
+        AnalyzeTableNode analyzeNode = (AnalyzeTableNode) logicalNode;
+        leftExec = createPlanRecursive(ctx, analyzeNode.getChild());
+        return new AnalyzeTableExec(ctx, analyzeNode, leftExec);
+
       case SELECTION:
         SelectionNode selNode = (SelectionNode) logicalNode;
         leftExec = createPlanRecursive(ctx, selNode.getChild());
@@ -172,6 +221,11 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
 
       case LIMIT:
         LimitNode limitNode = (LimitNode) logicalNode;
+        if (isTopNSortable(limitNode)) {
+          SortNode childSortNode = (SortNode) limitNode.getChild();
+          leftExec = createPlanRecursive(ctx, childSortNode.getChild());
+          return createTopNSortPlan(ctx, limitNode, childSortNode, leftExec);
+        }
         leftExec = createPlanRecursive(ctx, limitNode.getChild());
         return new LimitExec(ctx, limitNode.getInSchema(),
             limitNode.getOutSchema(), leftExec, limitNode);
@@ -706,6 +760,14 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
         return createSortAggregation(context, property, groupbyNode, subOp);
       }
     }
+
+    // the partial aggregates of the first phase are merged after the hash shuffle
+    DataChannel channel = context.getDataChannel();
+    if (conf.getBoolVar(TajoConf.ConfVars.EXECUTOR_GROUPBY_PARTIAL_ENABLED) && channel != null
+        && channel.getShuffleType() == ShuffleType.HASH_SHUFFLE && PartialAggregateExec.isApplicable(groupbyNode)) {
+      LOG.info("The planner chooses [Partial Aggregation]");
+      return new PartialAggregateExec(context, groupbyNode, subOp);
+    }
     return createBestAggregationPlan(context, groupbyNode, subOp);
   }
 
@@ -757,9 +819,11 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
     long estimatedSize = estimateSizeRecursive(context, outerLineage);
     final long threshold = conf.getLongVar(TajoConf.ConfVars.EXECUTOR_GROUPBY_INMEMORY_HASH_THRESHOLD);
 
-    // if the relation size is less than the threshold,
+    // if the relation size is less than the threshold or the hash aggregation can spill partial aggregates,
     // the hash aggregation will be used.
-    if (estimatedSize <= threshold) {
+    boolean spillable = conf.getBoolVar(TajoConf.ConfVars.EXECUTOR_GROUPBY_SPILL_ENABLED) &&
+        HashAggregateExec.isSpillable(groupbyNode);
+    if (estimatedSize <= threshold || spillable) {
       LOG.info("The planner chooses [Hash Aggregation]");
       return createInMemoryHashAggregation(context, groupbyNode, subOp);
     } else {
@@ -783,6 +847,21 @@ public class PhysicalPlannerImpl implements PhysicalPlanner {
     return createBestSortPlan(context, sortNode, child);
   }
 
+  /**
+   * A sort followed by a limit can be evaluated by a top-N sort if the limit is small enough
+   * to keep all result tuples in memory.
+   */
+  private boolean isTopNSortable(LimitNode limitNode) {
+    return limitNode.getChild().getType() == NodeType.SORT &&
+        limitNode.getFetchFirstNum() <= conf.getLongVar(TajoConf.ConfVars.EXECUTOR_SORT_TOPN_MAX_LIMIT);
+  }
+
+  public PhysicalExec createTopNSortPlan(TaskAttemptContext context, LimitNode limitNode, SortNode sortNode,
+                                         PhysicalExec child) throws IOException {
+    LOG.info("The planner chooses [Top-N Sort] for " + limitNode.getFetchFirstNum() + " tuples");
+    return new TopNSortExec(context, sortNode, limitNode, child);
+  }
+
   public SortExec createBestSortPlan(TaskAttemptContext context, SortNode sortNode,
                                      PhysicalExec child) throws IOException {
     String [] outerLineage = PlannerUtil.getRelationLineage(sortNode.getChild());
@@ -19,6 +19,10 @@
 package org.apache.tajo.engine.planner;
 
 import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.engine.codegen.CompiledEval;
+import org.apache.tajo.engine.codegen.EvalCodeGenerator;
 import org.apache.tajo.engine.eval.EvalContext;
 import org.apache.tajo.engine.eval.EvalNode;
 import org.apache.tajo.storage.Tuple;
@@ -29,39 +33,65 @@ public class Projector {
   // for projection
   private final int targetNum;
   private final EvalNode[] evals;
+  // compiled target expressions. An element is null if the target is interpreted.
+  private final CompiledEval[] compiledEvals;
 
-  public Projector(Schema inSchema, Schema outSchema, Target [] targets) {
+  public Projector(TajoConf conf, Schema inSchema, Schema outSchema, Target [] targets) {
     this.inSchema = inSchema;
     if (targets == null) {
       targets = PlannerUtil.schemaToTargets(outSchema);
     }
     this.targetNum = targets.length;
     evals = new EvalNode[targetNum];
+    compiledEvals = new CompiledEval[targetNum];
+    boolean codegenEnabled = conf.getBoolVar(TajoConf.ConfVars.EXECUTOR_CODEGEN_ENABLED);
     for (int i = 0; i < targetNum; i++) {
       evals[i] = targets[i].getEvalTree();
+      if (codegenEnabled) {
+        compiledEvals[i] = EvalCodeGenerator.tryCompile(evals[i], inSchema);
+      }
     }
   }
 
   public void eval(EvalContext[] evalContexts, Tuple in) {
     if (targetNum > 0) {
       for (int i = 0; i < evals.length; i++) {
-        evals[i].eval(evalContexts[i], inSchema, in);
+        if (compiledEvals[i] != null) {
+          ((CompiledContext) evalContexts[i]).result = compiledEvals[i].eval(in);
+        } else {
+          evals[i].eval(evalContexts[i], inSchema, in);
+        }
       }
     }
   }
 
   public void terminate(EvalContext [] evalContexts, Tuple out) {
     for (int i = 0; i < targetNum; i++) {
-      out.put(i, evals[i].terminate(evalContexts[i]));
+      if (compiledEvals[i] != null) {
+        out.put(i, ((CompiledContext) evalContexts[i]).result);
+      } else {
+        out.put(i, evals[i].terminate(evalContexts[i]));
+      }
     }
   }
 
   public EvalContext [] newContexts() {
     EvalContext [] evalContexts = new EvalContext[targetNum];
     for (int i = 0; i < targetNum; i++) {
-      evalContexts[i] = evals[i].newContext();
+      if (compiledEvals[i] != null) {
+        evalContexts[i] = new CompiledContext();
+      } else {
+        evalContexts[i] = evals[i].newContext();
+      }
     }
 
     return evalContexts;
   }
+
+  /**
+   * It keeps the result of a compiled target until terminate() is called.
+   */
+  private static class CompiledContext implements EvalContext {
+    private Datum result;
+  }
 }
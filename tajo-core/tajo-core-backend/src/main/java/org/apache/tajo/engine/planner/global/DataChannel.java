@@ -37,6 +37,11 @@ public class DataChannel {
   private Schema schema;
 
   private StoreType storeType = StoreType.RAW;
+  private String compressionCodec;
+
+  // for runtime join filters
+  private int joinFilterBitNum = 0;
+  private int joinFilterHashNum = 0;
 
   public DataChannel(ExecutionBlockId srcId, ExecutionBlockId targetId) {
     this.srcId = srcId;
@@ -81,6 +86,15 @@ public class DataChannel {
     if (proto.hasStoreType()) {
       this.storeType = proto.getStoreType();
     }
+
+    if (proto.hasCompressionCodec()) {
+      this.compressionCodec = proto.getCompressionCodec();
+    }
+
+    if (proto.hasJoinFilterBitNum()) {
+      this.joinFilterBitNum = proto.getJoinFilterBitNum();
+      this.joinFilterHashNum = proto.getJoinFilterHashNum();
+    }
   }
 
   public ExecutionBlockId getSrcId() {
@@ -148,6 +162,41 @@ public class DataChannel {
     return storeType;
   }
 
+  public boolean hasCompressionCodec() {
+    return this.compressionCodec != null;
+  }
+
+  /**
+   * Sets the class name of the codec which compresses the shuffled data.
+   */
+  public void setCompressionCodec(String compressionCodec) {
+    this.compressionCodec = compressionCodec;
+  }
+
+  public String getCompressionCodec() {
+    return compressionCodec;
+  }
+
+  /**
+   * @return true if the tasks of the source block build a join filter over the shuffle keys.
+   */
+  public boolean needJoinFilterBuild() {
+    return joinFilterBitNum > 0;
+  }
+
+  public void setJoinFilterBuild(int bitNum, int hashNum) {
+    this.joinFilterBitNum = bitNum;
+    this.joinFilterHashNum = hashNum;
+  }
+
+  public int getJoinFilterBitNum() {
+    return joinFilterBitNum;
+  }
+
+  public int getJoinFilterHashNum() {
+    return joinFilterHashNum;
+  }
+
   public DataChannelProto getProto() {
     DataChannelProto.Builder builder = DataChannelProto.newBuilder();
     builder.setSrcId(srcId.getProto());
@@ -171,6 +220,15 @@ public class DataChannel {
     if(storeType != null){
       builder.setStoreType(storeType);
     }
+
+    if (compressionCodec != null) {
+      builder.setCompressionCodec(compressionCodec);
+    }
+
+    if (joinFilterBitNum > 0) {
+      builder.setJoinFilterBitNum(joinFilterBitNum);
+      builder.setJoinFilterHashNum(joinFilterHashNum);
+    }
     return builder.build();
   }
 
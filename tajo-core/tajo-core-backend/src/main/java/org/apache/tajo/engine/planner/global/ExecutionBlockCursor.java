@@ -14,8 +14,9 @@
 
 package org.apache.tajo.engine.planner.global;
 
-import java.util.ArrayList;
-import java.util.Stack;
+import org.apache.tajo.engine.planner.logical.ScanNode;
+
+import java.util.*;
 
 /**
  * A distributed execution plan (DEP) is a direct acyclic graph (DAG) of ExecutionBlocks.
@@ -47,13 +48,46 @@ public class ExecutionBlockCursor {
           stack.push(execBlock);
         }
       }
-      for (ExecutionBlock execBlock : stack) {
+      // a smaller leaf block runs first, so that it can build a join filter for the larger one.
+      List<ExecutionBlock> leaves = new ArrayList<ExecutionBlock>(stack);
+      if (hasInputVolumes(leaves)) {
+        Collections.sort(leaves, new Comparator<ExecutionBlock>() {
+          @Override
+          public int compare(ExecutionBlock b1, ExecutionBlock b2) {
+            return Long.valueOf(getInputVolume(b1)).compareTo(getInputVolume(b2));
+          }
+        });
+      }
+      for (ExecutionBlock execBlock : leaves) {
         buildOrder(execBlock);
       }
     }
     orderedBlocks.add(current);
   }
 
+  private static boolean hasInputVolumes(List<ExecutionBlock> leaves) {
+    for (ExecutionBlock leaf : leaves) {
+      if (leaf.getScanNodes() == null) {
+        return false;
+      }
+      for (ScanNode scan : leaf.getScanNodes()) {
+        if (scan.getTableDesc() == null || scan.getTableDesc().getStats() == null
+            || scan.getTableDesc().getStats().getNumBytes() == null) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static long getInputVolume(ExecutionBlock leaf) {
+    long volume = 0;
+    for (ScanNode scan : leaf.getScanNodes()) {
+      volume += scan.getTableDesc().getStats().getNumBytes();
+    }
+    return volume;
+  }
+
   public boolean hasNext() {
     return cursor < orderedBlocks.size();
   }
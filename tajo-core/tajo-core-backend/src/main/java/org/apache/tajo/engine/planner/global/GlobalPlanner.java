@@ -98,9 +98,60 @@ public class GlobalPlanner {
     }
 
     masterPlan.setTerminal(terminalBlock);
+    setShuffleCompression(masterPlan);
     LOG.info(masterPlan);
   }
 
+  /**
+   * Compresses the hash shuffled data of RAW format if a codec is given by the query or the configuration.
+   * The rows of a range shuffle are not compressed, because its output is accessed by the offsets of rows.
+   */
+  private void setShuffleCompression(MasterPlan masterPlan) {
+    String codec = null;
+    if (masterPlan.getContext() != null) {
+      codec = masterPlan.getContext().get(TajoConf.ConfVars.SHUFFLE_COMPRESSION_CODEC);
+    }
+    if (codec == null) {
+      codec = conf.getVar(TajoConf.ConfVars.SHUFFLE_COMPRESSION_CODEC);
+    }
+    if (codec == null || codec.isEmpty()) {
+      return;
+    }
+
+    ExecutionBlockCursor cursor = new ExecutionBlockCursor(masterPlan);
+    while (cursor.hasNext()) {
+      ExecutionBlock block = cursor.nextBlock();
+      if (block.getPlan() == null || masterPlan.isLeaf(block)) {
+        continue;
+      }
+
+      // Each incoming channel should be read by its own scan, which decompresses the shuffled data.
+      // The channels of a union are read by a single scan, so they are not compressed.
+      List<DataChannel> channels = masterPlan.getIncomingChannels(block.getId());
+      Map<String, ScanNode> scans = Maps.newHashMap();
+      for (LogicalNode node : PlannerUtil.findAllNodes(block.getPlan(), NodeType.SCAN)) {
+        ScanNode scan = (ScanNode) node;
+        scans.put(scan.getTableName(), scan);
+      }
+      boolean compressible = true;
+      for (DataChannel channel : channels) {
+        if (channel.getShuffleType() != HASH_SHUFFLE || channel.getStoreType() != CatalogProtos.StoreType.RAW
+            || !scans.containsKey(channel.getSrcId().toString())) {
+          compressible = false;
+        }
+      }
+      if (!compressible) {
+        continue;
+      }
+
+      for (DataChannel channel : channels) {
+        scans.get(channel.getSrcId().toString()).getTableDesc().getMeta()
+            .putOption(TableMeta.COMPRESSION_CODEC, codec);
+        channel.setCompressionCodec(codec);
+      }
+    }
+  }
+
   private static void setFinalOutputChannel(DataChannel outputChannel, Schema outputSchema) {
     outputChannel.setShuffleType(NONE_SHUFFLE);
     outputChannel.setShuffleOutputNum(1);
@@ -458,13 +509,19 @@ public class GlobalPlanner {
         node.setChild(execBlock.getPlan());
         execBlock.setPlan(node);
 
-        ExecutionBlock childBlock = context.plan.getChild(execBlock, 0);
-        LimitNode childLimit = PlannerUtil.clone(context.plan.getLogicalPlan(), node);
-        childLimit.setChild(childBlock.getPlan());
-        childBlock.setPlan(childLimit);
+        // The limit is pushed down into every first-phase sort, so each task only ships its top N rows.
+        // Physical planner evaluates a sort followed by a limit as a top-N sort.
+        for (ExecutionBlock childBlock : context.plan.getChilds(execBlock)) {
+          if (childBlock.getPlan().getType() != NodeType.SORT) {
+            continue;
+          }
+          LimitNode childLimit = PlannerUtil.clone(context.plan.getLogicalPlan(), node);
+          childLimit.setChild(childBlock.getPlan());
+          childBlock.setPlan(childLimit);
 
-        DataChannel channel = context.plan.getChannel(childBlock, execBlock);
-        channel.setShuffleOutputNum(1);
+          DataChannel channel = context.plan.getChannel(childBlock, execBlock);
+          channel.setShuffleOutputNum(1);
+        }
         context.execBlockMap.put(node.getPID(), execBlock);
       } else {
         node.setChild(execBlock.getPlan());
@@ -689,6 +746,17 @@ public class GlobalPlanner {
 
       return node;
     }
+
+    @Override
+    public LogicalNode visitAnalyzeTable(GlobalPlanContext context, LogicalPlan plan, LogicalPlan.QueryBlock queryBlock,
+                                         AnalyzeTableNode node, Stack<LogicalNode> stack) throws PlanningException {
+      LogicalNode child = super.visitAnalyzeTable(context, plan, queryBlock, node, stack);
+      ExecutionBlock execBlock = context.execBlockMap.remove(child.getPID());
+      execBlock.setPlan(node);
+      context.execBlockMap.put(node.getPID(), execBlock);
+
+      return node;
+    }
   }
 
   @SuppressWarnings("unused")
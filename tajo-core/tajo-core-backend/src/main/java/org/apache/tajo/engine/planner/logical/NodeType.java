@@ -46,7 +46,8 @@ public enum NodeType {
   STORE(StoreTableNode.class),
   INSERT(InsertNode.class),
   CREATE_TABLE(CreateTableNode.class),
-  DROP_TABLE(DropTableNode.class)
+  DROP_TABLE(DropTableNode.class),
+  ANALYZE_TABLE(AnalyzeTableNode.class)
   ;
 
   private final Class<? extends LogicalNode> baseClass;
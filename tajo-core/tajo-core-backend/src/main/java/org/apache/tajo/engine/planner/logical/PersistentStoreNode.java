@@ -56,6 +56,10 @@ public abstract class PersistentStoreNode extends UnaryNode implements Cloneable
     return this.options != null;
   }
 
+  public void setOptions(Options options) {
+    this.options = options;
+  }
+
   public Options getOptions() {
     return this.options;
   }
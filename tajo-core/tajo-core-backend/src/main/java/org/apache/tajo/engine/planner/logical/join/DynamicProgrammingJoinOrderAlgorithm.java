@@ -0,0 +1,300 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.logical.join;
+
+import org.apache.tajo.algebra.JoinType;
+import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.engine.eval.EvalNode;
+import org.apache.tajo.engine.planner.LogicalPlan;
+import org.apache.tajo.engine.planner.PlanningException;
+import org.apache.tajo.engine.planner.logical.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This is a dynamic programming algorithm to find the cheapest bushy join tree. It enumerates all pairs of
+ * disjoint sets of relations, and it builds the best plan of every set from the best plans of its subsets.
+ * As long as a set of relations is connected in a join graph, it only considers the pairs connected by join
+ * conditions, so cross joins are never chosen for connected join graphs. Since the number of pairs grows
+ * exponentially, it should be used only for join graphs with a small number of relations.
+ *
+ * The cost of a join tree is the amount of data read by all joins in the tree. Like GlobalPlanner, a join
+ * between two scans is regarded as a broadcast join if either table is smaller than the broadcast threshold,
+ * and all other joins are regarded as repartition joins which shuffle both inputs.
+ */
+public class DynamicProgrammingJoinOrderAlgorithm implements JoinOrderAlgorithm {
+  /** A repartition join writes its inputs into intermediate data, and then it reads them again. */
+  public static final double REPARTITION_COST_FACTOR = 2.0;
+  /** A bit set of relations is kept in an int. */
+  public static final int MAX_RELATION_NUM = 30;
+
+  private final long broadcastThreshold;
+
+  public DynamicProgrammingJoinOrderAlgorithm(long broadcastThreshold) {
+    this.broadcastThreshold = broadcastThreshold;
+  }
+
+  @Override
+  public FoundJoinOrder findBestOrder(LogicalPlan plan, LogicalPlan.QueryBlock block, JoinGraph joinGraph,
+                                      Set<String> relationsWithoutQual) throws PlanningException {
+    // Relations are sorted in the written order, which is kept among plans of the same cost.
+    List<RelationNode> relations = new ArrayList<RelationNode>(block.getRelations());
+    Collections.sort(relations, new Comparator<RelationNode>() {
+      @Override
+      public int compare(RelationNode r1, RelationNode r2) {
+        return r1.getPID() - r2.getPID();
+      }
+    });
+    int relationNum = relations.size();
+    if (relationNum > MAX_RELATION_NUM) {
+      throw new PlanningException("Too many relations to enumerate join orders: " + relationNum);
+    }
+
+    // join conditions and their selectivities between each pair of relations
+    JoinEdge [][] edges = new JoinEdge[relationNum][relationNum];
+    double [][] selectivities = new double[relationNum][relationNum];
+    int [] neighbors = new int[relationNum];
+    for (int i = 0; i < relationNum; i++) {
+      Arrays.fill(selectivities[i], 1.0);
+    }
+    for (int i = 0; i < relationNum; i++) {
+      for (int j = i + 1; j < relationNum; j++) {
+        JoinEdge edge = joinGraph.getEdge(relations.get(i).getCanonicalName(), relations.get(j).getCanonicalName());
+        if (edge != null && edge.hasJoinQual()) {
+          double selectivity = SelectivityEstimator.estimate(edge.getJoinQual(), relations.get(i), relations.get(j));
+          edges[i][j] = edges[j][i] = edge;
+          selectivities[i][j] = selectivities[j][i] = selectivity;
+          neighbors[i] |= 1 << j;
+          neighbors[j] |= 1 << i;
+        }
+      }
+    }
+
+    int fullSet = (1 << relationNum) - 1;
+    SubPlan [] bestPlans = new SubPlan[fullSet + 1];
+    int [] neighborSets = new int[fullSet + 1];
+    for (int i = 0; i < relationNum; i++) {
+      bestPlans[1 << i] = createRelationPlan(relations.get(i));
+    }
+
+    // All subsets of a set are smaller than the set, so they are always planned before the set.
+    for (int set = 1; set <= fullSet; set++) {
+      int lowestBit = set & -set;
+      neighborSets[set] = neighborSets[set & ~lowestBit] | neighbors[Integer.numberOfTrailingZeros(lowestBit)];
+      if (set == lowestBit) {
+        continue;
+      }
+
+      SubPlan bestConnected = null;
+      SubPlan bestCross = null;
+      // the left set always contains the lowest relation in order to avoid symmetric pairs
+      for (int left = (set - 1) & set; left > 0; left = (left - 1) & set) {
+        if ((left & lowestBit) == 0) {
+          continue;
+        }
+        int right = set & ~left;
+        SubPlan leftPlan = bestPlans[left];
+        SubPlan rightPlan = bestPlans[right];
+        boolean connected = leftPlan.connected && rightPlan.connected && (neighborSets[left] & right) != 0;
+
+        SubPlan candidate = createJoinPlan(left, right, leftPlan, rightPlan, selectivities, connected);
+        if (connected) {
+          if (isCheaper(candidate, bestConnected)) {
+            bestConnected = candidate;
+          }
+        } else if (bestConnected == null) {
+          if (isCheaper(candidate, bestCross)) {
+            bestCross = candidate;
+          }
+        }
+      }
+      bestPlans[set] = bestConnected != null ? bestConnected : bestCross;
+    }
+
+    JoinNode joinTree = (JoinNode) buildJoinTree(plan, relations, edges, bestPlans, fullSet);
+    return new FoundJoinOrder(joinTree, bestPlans[fullSet].cost);
+  }
+
+  /**
+   * If two plans have the same cost, e.g., without statistics, the plan with less repartition joins is preferred
+   * because each of them needs an additional execution block. Then, a linear join tree is preferred to a bushy one.
+   */
+  private static boolean isCheaper(SubPlan candidate, SubPlan best) {
+    if (best == null || candidate.cost < best.cost) {
+      return true;
+    }
+    if (candidate.cost > best.cost) {
+      return false;
+    }
+    if (candidate.repartitionNum != best.repartitionNum) {
+      return candidate.repartitionNum < best.repartitionNum;
+    }
+    return candidate.isLinear() && !best.isLinear();
+  }
+
+  /**
+   * A best plan for a set of relations. Only the pair of its subsets is kept, and the join tree is built at last.
+   */
+  private static class SubPlan {
+    final int left;
+    final int right;
+    final RelationNode relation;
+    final ScanNode scan;
+    final double rows;
+    final double width;
+    final double cost;
+    final int repartitionNum;
+    final boolean connected;
+
+    SubPlan(RelationNode relation, double rows, double width) {
+      this.left = 0;
+      this.right = 0;
+      this.relation = relation;
+      this.scan = relation.getType() == NodeType.SCAN ? (ScanNode) relation : null;
+      this.rows = rows;
+      this.width = width;
+      this.cost = 0;
+      this.repartitionNum = 0;
+      this.connected = true;
+    }
+
+    SubPlan(int left, int right, double rows, double width, double cost, int repartitionNum, boolean connected) {
+      this.left = left;
+      this.right = right;
+      this.relation = null;
+      this.scan = null;
+      this.rows = rows;
+      this.width = width;
+      this.cost = cost;
+      this.repartitionNum = repartitionNum;
+      this.connected = connected;
+    }
+
+    boolean isLinear() {
+      return Integer.bitCount(left) == 1 || Integer.bitCount(right) == 1;
+    }
+
+    double getVolume() {
+      return rows * width;
+    }
+  }
+
+  private static SubPlan createRelationPlan(RelationNode relation) {
+    double volume = GreedyHeuristicJoinOrderAlgorithm.getCost(relation);
+    double rows = volume;
+
+    if (relation.getType() == NodeType.SCAN) {
+      TableStats stats = ((ScanNode) relation).getTableDesc().getStats();
+      if (stats != null && stats.getNumRows() != null && stats.getNumRows() > 0 && stats.getNumBytes() > 0) {
+        // the volume already reflects the filters pushed down into the scan
+        rows = Math.max(1, stats.getNumRows() * (volume / stats.getNumBytes()));
+      }
+    }
+
+    // Without the number of rows, each byte is regarded as a row.
+    return new SubPlan(relation, rows, rows > 0 ? volume / rows : 1);
+  }
+
+  private SubPlan createJoinPlan(int left, int right, SubPlan leftPlan, SubPlan rightPlan,
+                                 double [][] selectivities, boolean connected) {
+    double selectivity = 1.0;
+    if (connected) {
+      for (int i = 0; i < selectivities.length; i++) {
+        if ((left & (1 << i)) == 0) {
+          continue;
+        }
+        for (int j = 0; j < selectivities.length; j++) {
+          if ((right & (1 << j)) != 0) {
+            selectivity *= selectivities[i][j];
+          }
+        }
+      }
+    }
+
+    double inputVolume = leftPlan.getVolume() + rightPlan.getVolume();
+    double joinCost;
+    int repartitionNum = leftPlan.repartitionNum + rightPlan.repartitionNum;
+    if (isBroadcastable(leftPlan, rightPlan)) {
+      // The small table is sent to every task, and the other is read in place.
+      joinCost = inputVolume;
+    } else {
+      joinCost = inputVolume * REPARTITION_COST_FACTOR;
+      repartitionNum++;
+    }
+
+    return new SubPlan(left, right,
+        leftPlan.rows * rightPlan.rows * selectivity,
+        leftPlan.width + rightPlan.width,
+        leftPlan.cost + rightPlan.cost + joinCost,
+        repartitionNum,
+        connected);
+  }
+
+  /**
+   * It follows the decision of GlobalPlanner, which uses the table sizes regardless of pushed-down filters.
+   */
+  private boolean isBroadcastable(SubPlan leftPlan, SubPlan rightPlan) {
+    if (leftPlan.scan == null || rightPlan.scan == null) {
+      return false;
+    }
+    return isSmallTable(leftPlan.scan) || isSmallTable(rightPlan.scan);
+  }
+
+  private boolean isSmallTable(ScanNode scan) {
+    TableStats stats = scan.getTableDesc().getStats();
+    return stats != null && stats.getNumBytes() < broadcastThreshold;
+  }
+
+  private static LogicalNode buildJoinTree(LogicalPlan plan, List<RelationNode> relations, JoinEdge [][] edges,
+                                           SubPlan [] bestPlans, int set) {
+    SubPlan subPlan = bestPlans[set];
+    if (subPlan.relation != null) {
+      return subPlan.relation;
+    }
+
+    LogicalNode left = buildJoinTree(plan, relations, edges, bestPlans, subPlan.left);
+    LogicalNode right = buildJoinTree(plan, relations, edges, bestPlans, subPlan.right);
+
+    // merge all join conditions between two sets of relations
+    List<EvalNode> joinQuals = new ArrayList<EvalNode>();
+    for (int i = 0; i < relations.size(); i++) {
+      if ((subPlan.left & (1 << i)) == 0) {
+        continue;
+      }
+      for (int j = 0; j < relations.size(); j++) {
+        if ((subPlan.right & (1 << j)) != 0 && edges[i][j] != null) {
+          Collections.addAll(joinQuals, edges[i][j].getJoinQual());
+        }
+      }
+    }
+
+    JoinEdge joinEdge;
+    if (joinQuals.size() > 0) {
+      joinEdge = new JoinEdge(JoinType.INNER, left, right, joinQuals.toArray(new EvalNode[joinQuals.size()]));
+    } else {
+      joinEdge = new JoinEdge(JoinType.CROSS, left, right);
+    }
+    return GreedyHeuristicJoinOrderAlgorithm.createJoinNode(plan, joinEdge);
+  }
+}
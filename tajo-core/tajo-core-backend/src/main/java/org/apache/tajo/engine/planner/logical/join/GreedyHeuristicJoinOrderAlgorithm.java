@@ -36,7 +36,7 @@ import java.util.Set;
  * all join operators.
  */
 public class GreedyHeuristicJoinOrderAlgorithm implements JoinOrderAlgorithm {
-  public static double DEFAULT_SELECTION_FACTOR = 0.1;
+  public static double DEFAULT_SELECTION_FACTOR = SelectivityEstimator.DEFAULT_SELECTION_FACTOR;
 
   @Override
   public FoundJoinOrder findBestOrder(LogicalPlan plan, LogicalPlan.QueryBlock block, JoinGraph joinGraph,
@@ -68,7 +68,7 @@ public class GreedyHeuristicJoinOrderAlgorithm implements JoinOrderAlgorithm {
     return new FoundJoinOrder(joinTree, getCost(joinTree));
   }
 
-  private static JoinNode createJoinNode(LogicalPlan plan, JoinEdge joinEdge) {
+  static JoinNode createJoinNode(LogicalPlan plan, JoinEdge joinEdge) {
     LogicalNode left = joinEdge.getLeftRelation();
     LogicalNode right = joinEdge.getRightRelation();
     JoinNode joinNode;
@@ -183,11 +183,10 @@ public class GreedyHeuristicJoinOrderAlgorithm implements JoinOrderAlgorithm {
    * @return
    */
   public static double getCost(JoinEdge joinEdge) {
-    double filterFactor = 1;
     if (joinEdge.hasJoinQual()) {
       // TODO - should consider join type
-      // TODO - should statistic information obtained from query history
-      filterFactor = filterFactor * Math.pow(DEFAULT_SELECTION_FACTOR, joinEdge.getJoinQual().length);
+      double filterFactor = SelectivityEstimator.estimate(joinEdge.getJoinQual(),
+          joinEdge.getLeftRelation(), joinEdge.getRightRelation());
       return getCost(joinEdge.getLeftRelation()) * getCost(joinEdge.getRightRelation()) * filterFactor;
     } else {
       // make cost bigger if cross join
@@ -205,10 +204,10 @@ public class GreedyHeuristicJoinOrderAlgorithm implements JoinOrderAlgorithm {
 
     case JOIN:
       JoinNode joinNode = (JoinNode) node;
-      double filterFactor = 1;
       if (joinNode.hasJoinQual()) {
-        filterFactor = Math.pow(DEFAULT_SELECTION_FACTOR,
-            AlgebraicUtil.toConjunctiveNormalFormArray(joinNode.getJoinQual()).length);
+        double filterFactor = SelectivityEstimator.estimate(
+            AlgebraicUtil.toConjunctiveNormalFormArray(joinNode.getJoinQual()),
+            joinNode.getLeftChild(), joinNode.getRightChild());
         return getCost(joinNode.getLeftChild()) * getCost(joinNode.getRightChild()) * filterFactor;
       } else {
         return Math.pow(getCost(joinNode.getLeftChild()) * getCost(joinNode.getRightChild()), 2);
@@ -216,8 +215,8 @@ public class GreedyHeuristicJoinOrderAlgorithm implements JoinOrderAlgorithm {
 
     case SELECTION:
       SelectionNode selectionNode = (SelectionNode) node;
-      return getCost(selectionNode.getChild()) *
-          Math.pow(DEFAULT_SELECTION_FACTOR, AlgebraicUtil.toConjunctiveNormalFormArray(selectionNode.getQual()).length);
+      return getCost(selectionNode.getChild()) * SelectivityEstimator.estimate(
+          AlgebraicUtil.toConjunctiveNormalFormArray(selectionNode.getQual()), selectionNode.getChild());
 
     case TABLE_SUBQUERY:
       TableSubQueryNode subQueryNode = (TableSubQueryNode) node;
@@ -227,6 +226,11 @@ public class GreedyHeuristicJoinOrderAlgorithm implements JoinOrderAlgorithm {
       ScanNode scanNode = (ScanNode) node;
       if (scanNode.getTableDesc().getStats() != null) {
         double cost = ((ScanNode)node).getTableDesc().getStats().getNumBytes();
+        // filters pushed down into a scan reduce the volume to be joined
+        if (scanNode.hasQual()) {
+          cost *= SelectivityEstimator.estimate(AlgebraicUtil.toConjunctiveNormalFormArray(scanNode.getQual()),
+              scanNode);
+        }
         return cost;
       } else {
         return Long.MAX_VALUE;
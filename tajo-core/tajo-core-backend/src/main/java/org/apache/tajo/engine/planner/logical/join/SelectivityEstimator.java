@@ -0,0 +1,336 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.logical.join;
+
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.statistics.ColumnStats;
+import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.engine.eval.*;
+import org.apache.tajo.engine.planner.PlannerUtil;
+import org.apache.tajo.engine.planner.logical.LogicalNode;
+import org.apache.tajo.engine.planner.logical.NodeType;
+import org.apache.tajo.engine.planner.logical.ScanNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SelectivityEstimator estimates the fraction of rows which satisfy predicates. It uses the column statistics
+ * (i.e., the number of distinct values, the number of nulls, min and max values, and equi-depth histograms)
+ * collected by ANALYZE TABLE. If the statistics of a predicate are not available, the predicate is assumed to
+ * select {@link #DEFAULT_SELECTION_FACTOR} of rows.
+ */
+public class SelectivityEstimator {
+  public static final double DEFAULT_SELECTION_FACTOR = 0.1;
+
+  /**
+   * @param quals conjunctive predicates
+   * @param relations the relations which the predicates are evaluated on
+   * @return the fraction of rows which satisfy all given predicates
+   */
+  public static double estimate(EvalNode [] quals, LogicalNode ... relations) {
+    double selectivity = 1.0;
+    for (EvalNode qual : quals) {
+      selectivity *= estimate(qual, relations);
+    }
+    return selectivity;
+  }
+
+  /**
+   * @param qual a predicate
+   * @param relations the relations which the predicate is evaluated on
+   * @return the fraction of rows which satisfy the predicate
+   */
+  public static double estimate(EvalNode qual, LogicalNode ... relations) {
+    try {
+      switch (qual.getType()) {
+      case AND:
+        return estimate((EvalNode) qual.getLeftExpr(), relations)
+            * estimate((EvalNode) qual.getRightExpr(), relations);
+      case OR:
+        double left = estimate((EvalNode) qual.getLeftExpr(), relations);
+        double right = estimate((EvalNode) qual.getRightExpr(), relations);
+        return left + right - (left * right);
+      case NOT:
+        return 1.0 - estimate(((NotEval) qual).getChild(), relations);
+      case EQUAL:
+      case NOT_EQUAL:
+      case LTH:
+      case LEQ:
+      case GTH:
+      case GEQ:
+        return estimateComparison(qual, relations);
+      case IS_NULL:
+        return estimateIsNull((IsNullEval) qual, relations);
+      case IN:
+        return estimateIn((InEval) qual, relations);
+      case BETWEEN:
+        return estimateBetween((BetweenPredicateEval) qual, relations);
+      default:
+        return DEFAULT_SELECTION_FACTOR;
+      }
+    } catch (RuntimeException e) {
+      // e.g., a constant which cannot be compared to the values of a column
+      return DEFAULT_SELECTION_FACTOR;
+    }
+  }
+
+  private static double estimateComparison(EvalNode qual, LogicalNode [] relations) {
+    EvalNode leftExpr = qual.getLeftExpr();
+    EvalNode rightExpr = qual.getRightExpr();
+
+    if (leftExpr.getType() == EvalType.FIELD && rightExpr.getType() == EvalType.FIELD) {
+      if (qual.getType() == EvalType.EQUAL) {
+        return estimateEquiJoin((FieldEval) leftExpr, (FieldEval) rightExpr, relations);
+      }
+      return DEFAULT_SELECTION_FACTOR;
+    }
+
+    EvalType type = qual.getType();
+    FieldEval field;
+    Datum value;
+    if (leftExpr.getType() == EvalType.FIELD && rightExpr.getType() == EvalType.CONST) {
+      field = (FieldEval) leftExpr;
+      value = ((ConstEval) rightExpr).getValue();
+    } else if (leftExpr.getType() == EvalType.CONST && rightExpr.getType() == EvalType.FIELD) {
+      field = (FieldEval) rightExpr;
+      value = ((ConstEval) leftExpr).getValue();
+      type = flip(type);
+    } else {
+      return DEFAULT_SELECTION_FACTOR;
+    }
+
+    ColumnStatistics stats = findColumnStats(field.getColumnRef(), relations);
+    if (stats == null) {
+      return DEFAULT_SELECTION_FACTOR;
+    }
+
+    if (type == EvalType.EQUAL) {
+      return stats.equalFraction();
+    } else if (type == EvalType.NOT_EQUAL) {
+      return Math.max(0, stats.nonNullFraction() - stats.equalFraction());
+    } else if (!stats.hasHistogram()) {
+      return DEFAULT_SELECTION_FACTOR;
+    }
+
+    switch (type) {
+    case LTH:
+      return stats.lessThanFraction(value, false);
+    case LEQ:
+      return stats.lessThanFraction(value, true);
+    case GTH:
+      return Math.max(0, stats.nonNullFraction() - stats.lessThanFraction(value, true));
+    default: // GEQ
+      return Math.max(0, stats.nonNullFraction() - stats.lessThanFraction(value, false));
+    }
+  }
+
+  private static EvalType flip(EvalType type) {
+    switch (type) {
+    case LTH: return EvalType.GTH;
+    case LEQ: return EvalType.GEQ;
+    case GTH: return EvalType.LTH;
+    case GEQ: return EvalType.LEQ;
+    default: return type;
+    }
+  }
+
+  /**
+   * An equi-join condition selects 1 / max(NDV(left key), NDV(right key)) of the cartesian product.
+   */
+  private static double estimateEquiJoin(FieldEval leftField, FieldEval rightField, LogicalNode [] relations) {
+    ColumnStatistics left = findColumnStats(leftField.getColumnRef(), relations);
+    ColumnStatistics right = findColumnStats(rightField.getColumnRef(), relations);
+    long numDistVals = Math.max(left == null ? 0 : left.numDistVals(), right == null ? 0 : right.numDistVals());
+    if (numDistVals > 0) {
+      return 1.0 / numDistVals;
+    } else {
+      return DEFAULT_SELECTION_FACTOR;
+    }
+  }
+
+  private static double estimateIsNull(IsNullEval isNull, LogicalNode [] relations) {
+    if (isNull.getLeftExpr().getType() != EvalType.FIELD) {
+      return DEFAULT_SELECTION_FACTOR;
+    }
+    ColumnStatistics stats = findColumnStats(((FieldEval) isNull.getLeftExpr()).getColumnRef(), relations);
+    if (stats == null) {
+      return DEFAULT_SELECTION_FACTOR;
+    }
+    return isNull.isNot() ? stats.nonNullFraction() : 1.0 - stats.nonNullFraction();
+  }
+
+  private static double estimateIn(InEval in, LogicalNode [] relations) {
+    ColumnStatistics stats = findColumnStats(((FieldEval) in.getLeftExpr()).getColumnRef(), relations);
+    if (stats == null) {
+      return DEFAULT_SELECTION_FACTOR;
+    }
+    int valueNum = ((RowConstantEval) in.getRightExpr()).getValues().length;
+    double selectivity = Math.min(stats.nonNullFraction(), stats.equalFraction() * valueNum);
+    return in.isNot() ? Math.max(0, stats.nonNullFraction() - selectivity) : selectivity;
+  }
+
+  private static double estimateBetween(BetweenPredicateEval between, LogicalNode [] relations) {
+    if (between.getPredicand().getType() != EvalType.FIELD || between.getBegin().getType() != EvalType.CONST
+        || between.getEnd().getType() != EvalType.CONST) {
+      return DEFAULT_SELECTION_FACTOR;
+    }
+    ColumnStatistics stats = findColumnStats(((FieldEval) between.getPredicand()).getColumnRef(), relations);
+    if (stats == null || !stats.hasHistogram()) {
+      return DEFAULT_SELECTION_FACTOR;
+    }
+
+    Datum begin = ((ConstEval) between.getBegin()).getValue();
+    Datum end = ((ConstEval) between.getEnd()).getValue();
+    if (between.isSymmetric() && begin.compareTo(end) > 0) {
+      Datum tmp = begin;
+      begin = end;
+      end = tmp;
+    }
+    double selectivity = Math.max(0, stats.lessThanFraction(end, true) - stats.lessThanFraction(begin, false));
+    return between.isNot() ? Math.max(0, stats.nonNullFraction() - selectivity) : selectivity;
+  }
+
+  /**
+   * Find the statistics of a column from the scans of the given relations.
+   *
+   * @return the statistics of the column, or null if they have not been collected.
+   */
+  private static ColumnStatistics findColumnStats(Column column, LogicalNode [] relations) {
+    for (LogicalNode relation : relations) {
+      for (LogicalNode node : PlannerUtil.findAllNodes(relation, NodeType.SCAN)) {
+        ScanNode scan = (ScanNode) node;
+        if (!scan.getCanonicalName().equals(column.getQualifier())) {
+          continue;
+        }
+
+        TableStats tableStats = scan.getTableDesc().getStats();
+        if (tableStats == null || tableStats.getNumRows() == null || tableStats.getNumRows() <= 0) {
+          return null;
+        }
+        for (ColumnStats columnStats : tableStats.getColumnStats()) {
+          if (columnStats.getColumn().getColumnName().equals(column.getColumnName())) {
+            // the number of distinct values is only given by ANALYZE
+            if (columnStats.getNumDistValues() == null || columnStats.getNumDistValues() <= 0) {
+              return null;
+            }
+            return new ColumnStatistics(columnStats, tableStats.getNumRows());
+          }
+        }
+        return null;
+      }
+    }
+    return null;
+  }
+
+  private static class ColumnStatistics {
+    private final ColumnStats stats;
+    private final long numRows;
+    private final List<Datum> histogram;
+
+    ColumnStatistics(ColumnStats stats, long numRows) {
+      this.stats = stats;
+      this.numRows = numRows;
+      if (stats.hasHistogram()) {
+        histogram = stats.getHistogram();
+      } else if (stats.getMinValue() != null && stats.getMaxValue() != null) {
+        // a histogram of one bucket
+        histogram = new ArrayList<Datum>();
+        histogram.add(stats.getMinValue());
+        histogram.add(stats.getMaxValue());
+      } else {
+        histogram = null;
+      }
+    }
+
+    boolean hasHistogram() {
+      return histogram != null;
+    }
+
+    long numDistVals() {
+      return stats.getNumDistValues();
+    }
+
+    double nonNullFraction() {
+      long numNulls = stats.getNumNulls() == null ? 0 : stats.getNumNulls();
+      return Math.max(0, 1.0 - (double) numNulls / numRows);
+    }
+
+    double equalFraction() {
+      return nonNullFraction() / stats.getNumDistValues();
+    }
+
+    /**
+     * It must be called only if {@link #hasHistogram()} is true.
+     *
+     * @return the fraction of rows whose values are less than (or equal to if inclusive) the given value.
+     */
+    double lessThanFraction(Datum value, boolean inclusive) {
+      int bucketNum = histogram.size() - 1;
+      double fraction;
+      if (value.compareTo(histogram.get(0)) < 0) {
+        fraction = 0;
+      } else if (value.compareTo(histogram.get(bucketNum)) >= 0) {
+        fraction = 1.0;
+      } else {
+        // the last bucket whose lower bound is less than or equal to the value
+        int bucket = bucketNum - 1;
+        while (histogram.get(bucket).compareTo(value) > 0) {
+          bucket--;
+        }
+        fraction = (bucket + interpolate(histogram.get(bucket), histogram.get(bucket + 1), value)) / bucketNum;
+      }
+
+      double equalFraction = equalFraction();
+      if (inclusive) {
+        fraction = Math.min(1.0, fraction + equalFraction);
+      } else if (fraction >= 1.0) {
+        fraction = Math.max(0, fraction - equalFraction);
+      }
+      return nonNullFraction() * fraction;
+    }
+
+    /**
+     * @return the position of the value within a bucket, between 0 and 1.
+     */
+    private static double interpolate(Datum lower, Datum upper, Datum value) {
+      if (isNumeric(lower) && isNumeric(value)) {
+        double width = upper.asFloat8() - lower.asFloat8();
+        if (width > 0) {
+          return Math.min(1.0, Math.max(0, (value.asFloat8() - lower.asFloat8()) / width));
+        }
+      }
+      return 0.5;
+    }
+
+    private static boolean isNumeric(Datum datum) {
+      switch (datum.type()) {
+      case INT2:
+      case INT4:
+      case INT8:
+      case FLOAT4:
+      case FLOAT8:
+        return true;
+      default:
+        return false;
+      }
+    }
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.engine.planner.logical.AnalyzeTableNode;
+import org.apache.tajo.storage.TableStatistics;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.worker.TaskAttemptContext;
+
+import java.io.IOException;
+
+/**
+ * This is a physical executor to collect the statistics of a table part, including the number of distinct values
+ * and the histogram of each column. It does not output any row. The statistics are reported as the result
+ * statistics of a task, and the statistics of all tasks are merged by the query master.
+ */
+public class AnalyzeTableExec extends UnaryPhysicalExec {
+  private final AnalyzeTableNode plan;
+  private TableStatistics statistics;
+
+  public AnalyzeTableExec(TaskAttemptContext context, AnalyzeTableNode plan, PhysicalExec child) {
+    super(context, plan.getInSchema(), plan.getOutSchema(), child);
+    this.plan = plan;
+  }
+
+  public void init() throws IOException {
+    super.init();
+    statistics = new TableStatistics(inSchema, true);
+  }
+
+  @Override
+  public Tuple next() throws IOException {
+    Tuple tuple;
+    while((tuple = child.next()) != null) {
+      statistics.incrementRow();
+      for (int i = 0; i < inSchema.getColumnNum(); i++) {
+        statistics.analyzeField(i, tuple);
+      }
+    }
+
+    return null;
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    // nothing to do
+  }
+
+  public void close() throws IOException {
+    super.close();
+
+    context.setResultStats(statistics.getTableStat());
+  }
+
+  public AnalyzeTableNode getPlan() {
+    return plan;
+  }
+}
@@ -18,6 +18,8 @@
 
 package org.apache.tajo.engine.planner.physical;
 
+import org.apache.tajo.engine.codegen.CompiledEval;
+import org.apache.tajo.engine.codegen.EvalCodeGenerator;
 import org.apache.tajo.engine.planner.PlannerUtil;
 import org.apache.tajo.engine.planner.Projector;
 import org.apache.tajo.worker.TaskAttemptContext;
@@ -38,7 +40,7 @@ public class BNLJoinExec extends BinaryPhysicalExec {
   private final JoinNode plan;
   private final boolean hasJoinQual;
   private final EvalNode joinQual;
-  private final EvalContext qualCtx;
+  private final CompiledEval compiledQual;
 
   private final List<Tuple> leftTupleSlots;
   private final List<Tuple> rightTupleSlots;
@@ -67,10 +69,10 @@ public class BNLJoinExec extends BinaryPhysicalExec {
     this.joinQual = plan.getJoinQual();
     if (joinQual != null) { // if join type is not 'cross join'
       hasJoinQual = true;
-      this.qualCtx = this.joinQual.newContext();
+      this.compiledQual = EvalCodeGenerator.compile(context.getConf(), joinQual, inSchema);
     } else {
       hasJoinQual = false;
-      this.qualCtx = null;
+      this.compiledQual = null;
     }
     this.leftTupleSlots = new ArrayList<Tuple>(TUPLE_SLOT_SIZE);
     this.rightTupleSlots = new ArrayList<Tuple>(TUPLE_SLOT_SIZE);
@@ -84,7 +86,7 @@ public class BNLJoinExec extends BinaryPhysicalExec {
       plan.setTargets(PlannerUtil.schemaToTargets(outSchema));
     }
 
-    projector = new Projector(inSchema, outSchema, plan.getTargets());
+    projector = new Projector(context.getConf(), inSchema, outSchema, plan.getTargets());
     evalContexts = projector.newContexts();
 
     // for join
@@ -191,8 +193,7 @@ public class BNLJoinExec extends BinaryPhysicalExec {
 
       frameTuple.set(leftTuple, rightIterator.next());
       if (hasJoinQual) {
-        joinQual.eval(qualCtx, inSchema, frameTuple);
-        if (joinQual.terminate(qualCtx).asBool()) {
+        if (compiledQual.isTrue(frameTuple)) {
           projector.eval(evalContexts, frameTuple);
           projector.terminate(evalContexts, outputTuple);
           return outputTuple;
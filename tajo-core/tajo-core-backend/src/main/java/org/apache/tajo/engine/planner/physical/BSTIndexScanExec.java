@@ -23,6 +23,8 @@ import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.worker.TaskAttemptContext;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.datum.Datum;
+import org.apache.tajo.engine.codegen.CompiledEval;
+import org.apache.tajo.engine.codegen.EvalCodeGenerator;
 import org.apache.tajo.engine.eval.EvalContext;
 import org.apache.tajo.engine.eval.EvalNode;
 import org.apache.tajo.engine.planner.Projector;
@@ -37,7 +39,7 @@ public class BSTIndexScanExec extends PhysicalExec {
   private SeekableScanner fileScanner;
   
   private EvalNode qual;
-  private EvalContext qualCtx;
+  private CompiledEval compiledQual;
   private BSTIndex.BSTIndexReader reader;
   
   private final Projector projector;
@@ -55,16 +57,16 @@ public class BSTIndexScanExec extends PhysicalExec {
     this.scanNode = scanNode;
     this.qual = scanNode.getQual();
     if(this.qual == null) {
-      this.qualCtx = null;
+      this.compiledQual = null;
     } else {
-      this.qualCtx = this.qual.newContext();
+      this.compiledQual = EvalCodeGenerator.compile(context.getConf(), qual, inSchema);
     }
     this.datum = datum;
 
     this.fileScanner = StorageManagerFactory.getSeekableScanner(context.getConf(),
         scanNode.getTableDesc().getMeta(), scanNode.getInSchema(), fragment, outSchema);
     this.fileScanner.init();
-    this.projector = new Projector(inSchema, outSchema, scanNode.getTargets());
+    this.projector = new Projector(context.getConf(), inSchema, outSchema, scanNode.getTargets());
     this.evalContexts = projector.newContexts();
 
     this.reader = new BSTIndex(sm.getFileSystem().getConf()).
@@ -117,8 +119,7 @@ public class BSTIndexScanExec extends PhysicalExec {
       }
     } else {
        while( reader.isCurInMemory() && (tuple = fileScanner.next()) != null) {
-         qual.eval(qualCtx, inSchema, tuple);
-         if (qual.terminate(qualCtx).asBool()) {
+         if (compiledQual.isTrue(tuple)) {
            projector.eval(evalContexts, tuple);
            projector.terminate(evalContexts, outTuple);
            return outTuple;
@@ -27,7 +27,11 @@ public class BasicPhysicalExecutorVisitor<CONTEXT, RESULT> implements PhysicalEx
 
     // Please keep all physical executors except for abstract class.
     // They should be ordered in an lexicography order of their names for easy code maintenance.
-    if (exec instanceof BNLJoinExec) {
+    if (exec instanceof AnalyzeTableExec) {
+      return visitAnalyzeTable(context, (AnalyzeTableExec) exec, stack);
+    } else if (exec instanceof BatchToRowExec) {
+      return visitBatchToRow(context, (BatchToRowExec) exec, stack);
+    } else if (exec instanceof BNLJoinExec) {
       return visitBNLJoin(context, (BNLJoinExec) exec, stack);
     } else if (exec instanceof BSTIndexScanExec) {
       return visitBSTIndexScan(context, (BSTIndexScanExec) exec, stack);
@@ -65,6 +69,8 @@ public class BasicPhysicalExecutorVisitor<CONTEXT, RESULT> implements PhysicalEx
       return visitNLJoin(context, (NLJoinExec) exec, stack);
     } else if (exec instanceof NLLeftOuterJoinExec) {
       return visitNLLeftOuterJoin(context, (NLLeftOuterJoinExec) exec, stack);
+    } else if (exec instanceof PartialAggregateExec) {
+      return visitPartialAggregate(context, (PartialAggregateExec) exec, stack);
     } else if (exec instanceof ProjectionExec) {
       return visitProjection(context, (ProjectionExec) exec, stack);
     } else if (exec instanceof RangeShuffleFileWriteExec) {
@@ -79,6 +85,8 @@ public class BasicPhysicalExecutorVisitor<CONTEXT, RESULT> implements PhysicalEx
       return visitSortAggregate(context, (SortAggregateExec) exec, stack);
     } else if (exec instanceof StoreTableExec) {
       return visitStoreTable(context, (StoreTableExec) exec, stack);
+    } else if (exec instanceof TopNSortExec) {
+      return visitTopNSort(context, (TopNSortExec) exec, stack);
     }
 
     throw new PhysicalPlanningException("Unsupported Type: " + exec.getClass().getSimpleName());
@@ -101,6 +109,18 @@ public class BasicPhysicalExecutorVisitor<CONTEXT, RESULT> implements PhysicalEx
     return r;
   }
 
+  @Override
+  public RESULT visitAnalyzeTable(CONTEXT context, AnalyzeTableExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException {
+    return visitUnaryExecutor(exec, stack, context);
+  }
+
+  @Override
+  public RESULT visitBatchToRow(CONTEXT context, BatchToRowExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException {
+    return visitUnaryExecutor(exec, stack, context);
+  }
+
   @Override
   public RESULT visitBNLJoin(CONTEXT context, BNLJoinExec exec, Stack<PhysicalExec> stack)
       throws PhysicalPlanningException {
@@ -214,6 +234,12 @@ public class BasicPhysicalExecutorVisitor<CONTEXT, RESULT> implements PhysicalEx
     return null;
   }
 
+  @Override
+  public RESULT visitPartialAggregate(CONTEXT context, PartialAggregateExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException {
+    return visitUnaryExecutor(exec, stack, context);
+  }
+
   @Override
   public RESULT visitProjection(CONTEXT context, ProjectionExec exec, Stack<PhysicalExec> stack)
       throws PhysicalPlanningException {
@@ -253,4 +279,10 @@ public class BasicPhysicalExecutorVisitor<CONTEXT, RESULT> implements PhysicalEx
   public RESULT visitStoreTable(CONTEXT context, StoreTableExec exec, Stack<PhysicalExec> stack) throws PhysicalPlanningException {
     return null;
   }
+
+  @Override
+  public RESULT visitTopNSort(CONTEXT context, TopNSortExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException {
+    return null;
+  }
 }
@@ -0,0 +1,72 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.storage.PrimitiveTuple;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.worker.TaskAttemptContext;
+
+import java.io.IOException;
+
+/**
+ * BatchToRowExec is placed at a boundary between an executor which only consumes tuples one by one and
+ * an executor which produces tuple batches natively. It drives the child in the vectorized mode and
+ * returns the alive rows of each batch one by one.
+ *
+ * Each row is returned as a new {@link PrimitiveTuple}, so the numeric values are not boxed into Datums
+ * and a consumer can keep the returned tuples as the tuples of a scan.
+ */
+public class BatchToRowExec extends UnaryPhysicalExec {
+  private TupleBatch batch;
+  private int current = 0;
+  // an empty tuple whose type information is shared by the returned tuples
+  private PrimitiveTuple emptyTuple;
+
+  public BatchToRowExec(TaskAttemptContext context, PhysicalExec child) {
+    super(context, child.getSchema(), child.getSchema(), child);
+  }
+
+  @Override
+  public void init() throws IOException {
+    super.init();
+    emptyTuple = new PrimitiveTuple(outSchema);
+  }
+
+  @Override
+  public Tuple next() throws IOException {
+    while (batch == null || current >= batch.getSelectedNum()) {
+      batch = child.nextBatch();
+      current = 0;
+      if (batch == null) {
+        return null;
+      }
+    }
+
+    Tuple outTuple = emptyTuple.newEmptyTuple();
+    batch.getTuple(batch.getRowId(current++), outTuple);
+    return outTuple;
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    super.rescan();
+    batch = null;
+    current = 0;
+  }
+}
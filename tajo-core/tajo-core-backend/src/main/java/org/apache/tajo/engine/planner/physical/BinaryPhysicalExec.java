@@ -24,8 +24,8 @@ import org.apache.tajo.catalog.Schema;
 import java.io.IOException;
 
 public abstract class BinaryPhysicalExec extends PhysicalExec {
-  protected final PhysicalExec leftChild;
-  protected final PhysicalExec rightChild;
+  protected PhysicalExec leftChild;
+  protected PhysicalExec rightChild;
 
   public BinaryPhysicalExec(final TaskAttemptContext context,
                             final Schema inSchema, final Schema outSchema,
@@ -43,6 +43,14 @@ public abstract class BinaryPhysicalExec extends PhysicalExec {
     return rightChild;
   }
 
+  public void setLeftChild(PhysicalExec leftChild) {
+    this.leftChild = leftChild;
+  }
+
+  public void setRightChild(PhysicalExec rightChild) {
+    this.rightChild = rightChild;
+  }
+
   @Override
   public void init() throws IOException {
     leftChild.init();
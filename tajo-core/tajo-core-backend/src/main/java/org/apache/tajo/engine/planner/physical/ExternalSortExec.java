@@ -18,6 +18,9 @@
 
 package org.apache.tajo.engine.planner.physical;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.tajo.catalog.CatalogUtil;
@@ -25,24 +28,57 @@ import org.apache.tajo.catalog.TableMeta;
 import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
 import org.apache.tajo.conf.TajoConf.ConfVars;
 import org.apache.tajo.engine.planner.logical.SortNode;
+import org.apache.tajo.engine.utils.TupleUtil;
 import org.apache.tajo.storage.*;
+import org.apache.tajo.util.Bytes;
 import org.apache.tajo.worker.TaskAttemptContext;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * ExternalSortExec sorts an input which may not fit in memory.
+ *
+ * It collects input tuples into a run until the run reaches a memory budget. Each full run is sorted
+ * and written to a local file by a background thread while the next run is being collected.
+ * The last run stays in memory. Finally, all runs are merged by a K-way merge using a loser tree.
+ * If there are more runs than the merge fan-in, runs are merged into longer runs in advance.
+ */
 public class ExternalSortExec extends SortExec {
+  private static final Log LOG = LogFactory.getLog(ExternalSortExec.class);
+
+  /** the bytes of a reference to a tuple in a run */
+  private static final int REFERENCE_SIZE = 8;
+
   private SortNode plan;
 
-  private final List<Tuple> tupleSlots;
+  private List<Tuple> tupleSlots;
   private boolean sorted = false;
-  private RawFile.RawFileScanner result;
-  private RawFile.RawFileAppender appender;
   private FileSystem localFS;
 
   private final TableMeta meta;
   private final Path sortTmpDir;
-  private int MEM_TUPLE_NUM;
+  private final long runMemoryBytes;
+  private final int fanIn;
+
+  // sorted runs
+  private final List<Path> runPaths = new ArrayList<Path>();
+  private List<Tuple> memoryRun = null;
+  private int runId = 0;
+
+  // for sorting and writing runs in background
+  private ExecutorService runWriter;
+  private Future<Path> pendingRun;
+  private Path pendingRunPath;
+
+  private LoserTree merger;
 
   public ExternalSortExec(final TaskAttemptContext context,
       final AbstractStorageManager sm, final SortNode plan, final PhysicalExec child)
@@ -50,12 +86,14 @@ public class ExternalSortExec extends SortExec {
     super(context, plan.getInSchema(), plan.getOutSchema(), child, plan.getSortKeys());
     this.plan = plan;
 
-    this.MEM_TUPLE_NUM = context.getConf().getIntVar(ConfVars.EXECUTOR_SORT_EXTENAL_BUFFER_SIZE);
-    this.tupleSlots = new ArrayList<Tuple>(MEM_TUPLE_NUM);
+    // a run being collected and a run being written in background share the memory budget.
+    this.runMemoryBytes = context.getConf().getLongVar(ConfVars.EXECUTOR_SORT_EXTERNAL_MEMORY_BYTES) / 2;
+    this.fanIn = Math.max(2, context.getConf().getIntVar(ConfVars.EXECUTOR_SORT_MERGE_FANIN));
+    this.tupleSlots = new ArrayList<Tuple>();
 
     this.sortTmpDir = new Path(context.getWorkDir(), UUID.randomUUID().toString());
     this.localFS = FileSystem.getLocal(context.getConf());
-    meta = CatalogUtil.newTableMeta(StoreType.ROWFILE);
+    meta = CatalogUtil.newTableMeta(StoreType.RAW);
   }
 
   public void init() throws IOException {
@@ -67,154 +105,353 @@ public class ExternalSortExec extends SortExec {
     return this.plan;
   }
 
-  private void sortAndStoreChunk(int chunkId, List<Tuple> tupleSlots)
-      throws IOException {
-    TableMeta meta = CatalogUtil.newTableMeta(StoreType.RAW);
-    Collections.sort(tupleSlots, getComparator());
-    // TODO - RawFile requires the local file path.
-    // So, I add the scheme 'file:/' to path. But, it should be improved.
-    Path localPath = new Path(sortTmpDir + "/0_" + chunkId);
+  /**
+   * Sorts a run in background and writes it to a file. The comparator is not thread-safe,
+   * so the background thread uses its own comparator.
+   */
+  private void sortAndStoreRunInBackground(final List<Tuple> run) throws IOException {
+    waitForPendingRun();
 
-    appender = new RawFile.RawFileAppender(context.getConf(), inSchema, meta, localPath);
-    appender.init();
+    if (runWriter == null) {
+      runWriter = Executors.newSingleThreadExecutor(
+          new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ExternalSortExec Run Writer #%d").build());
+    }
+
+    final Path runPath = getRunPath(0, runId++);
+    final Comparator<Tuple> comparator = new TupleComparator(inSchema, getSortSpecs());
+    pendingRunPath = runPath;
+    pendingRun = runWriter.submit(new Callable<Path>() {
+      @Override
+      public Path call() throws Exception {
+        sort(run, comparator);
+        writeRun(runPath, run);
+        return runPath;
+      }
+    });
+  }
+
+  private void waitForPendingRun() throws IOException {
+    if (pendingRun != null) {
+      try {
+        runPaths.add(pendingRun.get());
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      } catch (ExecutionException e) {
+        throw new IOException(e.getCause());
+      } finally {
+        pendingRun = null;
+        pendingRunPath = null;
+      }
+    }
+  }
+
+  /**
+   * Cancels a run being written in background and waits for the writer to stop.
+   * The partially written run file is deleted.
+   */
+  private void cancelPendingRun() throws IOException {
+    runWriter.shutdown();
+    if (pendingRun != null) {
+      pendingRun.cancel(true);
+    }
+    try {
+      while (!runWriter.awaitTermination(1, TimeUnit.SECONDS)) {
+        LOG.info("Waiting for the run writer of ExternalSortExec to stop");
+      }
+    } catch (InterruptedException e) {
+      throw new IOException(e);
+    } finally {
+      if (pendingRunPath != null) {
+        localFS.delete(pendingRunPath, false);
+      }
+      pendingRun = null;
+      pendingRunPath = null;
+    }
+  }
 
-    for (Tuple t : tupleSlots) {
-      appender.addTuple(t);
+  private void writeRun(Path path, Iterable<Tuple> run) throws IOException {
+    RawFile.RawFileAppender appender = new RawFile.RawFileAppender(context.getConf(), inSchema, meta, path);
+    appender.init();
+    try {
+      for (Tuple t : run) {
+        if (Thread.interrupted()) {
+          throw new InterruptedIOException("writing a run is cancelled: " + path);
+        }
+        appender.addTuple(t);
+      }
+    } finally {
+      appender.close();
     }
-    appender.close();
-    tupleSlots.clear();
   }
 
   /**
-   * It divides all tuples into a number of chunks, then sort for each chunk.
-   * @return the number of stored chunks
-   * @throws java.io.IOException
+   * It divides all tuples into runs within the memory budget. All runs except for the last one
+   * are sorted and stored in background. The last run is sorted and kept in memory.
    */
-  private int sortAndStoreAllChunks() throws IOException {
-    int chunkId = 0;
+  private void sortAndStoreAllRuns() throws IOException {
+    long memoryUsage = 0;
 
     Tuple tuple;
     while ((tuple = child.next()) != null) { // partition sort start
-      tupleSlots.add(new VTuple(tuple));
-      if (tupleSlots.size() == MEM_TUPLE_NUM) {
-        sortAndStoreChunk(chunkId, tupleSlots);
-        chunkId++;
+      // a primitive tuple is copied as it is, so its values are not materialized as datums.
+      Tuple copied = tuple instanceof PrimitiveTuple ?
+          new PrimitiveTuple((PrimitiveTuple) tuple) : new VTuple(tuple);
+      tupleSlots.add(copied);
+      memoryUsage += TupleUtil.estimateHeapSize(copied) + REFERENCE_SIZE;
+      if (memoryUsage >= runMemoryBytes) {
+        sortAndStoreRunInBackground(tupleSlots);
+        tupleSlots = new ArrayList<Tuple>();
+        memoryUsage = 0;
       }
     }
+    waitForPendingRun();
 
-    if (tupleSlots.size() > 0) {
-      sortAndStoreChunk(chunkId, tupleSlots);
-      chunkId++;
-    }
+    sort(tupleSlots, getComparator());
+    memoryRun = tupleSlots;
+    tupleSlots = new ArrayList<Tuple>();
+  }
 
-    return chunkId;
+  private Path getRunPath(int level, int runId) {
+    return StorageUtil.concatPath(sortTmpDir, "" + level + "_" + runId);
   }
 
-  private Path getChunkPath(int level, int chunkId) {
-    return StorageUtil.concatPath(sortTmpDir, "" + level + "_" + chunkId);
+  /**
+   * Merges runs into longer runs until the number of runs does not exceed the fan-in.
+   * Each pass reads and writes a part of runs only.
+   */
+  private void mergeRunsToFanIn() throws IOException {
+    int level = 1;
+    int mergedId = 0;
+    // the memory run is also a leaf of the final merge.
+    while (runPaths.size() + 1 > fanIn) {
+      int num = Math.min(fanIn, runPaths.size() + 1 - fanIn + 1);
+      List<Path> inputs = new ArrayList<Path>(runPaths.subList(0, num));
+      runPaths.subList(0, num).clear();
+
+      Path merged = getRunPath(level, mergedId++);
+      LoserTree tree = new LoserTree(openRuns(inputs, false));
+      RawFile.RawFileAppender appender = new RawFile.RawFileAppender(context.getConf(), inSchema, meta, merged);
+      appender.init();
+      Tuple tuple;
+      while ((tuple = tree.next()) != null) {
+        appender.addTuple(tuple);
+      }
+      appender.close();
+      tree.close();
+
+      for (Path input : inputs) {
+        localFS.delete(input, false);
+      }
+      runPaths.add(merged);
+    }
+  }
+
+  private List<RunReader> openRuns(List<Path> paths, boolean includeMemoryRun) throws IOException {
+    List<RunReader> readers = new ArrayList<RunReader>();
+    for (Path path : paths) {
+      readers.add(new FileRunReader(new RawFile.RawFileScanner(context.getConf(), inSchema, meta, path)));
+    }
+    if (includeMemoryRun && memoryRun.size() > 0) {
+      readers.add(new MemoryRunReader(memoryRun));
+    }
+    return readers;
   }
 
   @Override
   public Tuple next() throws IOException {
     if (!sorted) {
-
-      // the total number of chunks for zero level
-      int totalChunkNumForLevel = sortAndStoreAllChunks();
-
-      // if there are no chunk
-      if (totalChunkNumForLevel == 0) {
-        return null;
+      sortAndStoreAllRuns();
+      if (runPaths.size() > 0) {
+        LOG.info("ExternalSortExec generated " + runPaths.size() + " runs on disk");
       }
+      mergeRunsToFanIn();
+      merger = new LoserTree(openRuns(runPaths, true));
+      sorted = true;
+    }
 
-      int level = 0;
-      int chunkId = 0;
-
-      // continue until the chunk remains only one
-      while (totalChunkNumForLevel > 1) {
+    return merger.next();
+  }
 
-        while (chunkId < totalChunkNumForLevel) {
+  @Override
+  public void rescan() throws IOException {
+    if (merger != null) {
+      merger.close();
+      merger = new LoserTree(openRuns(runPaths, true));
+    }
+  }
 
-          Path nextChunk = getChunkPath(level + 1, chunkId / 2);
+  @Override
+  public void close() throws IOException {
+    super.close();
+    if (merger != null) {
+      merger.close();
+    }
+    if (runWriter != null) {
+      cancelPendingRun();
+      runWriter = null;
+    }
+  }
 
-          // if number of chunkId is odd just copy it.
-          if (chunkId + 1 >= totalChunkNumForLevel) {
+  /**
+   * A sorted run to be merged
+   */
+  private static interface RunReader {
+    /**
+     * @return the next tuple, which is valid until the next call.
+     */
+    Tuple next() throws IOException;
 
-            Path chunk = getChunkPath(level, chunkId);
-            localFS.moveFromLocalFile(chunk, nextChunk);
+    void close() throws IOException;
+  }
 
-          } else {
+  private static class FileRunReader implements RunReader {
+    private final RawFile.RawFileScanner scanner;
 
-            Path leftChunk = getChunkPath(level, chunkId);
-            Path rightChunk = getChunkPath(level, chunkId + 1);
+    FileRunReader(RawFile.RawFileScanner scanner) {
+      this.scanner = scanner;
+    }
 
-            appender = new RawFile.RawFileAppender(context.getConf(), inSchema, meta, nextChunk);
-            appender.init();
-            merge(appender, leftChunk, rightChunk);
+    @Override
+    public Tuple next() throws IOException {
+      return scanner.next();
+    }
 
-            appender.flush();
-            appender.close();
-          }
+    @Override
+    public void close() throws IOException {
+      scanner.close();
+    }
+  }
 
-          chunkId += 2;
-        }
+  private static class MemoryRunReader implements RunReader {
+    private final Iterator<Tuple> iterator;
 
-        level++;
-        // init chunkId for each level
-        chunkId = 0;
-        // calculate the total number of chunks for next level
-        totalChunkNumForLevel = totalChunkNumForLevel / 2
-            + totalChunkNumForLevel % 2;
-      }
+    MemoryRunReader(List<Tuple> run) {
+      this.iterator = run.iterator();
+    }
 
-      Path result = getChunkPath(level, 0);
-      this.result = new RawFile.RawFileScanner(context.getConf(), plan.getInSchema(), meta, result);
-      sorted = true;
+    @Override
+    public Tuple next() throws IOException {
+      return iterator.hasNext() ? iterator.next() : null;
     }
 
-    return result.next();
+    @Override
+    public void close() throws IOException {
+    }
   }
 
-  private void merge(RawFile.RawFileAppender appender, Path left, Path right)
-      throws IOException {
-    RawFile.RawFileScanner leftScan = new RawFile.RawFileScanner(context.getConf(), plan.getInSchema(), meta, left);
-
-    RawFile.RawFileScanner rightScan =
-        new RawFile.RawFileScanner(context.getConf(), plan.getInSchema(), meta, right);
+  /**
+   * A tournament tree for K-way merge. Each internal node keeps the loser of the match between its
+   * children, and tree[0] keeps the overall winner. After the winner is consumed, only the matches
+   * on the path from its run to the root are replayed, so each tuple costs log(K) comparisons.
+   */
+  private class LoserTree {
+    private final RunReader [] runs;
+    private final Tuple [] heads;
+    private final int [] tree;
+    private final int k;
+    private final Comparator<Tuple> comparator = getComparator();
+    // the normalized key prefixes of heads, which are null if normalized keys are not used.
+    private final NormalizedKeyEncoder encoder = getKeyEncoder();
+    private final byte [][] keys;
+    // the run of the last returned tuple, which is advanced lazily to keep the tuple valid.
+    private int lastWinner = -1;
+
+    LoserTree(List<RunReader> runList) throws IOException {
+      this.k = runList.size();
+      this.runs = runList.toArray(new RunReader[k]);
+      this.heads = new Tuple[k];
+      this.tree = new int[Math.max(k, 1)];
+      this.keys = encoder != null ? new byte[k][encoder.getLength()] : null;
+
+      if (k > 0) {
+        for (int i = 0; i < k; i++) {
+          advance(i);
+        }
+        tree[0] = build(1);
+      }
+    }
 
-    Tuple leftTuple = leftScan.next();
-    Tuple rightTuple = rightScan.next();
+    private void advance(int run) throws IOException {
+      heads[run] = runs[run].next();
+      if (keys != null && heads[run] != null) {
+        encoder.encode(heads[run], keys[run]);
+      }
+    }
 
-    Comparator<Tuple> comparator = getComparator();
-    while (leftTuple != null && rightTuple != null) {
-      if (comparator.compare(leftTuple, rightTuple) < 0) {
-        appender.addTuple(leftTuple);
-        leftTuple = leftScan.next();
+    private int build(int node) {
+      if (node >= k) {
+        return node - k;
+      }
+      int left = build(node * 2);
+      int right = build(node * 2 + 1);
+      if (beats(left, right)) {
+        tree[node] = right;
+        return left;
       } else {
-        appender.addTuple(rightTuple);
-        rightTuple = rightScan.next();
+        tree[node] = left;
+        return right;
       }
     }
 
-    if (leftTuple == null) {
-      appender.addTuple(rightTuple);
-      while ((rightTuple = rightScan.next()) != null) {
-        appender.addTuple(rightTuple);
+    /**
+     * @return true if the head of run a comes before the head of run b. Exhausted runs always lose,
+     * and ties are broken by the run order to keep the merge stable.
+     */
+    private boolean beats(int a, int b) {
+      if (heads[a] == null) {
+        return false;
+      }
+      if (heads[b] == null) {
+        return true;
       }
-    } else {
-      appender.addTuple(leftTuple);
-      while ((leftTuple = leftScan.next()) != null) {
-        appender.addTuple(leftTuple);
+      int cmp;
+      if (keys != null) {
+        cmp = Bytes.compareTo(keys[a], keys[b]);
+        if (cmp == 0 && !encoder.isExact()) {
+          cmp = comparator.compare(heads[a], heads[b]);
+        }
+      } else {
+        cmp = comparator.compare(heads[a], heads[b]);
       }
+      return cmp < 0 || (cmp == 0 && a < b);
     }
 
-    leftScan.close();
-    rightScan.close();
-  }
+    private void adjust(int run) {
+      int winner = run;
+      int tmp;
+      for (int node = (run + k) / 2; node >= 1; node /= 2) {
+        if (beats(tree[node], winner)) {
+          tmp = tree[node];
+          tree[node] = winner;
+          winner = tmp;
+        }
+      }
+      tree[0] = winner;
+    }
 
-  @Override
-  public void rescan() throws IOException {
-    if (result != null) {
-      result.reset();
+    Tuple next() throws IOException {
+      if (k == 0) {
+        return null;
+      }
+
+      if (lastWinner >= 0) {
+        advance(lastWinner);
+        adjust(lastWinner);
+      }
+
+      int winner = tree[0];
+      if (heads[winner] == null) {
+        lastWinner = -1;
+        return null;
+      }
+      lastWinner = winner;
+      return heads[winner];
+    }
+
+    void close() throws IOException {
+      for (RunReader run : runs) {
+        run.close();
+      }
     }
   }
 }
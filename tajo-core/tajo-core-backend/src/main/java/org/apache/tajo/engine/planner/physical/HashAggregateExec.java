@@ -18,95 +18,512 @@
 
 package org.apache.tajo.engine.planner.physical;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.engine.eval.AggregationFunctionCallEval;
 import org.apache.tajo.engine.eval.EvalContext;
+import org.apache.tajo.engine.eval.EvalNode;
+import org.apache.tajo.engine.eval.EvalType;
+import org.apache.tajo.engine.planner.Target;
 import org.apache.tajo.engine.planner.logical.GroupbyNode;
+import org.apache.tajo.engine.utils.TupleUtil;
+import org.apache.tajo.storage.PrimitiveTuple;
+import org.apache.tajo.storage.RawFile;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.VTuple;
 import org.apache.tajo.worker.TaskAttemptContext;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
 import java.util.Map.Entry;
 
 /**
  * This is the hash-based GroupBy Operator.
+ *
+ * It keeps the estimated size of groups within a memory budget. If the budget is exceeded,
+ * the partial aggregates of all groups are spilled to local files partitioned by the hash values
+ * of grouping keys. After the input is exhausted, the spilled partial aggregates of each partition
+ * are merged in memory. If a partition still exceeds the budget, it is partitioned again.
  */
 public class HashAggregateExec extends AggregationExec {
+  private static final Log LOG = LogFactory.getLog(HashAggregateExec.class);
+
+  /** the maximum number of recursive partitionings */
+  private static final int MAX_DEPTH = 3;
+  /** the estimated bytes of a hash map entry, including its slot in the table */
+  private static final int MAP_ENTRY_OVERHEAD = 48;
+  /** the estimated bytes of an array except for its elements */
+  private static final int ARRAY_OVERHEAD = 16;
+  private static final int REFERENCE_SIZE = 8;
+  /** the estimated bytes of the context of an aggregation function */
+  private static final int MEASURE_OVERHEAD = 32;
+
   private Tuple tuple = null;
+  private PrimitiveTuple keyTuple;
   private Map<Tuple, EvalContext[]> tupleSlots;
   private boolean computed = false;
   private Iterator<Entry<Tuple, EvalContext []>> iterator = null;
 
+  // for the vectorized execution. It is null if any measure cannot be vectorized.
+  private final VectorizedAggregator vectorizedAggregator;
+  private EvalContext [][] batchGroups;
+  private Tuple rowTuple;
+  private TupleBatch outBatch;
+
+  // for spilling partial aggregates
+  private final boolean spillable;
+  private final long memoryBudget;
+  private final int partitionNum;
+  private long memoryUsage = 0;
+  private Schema spillSchema;
+  private TableMeta spillMeta;
+  private FileSystem localFS;
+  private Path spillDir;
+  private int fileId = 0;
+  private int depth = 0;
+  private boolean spilled = false;
+  private boolean everSpilled = false;
+  private Path [] spillPaths;
+  private RawFile.RawFileAppender [] spillAppenders;
+  private final LinkedList<SpilledPartition> pendingPartitions = new LinkedList<SpilledPartition>();
+  private int [] spilledKeyIds;
+  private Tuple spillTuple;
+  private Tuple keyOnlyTuple;
+
   /**
    * @throws java.io.IOException
-	 * 
+	 *
 	 */
   public HashAggregateExec(TaskAttemptContext ctx, GroupbyNode annotation,
                            PhysicalExec subOp) throws IOException {
     super(ctx, annotation, subOp);
     tupleSlots = new HashMap<Tuple, EvalContext[]>(10000);
     this.tuple = new VTuple(evalSchema.getColumnNum());
+    this.keyTuple = new PrimitiveTuple(inSchema, keylist);
+    this.vectorizedAggregator = VectorizedAggregator.compile(evals, measureList, inSchema);
+
+    this.memoryBudget = ctx.getConf().getLongVar(ConfVars.EXECUTOR_GROUPBY_INMEMORY_HASH_THRESHOLD);
+    this.partitionNum = ctx.getConf().getIntVar(ConfVars.EXECUTOR_GROUPBY_SPILL_PARTITION_NUM);
+    this.spillable = ctx.getConf().getBoolVar(ConfVars.EXECUTOR_GROUPBY_SPILL_ENABLED) && isSpillable(plan);
   }
-  
+
+  /**
+   * Partial aggregates can be spilled and merged only if all measures are non-distinct aggregation functions.
+   */
+  public static boolean isSpillable(GroupbyNode plan) {
+    if (plan.getGroupingColumns().length == 0) {
+      return false;
+    }
+    for (Target target : plan.getTargets()) {
+      EvalNode evalTree = target.getEvalTree();
+      if (evalTree.getType() == EvalType.AGG_FUNCTION && (!(evalTree instanceof AggregationFunctionCallEval)
+          || ((AggregationFunctionCallEval) evalTree).isDistinct())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private void compute() throws IOException {
     Tuple tuple;
-    Tuple keyTuple;
-    int targetLength = plan.getTargets().length;
     while((tuple = child.next()) != null && !context.isStopped()) {
-      keyTuple = new VTuple(keylist.length);
-      // build one key tuple
-      for(int i = 0; i < keylist.length; i++) {
-        keyTuple.put(i, tuple.get(keylist[i]));
-      }
-      
-      if(tupleSlots.containsKey(keyTuple)) {
-        EvalContext [] tmpTuple = tupleSlots.get(keyTuple);
-        for(int i = 0; i < measureList.length; i++) {
-          evals[measureList[i]].eval(tmpTuple[measureList[i]], inSchema, tuple);
+      aggregate(tuple);
+    }
+    finishInput();
+  }
+
+  private void computeByBatch() throws IOException {
+    TupleBatch batch;
+    while((batch = child.nextBatch()) != null && !context.isStopped()) {
+      aggregate(batch);
+    }
+    finishInput();
+  }
+
+  /**
+   * Finds the groups of all alive rows of a batch by the grouping keys read from the vectors,
+   * and then updates the accumulators of the groups column by column.
+   */
+  private void aggregate(TupleBatch batch) throws IOException {
+    int selectedNum = batch.getSelectedNum();
+    if (batchGroups == null || batchGroups.length < batch.getCapacity()) {
+      batchGroups = new EvalContext[batch.getCapacity()][];
+      // the batch of a child may have more columns than the input schema, e.g., for count(*)
+      rowTuple = new VTuple(batch.getColumnNum());
+    }
+
+    for (int i = 0; i < selectedNum; i++) {
+      int row = batch.getRowId(i);
+      getKeyFromBatch(batch, row);
+      EvalContext [] groupCtx = tupleSlots.get(keyTuple);
+      if (groupCtx == null) {
+        // non-measure targets are evaluated only once for each group
+        batch.getTuple(row, rowTuple);
+        int targetLength = plan.getTargets().length;
+        groupCtx = new EvalContext[targetLength];
+        for (int j = 0; j < targetLength; j++) {
+          if (evals[j].getType() == EvalType.AGG_FUNCTION) {
+            groupCtx[j] = vectorizedAggregator.newAccumulator();
+          } else {
+            groupCtx[j] = evals[j].newContext();
+            evals[j].eval(groupCtx[j], inSchema, rowTuple);
+          }
         }
-      } else { // if the key occurs firstly
-        EvalContext evalCtx [] = new EvalContext[targetLength];
-        for(int i = 0; i < targetLength; i++) {
-          evalCtx[i] = evals[i].newContext();
-          evals[i].eval(evalCtx[i], inSchema, tuple);
+        addGroup(groupCtx);
+      }
+      batchGroups[i] = groupCtx;
+    }
+
+    vectorizedAggregator.aggregate(batch, batchGroups);
+    // the groups of this batch are spilled only after they are updated.
+    checkMemoryUsage();
+  }
+
+  private void getKeyFromBatch(TupleBatch batch, int row) {
+    keyTuple.clear();
+    for (int i = 0; i < keylist.length; i++) {
+      int columnId = keylist[i];
+      if (batch.isNull(columnId, row)) {
+        keyTuple.setNull(i);
+        continue;
+      }
+      switch (batch.getVectorType(columnId)) {
+        case LONG:
+          keyTuple.putInt8(i, batch.getLong(columnId, row));
+          break;
+        case DOUBLE:
+          keyTuple.putFloat8(i, batch.getDouble(columnId, row));
+          break;
+        default:
+          keyTuple.put(i, batch.get(columnId, row));
+      }
+    }
+  }
+
+  private void aggregate(Tuple tuple) throws IOException {
+    // build one key tuple, which is reused for lookups
+    keyTuple.copyFrom(tuple, keylist);
+
+    EvalContext [] tmpTuple = tupleSlots.get(keyTuple);
+    if(tmpTuple != null) {
+      for(int i = 0; i < measureList.length; i++) {
+        evals[measureList[i]].eval(tmpTuple[measureList[i]], inSchema, tuple);
+      }
+    } else { // if the key occurs firstly
+      int targetLength = plan.getTargets().length;
+      EvalContext evalCtx [] = new EvalContext[targetLength];
+      for(int i = 0; i < targetLength; i++) {
+        evalCtx[i] = evals[i].newContext();
+        evals[i].eval(evalCtx[i], inSchema, tuple);
+      }
+      addGroup(evalCtx);
+      checkMemoryUsage();
+    }
+  }
+
+  /**
+   * Merges a spilled row, which consists of grouping keys and partial aggregates.
+   */
+  private void mergeSpilledRow(Tuple row) throws IOException {
+    keyTuple.copyFrom(row, spilledKeyIds);
+
+    EvalContext [] tmpTuple = tupleSlots.get(keyTuple);
+    if (tmpTuple != null) {
+      mergePartialResults(tmpTuple, row);
+    } else {
+      // non-measure targets only refer to grouping keys.
+      keyOnlyTuple.clear();
+      for (int i = 0; i < keylist.length; i++) {
+        keyOnlyTuple.put(keylist[i], row.get(i));
+      }
+      int targetLength = plan.getTargets().length;
+      tmpTuple = new EvalContext[targetLength];
+      for (int i = 0; i < targetLength; i++) {
+        tmpTuple[i] = evals[i].newContext();
+        if (evals[i].getType() != EvalType.AGG_FUNCTION) {
+          evals[i].eval(tmpTuple[i], inSchema, keyOnlyTuple);
+        }
+      }
+      mergePartialResults(tmpTuple, row);
+      addGroup(tmpTuple);
+      checkMemoryUsage();
+    }
+  }
+
+  private void mergePartialResults(EvalContext [] evalCtx, Tuple row) {
+    for (int i = 0; i < measureList.length; i++) {
+      ((AggregationFunctionCallEval) evals[measureList[i]]).mergePartialResult(evalCtx[measureList[i]],
+          row.get(keylist.length + i));
+    }
+  }
+
+  private void addGroup(EvalContext [] evalCtx) throws IOException {
+    PrimitiveTuple key = new PrimitiveTuple(keyTuple);
+    tupleSlots.put(key, evalCtx);
+
+    if (spillable) {
+      memoryUsage += TupleUtil.estimateHeapSize(key) + MAP_ENTRY_OVERHEAD
+          + ARRAY_OVERHEAD + REFERENCE_SIZE * evalCtx.length + MEASURE_OVERHEAD * measureList.length;
+    }
+  }
+
+  private void checkMemoryUsage() throws IOException {
+    if (spillable && memoryUsage > memoryBudget && depth < MAX_DEPTH) {
+      spillGroups();
+    }
+  }
+
+  /**
+   * Merges the primitive accumulators of the vectorized execution into the contexts of all groups.
+   */
+  private void materializeGroups() {
+    if (vectorizedAggregator != null) {
+      for (EvalContext [] groupCtx : tupleSlots.values()) {
+        vectorizedAggregator.materialize(groupCtx);
+      }
+    }
+  }
+
+  private void initSpill() throws IOException {
+    spillSchema = new Schema();
+    for (int i = 0; i < keylist.length; i++) {
+      spillSchema.addColumn("key_" + i, inSchema.getColumn(keylist[i]).getDataType());
+    }
+    for (int i = 0; i < measureList.length; i++) {
+      spillSchema.addColumn("partial_" + i,
+          ((AggregationFunctionCallEval) evals[measureList[i]]).getPartialResultType());
+    }
+    spillMeta = CatalogUtil.newTableMeta(StoreType.RAW);
+    spillTuple = new VTuple(spillSchema.getColumnNum());
+    keyOnlyTuple = new VTuple(inSchema.getColumnNum());
+    spilledKeyIds = new int[keylist.length];
+    for (int i = 0; i < keylist.length; i++) {
+      spilledKeyIds[i] = i;
+    }
+
+    localFS = FileSystem.getLocal(context.getConf());
+    spillDir = new Path(context.getWorkDir(), UUID.randomUUID().toString());
+  }
+
+  /**
+   * Writes the partial aggregates of all in-memory groups to the partitions of the current depth,
+   * and then releases the groups.
+   */
+  private void spillGroups() throws IOException {
+    if (spillSchema == null) {
+      initSpill();
+    }
+    if (spillAppenders == null) {
+      localFS.mkdirs(spillDir);
+      spillPaths = new Path[partitionNum];
+      spillAppenders = new RawFile.RawFileAppender[partitionNum];
+    }
+    materializeGroups();
+
+    for (Entry<Tuple, EvalContext []> entry : tupleSlots.entrySet()) {
+      Tuple key = entry.getKey();
+      EvalContext [] ctx = entry.getValue();
+      for (int i = 0; i < keylist.length; i++) {
+        spillTuple.put(i, key.get(i));
+      }
+      for (int i = 0; i < measureList.length; i++) {
+        spillTuple.put(keylist.length + i,
+            ((AggregationFunctionCallEval) evals[measureList[i]]).getPartialResult(ctx[measureList[i]]));
+      }
+      getSpillAppender(TupleUtil.getSpillPartition(key, depth, partitionNum)).addTuple(spillTuple);
+    }
+
+    LOG.info("Hash aggregation spills " + tupleSlots.size() + " groups (" + memoryUsage + " bytes, depth "
+        + depth + ")");
+    tupleSlots.clear();
+    memoryUsage = 0;
+    spilled = true;
+    everSpilled = true;
+  }
+
+  private RawFile.RawFileAppender getSpillAppender(int partId) throws IOException {
+    if (spillAppenders[partId] == null) {
+      spillPaths[partId] = new Path(spillDir, depth + "_" + (fileId++));
+      spillAppenders[partId] = new RawFile.RawFileAppender(context.getConf(), spillSchema, spillMeta,
+          spillPaths[partId]);
+      spillAppenders[partId].init();
+    }
+    return spillAppenders[partId];
+  }
+
+  /**
+   * Called when the current input is exhausted. If any group has been spilled from the current input,
+   * the remaining groups are also spilled, and the partitions are scheduled to be merged.
+   */
+  private void finishInput() throws IOException {
+    if (spilled) {
+      spillGroups();
+      for (int i = 0; i < partitionNum; i++) {
+        if (spillAppenders[i] != null) {
+          spillAppenders[i].close();
+          pendingPartitions.push(new SpilledPartition(depth + 1, spillPaths[i]));
         }
-        tupleSlots.put(keyTuple, evalCtx);
       }
+      spillAppenders = null;
+      spillPaths = null;
+      spilled = false;
+    }
+    materializeGroups();
+    iterator = tupleSlots.entrySet().iterator();
+  }
+
+  /**
+   * Merges the next spilled partition into the hash table.
+   *
+   * @return false if there is no remaining partition.
+   */
+  private boolean loadNextPartition() throws IOException {
+    if (pendingPartitions.isEmpty()) {
+      return false;
     }
+
+    SpilledPartition partition = pendingPartitions.pop();
+    tupleSlots.clear();
+    memoryUsage = 0;
+    depth = partition.depth;
+
+    RawFile.RawFileScanner scanner = new RawFile.RawFileScanner(context.getConf(), spillSchema, spillMeta,
+        partition.path);
+    Tuple row;
+    while ((row = scanner.next()) != null && !context.isStopped()) {
+      mergeSpilledRow(row);
+    }
+    scanner.close();
+    localFS.delete(partition.path, false);
+
+    finishInput();
+    return true;
   }
 
   @Override
   public Tuple next() throws IOException {
     if(!computed) {
       compute();
-      iterator = tupleSlots.entrySet().iterator();
       computed = true;
     }
 
     EvalContext [] ctx;
 
-    if (iterator.hasNext()) {
-      ctx =  iterator.next().getValue();
+    while (!iterator.hasNext()) {
+      if (!loadNextPartition()) {
+        return null;
+      }
+    }
+
+    ctx =  iterator.next().getValue();
+    for (int i = 0; i < ctx.length; i++) {
+      tuple.put(i, evals[i].terminate(ctx[i]));
+    }
+
+    return tuple;
+  }
+
+  @Override
+  public boolean isBatchSupported() {
+    return vectorizedAggregator != null;
+  }
+
+  @Override
+  public TupleBatch nextBatch() throws IOException {
+    if (!isBatchSupported()) {
+      return nextBatchFromRows();
+    }
+
+    if(!computed) {
+      computeByBatch();
+      computed = true;
+    }
+
+    if (outBatch == null) {
+      outBatch = newBatch(outSchema);
+    }
+    outBatch.reset();
+
+    EvalContext [] ctx;
+    int row;
+    while (!outBatch.isFull()) {
+      if (!iterator.hasNext() && !loadNextPartition()) {
+        break;
+      }
+      if (!iterator.hasNext()) {
+        continue;
+      }
+      ctx = iterator.next().getValue();
+      row = outBatch.nextRow(0);
       for (int i = 0; i < ctx.length; i++) {
-        tuple.put(i, evals[i].terminate(ctx[i]));
+        outBatch.put(i, row, evals[i].terminate(ctx[i]));
       }
+    }
 
-      return tuple;
+    return outBatch.getRowNum() > 0 ? outBatch : null;
+  }
+
+  /**
+   * @return true if any partial aggregate has been spilled to disk.
+   */
+  public boolean hasSpilled() {
+    return everSpilled;
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    if (everSpilled) {
+      // only the groups of the last partition remain in memory, so the aggregation is computed again.
+      releaseSpills();
+      tupleSlots.clear();
+      memoryUsage = 0;
+      depth = 0;
+      computed = false;
+      child.rescan();
     } else {
-      return null;
+      iterator = tupleSlots.entrySet().iterator();
     }
   }
 
-  @Override
-  public void rescan() throws IOException {    
-    iterator = tupleSlots.entrySet().iterator();
+  private void releaseSpills() throws IOException {
+    if (spillAppenders != null) {
+      for (RawFile.RawFileAppender appender : spillAppenders) {
+        if (appender != null) {
+          appender.close();
+        }
+      }
+      spillAppenders = null;
+      spillPaths = null;
+    }
+    pendingPartitions.clear();
+    spilled = false;
+    everSpilled = false;
+    if (localFS != null) {
+      localFS.delete(spillDir, true);
+    }
   }
 
   @Override
   public void close() throws IOException {
     super.close();
     tupleSlots.clear();
+    releaseSpills();
+  }
+
+  private static class SpilledPartition {
+    private final int depth;
+    private final Path path;
+
+    SpilledPartition(int depth, Path path) {
+      this.depth = depth;
+      this.path = path;
+    }
   }
 }
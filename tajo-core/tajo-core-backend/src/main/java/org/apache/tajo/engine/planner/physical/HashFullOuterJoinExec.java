@@ -20,6 +20,8 @@ package org.apache.tajo.engine.planner.physical;
 
 import org.apache.tajo.worker.TaskAttemptContext;
 import org.apache.tajo.catalog.Column;
+import org.apache.tajo.engine.codegen.CompiledEval;
+import org.apache.tajo.engine.codegen.EvalCodeGenerator;
 import org.apache.tajo.engine.eval.EvalContext;
 import org.apache.tajo.engine.eval.EvalNode;
 import org.apache.tajo.engine.planner.PlannerUtil;
@@ -28,6 +30,7 @@ import org.apache.tajo.engine.planner.logical.JoinNode;
 import org.apache.tajo.engine.utils.SchemaUtil;
 import org.apache.tajo.engine.utils.TupleUtil;
 import org.apache.tajo.storage.FrameTuple;
+import org.apache.tajo.storage.PrimitiveTuple;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.VTuple;
 
@@ -48,9 +51,9 @@ public class HashFullOuterJoinExec extends BinaryPhysicalExec {
   protected Tuple outTuple = null;
   protected Map<Tuple, List<Tuple>> tupleSlots;
   protected Iterator<Tuple> iterator = null;
-  protected EvalContext qualCtx;
+  protected CompiledEval compiledQual;
   protected Tuple leftTuple;
-  protected Tuple leftKeyTuple;
+  protected PrimitiveTuple leftKeyTuple;
 
   protected int [] leftKeyList;
   protected int [] rightKeyList;
@@ -72,7 +75,7 @@ public class HashFullOuterJoinExec extends BinaryPhysicalExec {
         plan.getOutSchema(), outer, inner);
     this.plan = plan;
     this.joinQual = plan.getJoinQual();
-    this.qualCtx = joinQual.newContext();
+    this.compiledQual = EvalCodeGenerator.compile(context.getConf(), joinQual, inSchema);
     this.tupleSlots = new HashMap<Tuple, List<Tuple>>(10000);
 
     // this hashmap mirrors the evolution of the tupleSlots, with the same keys. For each join key,
@@ -94,22 +97,20 @@ public class HashFullOuterJoinExec extends BinaryPhysicalExec {
     }
 
     // for projection
-    this.projector = new Projector(inSchema, outSchema, plan.getTargets());
+    this.projector = new Projector(context.getConf(), inSchema, outSchema, plan.getTargets());
     this.evalContexts = projector.newContexts();
 
     // for join
     frameTuple = new FrameTuple();
     outTuple = new VTuple(outSchema.getColumnNum());
-    leftKeyTuple = new VTuple(leftKeyList.length);
+    leftKeyTuple = new PrimitiveTuple(outer.getSchema(), leftKeyList);
 
     leftNumCols = outer.getSchema().getColumnNum();
     rightNumCols = inner.getSchema().getColumnNum();
   }
 
-  protected void getKeyLeftTuple(final Tuple outerTuple, Tuple keyTuple) {
-    for (int i = 0; i < leftKeyList.length; i++) {
-      keyTuple.put(i, outerTuple.get(leftKeyList[i]));
-    }
+  protected void getKeyLeftTuple(final Tuple outerTuple, PrimitiveTuple keyTuple) {
+    keyTuple.copyFrom(outerTuple, leftKeyList);
   }
 
   public Tuple getNextUnmatchedRight() {
@@ -184,8 +185,7 @@ public class HashFullOuterJoinExec extends BinaryPhysicalExec {
       // getting a next right tuple on in-memory hash table.
       rightTuple = iterator.next();
       frameTuple.set(leftTuple, rightTuple); // evaluate a join condition on both tuples
-      joinQual.eval(qualCtx, inSchema, frameTuple); //?? isn't it always true if hash function is identity function??
-      if (joinQual.terminate(qualCtx).isTrue()) { // if both tuples are joinable
+      if (compiledQual.isTrue(frameTuple)) { // if both tuples are joinable
         projector.eval(evalContexts, frameTuple);
         projector.terminate(evalContexts, outTuple);
         found = true;
@@ -206,25 +206,21 @@ public class HashFullOuterJoinExec extends BinaryPhysicalExec {
 
   protected void loadRightToHashTable() throws IOException {
     Tuple tuple;
-    Tuple keyTuple;
+    PrimitiveTuple keyTuple = new PrimitiveTuple(rightChild.getSchema(), rightKeyList);
 
     while ((tuple = rightChild.next()) != null) {
-      keyTuple = new VTuple(joinKeyPairs.size());
       List<Tuple> newValue;
-      for (int i = 0; i < rightKeyList.length; i++) {
-        keyTuple.put(i, tuple.get(rightKeyList[i]));
-      }
+      keyTuple.copyFrom(tuple, rightKeyList);
 
-      if (tupleSlots.containsKey(keyTuple)) {
-        newValue = tupleSlots.get(keyTuple);
-        newValue.add(tuple);
-        tupleSlots.put(keyTuple, newValue);
-      } else {
+      newValue = tupleSlots.get(keyTuple);
+      if (newValue == null) {
+        // the probe key tuple is reused, so only a new key is copied.
+        PrimitiveTuple newKey = new PrimitiveTuple(keyTuple);
         newValue = new ArrayList<Tuple>();
-        newValue.add(tuple);
-        tupleSlots.put(keyTuple, newValue);
-        matched.put(keyTuple,false);
+        tupleSlots.put(newKey, newValue);
+        matched.put(newKey, false);
       }
+      newValue.add(tuple);
     }
     first = false;
   }
@@ -18,15 +18,23 @@
 
 package org.apache.tajo.engine.planner.physical;
 
+import org.apache.tajo.conf.TajoConf.ConfVars;
 import org.apache.tajo.worker.TaskAttemptContext;
 import org.apache.tajo.catalog.Column;
+import org.apache.tajo.engine.codegen.CompiledEval;
+import org.apache.tajo.engine.codegen.EvalCodeGenerator;
+import org.apache.tajo.engine.eval.AlgebraicUtil;
 import org.apache.tajo.engine.eval.EvalContext;
 import org.apache.tajo.engine.eval.EvalNode;
+import org.apache.tajo.engine.eval.EvalType;
+import org.apache.tajo.engine.eval.FieldEval;
 import org.apache.tajo.engine.planner.PlannerUtil;
 import org.apache.tajo.engine.planner.Projector;
+import org.apache.tajo.engine.planner.Target;
 import org.apache.tajo.engine.planner.logical.JoinNode;
 import org.apache.tajo.engine.utils.SchemaUtil;
 import org.apache.tajo.storage.FrameTuple;
+import org.apache.tajo.storage.PrimitiveTuple;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.VTuple;
 
@@ -44,11 +52,12 @@ public class HashJoinExec extends BinaryPhysicalExec {
   protected boolean first = true;
   protected FrameTuple frameTuple;
   protected Tuple outTuple = null;
+  protected HybridHashTable hashTable;
   protected Map<Tuple, List<Tuple>> tupleSlots;
   protected Iterator<Tuple> iterator = null;
-  protected EvalContext qualCtx;
+  protected CompiledEval compiledQual;
   protected Tuple leftTuple;
-  protected Tuple leftKeyTuple;
+  protected PrimitiveTuple leftKeyTuple;
 
   protected int [] leftKeyList;
   protected int [] rightKeyList;
@@ -56,6 +65,20 @@ public class HashJoinExec extends BinaryPhysicalExec {
   protected boolean finished = false;
   protected boolean shouldGetLeftTuple = true;
 
+  // for the vectorized mode
+  private TupleBatch probeBatch;
+  private int probeIdx = 0;
+  private int probeRow;
+  // the probe row is materialized only if the join qual or the targets need it
+  private PrimitiveTuple probeTuple;
+  private boolean probeTupleFilled;
+  private TupleBatch outBatch;
+  // true if matching join keys do not satisfy the join qual by themselves
+  private boolean residualQual;
+  // the field ids of the targets in the left or the right schema if all targets are column references
+  private int [] targetFieldIds;
+  private boolean [] targetFromLeft;
+
   // projection
   protected final Projector projector;
   protected final EvalContext [] evalContexts;
@@ -66,8 +89,7 @@ public class HashJoinExec extends BinaryPhysicalExec {
         leftExec, rightExec);
     this.plan = plan;
     this.joinQual = plan.getJoinQual();
-    this.qualCtx = joinQual.newContext();
-    this.tupleSlots = new HashMap<Tuple, List<Tuple>>(10000);
+    this.compiledQual = EvalCodeGenerator.compile(context.getConf(), joinQual, inSchema);
 
     this.joinKeyPairs = PlannerUtil.getJoinKeyPairs(joinQual,
         leftExec.getSchema(), rightExec.getSchema());
@@ -84,19 +106,48 @@ public class HashJoinExec extends BinaryPhysicalExec {
     }
 
     // for projection
-    this.projector = new Projector(inSchema, outSchema, plan.getTargets());
+    this.projector = new Projector(context.getConf(), inSchema, outSchema, plan.getTargets());
     this.evalContexts = projector.newContexts();
 
     // for join
     frameTuple = new FrameTuple();
     outTuple = new VTuple(outSchema.getColumnNum());
-    leftKeyTuple = new VTuple(leftKeyList.length);
+    leftKeyTuple = new PrimitiveTuple(leftExec.getSchema(), leftKeyList);
+
+    // the right tuples exceeding the memory budget are spilled to disk
+    hashTable = new HybridHashTable(context, leftExec.getSchema(), leftKeyList, rightExec.getSchema(), rightKeyList,
+        context.getConf().getLongVar(ConfVars.EXECUTOR_INNER_JOIN_INMEMORY_HASH_THRESHOLD));
+    tupleSlots = hashTable.getTupleSlots();
   }
 
-  protected void getKeyLeftTuple(final Tuple outerTuple, Tuple keyTuple) {
-    for (int i = 0; i < leftKeyList.length; i++) {
-      keyTuple.put(i, outerTuple.get(leftKeyList[i]));
+  private void initBatchProbe() {
+    residualQual = AlgebraicUtil.toConjunctiveNormalFormArray(joinQual).length != joinKeyPairs.size();
+    for (Column [] pair : joinKeyPairs) {
+      residualQual |= !pair[0].getDataType().equals(pair[1].getDataType());
+    }
+
+    Target [] targets = plan.hasTargets() ? plan.getTargets() : PlannerUtil.schemaToTargets(outSchema);
+    int leftColumnNum = leftChild.getSchema().getColumnNum();
+    int [] fieldIds = new int[targets.length];
+    boolean [] fromLeft = new boolean[targets.length];
+    for (int i = 0; i < targets.length; i++) {
+      EvalNode eval = targets[i].getEvalTree();
+      if (eval.getType() != EvalType.FIELD) {
+        return;
+      }
+      int id = inSchema.getColumnId(((FieldEval) eval).getColumnRef().getQualifiedName());
+      if (id < 0) {
+        return;
+      }
+      fromLeft[i] = id < leftColumnNum;
+      fieldIds[i] = fromLeft[i] ? id : id - leftColumnNum;
     }
+    targetFieldIds = fieldIds;
+    targetFromLeft = fromLeft;
+  }
+
+  protected void getKeyLeftTuple(final Tuple outerTuple, PrimitiveTuple keyTuple) {
+    keyTuple.copyFrom(outerTuple, leftKeyList);
   }
 
   public Tuple next() throws IOException {
@@ -111,7 +162,7 @@ public class HashJoinExec extends BinaryPhysicalExec {
 
       if (shouldGetLeftTuple) { // initially, it is true.
         // getting new outer
-        leftTuple = leftChild.next(); // it comes from a disk
+        leftTuple = hashTable.nextLeft(leftChild); // it comes from a disk or a spilled partition
         if (leftTuple == null) { // if no more tuples in left tuples on disk, a join is completed.
           finished = true;
           return null;
@@ -131,8 +182,7 @@ public class HashJoinExec extends BinaryPhysicalExec {
       // getting a next right tuple on in-memory hash table.
       rightTuple = iterator.next();
       frameTuple.set(leftTuple, rightTuple); // evaluate a join condition on both tuples
-      joinQual.eval(qualCtx, inSchema, frameTuple);
-      if (joinQual.terminate(qualCtx).asBool()) { // if both tuples are joinable
+      if (compiledQual.isTrue(frameTuple)) { // if both tuples are joinable
         projector.eval(evalContexts, frameTuple);
         projector.terminate(evalContexts, outTuple);
         found = true;
@@ -150,27 +200,122 @@ public class HashJoinExec extends BinaryPhysicalExec {
     return outTuple;
   }
 
-  protected void loadRightToHashTable() throws IOException {
-    Tuple tuple;
-    Tuple keyTuple;
-
-    while ((tuple = rightChild.next()) != null) {
-      keyTuple = new VTuple(joinKeyPairs.size());
-      List<Tuple> newValue;
-      for (int i = 0; i < rightKeyList.length; i++) {
-        keyTuple.put(i, tuple.get(rightKeyList[i]));
+  @Override
+  public boolean isBatchSupported() {
+    return true;
+  }
+
+  /**
+   * Probes the hash table with batches from the left child. The join keys are read from the column vectors,
+   * and the columns of the joined rows are copied into the output vectors if all targets are column
+   * references. A probe row is materialized only for a join qual other than the join keys or for other
+   * targets. The right child is still loaded into the hash table row by row. Once the hash table has
+   * spilled, the left tuples are probed row by row because they may be spilled as well.
+   */
+  @Override
+  public TupleBatch nextBatch() throws IOException {
+    if (first) {
+      loadRightToHashTable();
+    }
+
+    if (hashTable.hasSpilled()) {
+      return nextBatchFromRows();
+    }
+
+    if (outBatch == null) {
+      initBatchProbe();
+      outBatch = newBatch(outSchema);
+      probeTuple = new PrimitiveTuple(leftChild.getSchema());
+    }
+    outBatch.reset();
+
+    Tuple rightTuple;
+    while (!outBatch.isFull() && !finished) {
+      if (shouldGetLeftTuple) {
+        if (probeBatch == null || probeIdx >= probeBatch.getSelectedNum()) {
+          probeBatch = leftChild.nextBatch();
+          probeIdx = 0;
+          if (probeBatch == null) {
+            finished = true;
+          }
+          continue;
+        }
+
+        probeRow = probeBatch.getRowId(probeIdx++);
+        // a null key is never joined
+        if (!getKeyFromBatch(probeBatch, probeRow, leftKeyTuple)) {
+          continue;
+        }
+        List<Tuple> rightTuples = tupleSlots.get(leftKeyTuple);
+        if (rightTuples == null) {
+          continue;
+        }
+        iterator = rightTuples.iterator();
+        shouldGetLeftTuple = false;
+        probeTupleFilled = false;
+      }
+
+      rightTuple = iterator.next();
+      if (residualQual || targetFieldIds == null) {
+        if (!probeTupleFilled) {
+          probeBatch.getTuple(probeRow, probeTuple);
+          probeTupleFilled = true;
+        }
+        frameTuple.set(probeTuple, rightTuple);
+      }
+      if (!residualQual || compiledQual.isTrue(frameTuple)) {
+        if (targetFieldIds != null) {
+          int outRow = outBatch.nextRow(probeBatch.getOffset(probeRow));
+          for (int i = 0; i < targetFieldIds.length; i++) {
+            if (targetFromLeft[i]) {
+              outBatch.copy(i, outRow, probeBatch, targetFieldIds[i], probeRow);
+            } else {
+              outBatch.put(i, outRow, rightTuple, targetFieldIds[i]);
+            }
+          }
+        } else {
+          projector.eval(evalContexts, frameTuple);
+          projector.terminate(evalContexts, outTuple);
+          outBatch.addTuple(outTuple);
+        }
+      }
+
+      if (!iterator.hasNext()) {
+        shouldGetLeftTuple = true;
       }
+    }
+
+    return outBatch.getRowNum() > 0 ? outBatch : null;
+  }
 
-      if (tupleSlots.containsKey(keyTuple)) {
-        newValue = tupleSlots.get(keyTuple);
-        newValue.add(tuple);
-        tupleSlots.put(keyTuple, newValue);
-      } else {
-        newValue = new ArrayList<Tuple>();
-        newValue.add(tuple);
-        tupleSlots.put(keyTuple, newValue);
+  /**
+   * Builds a key tuple from the column vectors of a batch.
+   *
+   * @return false if any key is null
+   */
+  private boolean getKeyFromBatch(TupleBatch batch, int row, PrimitiveTuple keyTuple) {
+    keyTuple.clear();
+    for (int i = 0; i < leftKeyList.length; i++) {
+      int columnId = leftKeyList[i];
+      if (batch.isNull(columnId, row)) {
+        return false;
+      }
+      switch (batch.getVectorType(columnId)) {
+        case LONG:
+          keyTuple.putInt8(i, batch.getLong(columnId, row));
+          break;
+        case DOUBLE:
+          keyTuple.putFloat8(i, batch.getDouble(columnId, row));
+          break;
+        default:
+          keyTuple.put(i, batch.get(columnId, row));
       }
     }
+    return true;
+  }
+
+  protected void loadRightToHashTable() throws IOException {
+    hashTable.build(rightChild);
     first = false;
   }
 
@@ -178,16 +323,18 @@ public class HashJoinExec extends BinaryPhysicalExec {
   public void rescan() throws IOException {
     super.rescan();
 
-    tupleSlots.clear();
+    hashTable.reset();
     first = true;
 
     finished = false;
     iterator = null;
     shouldGetLeftTuple = true;
+    probeBatch = null;
+    probeIdx = 0;
   }
 
   public void close() throws IOException {
-    tupleSlots.clear();
+    hashTable.close();
   }
 
   public JoinNode getPlan() {
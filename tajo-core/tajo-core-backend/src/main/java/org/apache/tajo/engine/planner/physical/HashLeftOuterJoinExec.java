@@ -18,8 +18,11 @@
 
 package org.apache.tajo.engine.planner.physical;
 
+import org.apache.tajo.conf.TajoConf.ConfVars;
 import org.apache.tajo.worker.TaskAttemptContext;
 import org.apache.tajo.catalog.Column;
+import org.apache.tajo.engine.codegen.CompiledEval;
+import org.apache.tajo.engine.codegen.EvalCodeGenerator;
 import org.apache.tajo.engine.eval.EvalContext;
 import org.apache.tajo.engine.eval.EvalNode;
 import org.apache.tajo.engine.planner.PlannerUtil;
@@ -28,6 +31,7 @@ import org.apache.tajo.engine.planner.logical.JoinNode;
 import org.apache.tajo.engine.utils.SchemaUtil;
 import org.apache.tajo.engine.utils.TupleUtil;
 import org.apache.tajo.storage.FrameTuple;
+import org.apache.tajo.storage.PrimitiveTuple;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.VTuple;
 
@@ -49,11 +53,12 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
   protected boolean first = true;
   protected FrameTuple frameTuple;
   protected Tuple outTuple = null;
+  protected HybridHashTable hashTable;
   protected Map<Tuple, List<Tuple>> tupleSlots;
   protected Iterator<Tuple> iterator = null;
-  protected EvalContext qualCtx;
+  protected CompiledEval compiledQual;
   protected Tuple leftTuple;
-  protected Tuple leftKeyTuple;
+  protected PrimitiveTuple leftKeyTuple;
 
   protected int [] leftKeyList;
   protected int [] rightKeyList;
@@ -75,8 +80,7 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
         plan.getOutSchema(), leftChild, rightChild);
     this.plan = plan;
     this.joinQual = plan.getJoinQual();
-    this.qualCtx = joinQual.newContext();
-    this.tupleSlots = new HashMap<Tuple, List<Tuple>>(10000);
+    this.compiledQual = EvalCodeGenerator.compile(context.getConf(), joinQual, inSchema);
 
     this.joinKeyPairs = PlannerUtil.getJoinKeyPairs(joinQual, leftChild.getSchema(), rightChild.getSchema());
 
@@ -92,22 +96,25 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
     }
 
     // for projection
-    this.projector = new Projector(inSchema, outSchema, plan.getTargets());
+    this.projector = new Projector(context.getConf(), inSchema, outSchema, plan.getTargets());
     this.evalContexts = projector.newContexts();
 
     // for join
     frameTuple = new FrameTuple();
     outTuple = new VTuple(outSchema.getColumnNum());
-    leftKeyTuple = new VTuple(leftKeyList.length);
+    leftKeyTuple = new PrimitiveTuple(leftChild.getSchema(), leftKeyList);
+
+    // the right tuples exceeding the memory budget are spilled to disk
+    hashTable = new HybridHashTable(context, leftChild.getSchema(), leftKeyList, rightChild.getSchema(), rightKeyList,
+        context.getConf().getLongVar(ConfVars.EXECUTOR_OUTER_JOIN_INMEMORY_HASH_THRESHOLD));
+    tupleSlots = hashTable.getTupleSlots();
 
     leftNumCols = leftChild.getSchema().getColumnNum();
     rightNumCols = rightChild.getSchema().getColumnNum();
   }
 
-  protected void getKeyLeftTuple(final Tuple outerTuple, Tuple keyTuple) {
-    for (int i = 0; i < leftKeyList.length; i++) {
-      keyTuple.put(i, outerTuple.get(leftKeyList[i]));
-    }
+  protected void getKeyLeftTuple(final Tuple outerTuple, PrimitiveTuple keyTuple) {
+    keyTuple.copyFrom(outerTuple, leftKeyList);
   }
 
   public Tuple next() throws IOException {
@@ -122,7 +129,7 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
 
       if (shouldGetLeftTuple) { // initially, it is true.
         // getting new outer
-        leftTuple = leftChild.next(); // it comes from a disk
+        leftTuple = hashTable.nextLeft(leftChild); // it comes from a disk or a spilled partition
         if (leftTuple == null) { // if no more tuples in left tuples on disk, a join is completed.
           finished = true;
           return null;
@@ -148,8 +155,7 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
       // getting a next right tuple on in-memory hash table.
       rightTuple = iterator.next();
       frameTuple.set(leftTuple, rightTuple); // evaluate a join condition on both tuples
-      joinQual.eval(qualCtx, inSchema, frameTuple);
-      if (joinQual.terminate(qualCtx).isTrue()) { // if both tuples are joinable
+      if (compiledQual.isTrue(frameTuple)) { // if both tuples are joinable
         projector.eval(evalContexts, frameTuple);
         projector.terminate(evalContexts, outTuple);
         found = true;
@@ -168,26 +174,7 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
   }
 
   protected void loadRightToHashTable() throws IOException {
-    Tuple tuple;
-    Tuple keyTuple;
-
-    while ((tuple = rightChild.next()) != null) {
-      keyTuple = new VTuple(joinKeyPairs.size());
-      List<Tuple> newValue;
-      for (int i = 0; i < rightKeyList.length; i++) {
-        keyTuple.put(i, tuple.get(rightKeyList[i]));
-      }
-
-      if (tupleSlots.containsKey(keyTuple)) {
-        newValue = tupleSlots.get(keyTuple);
-        newValue.add(tuple);
-        tupleSlots.put(keyTuple, newValue);
-      } else {
-        newValue = new ArrayList<Tuple>();
-        newValue.add(tuple);
-        tupleSlots.put(keyTuple, newValue);
-      }
-    }
+    hashTable.build(rightChild);
     first = false;
   }
 
@@ -195,7 +182,7 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
   public void rescan() throws IOException {
     super.rescan();
 
-    tupleSlots.clear();
+    hashTable.reset();
     first = true;
 
     finished = false;
@@ -204,7 +191,7 @@ public class HashLeftOuterJoinExec extends BinaryPhysicalExec {
   }
 
   public void close() throws IOException {
-    tupleSlots.clear();
+    hashTable.close();
   }
 
   public JoinNode getPlan() {
@@ -68,7 +68,7 @@ public class HashLeftSemiJoinExec extends HashJoinExec {
     while(!finished) {
 
       // getting new outer
-      leftTuple = leftChild.next(); // it comes from a disk
+      leftTuple = hashTable.nextLeft(leftChild); // it comes from a disk or a spilled partition
       if (leftTuple == null) { // if no more tuples in left tuples on disk, a join is completed.
         finished = true;
         return null;
@@ -89,8 +89,7 @@ public class HashLeftSemiJoinExec extends HashJoinExec {
       while (notFound && iterator.hasNext()) {
         rightTuple = iterator.next();
         frameTuple.set(leftTuple, rightTuple);
-        joinQual.eval(qualCtx, inSchema, frameTuple);
-        if (joinQual.terminate(qualCtx).asBool()) { // if the matched one is found
+        if (compiledQual.isTrue(frameTuple)) { // if the matched one is found
           notFound = false;
           projector.eval(evalContexts, frameTuple);
           projector.terminate(evalContexts, outTuple);
@@ -104,4 +103,14 @@ public class HashLeftSemiJoinExec extends HashJoinExec {
 
     return outTuple;
   }
+
+  @Override
+  public boolean isBatchSupported() {
+    return false;
+  }
+
+  @Override
+  public TupleBatch nextBatch() throws IOException {
+    return nextBatchFromRows();
+  }
 }
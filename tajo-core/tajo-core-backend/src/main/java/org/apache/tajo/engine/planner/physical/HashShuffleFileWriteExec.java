@@ -23,18 +23,28 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocalFileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.fs.RawLocalFileSystem;
+import org.apache.hadoop.io.IOUtils;
 import org.apache.tajo.catalog.CatalogUtil;
 import org.apache.tajo.catalog.Column;
 import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
 import org.apache.tajo.catalog.statistics.StatisticsUtil;
 import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.engine.planner.global.DataChannel;
 import org.apache.tajo.engine.planner.logical.ShuffleFileWriteNode;
+import org.apache.tajo.engine.utils.JoinKeyFilter;
+import org.apache.tajo.engine.utils.TupleUtil;
 import org.apache.tajo.storage.*;
 import org.apache.tajo.worker.TaskAttemptContext;
 
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -43,9 +53,16 @@ import java.util.Map;
 /**
  * <code>HashShuffleFileWriteExec</code> is a physical executor to store intermediate data into a number of
  * file outputs associated with shuffle keys. The file outputs are stored on local disks.
+ *
+ * In the consolidated mode, all partitions are written into a single data file in the order of partition ids,
+ * and {@link HashShuffleIndex} keeps the byte range of each partition. Tuples are buffered per partition
+ * within a memory budget, which is charged with the estimated heap size of the buffered tuples. If the budget
+ * is exceeded, the buffered partitions are spilled to a file, and all spill files are finally merged into
+ * the data file partition by partition.
  */
 public final class HashShuffleFileWriteExec extends UnaryPhysicalExec {
   private static Log LOG = LogFactory.getLog(HashShuffleFileWriteExec.class);
+
   private final ShuffleFileWriteNode plan;
   private final TableMeta meta;
   private final Partitioner partitioner;
@@ -53,6 +70,21 @@ public final class HashShuffleFileWriteExec extends UnaryPhysicalExec {
   private final Map<Integer, Appender> appenderMap = new HashMap<Integer, Appender>();
   private final int numShuffleOutputs;
   private final int [] shuffleKeyIds;
+
+  // for the consolidated mode
+  private final boolean consolidated;
+  private final long bufferBytes;
+  private List<Tuple> [] buffers;
+  private long bufferedBytes = 0;
+  private final List<Path> spillPaths = new ArrayList<Path>();
+  private final List<long []> spillOffsets = new ArrayList<long[]>();
+  private final List<TableStats> outputStats = new ArrayList<TableStats>();
+  private LocalFileSystem localFS;
+
+  // for runtime join filters
+  private JoinKeyFilter buildFilter;
+  private JoinKeyFilter probeFilter;
+  private long filteredRows = 0;
   
   public HashShuffleFileWriteExec(TaskAttemptContext context, final AbstractStorageManager sm,
                                   final ShuffleFileWriteNode plan, final PhysicalExec child) throws IOException {
@@ -74,13 +106,37 @@ public final class HashShuffleFileWriteExec extends UnaryPhysicalExec {
     }
     this.partitioner = new HashPartitioner(shuffleKeyIds, numShuffleOutputs);
     storeTablePath = new Path(context.getWorkDir(), "output");
+
+    this.consolidated = context.getConf().getBoolVar(ConfVars.SHUFFLE_HASH_CONSOLIDATED_ENABLED)
+        && isConcatenable(meta);
+    this.bufferBytes = context.getConf().getLongVar(ConfVars.SHUFFLE_HASH_BUFFER_BYTES);
+
+    DataChannel channel = context.getDataChannel();
+    if (channel != null && channel.needJoinFilterBuild()) {
+      buildFilter = new JoinKeyFilter(channel.getJoinFilterBitNum(), channel.getJoinFilterHashNum());
+    }
+    probeFilter = context.getProbeJoinFilter();
+  }
+
+  /**
+   * The partitions of a consolidated output are served as byte ranges, so a byte range of a file must be
+   * readable by itself. Files without header and block compression satisfy it.
+   */
+  private static boolean isConcatenable(TableMeta meta) {
+    return meta.getStoreType() == StoreType.RAW ||
+        (meta.getStoreType() == StoreType.CSV && meta.getOption(TableMeta.COMPRESSION_CODEC, null) == null);
   }
 
   @Override
+  @SuppressWarnings("unchecked")
   public void init() throws IOException {
     super.init();
     FileSystem fs = new RawLocalFileSystem();
     fs.mkdirs(storeTablePath);
+    if (consolidated) {
+      buffers = new List[numShuffleOutputs];
+      localFS = FileSystem.getLocal(context.getConf());
+    }
   }
   
   private Appender getAppender(int partId) throws IOException {
@@ -111,10 +167,15 @@ public final class HashShuffleFileWriteExec extends UnaryPhysicalExec {
 
   @Override
   public Tuple next() throws IOException {
+    if (consolidated) {
+      writeConsolidatedOutput();
+      return null;
+    }
+
     Tuple tuple;
     Appender appender;
     int partId;
-    while ((tuple = child.next()) != null) {
+    while ((tuple = nextTuple()) != null) {
       partId = partitioner.getPartition(tuple);
       appender = getAppender(partId);
       appender.addTuple(tuple);
@@ -128,17 +189,165 @@ public final class HashShuffleFileWriteExec extends UnaryPhysicalExec {
       app.close();
       statSet.add(app.getStats());
       if (app.getStats().getNumRows() > 0) {
-        context.addShuffleFileOutput(partNum, getDataFile(partNum).getName());
+        context.addShuffleFileOutput(partNum, getDataFile(partNum).getName(), app.getStats().getNumBytes());
       }
     }
     
     // Collect and aggregated statistics data
     TableStats aggregated = StatisticsUtil.aggregateTableStat(statSet);
     context.setResultStats(aggregated);
+    finishJoinFilter();
     
     return null;
   }
 
+  /**
+   * Returns the next row to be shuffled. The rows which surely cannot be joined with the other side
+   * of a join are dropped here.
+   */
+  private Tuple nextTuple() throws IOException {
+    Tuple tuple;
+    while ((tuple = child.next()) != null) {
+      if (probeFilter != null && !probeFilter.mightContain(tuple, shuffleKeyIds)) {
+        filteredRows++;
+        continue;
+      }
+      if (buildFilter != null) {
+        buildFilter.add(tuple, shuffleKeyIds);
+      }
+      return tuple;
+    }
+    return null;
+  }
+
+  private void finishJoinFilter() throws IOException {
+    if (buildFilter != null) {
+      context.setJoinFilter(buildFilter.toBytes());
+    }
+    if (probeFilter != null) {
+      LOG.info("The join filter dropped " + filteredRows + " rows");
+    }
+  }
+
+  private void writeConsolidatedOutput() throws IOException {
+    Tuple tuple;
+    int partId;
+    while ((tuple = nextTuple()) != null) {
+      partId = partitioner.getPartition(tuple);
+      if (buffers[partId] == null) {
+        buffers[partId] = new ArrayList<Tuple>();
+      }
+      // a primitive tuple is copied without materializing its datums
+      Tuple buffered = tuple instanceof PrimitiveTuple ?
+          new PrimitiveTuple((PrimitiveTuple) tuple) : new VTuple(tuple);
+      buffers[partId].add(buffered);
+      bufferedBytes += TupleUtil.estimateHeapSize(buffered);
+
+      if (bufferedBytes > bufferBytes) {
+        Path spillPath = new Path(storeTablePath, HashShuffleIndex.DATA_FILE_NAME + ".spill" + spillPaths.size());
+        spillOffsets.add(writeBuffers(spillPath));
+        spillPaths.add(spillPath);
+      }
+    }
+
+    Path dataFile = new Path(storeTablePath, HashShuffleIndex.DATA_FILE_NAME);
+    long [] offsets;
+    if (spillPaths.isEmpty()) {
+      offsets = writeBuffers(dataFile);
+    } else {
+      Path spillPath = new Path(storeTablePath, HashShuffleIndex.DATA_FILE_NAME + ".spill" + spillPaths.size());
+      spillOffsets.add(writeBuffers(spillPath));
+      spillPaths.add(spillPath);
+      offsets = mergeSpills(dataFile);
+    }
+    HashShuffleIndex.write(localFS.pathToFile(new Path(storeTablePath, HashShuffleIndex.INDEX_FILE_NAME)), offsets);
+
+    for (int i = 0; i < numShuffleOutputs; i++) {
+      if (offsets[i + 1] > offsets[i]) {
+        context.addShuffleFileOutput(i, HashShuffleIndex.DATA_FILE_NAME, offsets[i + 1] - offsets[i]);
+      }
+    }
+
+    // Collect and aggregated statistics data
+    TableStats aggregated = StatisticsUtil.aggregateTableStat(outputStats);
+    context.setResultStats(aggregated);
+    finishJoinFilter();
+  }
+
+  /**
+   * Writes all buffered partitions into a file in the order of partition ids.
+   *
+   * @return the offsets of partition boundaries
+   */
+  private long [] writeBuffers(Path path) throws IOException {
+    FileAppender appender = (FileAppender)
+        StorageManagerFactory.getStorageManager(context.getConf()).getAppender(meta, outSchema, path);
+    appender.enableStats();
+    appender.init();
+
+    long [] offsets = new long[numShuffleOutputs + 1];
+    for (int i = 0; i < numShuffleOutputs; i++) {
+      offsets[i] = appender.getOffset();
+      if (buffers[i] != null) {
+        for (Tuple t : buffers[i]) {
+          appender.addTuple(t);
+        }
+        buffers[i] = null;
+      }
+    }
+    offsets[numShuffleOutputs] = appender.getOffset();
+    appender.close();
+    outputStats.add(appender.getStats());
+
+    bufferedBytes = 0;
+    return offsets;
+  }
+
+  /**
+   * Merges the spill files into a data file. Each partition of the data file is the concatenation of
+   * the partition in all spill files.
+   *
+   * @return the offsets of partition boundaries in the data file
+   */
+  private long [] mergeSpills(Path dataFile) throws IOException {
+    LOG.info("Merging " + spillPaths.size() + " spill files of hash shuffle into " + dataFile);
+
+    long [] offsets = new long[numShuffleOutputs + 1];
+    FileChannel [] spills = new FileChannel[spillPaths.size()];
+    FileOutputStream out = new FileOutputStream(localFS.pathToFile(dataFile));
+    FileChannel outChannel = out.getChannel();
+    try {
+      for (int i = 0; i < spills.length; i++) {
+        spills[i] = new FileInputStream(localFS.pathToFile(spillPaths.get(i))).getChannel();
+      }
+
+      long pos = 0;
+      for (int partId = 0; partId < numShuffleOutputs; partId++) {
+        offsets[partId] = pos;
+        for (int i = 0; i < spills.length; i++) {
+          long [] spillOffset = spillOffsets.get(i);
+          long start = spillOffset[partId];
+          long length = spillOffset[partId + 1] - start;
+          while (length > 0) {
+            long transferred = spills[i].transferTo(start, length, outChannel);
+            start += transferred;
+            length -= transferred;
+            pos += transferred;
+          }
+        }
+      }
+      offsets[numShuffleOutputs] = pos;
+    } finally {
+      IOUtils.cleanup(LOG, spills);
+      IOUtils.cleanup(LOG, outChannel, out);
+    }
+
+    for (Path spillPath : spillPaths) {
+      localFS.delete(spillPath, false);
+    }
+    return offsets;
+  }
+
   @Override
   public void rescan() throws IOException {
     // nothing to do   
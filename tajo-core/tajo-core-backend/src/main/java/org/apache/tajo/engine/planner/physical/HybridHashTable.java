@@ -0,0 +1,383 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.engine.utils.TupleUtil;
+import org.apache.tajo.storage.PrimitiveTuple;
+import org.apache.tajo.storage.RawFile;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.worker.TaskAttemptContext;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * HybridHashTable is the in-memory hash table of the right relation of hash join operators.
+ *
+ * Until the right tuples exceed a memory budget, it works as a plain in-memory hash table.
+ * Once the budget is exceeded, it divides tuples into partitions by the hash values of join keys,
+ * and it spills the largest partitions into RawFiles under the task work dir. The left tuples
+ * belonging to the spilled partitions are also spilled while the left relation is probed.
+ * After the left relation is exhausted, each pair of spilled partitions is joined in the same way.
+ * If a spilled partition still does not fit in the memory, it is partitioned again with
+ * a different hash function.
+ */
+public class HybridHashTable {
+  private static final Log LOG = LogFactory.getLog(HybridHashTable.class);
+
+  /** the maximum number of recursive partitionings */
+  private static final int MAX_DEPTH = 3;
+  /** the estimated bytes of a hash entry and its tuple list except for the key and the tuples */
+  private static final int BUCKET_OVERHEAD = 96;
+  /** the estimated bytes of a tuple reference in a tuple list */
+  private static final int REFERENCE_SIZE = 8;
+
+  private final TajoConf conf;
+  private final Schema leftSchema;
+  private final Schema rightSchema;
+  private final int [] leftKeyList;
+  private final int [] rightKeyList;
+  private final long memoryBudget;
+  private final int partitionNum;
+
+  private final Map<Tuple, List<Tuple>> tupleSlots = new HashMap<Tuple, List<Tuple>>(10000);
+  private final PrimitiveTuple leftKeyTuple;
+  private final PrimitiveTuple rightKeyTuple;
+
+  // spill files
+  private final TableMeta meta;
+  private FileSystem localFS;
+  private final Path spillDir;
+  private boolean spillDirCreated = false;
+  private int fileId = 0;
+
+  // states of the current partitioning
+  private int depth;
+  private long memoryUsage;
+  private long [] partitionSizes;
+  private boolean [] spilled;
+  private int spilledNum;
+  private Path [] rightPaths;
+  private Path [] leftPaths;
+  private RawFile.RawFileAppender [] rightAppenders;
+  private RawFile.RawFileAppender [] leftAppenders;
+
+  // spilled partitions to be joined later
+  private final LinkedList<SpilledPartition> pendingPartitions = new LinkedList<SpilledPartition>();
+  // the left input of a spilled partition being joined
+  private RawFile.RawFileScanner leftScanner;
+  private Path leftScannerPath;
+  private boolean everSpilled = false;
+
+  public HybridHashTable(TaskAttemptContext context, Schema leftSchema, int [] leftKeyList,
+                         Schema rightSchema, int [] rightKeyList, long memoryBudget) {
+    this.conf = context.getConf();
+    this.leftSchema = leftSchema;
+    this.rightSchema = rightSchema;
+    this.leftKeyList = leftKeyList;
+    this.rightKeyList = rightKeyList;
+    this.memoryBudget = memoryBudget;
+    this.partitionNum = conf.getIntVar(TajoConf.ConfVars.EXECUTOR_JOIN_SPILL_PARTITION_NUM);
+
+    this.leftKeyTuple = new PrimitiveTuple(leftSchema, leftKeyList);
+    this.rightKeyTuple = new PrimitiveTuple(rightSchema, rightKeyList);
+
+    this.meta = CatalogUtil.newTableMeta(StoreType.RAW);
+    this.spillDir = new Path(context.getWorkDir(), UUID.randomUUID().toString());
+
+    startPartitioning(0);
+  }
+
+  /**
+   * @return the hash table of the right tuples which are currently resident in memory.
+   * The same map instance is kept for the lifetime of this hash table.
+   */
+  public Map<Tuple, List<Tuple>> getTupleSlots() {
+    return tupleSlots;
+  }
+
+  /**
+   * @return true if any partition has been spilled since this hash table was built.
+   */
+  public boolean hasSpilled() {
+    return everSpilled;
+  }
+
+  /**
+   * Loads all tuples of the right relation into this hash table.
+   */
+  public void build(PhysicalExec rightChild) throws IOException {
+    Tuple tuple;
+    while ((tuple = rightChild.next()) != null) {
+      addRightTuple(tuple);
+    }
+    closeAppenders(rightAppenders);
+  }
+
+  /**
+   * Returns the next left tuple to probe this hash table. The left tuples belonging to spilled
+   * partitions are written to spill files instead of being returned. When the given left child
+   * is exhausted, the spilled partitions are joined one by one: the hash table is rebuilt from
+   * the right tuples of a partition, and then the left tuples of the partition are returned.
+   *
+   * @return the next left tuple, or null if all partitions are joined.
+   */
+  public Tuple nextLeft(PhysicalExec leftChild) throws IOException {
+    Tuple tuple;
+    while (true) {
+      tuple = leftScanner == null ? leftChild.next() : leftScanner.next();
+      if (tuple == null) {
+        if (!loadNextPartition()) {
+          return null;
+        }
+        continue;
+      }
+
+      if (spilledNum > 0) {
+        leftKeyTuple.copyFrom(tuple, leftKeyList);
+        int partId = getPartition(leftKeyTuple);
+        if (spilled[partId]) {
+          getLeftAppender(partId).addTuple(tuple);
+          continue;
+        }
+      }
+
+      return tuple;
+    }
+  }
+
+  private void startPartitioning(int depth) {
+    this.depth = depth;
+    this.memoryUsage = 0;
+    this.partitionSizes = new long[partitionNum];
+    this.spilled = new boolean[partitionNum];
+    this.spilledNum = 0;
+    this.rightPaths = new Path[partitionNum];
+    this.leftPaths = new Path[partitionNum];
+    this.rightAppenders = new RawFile.RawFileAppender[partitionNum];
+    this.leftAppenders = new RawFile.RawFileAppender[partitionNum];
+  }
+
+  private int getPartition(Tuple keyTuple) {
+    // each level of partitioning uses a different hash function
+    return TupleUtil.getSpillPartition(keyTuple, depth, partitionNum);
+  }
+
+  private void addRightTuple(Tuple tuple) throws IOException {
+    rightKeyTuple.copyFrom(tuple, rightKeyList);
+    int partId = getPartition(rightKeyTuple);
+    if (spilled[partId]) {
+      getRightAppender(partId).addTuple(tuple);
+      return;
+    }
+
+    long size = TupleUtil.estimateHeapSize(tuple) + REFERENCE_SIZE;
+    List<Tuple> newValue = tupleSlots.get(rightKeyTuple);
+    if (newValue == null) {
+      // the probe key tuple is reused, so only a new key is copied.
+      newValue = new ArrayList<Tuple>();
+      PrimitiveTuple key = new PrimitiveTuple(rightKeyTuple);
+      tupleSlots.put(key, newValue);
+      size += key.estimateHeapSize() + BUCKET_OVERHEAD;
+    }
+    newValue.add(tuple);
+
+    partitionSizes[partId] += size;
+    memoryUsage += size;
+
+    while (memoryUsage > memoryBudget && depth < MAX_DEPTH && spilledNum < partitionNum) {
+      spillLargestPartition();
+    }
+  }
+
+  private void spillLargestPartition() throws IOException {
+    int victim = -1;
+    for (int i = 0; i < partitionNum; i++) {
+      if (!spilled[i] && (victim < 0 || partitionSizes[i] > partitionSizes[victim])) {
+        victim = i;
+      }
+    }
+
+    RawFile.RawFileAppender appender = getRightAppender(victim);
+    Iterator<Map.Entry<Tuple, List<Tuple>>> it = tupleSlots.entrySet().iterator();
+    Map.Entry<Tuple, List<Tuple>> entry;
+    while (it.hasNext()) {
+      entry = it.next();
+      if (getPartition(entry.getKey()) == victim) {
+        for (Tuple tuple : entry.getValue()) {
+          appender.addTuple(tuple);
+        }
+        it.remove();
+      }
+    }
+
+    LOG.info("Hash join partition " + victim + " (" + partitionSizes[victim] + " bytes, depth " + depth
+        + ") is spilled to disk");
+    memoryUsage -= partitionSizes[victim];
+    partitionSizes[victim] = 0;
+    spilled[victim] = true;
+    spilledNum++;
+    everSpilled = true;
+  }
+
+  private RawFile.RawFileAppender getRightAppender(int partId) throws IOException {
+    if (rightAppenders[partId] == null) {
+      rightPaths[partId] = newSpillPath("right");
+      rightAppenders[partId] = new RawFile.RawFileAppender(conf, rightSchema, meta, rightPaths[partId]);
+      rightAppenders[partId].init();
+    }
+    return rightAppenders[partId];
+  }
+
+  private RawFile.RawFileAppender getLeftAppender(int partId) throws IOException {
+    if (leftAppenders[partId] == null) {
+      leftPaths[partId] = newSpillPath("left");
+      leftAppenders[partId] = new RawFile.RawFileAppender(conf, leftSchema, meta, leftPaths[partId]);
+      leftAppenders[partId].init();
+    }
+    return leftAppenders[partId];
+  }
+
+  private Path newSpillPath(String side) throws IOException {
+    if (!spillDirCreated) {
+      localFS = FileSystem.getLocal(conf);
+      localFS.mkdirs(spillDir);
+      spillDirCreated = true;
+    }
+    return new Path(spillDir, side + "_" + depth + "_" + (fileId++));
+  }
+
+  /**
+   * Moves to the next spilled partition. It rebuilds the hash table from the right tuples of
+   * the partition and opens the left tuples of the partition.
+   *
+   * @return false if there is no remaining partition.
+   */
+  private boolean loadNextPartition() throws IOException {
+    closeLeftScanner();
+
+    closeAppenders(rightAppenders);
+    closeAppenders(leftAppenders);
+    for (int i = 0; i < partitionNum; i++) {
+      if (!spilled[i]) {
+        continue;
+      }
+      if (leftPaths[i] != null) {
+        pendingPartitions.push(new SpilledPartition(depth + 1, rightPaths[i], leftPaths[i]));
+      } else {
+        // no left tuple can be joined with this partition.
+        deleteFile(rightPaths[i]);
+      }
+    }
+
+    tupleSlots.clear();
+    if (pendingPartitions.isEmpty()) {
+      startPartitioning(0);
+      return false;
+    }
+
+    SpilledPartition partition = pendingPartitions.pop();
+    startPartitioning(partition.depth);
+    if (partition.rightPath != null) {
+      RawFile.RawFileScanner scanner =
+          new RawFile.RawFileScanner(conf, rightSchema, meta, partition.rightPath);
+      Tuple tuple;
+      while ((tuple = scanner.next()) != null) {
+        // the scanner reuses its tuple
+        addRightTuple(tuple instanceof PrimitiveTuple ?
+            new PrimitiveTuple((PrimitiveTuple) tuple) : new VTuple(tuple));
+      }
+      scanner.close();
+      deleteFile(partition.rightPath);
+    }
+    closeAppenders(rightAppenders);
+
+    leftScanner = new RawFile.RawFileScanner(conf, leftSchema, meta, partition.leftPath);
+    leftScannerPath = partition.leftPath;
+    return true;
+  }
+
+  private void closeLeftScanner() throws IOException {
+    if (leftScanner != null) {
+      leftScanner.close();
+      leftScanner = null;
+      deleteFile(leftScannerPath);
+      leftScannerPath = null;
+    }
+  }
+
+  private void closeAppenders(RawFile.RawFileAppender [] appenders) throws IOException {
+    for (int i = 0; i < appenders.length; i++) {
+      if (appenders[i] != null) {
+        appenders[i].close();
+        appenders[i] = null;
+      }
+    }
+  }
+
+  private void deleteFile(Path path) throws IOException {
+    if (path != null) {
+      localFS.delete(path, false);
+    }
+  }
+
+  /**
+   * Releases the in-memory hash table and all spill files. The hash table can be built again.
+   */
+  public void reset() throws IOException {
+    closeLeftScanner();
+    closeAppenders(rightAppenders);
+    closeAppenders(leftAppenders);
+    tupleSlots.clear();
+    pendingPartitions.clear();
+    startPartitioning(0);
+    everSpilled = false;
+
+    if (spillDirCreated) {
+      localFS.delete(spillDir, true);
+      spillDirCreated = false;
+    }
+  }
+
+  public void close() throws IOException {
+    reset();
+  }
+
+  private static class SpilledPartition {
+    private final int depth;
+    private final Path rightPath;
+    private final Path leftPath;
+
+    SpilledPartition(int depth, Path rightPath, Path leftPath) {
+      this.depth = depth;
+      this.rightPath = rightPath;
+      this.leftPath = leftPath;
+    }
+  }
+}
@@ -25,7 +25,6 @@ import org.apache.tajo.storage.VTuple;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
@@ -55,7 +54,7 @@ public class MemSortExec extends SortExec {
         tupleSlots.add(new VTuple(tuple));
       }
       
-      Collections.sort(tupleSlots, getComparator());
+      sort(tupleSlots, getComparator());
       this.iterator = tupleSlots.iterator();
       sorted = true;
     }
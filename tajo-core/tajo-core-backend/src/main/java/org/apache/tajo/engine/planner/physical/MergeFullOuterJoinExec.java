@@ -92,7 +92,7 @@ public class MergeFullOuterJoinExec extends BinaryPhysicalExec {
         plan.getJoinQual(), leftChild.getSchema(), rightChild.getSchema());
 
     // for projection
-    this.projector = new Projector(inSchema, outSchema, plan.getTargets());
+    this.projector = new Projector(context.getConf(), inSchema, outSchema, plan.getTargets());
     this.evalContexts = projector.newContexts();
 
     // for join
@@ -21,6 +21,8 @@ package org.apache.tajo.engine.planner.physical;
 import com.google.common.base.Preconditions;
 import org.apache.tajo.worker.TaskAttemptContext;
 import org.apache.tajo.catalog.SortSpec;
+import org.apache.tajo.engine.codegen.CompiledEval;
+import org.apache.tajo.engine.codegen.EvalCodeGenerator;
 import org.apache.tajo.engine.eval.EvalContext;
 import org.apache.tajo.engine.eval.EvalNode;
 import org.apache.tajo.engine.planner.PlannerUtil;
@@ -40,7 +42,7 @@ public class MergeJoinExec extends BinaryPhysicalExec {
   // from logical plan
   private JoinNode joinNode;
   private EvalNode joinQual;
-  private EvalContext qualCtx;
+  private CompiledEval compiledQual;
 
   // temporal tuples and states for nested loop join
   private FrameTuple frameTuple;
@@ -72,7 +74,7 @@ public class MergeJoinExec extends BinaryPhysicalExec {
         "but there is no join condition");
     this.joinNode = plan;
     this.joinQual = plan.getJoinQual();
-    this.qualCtx = this.joinQual.newContext();
+    this.compiledQual = EvalCodeGenerator.compile(context.getConf(), joinQual, inSchema);
 
     this.outerTupleSlots = new ArrayList<Tuple>(INITIAL_TUPLE_SLOT);
     this.innerTupleSlots = new ArrayList<Tuple>(INITIAL_TUPLE_SLOT);
@@ -88,7 +90,7 @@ public class MergeJoinExec extends BinaryPhysicalExec {
     this.innerIterator = innerTupleSlots.iterator();
     
     // for projection
-    this.projector = new Projector(inSchema, outSchema, plan.getTargets());
+    this.projector = new Projector(context.getConf(), inSchema, outSchema, plan.getTargets());
     this.evalContexts = projector.newContexts();
 
     // for join
@@ -165,8 +167,7 @@ public class MergeJoinExec extends BinaryPhysicalExec {
       }
 
       frameTuple.set(outerNext, innerIterator.next());
-      joinQual.eval(qualCtx, inSchema, frameTuple);
-      if (joinQual.terminate(qualCtx).asBool()) {
+      if (compiledQual.isTrue(frameTuple)) {
         projector.eval(evalContexts, frameTuple);
         projector.terminate(evalContexts, outTuple);
         return outTuple;
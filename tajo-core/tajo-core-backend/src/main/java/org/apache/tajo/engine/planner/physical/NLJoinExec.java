@@ -19,6 +19,8 @@
 package org.apache.tajo.engine.planner.physical;
 
 import org.apache.tajo.worker.TaskAttemptContext;
+import org.apache.tajo.engine.codegen.CompiledEval;
+import org.apache.tajo.engine.codegen.EvalCodeGenerator;
 import org.apache.tajo.engine.eval.EvalContext;
 import org.apache.tajo.engine.eval.EvalNode;
 import org.apache.tajo.engine.planner.Projector;
@@ -41,7 +43,7 @@ public class NLJoinExec extends BinaryPhysicalExec {
   private Tuple outerTuple = null;
   private Tuple innerTuple = null;
   private Tuple outTuple = null;
-  private EvalContext qualCtx;
+  private CompiledEval compiledQual;
 
   // projection
   private final EvalContext [] evalContexts;
@@ -54,11 +56,11 @@ public class NLJoinExec extends BinaryPhysicalExec {
 
     if (plan.hasJoinQual()) {
       this.joinQual = plan.getJoinQual();
-      this.qualCtx = this.joinQual.newContext();
+      this.compiledQual = EvalCodeGenerator.compile(context.getConf(), joinQual, inSchema);
     }
 
     // for projection
-    projector = new Projector(inSchema, outSchema, plan.getTargets());
+    projector = new Projector(context.getConf(), inSchema, outSchema, plan.getTargets());
     evalContexts = projector.newContexts();
 
     // for join
@@ -90,8 +92,7 @@ public class NLJoinExec extends BinaryPhysicalExec {
 
       frameTuple.set(outerTuple, innerTuple);
       if (joinQual != null) {
-        joinQual.eval(qualCtx, inSchema, frameTuple);
-        if (joinQual.terminate(qualCtx).asBool()) {
+        if (compiledQual.isTrue(frameTuple)) {
           projector.eval(evalContexts, frameTuple);
           projector.terminate(evalContexts, outTuple);
           return outTuple;
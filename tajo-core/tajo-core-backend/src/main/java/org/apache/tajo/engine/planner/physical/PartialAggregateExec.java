@@ -0,0 +1,209 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.engine.eval.AggregationFunctionCallEval;
+import org.apache.tajo.engine.eval.EvalContext;
+import org.apache.tajo.engine.eval.EvalNode;
+import org.apache.tajo.engine.eval.EvalType;
+import org.apache.tajo.engine.planner.Target;
+import org.apache.tajo.engine.planner.logical.GroupbyNode;
+import org.apache.tajo.storage.PrimitiveTuple;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.worker.TaskAttemptContext;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * <code>PartialAggregateExec</code> is the first phase of a two-phase aggregation, which streams partial
+ * aggregates to a shuffle. Since the second phase merges all partial aggregates of a group, the same group
+ * can be emitted more than once.
+ *
+ * The groups are kept in a hash table of a fixed number of entries. When the table is full, all partial
+ * aggregates are emitted and the table is cleared. At each flush, the reduction ratio of the input rows is
+ * measured. If the ratio is lower than the threshold, the aggregation is given up, and each input row is
+ * emitted as a partial aggregate of its own.
+ */
+public class PartialAggregateExec extends AggregationExec {
+  private static final Log LOG = LogFactory.getLog(PartialAggregateExec.class);
+
+  private final int tableSize;
+  private final float minReduction;
+  private final Map<Tuple, EvalContext []> tupleSlots;
+  private final PrimitiveTuple keyTuple;
+  private final Tuple tuple;
+
+  private Iterator<EvalContext []> flushIterator = null;
+  private boolean finished = false;
+  private boolean passThrough = false;
+  /** the number of rows aggregated into the current hash table */
+  private long aggregatedRows = 0;
+  private long inputRows = 0;
+  private long outputRows = 0;
+
+  public PartialAggregateExec(TaskAttemptContext context, GroupbyNode plan, PhysicalExec child)
+      throws IOException {
+    super(context, plan, child);
+    this.tableSize = context.getConf().getIntVar(ConfVars.EXECUTOR_GROUPBY_PARTIAL_TABLE_SIZE);
+    this.minReduction = context.getConf().getFloatVar(ConfVars.EXECUTOR_GROUPBY_PARTIAL_MIN_REDUCTION);
+    this.tupleSlots = new HashMap<Tuple, EvalContext[]>(Math.min(tableSize, 10000));
+    this.keyTuple = new PrimitiveTuple(inSchema, keylist);
+    this.tuple = new VTuple(evalSchema.getColumnNum());
+  }
+
+  /**
+   * Partial aggregates can be emitted more than once only if the given group-by is the first phase of
+   * non-distinct aggregations and it has grouping keys.
+   */
+  public static boolean isApplicable(GroupbyNode plan) {
+    if (plan.getGroupingColumns().length == 0) {
+      return false;
+    }
+    for (Target target : plan.getTargets()) {
+      EvalNode evalTree = target.getEvalTree();
+      if (evalTree.getType() == EvalType.AGG_FUNCTION && (!(evalTree instanceof AggregationFunctionCallEval)
+          || !((AggregationFunctionCallEval) evalTree).isFirstPhase()
+          || ((AggregationFunctionCallEval) evalTree).isDistinct())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public Tuple next() throws IOException {
+    while (!context.isStopped()) {
+      if (flushIterator != null) {
+        if (flushIterator.hasNext()) {
+          return terminate(flushIterator.next());
+        }
+        flushIterator = null;
+        tupleSlots.clear();
+      }
+
+      if (finished) {
+        return null;
+      }
+
+      Tuple row = child.next();
+      if (row == null) {
+        finished = true;
+        flush();
+        continue;
+      }
+      inputRows++;
+
+      if (passThrough) {
+        return terminate(newGroup(row));
+      }
+
+      aggregate(row);
+      if (tupleSlots.size() >= tableSize) {
+        flush();
+      }
+    }
+    return null;
+  }
+
+  private void aggregate(Tuple row) {
+    keyTuple.copyFrom(row, keylist);
+    aggregatedRows++;
+
+    EvalContext [] evalCtx = tupleSlots.get(keyTuple);
+    if (evalCtx != null) {
+      for (int i = 0; i < measureList.length; i++) {
+        evals[measureList[i]].eval(evalCtx[measureList[i]], inSchema, row);
+      }
+    } else {
+      tupleSlots.put(new PrimitiveTuple(keyTuple), newGroup(row));
+    }
+  }
+
+  private EvalContext [] newGroup(Tuple row) {
+    EvalContext [] evalCtx = new EvalContext[evals.length];
+    for (int i = 0; i < evals.length; i++) {
+      evalCtx[i] = evals[i].newContext();
+      evals[i].eval(evalCtx[i], inSchema, row);
+    }
+    return evalCtx;
+  }
+
+  private Tuple terminate(EvalContext [] evalCtx) {
+    for (int i = 0; i < evalCtx.length; i++) {
+      tuple.put(i, evals[i].terminate(evalCtx[i]));
+    }
+    outputRows++;
+    return tuple;
+  }
+
+  /**
+   * Starts to emit all groups in the hash table. If the table has not reduced the input rows enough,
+   * the following rows are not aggregated anymore.
+   */
+  private void flush() {
+    if (tupleSlots.isEmpty()) {
+      return;
+    }
+
+    if (!finished) {
+      float reduction = 1.0f - (float) tupleSlots.size() / aggregatedRows;
+      if (reduction < minReduction) {
+        passThrough = true;
+        LOG.info("Partial aggregation is given up because of the low reduction ratio (" + reduction + " < "
+            + minReduction + ")");
+      }
+    }
+    aggregatedRows = 0;
+    flushIterator = tupleSlots.values().iterator();
+  }
+
+  /**
+   * @return true if the input rows are not aggregated anymore.
+   */
+  public boolean isPassThrough() {
+    return passThrough;
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    tupleSlots.clear();
+    flushIterator = null;
+    finished = false;
+    passThrough = false;
+    aggregatedRows = 0;
+    child.rescan();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Partial aggregation reduced " + inputRows + " rows to " + outputRows + " rows");
+    }
+    tupleSlots.clear();
+    flushIterator = null;
+    super.close();
+  }
+}
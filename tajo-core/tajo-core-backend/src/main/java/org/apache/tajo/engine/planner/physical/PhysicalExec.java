@@ -18,6 +18,7 @@
 
 package org.apache.tajo.engine.planner.physical;
 
+import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.worker.TaskAttemptContext;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.catalog.SchemaObject;
@@ -31,6 +32,9 @@ public abstract class PhysicalExec implements SchemaObject {
   protected Schema outSchema;
   protected int outColumnNum;
 
+  // for the default row-to-batch adaptation
+  private TupleBatch rowBatch;
+
   public PhysicalExec(final TaskAttemptContext context, final Schema inSchema,
                       final Schema outSchema) {
     this.context = context;
@@ -47,6 +51,46 @@ public abstract class PhysicalExec implements SchemaObject {
 
   public abstract Tuple next() throws IOException;
 
+  /**
+   * Returns true if this executor produces tuple batches natively in {@link #nextBatch()}.
+   * Otherwise, {@link #nextBatch()} just fills a batch by calling {@link #next()} repeatedly.
+   */
+  public boolean isBatchSupported() {
+    return false;
+  }
+
+  /**
+   * Returns the next batch of tuples in the vectorized execution mode.
+   * The returned batch is only valid until the next call of this method.
+   *
+   * @return the next batch, or null if there is no more tuples.
+   */
+  public TupleBatch nextBatch() throws IOException {
+    return nextBatchFromRows();
+  }
+
+  protected final TupleBatch nextBatchFromRows() throws IOException {
+    if (rowBatch == null) {
+      rowBatch = newBatch(outSchema);
+    }
+    rowBatch.reset();
+
+    Tuple tuple;
+    while (!rowBatch.isFull() && (tuple = next()) != null) {
+      rowBatch.addTuple(tuple);
+    }
+
+    return rowBatch.getRowNum() > 0 ? rowBatch : null;
+  }
+
+  protected TupleBatch newBatch(Schema schema) {
+    int batchSize = TupleBatch.DEFAULT_BATCH_SIZE;
+    if (context != null && context.getConf() != null) {
+      batchSize = context.getConf().getIntVar(TajoConf.ConfVars.EXECUTOR_VECTORIZED_BATCH_SIZE);
+    }
+    return new TupleBatch(schema, batchSize);
+  }
+
   public abstract void rescan() throws IOException;
 
   public abstract void close() throws IOException;
@@ -22,6 +22,12 @@ import java.util.Stack;
 
 public interface PhysicalExecutorVisitor<CONTEXT, RESULT> {
 
+  RESULT visitAnalyzeTable(CONTEXT context, AnalyzeTableExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException;
+
+  RESULT visitBatchToRow(CONTEXT context, BatchToRowExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException;
+
   RESULT visitBNLJoin(CONTEXT context, BNLJoinExec exec, Stack<PhysicalExec> stack)
       throws PhysicalPlanningException;
 
@@ -79,6 +85,9 @@ public interface PhysicalExecutorVisitor<CONTEXT, RESULT> {
   RESULT visitNLLeftOuterJoin(CONTEXT context, NLLeftOuterJoinExec exec, Stack<PhysicalExec> stack)
       throws PhysicalPlanningException;
 
+  RESULT visitPartialAggregate(CONTEXT context, PartialAggregateExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException;
+
   RESULT visitProjection(CONTEXT context, ProjectionExec exec, Stack<PhysicalExec> stack)
       throws PhysicalPlanningException;
 
@@ -99,4 +108,7 @@ public interface PhysicalExecutorVisitor<CONTEXT, RESULT> {
 
   RESULT visitStoreTable(CONTEXT context, StoreTableExec exec, Stack<PhysicalExec> stack)
       throws PhysicalPlanningException;
+
+  RESULT visitTopNSort(CONTEXT context, TopNSortExec exec, Stack<PhysicalExec> stack)
+      throws PhysicalPlanningException;
 }
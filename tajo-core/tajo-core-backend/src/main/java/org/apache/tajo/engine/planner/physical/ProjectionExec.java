@@ -21,6 +21,12 @@
  */
 package org.apache.tajo.engine.planner.physical;
 
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.engine.eval.EvalNode;
+import org.apache.tajo.engine.eval.EvalType;
+import org.apache.tajo.engine.eval.FieldEval;
+import org.apache.tajo.engine.planner.PlannerUtil;
+import org.apache.tajo.engine.planner.Target;
 import org.apache.tajo.engine.planner.logical.Projectable;
 import org.apache.tajo.worker.TaskAttemptContext;
 import org.apache.tajo.engine.eval.EvalContext;
@@ -37,6 +43,16 @@ public class ProjectionExec extends UnaryPhysicalExec {
   private Tuple outTuple;
   private EvalContext[] evalContexts;
   private Projector projector;
+
+  // for the vectorized mode
+  private TupleBatch outBatch;
+  private Tuple rowTuple;
+  // the input column id of each target if the target is a simple column reference, otherwise -1
+  private int [] fieldIds;
+  // the column-wise evaluation of each computed target, or null if it is evaluated row by row
+  private VectorizedExpression [] vectorizedExprs;
+  // true if any target is evaluated row by row
+  private boolean rowFallback;
   
   public ProjectionExec(TaskAttemptContext context, Projectable plan,
       PhysicalExec child) {
@@ -48,7 +64,7 @@ public class ProjectionExec extends UnaryPhysicalExec {
     super.init();
 
     this.outTuple = new VTuple(outSchema.getColumnNum());
-    this.projector = new Projector(inSchema, outSchema, this.plan.getTargets());
+    this.projector = new Projector(context.getConf(), inSchema, outSchema, this.plan.getTargets());
     this.evalContexts = projector.newContexts();
   }
 
@@ -64,4 +80,85 @@ public class ProjectionExec extends UnaryPhysicalExec {
     projector.terminate(evalContexts, outTuple);
     return outTuple;
   }
+
+  @Override
+  public boolean isBatchSupported() {
+    return true;
+  }
+
+  @Override
+  public TupleBatch nextBatch() throws IOException {
+    TupleBatch inBatch = child.nextBatch();
+    if (inBatch == null) {
+      return null;
+    }
+
+    if (outBatch == null) {
+      initBatchProjection();
+    }
+    outBatch.reset();
+
+    int selectedNum = inBatch.getSelectedNum();
+    // the i-th alive row of the input batch becomes the i-th row of the output batch
+    for (int i = 0; i < selectedNum; i++) {
+      outBatch.nextRow(inBatch.getOffset(inBatch.getRowId(i)));
+    }
+
+    for (int j = 0; j < fieldIds.length; j++) {
+      if (fieldIds[j] >= 0) {
+        for (int i = 0; i < selectedNum; i++) {
+          outBatch.copy(j, i, inBatch, fieldIds[j], inBatch.getRowId(i));
+        }
+      } else if (vectorizedExprs[j] != null) {
+        vectorizedExprs[j].eval(inBatch, outBatch, j);
+      }
+    }
+
+    if (rowFallback) {
+      for (int i = 0; i < selectedNum; i++) {
+        inBatch.getTuple(inBatch.getRowId(i), rowTuple);
+        projector.eval(evalContexts, rowTuple);
+        projector.terminate(evalContexts, outTuple);
+        for (int j = 0; j < fieldIds.length; j++) {
+          if (fieldIds[j] < 0 && vectorizedExprs[j] == null) {
+            outBatch.put(j, i, outTuple.get(j));
+          }
+        }
+      }
+    }
+
+    return outBatch;
+  }
+
+  private void initBatchProjection() {
+    Target [] targets = plan.getTargets();
+    if (targets == null) {
+      targets = PlannerUtil.schemaToTargets(outSchema);
+    }
+
+    // The projector puts the result of the i-th target into the i-th field, and the output schema of a plan
+    // may have more columns than the targets, e.g., for a union. So the output batch follows the targets.
+    Schema batchSchema = new Schema();
+    for (int i = 0; i < targets.length; i++) {
+      batchSchema.addColumn("target_" + i, targets[i].getEvalTree().getValueType());
+    }
+    outBatch = newBatch(batchSchema);
+    rowTuple = new VTuple(inSchema.getColumnNum());
+    fieldIds = new int[targets.length];
+    vectorizedExprs = new VectorizedExpression[targets.length];
+    rowFallback = false;
+
+    for (int i = 0; i < targets.length; i++) {
+      EvalNode eval = targets[i].getEvalTree();
+      if (eval.getType() == EvalType.FIELD) {
+        fieldIds[i] = inSchema.getColumnId(((FieldEval) eval).getColumnRef().getQualifiedName());
+      } else {
+        fieldIds[i] = -1;
+      }
+      if (fieldIds[i] < 0) {
+        vectorizedExprs[i] = VectorizedExpression.compile(eval, inSchema);
+        rowFallback |= vectorizedExprs[i] == null;
+      }
+    }
+  }
 }
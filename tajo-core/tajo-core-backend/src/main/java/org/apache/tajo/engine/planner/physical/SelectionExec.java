@@ -18,36 +18,85 @@
 
 package org.apache.tajo.engine.planner.physical;
 
-import org.apache.tajo.engine.eval.EvalContext;
+import org.apache.tajo.engine.codegen.CompiledEval;
+import org.apache.tajo.engine.codegen.EvalCodeGenerator;
 import org.apache.tajo.engine.eval.EvalNode;
 import org.apache.tajo.engine.planner.logical.SelectionNode;
 import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
 import org.apache.tajo.worker.TaskAttemptContext;
 
 import java.io.IOException;
 
 public class SelectionExec extends UnaryPhysicalExec  {
   private final EvalNode qual;
-  private final EvalContext qualCtx;
+  private final CompiledEval compiledQual;
+
+  // for the vectorized mode
+  private VectorizedFilter vectorizedFilter;
+  private Tuple rowTuple;
 
   public SelectionExec(TaskAttemptContext context,
                        SelectionNode plan,
                        PhysicalExec child) {
     super(context, plan.getInSchema(), plan.getOutSchema(), child);
     this.qual = plan.getQual();
-    this.qualCtx = this.qual.newContext();
+    this.compiledQual = EvalCodeGenerator.compile(context.getConf(), qual, inSchema);
   }
 
   @Override
   public Tuple next() throws IOException {
     Tuple tuple;
     while ((tuple = child.next()) != null) {
-      qual.eval(qualCtx, inSchema, tuple);
-      if (qual.terminate(qualCtx).isTrue()) {
+      if (compiledQual.isTrue(tuple)) {
           return tuple;
       }
     }
 
     return null;
   }
+
+  @Override
+  public boolean isBatchSupported() {
+    return true;
+  }
+
+  @Override
+  public TupleBatch nextBatch() throws IOException {
+    if (rowTuple == null) {
+      vectorizedFilter = VectorizedFilter.compile(qual, inSchema);
+      rowTuple = new VTuple(inSchema.getColumnNum());
+    }
+
+    TupleBatch batch;
+    while ((batch = child.nextBatch()) != null) {
+      if (vectorizedFilter != null) {
+        vectorizedFilter.filter(batch);
+      } else {
+        filterByRow(batch);
+      }
+
+      if (batch.getSelectedNum() > 0) {
+        return batch;
+      }
+    }
+
+    return null;
+  }
+
+  private void filterByRow(TupleBatch batch) {
+    int selectedNum = batch.getSelectedNum();
+    int [] selected = batch.getSelected();
+    int newSelectedNum = 0;
+    int row;
+
+    for (int i = 0; i < selectedNum; i++) {
+      row = batch.getRowId(i);
+      batch.getTuple(row, rowTuple);
+      if (compiledQual.isTrue(rowTuple)) {
+        selected[newSelectedNum++] = row;
+      }
+    }
+    batch.setSelectedNum(newSelectedNum);
+  }
 }
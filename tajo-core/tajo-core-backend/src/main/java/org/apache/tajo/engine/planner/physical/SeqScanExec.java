@@ -20,11 +20,16 @@ package org.apache.tajo.engine.planner.physical;
 
 import org.apache.tajo.catalog.partition.PartitionDesc;
 import org.apache.tajo.catalog.proto.CatalogProtos;
+import org.apache.tajo.common.TajoDataTypes.Type;
 import org.apache.tajo.datum.Datum;
+import org.apache.tajo.engine.codegen.CompiledEval;
+import org.apache.tajo.engine.codegen.EvalCodeGenerator;
 import org.apache.tajo.engine.eval.*;
 import org.apache.tajo.engine.utils.TupleUtil;
 import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.storage.fragment.FragmentConvertor;
+import org.apache.tajo.worker.ShuffleStream;
+import org.apache.tajo.worker.ShuffleStreamScanner;
 import org.apache.tajo.worker.TaskAttemptContext;
 import org.apache.tajo.catalog.Column;
 import org.apache.tajo.catalog.Schema;
@@ -46,13 +51,22 @@ public class SeqScanExec extends PhysicalExec {
   private Scanner scanner = null;
 
   private EvalNode qual = null;
-  private EvalContext qualCtx;
+  private CompiledEval compiledQual;
 
   private CatalogProtos.FragmentProto [] fragments;
 
   private Projector projector;
   private EvalContext [] evalContexts;
 
+  // column ids of targets if all targets are column references
+  private int [] fieldTargetIds;
+  // an empty tuple whose type information is shared by the projected tuples
+  private PrimitiveTuple fieldTargetTuple;
+
+  // for the vectorized mode
+  private TupleBatch batch;
+  private Tuple batchTuple;
+
   public SeqScanExec(TaskAttemptContext context, AbstractStorageManager sm,
                      ScanNode plan, CatalogProtos.FragmentProto [] fragments) throws IOException {
     super(context, plan.getInSchema(), plan.getOutSchema());
@@ -60,12 +74,6 @@ public class SeqScanExec extends PhysicalExec {
     this.plan = plan;
     this.qual = plan.getQual();
     this.fragments = fragments;
-
-    if (qual == null) {
-      qualCtx = null;
-    } else {
-      qualCtx = this.qual.newContext();
-    }
   }
 
   /**
@@ -150,10 +158,21 @@ public class SeqScanExec extends PhysicalExec {
       projected = outSchema;
     }
 
-    this.projector = new Projector(inSchema, outSchema, plan.getTargets());
+    // the qual is compiled after partition columns are replaced by constants
+    if (plan.hasQual()) {
+      compiledQual = EvalCodeGenerator.compile(context.getConf(), qual, inSchema);
+    }
+
+    this.projector = new Projector(context.getConf(), inSchema, outSchema, plan.getTargets());
     this.evalContexts = projector.newContexts();
+    initFieldTargets();
 
-    if (fragments.length > 1) {
+    ShuffleStream stream = context.getShuffleStream(plan.getCanonicalName());
+    if (stream != null) {
+      // fetched data are consumed while the rest of them are being fetched
+      this.scanner = new ShuffleStreamScanner(context.getConf(), plan.getTableSchema(),
+          plan.getTableDesc().getMeta(), stream);
+    } else if (fragments.length > 1) {
       this.scanner = new MergeScanner(context.getConf(), plan.getTableSchema(), plan.getTableDesc().getMeta(),
           FragmentConvertor.<FileFragment>convert(context.getConf(), plan.getTableDesc().getMeta().getStoreType(),
               fragments), projected);
@@ -162,36 +181,110 @@ public class SeqScanExec extends PhysicalExec {
           context.getConf()).getScanner(plan.getTableDesc().getMeta(), plan.getTableSchema(), fragments[0], projected);
     }
 
+    // the scanner can skip data which cannot satisfy the qual
+    if (plan.hasQual() && scanner.isSelectable()) {
+      ScanFilter filter = EvalTreeUtil.toScanFilter(qual);
+      if (!filter.isEmpty()) {
+        scanner.setSearchCondition(filter);
+      }
+    }
+
     scanner.init();
   }
 
+  private void initFieldTargets() {
+    Target [] targets = plan.hasTargets() ? plan.getTargets() : PlannerUtil.schemaToTargets(outSchema);
+    int [] ids = new int[targets.length];
+    Type [] types = new Type[targets.length];
+    for (int i = 0; i < targets.length; i++) {
+      EvalNode eval = targets[i].getEvalTree();
+      if (eval.getType() != EvalType.FIELD) {
+        return;
+      }
+      ids[i] = inSchema.getColumnId(((FieldEval) eval).getColumnRef().getQualifiedName());
+      if (ids[i] < 0) {
+        return;
+      }
+      types[i] = inSchema.getColumn(ids[i]).getDataType().getType();
+    }
+    fieldTargetIds = ids;
+    fieldTargetTuple = new PrimitiveTuple(types);
+  }
+
   @Override
   public Tuple next() throws IOException {
     Tuple tuple;
-    Tuple outTuple = new VTuple(outColumnNum);
 
     if (!plan.hasQual()) {
       if ((tuple = scanner.next()) != null) {
-        projector.eval(evalContexts, tuple);
-        projector.terminate(evalContexts, outTuple);
-        outTuple.setOffset(tuple.getOffset());
-        return outTuple;
+        return project(tuple);
       } else {
         return null;
       }
     } else {
       while ((tuple = scanner.next()) != null) {
-        qual.eval(qualCtx, inSchema, tuple);
-        if (qual.terminate(qualCtx).isTrue()) {
-          projector.eval(evalContexts, tuple);
-          projector.terminate(evalContexts, outTuple);
-          return outTuple;
+        if (compiledQual.isTrue(tuple)) {
+          return project(tuple);
         }
       }
       return null;
     }
   }
 
+  private Tuple project(Tuple tuple) {
+    Tuple outTuple;
+    if (fieldTargetIds != null && tuple instanceof PrimitiveTuple) {
+      // copy the primitive slots of the referred columns without materializing datums
+      PrimitiveTuple primitiveTuple = fieldTargetTuple.newEmptyTuple();
+      primitiveTuple.copyFrom(tuple, fieldTargetIds);
+      outTuple = primitiveTuple;
+    } else {
+      outTuple = new VTuple(outColumnNum);
+      projector.eval(evalContexts, tuple);
+      projector.terminate(evalContexts, outTuple);
+    }
+    outTuple.setOffset(tuple.getOffset());
+    return outTuple;
+  }
+
+  @Override
+  public boolean isBatchSupported() {
+    return true;
+  }
+
+  @Override
+  public TupleBatch nextBatch() throws IOException {
+    if (batch == null) {
+      batch = newBatch(outSchema);
+      batchTuple = new VTuple(outColumnNum);
+    }
+    batch.reset();
+
+    Tuple tuple;
+    while (!batch.isFull() && (tuple = scanner.next()) != null) {
+      if (plan.hasQual()) {
+        if (!compiledQual.isTrue(tuple)) {
+          continue;
+        }
+      }
+
+      if (fieldTargetIds != null) {
+        // the referred fields are copied into the column vectors without materializing datums
+        int row = batch.nextRow(tuple.getOffset());
+        for (int i = 0; i < fieldTargetIds.length; i++) {
+          batch.put(i, row, tuple, fieldTargetIds[i]);
+        }
+      } else {
+        projector.eval(evalContexts, tuple);
+        projector.terminate(evalContexts, batchTuple);
+        batchTuple.setOffset(tuple.getOffset());
+        batch.addTuple(batchTuple);
+      }
+    }
+
+    return batch.getRowNum() > 0 ? batch : null;
+  }
+
   @Override
   public void rescan() throws IOException {
     scanner.reset();
@@ -18,24 +18,37 @@
 
 package org.apache.tajo.engine.planner.physical;
 
+import org.apache.tajo.conf.TajoConf.ConfVars;
 import org.apache.tajo.worker.TaskAttemptContext;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.catalog.SortSpec;
+import org.apache.tajo.storage.NormalizedKeyEncoder;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.TupleComparator;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
 
 public abstract class SortExec extends UnaryPhysicalExec {
   private final Comparator<Tuple> comparator;
   private final SortSpec [] sortSpecs;
+  /** null if normalized keys are disabled or no sort key can be encoded */
+  private final NormalizedKeyEncoder keyEncoder;
 
   public SortExec(TaskAttemptContext context, Schema inSchema,
                   Schema outSchema, PhysicalExec child, SortSpec [] sortSpecs) {
     super(context, inSchema, outSchema, child);
     this.sortSpecs = sortSpecs;
     this.comparator = new TupleComparator(inSchema, sortSpecs);
+
+    NormalizedKeyEncoder encoder = null;
+    if (context.getConf().getBoolVar(ConfVars.EXECUTOR_SORT_NORMALIZED_KEY_ENABLED)) {
+      encoder = new NormalizedKeyEncoder(inSchema, sortSpecs,
+          context.getConf().getIntVar(ConfVars.EXECUTOR_SORT_NORMALIZED_KEY_LENGTH));
+    }
+    this.keyEncoder = encoder != null && encoder.isEncodable() ? encoder : null;
   }
 
   public SortSpec[] getSortSpecs() {
@@ -46,6 +59,25 @@ public abstract class SortExec extends UnaryPhysicalExec {
     return comparator;
   }
 
+  /**
+   * @return the normalized key encoder, or null if normalized keys are not used.
+   */
+  public NormalizedKeyEncoder getKeyEncoder() {
+    return keyEncoder;
+  }
+
+  /**
+   * Sorts tuples with the given comparator. If normalized keys are available, tuples are compared
+   * by their binary prefixes first, and the comparator only resolves the ties of prefixes.
+   */
+  protected void sort(List<Tuple> tuples, Comparator<Tuple> comparator) {
+    if (keyEncoder != null) {
+      keyEncoder.sort(tuples, comparator);
+    } else {
+      Collections.sort(tuples, comparator);
+    }
+  }
+
   @Override
   abstract public Tuple next() throws IOException;
 }
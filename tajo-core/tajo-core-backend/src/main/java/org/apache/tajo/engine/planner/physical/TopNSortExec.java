@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.engine.planner.logical.LimitNode;
+import org.apache.tajo.engine.planner.logical.SortNode;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.apache.tajo.worker.TaskAttemptContext;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * TopNSortExec evaluates a sort followed by a limit. It keeps only the first N tuples in a bounded heap,
+ * so it takes O(N) memory and O(M log N) comparisons for M input tuples instead of sorting all tuples.
+ * Like the other sort executors, tuples with the same sort keys are returned in the input order.
+ */
+public class TopNSortExec extends SortExec {
+  private final SortNode plan;
+  private final long fetchFirstNum;
+  private List<Tuple> topN;
+  private boolean sorted = false;
+  private Iterator<Tuple> iterator;
+
+  /** orders tuples by the sort keys, and then by the input order */
+  private final Comparator<Entry> entryComparator = new Comparator<Entry>() {
+    @Override
+    public int compare(Entry o1, Entry o2) {
+      int cmp = getComparator().compare(o1.tuple, o2.tuple);
+      if (cmp != 0) {
+        return cmp;
+      }
+      return o1.seq < o2.seq ? -1 : (o1.seq == o2.seq ? 0 : 1);
+    }
+  };
+
+  public TopNSortExec(final TaskAttemptContext context, SortNode plan, LimitNode limit, PhysicalExec child) {
+    super(context, plan.getInSchema(), plan.getOutSchema(), child, plan.getSortKeys());
+    this.plan = plan;
+    this.fetchFirstNum = limit.getFetchFirstNum();
+  }
+
+  @Override
+  public Tuple next() throws IOException {
+    if (!sorted) {
+      topN = selectTopN();
+      sorted = true;
+      iterator = topN.iterator();
+    }
+
+    if (iterator.hasNext()) {
+      return iterator.next();
+    } else {
+      return null;
+    }
+  }
+
+  private List<Tuple> selectTopN() throws IOException {
+    List<Tuple> sortedTuples = new ArrayList<Tuple>();
+    if (fetchFirstNum <= 0) {
+      return sortedTuples;
+    }
+
+    // the head of the heap is the last one of the current top N tuples.
+    PriorityQueue<Entry> heap = new PriorityQueue<Entry>(
+        (int) Math.min(fetchFirstNum, 1000) + 1, Collections.reverseOrder(entryComparator));
+    Tuple tuple;
+    long seq = 0;
+    while ((tuple = child.next()) != null) {
+      if (heap.size() < fetchFirstNum) {
+        heap.add(new Entry(new VTuple(tuple), seq));
+      } else if (getComparator().compare(tuple, heap.peek().tuple) < 0) {
+        // a later tuple equal to the last one is discarded to keep the same result as a stable sort.
+        heap.poll();
+        heap.add(new Entry(new VTuple(tuple), seq));
+      }
+      seq++;
+    }
+
+    List<Entry> entries = new ArrayList<Entry>(heap);
+    Collections.sort(entries, entryComparator);
+    for (Entry entry : entries) {
+      sortedTuples.add(entry.tuple);
+    }
+    return sortedTuples;
+  }
+
+  @Override
+  public void rescan() throws IOException {
+    super.rescan();
+    if (sorted) {
+      iterator = topN.iterator();
+    }
+  }
+
+  public SortNode getPlan() {
+    return this.plan;
+  }
+
+  public long getFetchFirstNum() {
+    return fetchFirstNum;
+  }
+
+  private static class Entry {
+    private final Tuple tuple;
+    private final long seq;
+
+    Entry(Tuple tuple, long seq) {
+      this.tuple = tuple;
+      this.seq = seq;
+    }
+  }
+}
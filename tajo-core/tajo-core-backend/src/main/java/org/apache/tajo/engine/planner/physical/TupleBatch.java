@@ -0,0 +1,394 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.storage.PrimitiveTuple;
+import org.apache.tajo.storage.Tuple;
+
+/**
+ * TupleBatch is a columnar block of rows which is exchanged between physical executors
+ * in the vectorized execution mode. Fixed-width numeric columns are kept in primitive
+ * arrays, and the other columns are kept as Datum arrays. A selection vector indicates
+ * which rows of the batch are still alive, so a filter can drop rows without copying.
+ *
+ * A batch returned by {@link PhysicalExec#nextBatch()} is only valid until the next call.
+ */
+public class TupleBatch {
+  public static final int DEFAULT_BATCH_SIZE = 1024;
+
+  public static enum VectorType {
+    LONG,
+    DOUBLE,
+    DATUM
+  }
+
+  private final Schema schema;
+  private final int capacity;
+  private final Type [] types;
+  private final VectorType [] vectorTypes;
+  private final long [][] longVectors;
+  private final double [][] doubleVectors;
+  private final Datum [][] datumVectors;
+  private final boolean [][] nullVectors;
+  private final long [] offsets;
+
+  private final int [] selected;
+  private boolean selectionInUse = false;
+  private int selectedNum = 0;
+  private int rowNum = 0;
+
+  public TupleBatch(Schema schema) {
+    this(schema, DEFAULT_BATCH_SIZE);
+  }
+
+  public TupleBatch(Schema schema, int capacity) {
+    this.schema = schema;
+    this.capacity = capacity;
+
+    int columnNum = schema.getColumnNum();
+    types = new Type[columnNum];
+    vectorTypes = new VectorType[columnNum];
+    longVectors = new long[columnNum][];
+    doubleVectors = new double[columnNum][];
+    datumVectors = new Datum[columnNum][];
+    nullVectors = new boolean[columnNum][capacity];
+    offsets = new long[capacity];
+    selected = new int[capacity];
+
+    for (int i = 0; i < columnNum; i++) {
+      types[i] = schema.getColumn(i).getDataType().getType();
+      vectorTypes[i] = getVectorType(types[i]);
+      switch (vectorTypes[i]) {
+        case LONG:
+          longVectors[i] = new long[capacity];
+          break;
+        case DOUBLE:
+          doubleVectors[i] = new double[capacity];
+          break;
+        default:
+          datumVectors[i] = new Datum[capacity];
+      }
+    }
+  }
+
+  public static VectorType getVectorType(Type type) {
+    switch (type) {
+      case INT2:
+      case INT4:
+      case INT8:
+        return VectorType.LONG;
+      case FLOAT4:
+      case FLOAT8:
+        return VectorType.DOUBLE;
+      default:
+        return VectorType.DATUM;
+    }
+  }
+
+  public Schema getSchema() {
+    return schema;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public int getColumnNum() {
+    return types.length;
+  }
+
+  public VectorType getVectorType(int columnId) {
+    return vectorTypes[columnId];
+  }
+
+  /**
+   * @return the number of rows physically stored in this batch, including unselected rows
+   */
+  public int getRowNum() {
+    return rowNum;
+  }
+
+  public boolean isFull() {
+    return rowNum == capacity;
+  }
+
+  public void reset() {
+    for (int i = 0; i < nullVectors.length; i++) {
+      if (datumVectors[i] != null) {
+        for (int j = 0; j < rowNum; j++) {
+          datumVectors[i][j] = null;
+        }
+      }
+    }
+    rowNum = 0;
+    selectedNum = 0;
+    selectionInUse = false;
+  }
+
+  //////////////////////////////////////////////////////
+  // Selection Vector
+  //////////////////////////////////////////////////////
+
+  /**
+   * @return the number of alive rows
+   */
+  public int getSelectedNum() {
+    return selectionInUse ? selectedNum : rowNum;
+  }
+
+  /**
+   * @param i the i-th alive row
+   * @return the physical row index of the i-th alive row
+   */
+  public int getRowId(int i) {
+    return selectionInUse ? selected[i] : i;
+  }
+
+  public boolean isSelectionInUse() {
+    return selectionInUse;
+  }
+
+  /**
+   * The returned array is directly modified by filters. It must be followed by
+   * {@link #setSelectedNum(int)}.
+   */
+  public int [] getSelected() {
+    return selected;
+  }
+
+  public void setSelectedNum(int selectedNum) {
+    this.selectedNum = selectedNum;
+    this.selectionInUse = true;
+  }
+
+  //////////////////////////////////////////////////////
+  // Setter
+  //////////////////////////////////////////////////////
+
+  /**
+   * Appends a tuple as the last row. Rows can be appended only before a selection vector is used.
+   */
+  public void addTuple(Tuple tuple) {
+    int row = rowNum++;
+    for (int i = 0; i < types.length; i++) {
+      put(i, row, tuple.get(i));
+    }
+    offsets[row] = tuple.getOffset();
+  }
+
+  public void put(int columnId, int row, Datum datum) {
+    if (datum == null || datum instanceof NullDatum) {
+      setNull(columnId, row);
+      return;
+    }
+
+    nullVectors[columnId][row] = false;
+    switch (vectorTypes[columnId]) {
+      case LONG:
+        longVectors[columnId][row] = datum.asInt8();
+        break;
+      case DOUBLE:
+        doubleVectors[columnId][row] = datum.asFloat8();
+        break;
+      default:
+        datumVectors[columnId][row] = datum;
+    }
+  }
+
+  /**
+   * Puts a value into a column of the long vector type.
+   */
+  public void putLong(int columnId, int row, long value) {
+    nullVectors[columnId][row] = false;
+    longVectors[columnId][row] = value;
+  }
+
+  /**
+   * Puts a value into a column of the double vector type.
+   */
+  public void putDouble(int columnId, int row, double value) {
+    nullVectors[columnId][row] = false;
+    doubleVectors[columnId][row] = value;
+  }
+
+  private void setNull(int columnId, int row) {
+    nullVectors[columnId][row] = true;
+    if (datumVectors[columnId] != null) {
+      datumVectors[columnId][row] = null;
+    }
+  }
+
+  /**
+   * Copies a field of a tuple. A numeric field of a {@link PrimitiveTuple} is copied without
+   * materializing a Datum.
+   */
+  public void put(int columnId, int row, Tuple tuple, int fieldId) {
+    if (tuple instanceof PrimitiveTuple && vectorTypes[columnId] != VectorType.DATUM) {
+      PrimitiveTuple primitiveTuple = (PrimitiveTuple) tuple;
+      if (!primitiveTuple.contains(fieldId) || primitiveTuple.isNull(fieldId)) {
+        setNull(columnId, row);
+        return;
+      }
+      if (primitiveTuple.isPrimitive(fieldId)) {
+        nullVectors[columnId][row] = false;
+        if (vectorTypes[columnId] == VectorType.LONG) {
+          longVectors[columnId][row] = primitiveTuple.getInt8(fieldId);
+        } else {
+          doubleVectors[columnId][row] = primitiveTuple.getFloat8(fieldId);
+        }
+        return;
+      }
+    }
+    put(columnId, row, tuple.get(fieldId));
+  }
+
+  /**
+   * Copies a value from a row of another batch without materializing a Datum for primitive columns.
+   */
+  public void copy(int columnId, int row, TupleBatch src, int srcColumnId, int srcRow) {
+    if (src.nullVectors[srcColumnId][srcRow]) {
+      setNull(columnId, row);
+      return;
+    }
+
+    if (vectorTypes[columnId] != src.vectorTypes[srcColumnId]) {
+      put(columnId, row, src.get(srcColumnId, srcRow));
+      return;
+    }
+
+    nullVectors[columnId][row] = false;
+    switch (vectorTypes[columnId]) {
+      case LONG:
+        longVectors[columnId][row] = src.longVectors[srcColumnId][srcRow];
+        break;
+      case DOUBLE:
+        doubleVectors[columnId][row] = src.doubleVectors[srcColumnId][srcRow];
+        break;
+      default:
+        datumVectors[columnId][row] = src.datumVectors[srcColumnId][srcRow];
+    }
+  }
+
+  /**
+   * Allocates the next row for {@link #put(int, int, Datum)} or {@link #copy(int, int, TupleBatch, int, int)}.
+   *
+   * @return the row index of the allocated row
+   */
+  public int nextRow(long offset) {
+    offsets[rowNum] = offset;
+    return rowNum++;
+  }
+
+  //////////////////////////////////////////////////////
+  // Getter
+  //////////////////////////////////////////////////////
+
+  public boolean isNull(int columnId, int row) {
+    return nullVectors[columnId][row];
+  }
+
+  public long getLong(int columnId, int row) {
+    return longVectors[columnId][row];
+  }
+
+  public double getDouble(int columnId, int row) {
+    return doubleVectors[columnId][row];
+  }
+
+  public long [] getLongVector(int columnId) {
+    return longVectors[columnId];
+  }
+
+  public double [] getDoubleVector(int columnId) {
+    return doubleVectors[columnId];
+  }
+
+  public boolean [] getNullVector(int columnId) {
+    return nullVectors[columnId];
+  }
+
+  public long getOffset(int row) {
+    return offsets[row];
+  }
+
+  public Datum get(int columnId, int row) {
+    if (nullVectors[columnId][row]) {
+      return NullDatum.get();
+    }
+
+    switch (vectorTypes[columnId]) {
+      case LONG:
+        return createFromLong(types[columnId], longVectors[columnId][row]);
+      case DOUBLE:
+        return createFromDouble(types[columnId], doubleVectors[columnId][row]);
+      default:
+        return datumVectors[columnId][row];
+    }
+  }
+
+  /**
+   * Materializes a physical row into a given tuple. The numeric values are put into a {@link PrimitiveTuple}
+   * without materializing Datums.
+   */
+  public void getTuple(int row, Tuple tuple) {
+    if (tuple instanceof PrimitiveTuple) {
+      PrimitiveTuple primitiveTuple = (PrimitiveTuple) tuple;
+      for (int i = 0; i < types.length; i++) {
+        if (nullVectors[i][row]) {
+          primitiveTuple.setNull(i);
+        } else if (vectorTypes[i] == VectorType.LONG) {
+          primitiveTuple.putInt8(i, longVectors[i][row]);
+        } else if (vectorTypes[i] == VectorType.DOUBLE) {
+          primitiveTuple.putFloat8(i, doubleVectors[i][row]);
+        } else {
+          primitiveTuple.put(i, datumVectors[i][row]);
+        }
+      }
+    } else {
+      for (int i = 0; i < types.length; i++) {
+        tuple.put(i, get(i, row));
+      }
+    }
+    tuple.setOffset(offsets[row]);
+  }
+
+  private static Datum createFromLong(Type type, long val) {
+    switch (type) {
+      case INT2:
+        return DatumFactory.createInt2((short) val);
+      case INT4:
+        return DatumFactory.createInt4((int) val);
+      default:
+        return DatumFactory.createInt8(val);
+    }
+  }
+
+  private static Datum createFromDouble(Type type, double val) {
+    if (type == Type.FLOAT4) {
+      return DatumFactory.createFloat4((float) val);
+    } else {
+      return DatumFactory.createFloat8(val);
+    }
+  }
+}
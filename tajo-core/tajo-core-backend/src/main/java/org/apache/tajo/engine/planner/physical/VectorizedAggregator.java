@@ -0,0 +1,256 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.engine.eval.*;
+
+/**
+ * VectorizedAggregator updates the aggregation functions of groups over the primitive vectors of
+ * a {@link TupleBatch}. It supports non-distinct sum, count, min and max of a numeric column and count(*).
+ * The states are kept in primitive accumulators during the input, and they are merged into the contexts
+ * of the aggregation functions by {@link #materialize(EvalContext[])} before the partial or final results
+ * are taken. Other aggregations are evaluated row by row by the callers.
+ */
+public class VectorizedAggregator {
+  private static enum Op {
+    COUNT_ROWS,
+    COUNT_VALUES,
+    SUM,
+    MIN,
+    MAX
+  }
+
+  private final Measure [] measures;
+
+  private VectorizedAggregator(Measure [] measures) {
+    this.measures = measures;
+  }
+
+  /**
+   * @param evals the evaluation trees of the targets of an aggregation
+   * @param measureList the target indexes of aggregation functions
+   * @param schema the input schema
+   * @return a vectorized aggregator, or null if any aggregation function cannot be vectorized.
+   */
+  public static VectorizedAggregator compile(EvalNode [] evals, int [] measureList, Schema schema) {
+    Measure [] measures = new Measure[measureList.length];
+    for (int i = 0; i < measureList.length; i++) {
+      if (!(evals[measureList[i]] instanceof AggregationFunctionCallEval)) {
+        return null;
+      }
+      measures[i] = compile(measureList[i], (AggregationFunctionCallEval) evals[measureList[i]], schema);
+      if (measures[i] == null) {
+        return null;
+      }
+    }
+    return new VectorizedAggregator(measures);
+  }
+
+  private static Measure compile(int targetId, AggregationFunctionCallEval func, Schema schema) {
+    if (func.isDistinct()) {
+      return null;
+    }
+
+    String name = func.getName();
+    EvalNode [] args = func.getArgs();
+    if (args == null || args.length == 0) {
+      // count(*) in the first phase. In the other phases, it merges partial counts.
+      if (name.equals("count") && func.isFirstPhase()) {
+        return new Measure(targetId, func, Op.COUNT_ROWS, -1, false);
+      }
+      return null;
+    }
+
+    if (args.length != 1 || args[0].getType() != EvalType.FIELD) {
+      return null;
+    }
+    int columnId = schema.getColumnId(((FieldEval) args[0]).getColumnRef().getQualifiedName());
+    if (columnId < 0) {
+      return null;
+    }
+    Type type = schema.getColumn(columnId).getDataType().getType();
+    TupleBatch.VectorType vectorType = TupleBatch.getVectorType(type);
+    if (vectorType == TupleBatch.VectorType.DATUM) {
+      return null;
+    }
+    boolean real = vectorType == TupleBatch.VectorType.DOUBLE;
+
+    Op op;
+    if (name.equals("count")) {
+      // partial counts are summed up
+      op = func.isFirstPhase() ? Op.COUNT_VALUES : Op.SUM;
+      if (op == Op.SUM && real) {
+        return null;
+      }
+    } else if (name.equals("sum")) {
+      // the sum of float4 values is accumulated in the float precision by the function
+      if (type == Type.FLOAT4) {
+        return null;
+      }
+      op = Op.SUM;
+    } else if (name.equals("min")) {
+      op = Op.MIN;
+    } else if (name.equals("max")) {
+      op = Op.MAX;
+    } else {
+      return null;
+    }
+    return new Measure(targetId, func, op, columnId, real);
+  }
+
+  /**
+   * @return a new context of an aggregation function, which is used only by this aggregator.
+   */
+  public EvalContext newAccumulator() {
+    return new Accumulator();
+  }
+
+  /**
+   * Updates the accumulators of the groups of all alive rows in a given batch.
+   *
+   * @param groups the contexts of the group of each alive row
+   */
+  public void aggregate(TupleBatch batch, EvalContext [][] groups) {
+    for (Measure measure : measures) {
+      measure.aggregate(batch, groups);
+    }
+  }
+
+  /**
+   * Replaces the accumulators of a group with the contexts of the aggregation functions.
+   * It does nothing for the contexts which are already materialized.
+   */
+  public void materialize(EvalContext [] groupCtx) {
+    for (Measure measure : measures) {
+      EvalContext ctx = groupCtx[measure.targetId];
+      if (ctx instanceof Accumulator) {
+        groupCtx[measure.targetId] = measure.materialize((Accumulator) ctx);
+      }
+    }
+  }
+
+  private static class Accumulator implements EvalContext {
+    private boolean defined = false;
+    private long longValue = 0;
+    private double doubleValue = 0;
+  }
+
+  private static class Measure {
+    private final int targetId;
+    private final AggregationFunctionCallEval func;
+    private final Op op;
+    private final int columnId;
+    private final boolean real;
+
+    Measure(int targetId, AggregationFunctionCallEval func, Op op, int columnId, boolean real) {
+      this.targetId = targetId;
+      this.func = func;
+      this.op = op;
+      this.columnId = columnId;
+      this.real = real;
+    }
+
+    void aggregate(TupleBatch batch, EvalContext [][] groups) {
+      int num = batch.getSelectedNum();
+      if (op == Op.COUNT_ROWS) {
+        for (int i = 0; i < num; i++) {
+          Accumulator acc = (Accumulator) groups[i][targetId];
+          acc.defined = true;
+          acc.longValue++;
+        }
+        return;
+      }
+
+      boolean [] nulls = batch.getNullVector(columnId);
+      if (op == Op.COUNT_VALUES) {
+        for (int i = 0; i < num; i++) {
+          Accumulator acc = (Accumulator) groups[i][targetId];
+          acc.defined = true;
+          if (!nulls[batch.getRowId(i)]) {
+            acc.longValue++;
+          }
+        }
+      } else if (real) {
+        aggregateDoubles(batch, groups, num, nulls, batch.getDoubleVector(columnId));
+      } else {
+        aggregateLongs(batch, groups, num, nulls, batch.getLongVector(columnId));
+      }
+    }
+
+    private void aggregateLongs(TupleBatch batch, EvalContext [][] groups, int num, boolean [] nulls,
+                                long [] values) {
+      for (int i = 0; i < num; i++) {
+        int row = batch.getRowId(i);
+        if (nulls[row]) {
+          continue;
+        }
+        Accumulator acc = (Accumulator) groups[i][targetId];
+        long value = values[row];
+        if (!acc.defined) {
+          acc.defined = true;
+          acc.longValue = value;
+        } else if (op == Op.SUM) {
+          acc.longValue += value;
+        } else if (op == Op.MIN) {
+          acc.longValue = Math.min(acc.longValue, value);
+        } else {
+          acc.longValue = Math.max(acc.longValue, value);
+        }
+      }
+    }
+
+    private void aggregateDoubles(TupleBatch batch, EvalContext [][] groups, int num, boolean [] nulls,
+                                  double [] values) {
+      for (int i = 0; i < num; i++) {
+        int row = batch.getRowId(i);
+        if (nulls[row]) {
+          continue;
+        }
+        Accumulator acc = (Accumulator) groups[i][targetId];
+        double value = values[row];
+        if (!acc.defined) {
+          acc.defined = true;
+          acc.doubleValue = value;
+        } else if (op == Op.SUM) {
+          acc.doubleValue += value;
+        } else if (op == Op.MIN) {
+          acc.doubleValue = Math.min(acc.doubleValue, value);
+        } else {
+          acc.doubleValue = Math.max(acc.doubleValue, value);
+        }
+      }
+    }
+
+    /**
+     * The accumulated value is merged as a partial result, so the function keeps its own
+     * initial state, type conversion and result type.
+     */
+    EvalContext materialize(Accumulator acc) {
+      EvalContext ctx = func.newContext();
+      if (acc.defined) {
+        func.mergePartialResult(ctx, real && op != Op.COUNT_VALUES ?
+            DatumFactory.createFloat8(acc.doubleValue) : DatumFactory.createInt8(acc.longValue));
+      }
+      return ctx;
+    }
+  }
+}
@@ -0,0 +1,416 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.engine.eval.*;
+
+/**
+ * VectorizedExpression evaluates an expression over the primitive vectors of a {@link TupleBatch}
+ * column by column. It supports arithmetic, cast and comparison expressions of int2, int4, int8 and float8
+ * columns and constants, for example, <code>l_extendedprice * (1 - l_discount)</code>. The results are
+ * the same as those of the row-wise evaluation of Datums, including the integer overflows.
+ * Other expressions are evaluated row by row by the callers.
+ */
+public class VectorizedExpression {
+  private final Node root;
+
+  private VectorizedExpression(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * @return a vectorized expression, or null if the expression cannot be vectorized.
+   */
+  public static VectorizedExpression compile(EvalNode eval, Schema schema) {
+    Node root = compileNode(eval, schema);
+    return root == null ? null : new VectorizedExpression(root);
+  }
+
+  private static Node compileNode(EvalNode eval, Schema schema) {
+    switch (eval.getType()) {
+      case FIELD: {
+        int columnId = schema.getColumnId(((FieldEval) eval).getColumnRef().getQualifiedName());
+        if (columnId < 0) {
+          return null;
+        }
+        Type type = schema.getColumn(columnId).getDataType().getType();
+        return isNumeric(type) ? new ColumnNode(type, columnId) : null;
+      }
+
+      case CONST: {
+        Datum value = ((ConstEval) eval).getValue();
+        return isNumeric(value.type()) ? new ConstNode(value) : null;
+      }
+
+      case PLUS:
+      case MINUS:
+      case MULTIPLY:
+      case DIVIDE:
+      case MODULAR: {
+        Node left = compileNode(eval.getLeftExpr(), schema);
+        Node right = left == null ? null : compileNode(eval.getRightExpr(), schema);
+        if (right == null || !isNumeric(left.type) || !isNumeric(right.type)) {
+          return null;
+        }
+        return new ArithmeticNode(eval.getType(), left, right);
+      }
+
+      case EQUAL:
+      case NOT_EQUAL:
+      case LTH:
+      case LEQ:
+      case GTH:
+      case GEQ: {
+        Node left = compileNode(eval.getLeftExpr(), schema);
+        Node right = left == null ? null : compileNode(eval.getRightExpr(), schema);
+        if (right == null || !isNumeric(left.type) || !isNumeric(right.type)) {
+          return null;
+        }
+        return new ComparisonNode(eval.getType(), left, right);
+      }
+
+      case CAST: {
+        CastEval cast = (CastEval) eval;
+        Node operand = compileNode(cast.getOperand(), schema);
+        Type target = cast.getValueType().getType();
+        if (operand == null || !isNumeric(operand.type) || !isNumeric(target)) {
+          return null;
+        }
+        return new CastNode(target, operand);
+      }
+
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * float4 is excluded because the arithmetic of float4 Datums is done in the float precision.
+   */
+  private static boolean isNumeric(Type type) {
+    switch (type) {
+      case INT2:
+      case INT4:
+      case INT8:
+      case FLOAT8:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Evaluates the expression for all alive rows of an input batch, and writes the i-th result
+   * to the i-th row of a given column of an output batch.
+   */
+  public void eval(TupleBatch in, TupleBatch out, int outColumnId) {
+    int num = in.getSelectedNum();
+    root.ensureCapacity(in.getCapacity());
+    root.eval(in, num);
+
+    TupleBatch.VectorType outType = out.getVectorType(outColumnId);
+    for (int i = 0; i < num; i++) {
+      if (root.nulls[i]) {
+        out.put(outColumnId, i, NullDatum.get());
+      } else if (outType == TupleBatch.VectorType.LONG) {
+        out.putLong(outColumnId, i, root.type == Type.FLOAT8 ? (long) root.doubles[i] : root.longs[i]);
+      } else if (outType == TupleBatch.VectorType.DOUBLE) {
+        out.putDouble(outColumnId, i, root.type == Type.FLOAT8 ? root.doubles[i] : root.longs[i]);
+      } else if (root.type == Type.BOOLEAN) {
+        out.put(outColumnId, i, DatumFactory.createBool(root.longs[i] != 0));
+      } else {
+        out.put(outColumnId, i, root.type == Type.FLOAT8 ?
+            DatumFactory.createFloat8(root.doubles[i]) : DatumFactory.createInt8(root.longs[i]));
+      }
+    }
+  }
+
+  /**
+   * A node keeps its results in dense vectors, whose i-th element is the result of the i-th alive row.
+   * The type of a node is the type of the Datum which the row-wise evaluation produces.
+   * Integer and boolean results are kept in the long vector, and float8 results in the double vector.
+   */
+  private static abstract class Node {
+    protected final Type type;
+    protected long [] longs;
+    protected double [] doubles;
+    protected boolean [] nulls;
+
+    Node(Type type) {
+      this.type = type;
+    }
+
+    void ensureCapacity(int capacity) {
+      if (nulls == null || nulls.length < capacity) {
+        if (type == Type.FLOAT8) {
+          doubles = new double[capacity];
+        } else {
+          longs = new long[capacity];
+        }
+        nulls = new boolean[capacity];
+        init();
+      }
+      ensureChildCapacity(capacity);
+    }
+
+    void init() {
+    }
+
+    void ensureChildCapacity(int capacity) {
+    }
+
+    double getDouble(int i) {
+      return type == Type.FLOAT8 ? doubles[i] : longs[i];
+    }
+
+    abstract void eval(TupleBatch batch, int num);
+  }
+
+  private static class ColumnNode extends Node {
+    private final int columnId;
+
+    ColumnNode(Type type, int columnId) {
+      super(type);
+      this.columnId = columnId;
+    }
+
+    @Override
+    void eval(TupleBatch batch, int num) {
+      boolean [] columnNulls = batch.getNullVector(columnId);
+      if (type == Type.FLOAT8) {
+        double [] values = batch.getDoubleVector(columnId);
+        for (int i = 0; i < num; i++) {
+          int row = batch.getRowId(i);
+          nulls[i] = columnNulls[row];
+          doubles[i] = values[row];
+        }
+      } else {
+        long [] values = batch.getLongVector(columnId);
+        for (int i = 0; i < num; i++) {
+          int row = batch.getRowId(i);
+          nulls[i] = columnNulls[row];
+          longs[i] = values[row];
+        }
+      }
+    }
+  }
+
+  private static class ConstNode extends Node {
+    private final Datum value;
+
+    ConstNode(Datum value) {
+      super(value.type());
+      this.value = value;
+    }
+
+    @Override
+    void init() {
+      for (int i = 0; i < nulls.length; i++) {
+        if (type == Type.FLOAT8) {
+          doubles[i] = value.asFloat8();
+        } else {
+          longs[i] = value.asInt8();
+        }
+      }
+    }
+
+    @Override
+    void eval(TupleBatch batch, int num) {
+      // the vectors are filled once
+    }
+  }
+
+  private static abstract class BinaryNode extends Node {
+    protected final EvalType op;
+    protected final Node left;
+    protected final Node right;
+
+    BinaryNode(Type type, EvalType op, Node left, Node right) {
+      super(type);
+      this.op = op;
+      this.left = left;
+      this.right = right;
+    }
+
+    @Override
+    void ensureChildCapacity(int capacity) {
+      left.ensureCapacity(capacity);
+      right.ensureCapacity(capacity);
+    }
+  }
+
+  private static class ArithmeticNode extends BinaryNode {
+    ArithmeticNode(EvalType op, Node left, Node right) {
+      super(getResultType(left.type, right.type), op, left, right);
+    }
+
+    /**
+     * The result type of the arithmetic between two Datums, e.g., int2 + int4 is int4.
+     */
+    private static Type getResultType(Type left, Type right) {
+      if (left == Type.FLOAT8 || right == Type.FLOAT8) {
+        return Type.FLOAT8;
+      } else if (left == Type.INT8 || right == Type.INT8) {
+        return Type.INT8;
+      } else if (left == Type.INT2 && right == Type.INT2) {
+        return Type.INT2;
+      } else {
+        return Type.INT4;
+      }
+    }
+
+    @Override
+    void eval(TupleBatch batch, int num) {
+      left.eval(batch, num);
+      right.eval(batch, num);
+
+      for (int i = 0; i < num; i++) {
+        // the values of null rows are not computed, e.g., to avoid a division by zero.
+        nulls[i] = left.nulls[i] || right.nulls[i];
+        if (nulls[i]) {
+          continue;
+        }
+        if (type == Type.FLOAT8) {
+          doubles[i] = compute(left.getDouble(i), right.getDouble(i));
+        } else {
+          long value = compute(left.longs[i], right.longs[i]);
+          if (type == Type.INT2) {
+            longs[i] = (short) value;
+          } else if (type == Type.INT4) {
+            longs[i] = (int) value;
+          } else {
+            longs[i] = value;
+          }
+        }
+      }
+    }
+
+    private long compute(long lhs, long rhs) {
+      switch (op) {
+        case PLUS: return lhs + rhs;
+        case MINUS: return lhs - rhs;
+        case MULTIPLY: return lhs * rhs;
+        case DIVIDE: return lhs / rhs;
+        default: return lhs % rhs;
+      }
+    }
+
+    private double compute(double lhs, double rhs) {
+      switch (op) {
+        case PLUS: return lhs + rhs;
+        case MINUS: return lhs - rhs;
+        case MULTIPLY: return lhs * rhs;
+        case DIVIDE: return lhs / rhs;
+        default: return lhs % rhs;
+      }
+    }
+  }
+
+  private static class ComparisonNode extends BinaryNode {
+    private final boolean real;
+
+    ComparisonNode(EvalType op, Node left, Node right) {
+      super(Type.BOOLEAN, op, left, right);
+      this.real = left.type == Type.FLOAT8 || right.type == Type.FLOAT8;
+    }
+
+    @Override
+    void eval(TupleBatch batch, int num) {
+      left.eval(batch, num);
+      right.eval(batch, num);
+
+      for (int i = 0; i < num; i++) {
+        nulls[i] = left.nulls[i] || right.nulls[i];
+        if (nulls[i]) {
+          continue;
+        }
+        boolean result = real ? compare(left.getDouble(i), right.getDouble(i)) :
+            compare(left.longs[i], right.longs[i]);
+        longs[i] = result ? 1 : 0;
+      }
+    }
+
+    private boolean compare(long lhs, long rhs) {
+      switch (op) {
+        case EQUAL: return lhs == rhs;
+        case NOT_EQUAL: return lhs != rhs;
+        case LTH: return lhs < rhs;
+        case LEQ: return lhs <= rhs;
+        case GTH: return lhs > rhs;
+        default: return lhs >= rhs;
+      }
+    }
+
+    private boolean compare(double lhs, double rhs) {
+      switch (op) {
+        case EQUAL: return lhs == rhs;
+        case NOT_EQUAL: return lhs != rhs;
+        case LTH: return lhs < rhs;
+        case LEQ: return lhs <= rhs;
+        case GTH: return lhs > rhs;
+        default: return lhs >= rhs;
+      }
+    }
+  }
+
+  private static class CastNode extends Node {
+    private final Node operand;
+
+    CastNode(Type target, Node operand) {
+      super(target);
+      this.operand = operand;
+    }
+
+    @Override
+    void ensureChildCapacity(int capacity) {
+      operand.ensureCapacity(capacity);
+    }
+
+    @Override
+    void eval(TupleBatch batch, int num) {
+      operand.eval(batch, num);
+
+      boolean real = operand.type == Type.FLOAT8;
+      for (int i = 0; i < num; i++) {
+        nulls[i] = operand.nulls[i];
+        if (nulls[i]) {
+          continue;
+        }
+        switch (type) {
+          case INT2:
+            longs[i] = real ? (short) operand.doubles[i] : (short) operand.longs[i];
+            break;
+          case INT4:
+            longs[i] = real ? (int) operand.doubles[i] : (int) operand.longs[i];
+            break;
+          case INT8:
+            longs[i] = real ? (long) operand.doubles[i] : operand.longs[i];
+            break;
+          default:
+            doubles[i] = operand.getDouble(i);
+        }
+      }
+    }
+  }
+}
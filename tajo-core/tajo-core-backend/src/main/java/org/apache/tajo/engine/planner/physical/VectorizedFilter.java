@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.engine.eval.*;
+import org.apache.tajo.util.TUtil;
+
+import java.util.List;
+
+/**
+ * VectorizedFilter evaluates a search condition over the primitive vectors of a {@link TupleBatch}.
+ * It supports a conjunction of comparisons between a numeric column and a numeric constant,
+ * for example, <code>l_orderkey > 10 and l_discount <= 0.05</code>. Other search conditions are
+ * evaluated row by row by the callers.
+ */
+public class VectorizedFilter {
+  private final ColumnPredicate [] predicates;
+
+  private VectorizedFilter(ColumnPredicate [] predicates) {
+    this.predicates = predicates;
+  }
+
+  /**
+   * @return a vectorized filter, or null if the search condition cannot be vectorized.
+   */
+  public static VectorizedFilter compile(EvalNode qual, Schema schema) {
+    List<ColumnPredicate> predicates = TUtil.newList();
+    if (!collect(qual, schema, predicates)) {
+      return null;
+    }
+    return new VectorizedFilter(predicates.toArray(new ColumnPredicate[predicates.size()]));
+  }
+
+  private static boolean collect(EvalNode qual, Schema schema, List<ColumnPredicate> predicates) {
+    if (qual.getType() == EvalType.AND) {
+      return collect(qual.getLeftExpr(), schema, predicates) && collect(qual.getRightExpr(), schema, predicates);
+    }
+
+    if (!isComparison(qual.getType())) {
+      return false;
+    }
+
+    EvalType op = qual.getType();
+    FieldEval field;
+    ConstEval constant;
+    if (qual.getLeftExpr().getType() == EvalType.FIELD && qual.getRightExpr().getType() == EvalType.CONST) {
+      field = qual.getLeftExpr();
+      constant = qual.getRightExpr();
+    } else if (qual.getLeftExpr().getType() == EvalType.CONST && qual.getRightExpr().getType() == EvalType.FIELD) {
+      field = qual.getRightExpr();
+      constant = qual.getLeftExpr();
+      op = flip(op);
+    } else {
+      return false;
+    }
+
+    int columnId = schema.getColumnId(field.getColumnRef().getQualifiedName());
+    if (columnId < 0) {
+      return false;
+    }
+
+    Datum value = constant.getValue();
+    TupleBatch.VectorType vectorType =
+        TupleBatch.getVectorType(schema.getColumn(columnId).getDataType().getType());
+    if (vectorType == TupleBatch.VectorType.DATUM || !value.isNumeric()) {
+      return false;
+    }
+
+    predicates.add(new ColumnPredicate(op, columnId, vectorType == TupleBatch.VectorType.DOUBLE || value.isReal(),
+        value));
+    return true;
+  }
+
+  private static boolean isComparison(EvalType type) {
+    switch (type) {
+      case EQUAL:
+      case NOT_EQUAL:
+      case LTH:
+      case LEQ:
+      case GTH:
+      case GEQ:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static EvalType flip(EvalType type) {
+    switch (type) {
+      case LTH: return EvalType.GTH;
+      case LEQ: return EvalType.GEQ;
+      case GTH: return EvalType.LTH;
+      case GEQ: return EvalType.LEQ;
+      default: return type;
+    }
+  }
+
+  /**
+   * Narrows the selection vector of a given batch to the rows satisfying the search condition.
+   */
+  public void filter(TupleBatch batch) {
+    for (ColumnPredicate predicate : predicates) {
+      predicate.filter(batch);
+      if (batch.getSelectedNum() == 0) {
+        return;
+      }
+    }
+  }
+
+  private static class ColumnPredicate {
+    private final EvalType op;
+    private final int columnId;
+    private final boolean real;
+    private final long longValue;
+    private final double doubleValue;
+
+    ColumnPredicate(EvalType op, int columnId, boolean real, Datum value) {
+      this.op = op;
+      this.columnId = columnId;
+      this.real = real;
+      this.longValue = real ? 0 : value.asInt8();
+      this.doubleValue = value.asFloat8();
+    }
+
+    void filter(TupleBatch batch) {
+      int selectedNum = batch.getSelectedNum();
+      boolean selectionInUse = batch.isSelectionInUse();
+      int [] selected = batch.getSelected();
+      boolean [] nulls = batch.getNullVector(columnId);
+      int newSelectedNum = 0;
+
+      if (real) {
+        boolean isDoubleVector = batch.getVectorType(columnId) == TupleBatch.VectorType.DOUBLE;
+        double [] doubles = isDoubleVector ? batch.getDoubleVector(columnId) : null;
+        long [] longs = isDoubleVector ? null : batch.getLongVector(columnId);
+        for (int i = 0; i < selectedNum; i++) {
+          int row = selectionInUse ? selected[i] : i;
+          if (!nulls[row] && compare(isDoubleVector ? doubles[row] : longs[row])) {
+            selected[newSelectedNum++] = row;
+          }
+        }
+      } else {
+        long [] longs = batch.getLongVector(columnId);
+        for (int i = 0; i < selectedNum; i++) {
+          int row = selectionInUse ? selected[i] : i;
+          if (!nulls[row] && compare(longs[row])) {
+            selected[newSelectedNum++] = row;
+          }
+        }
+      }
+
+      batch.setSelectedNum(newSelectedNum);
+    }
+
+    private boolean compare(long value) {
+      switch (op) {
+        case EQUAL: return value == longValue;
+        case NOT_EQUAL: return value != longValue;
+        case LTH: return value < longValue;
+        case LEQ: return value <= longValue;
+        case GTH: return value > longValue;
+        default: return value >= longValue;
+      }
+    }
+
+    private boolean compare(double value) {
+      switch (op) {
+        case EQUAL: return value == doubleValue;
+        case NOT_EQUAL: return value != doubleValue;
+        case LTH: return value < doubleValue;
+        case LEQ: return value <= doubleValue;
+        case GTH: return value > doubleValue;
+        default: return value >= doubleValue;
+      }
+    }
+  }
+}
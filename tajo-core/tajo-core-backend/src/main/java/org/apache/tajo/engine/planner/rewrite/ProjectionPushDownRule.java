@@ -54,6 +54,11 @@ public class ProjectionPushDownRule extends
       return false;
     }
 
+    // ANALYZE reads every column of a table, so there is nothing to be pushed down.
+    if (plan.getRootBlock().getRootType() == NodeType.ANALYZE_TABLE) {
+      return false;
+    }
+
     return true;
   }
 
@@ -183,6 +183,14 @@ public class QueryContext extends Options {
     return getCommandType() == NodeType.INSERT;
   }
 
+  public void setAnalyze() {
+    setCommandType(NodeType.ANALYZE_TABLE);
+  }
+
+  public boolean isAnalyze() {
+    return getCommandType() == NodeType.ANALYZE_TABLE;
+  }
+
   public void setHiveQueryMode() {
     setBool("hive.query.mode", true);
   }
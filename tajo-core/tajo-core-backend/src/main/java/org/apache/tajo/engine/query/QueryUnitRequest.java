@@ -37,9 +37,11 @@ public interface QueryUnitRequest extends ProtoObject<TajoWorkerProtocol.QueryUn
 	public List<CatalogProtos.FragmentProto> getFragments();
 	public String getOutputTableId();
 	public boolean isClusteredOutput();
-	public String getSerializedData();
+	public byte [] getSerializedData();
 	public boolean isInterQuery();
 	public void setInterQuery();
+  public boolean isPipelined();
+  public void setPipelined();
 	public void addFetch(String name, URI uri);
 	public List<TajoWorkerProtocol.Fetch> getFetches();
   public boolean shouldDie();
@@ -47,4 +49,6 @@ public interface QueryUnitRequest extends ProtoObject<TajoWorkerProtocol.QueryUn
   public QueryContext getQueryContext();
   public DataChannel getDataChannel();
   public Enforcer getEnforcer();
+  public byte [] getJoinFilter();
+  public void setJoinFilter(byte [] joinFilter);
 }
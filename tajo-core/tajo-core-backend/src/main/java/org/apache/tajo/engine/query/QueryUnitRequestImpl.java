@@ -18,6 +18,7 @@
 
 package org.apache.tajo.engine.query;
 
+import com.google.protobuf.ByteString;
 import org.apache.tajo.QueryUnitAttemptId;
 import org.apache.tajo.engine.planner.enforce.Enforcer;
 import org.apache.tajo.engine.planner.global.DataChannel;
@@ -38,13 +39,15 @@ public class QueryUnitRequestImpl implements QueryUnitRequest {
   private String outputTable;
 	private boolean isUpdated;
 	private boolean clusteredOutput;
-	private String serializedData;     // logical node
+	private byte [] serializedData;     // logical node
 	private Boolean interQuery;
+  private Boolean pipelined;
 	private List<Fetch> fetches;
   private Boolean shouldDie;
   private QueryContext queryContext;
   private DataChannel dataChannel;
   private Enforcer enforcer;
+  private byte [] joinFilter;
 	
 	private QueryUnitRequestProto proto = QueryUnitRequestProto.getDefaultInstance();
 	private QueryUnitRequestProto.Builder builder = null;
@@ -58,7 +61,7 @@ public class QueryUnitRequestImpl implements QueryUnitRequest {
 	
 	public QueryUnitRequestImpl(QueryUnitAttemptId id, List<FragmentProto> fragments,
 			String outputTable, boolean clusteredOutput,
-			String serializedData, QueryContext queryContext, DataChannel channel, Enforcer enforcer) {
+			byte [] serializedData, QueryContext queryContext, DataChannel channel, Enforcer enforcer) {
 		this();
 		this.set(id, fragments, outputTable, clusteredOutput, serializedData, queryContext, channel, enforcer);
 	}
@@ -72,7 +75,7 @@ public class QueryUnitRequestImpl implements QueryUnitRequest {
 	
 	public void set(QueryUnitAttemptId id, List<FragmentProto> fragments,
 			String outputTable, boolean clusteredOutput,
-			String serializedData, QueryContext queryContext, DataChannel dataChannel, Enforcer enforcer) {
+			byte [] serializedData, QueryContext queryContext, DataChannel dataChannel, Enforcer enforcer) {
 		this.id = id;
 		this.fragments = fragments;
 		this.outputTable = outputTable;
@@ -149,7 +152,7 @@ public class QueryUnitRequestImpl implements QueryUnitRequest {
 	}
 
 	@Override
-	public String getSerializedData() {
+	public byte [] getSerializedData() {
 		QueryUnitRequestProtoOrBuilder p = viaProto ? proto : builder;
 		if (this.serializedData != null) {
 			return this.serializedData;
@@ -157,7 +160,7 @@ public class QueryUnitRequestImpl implements QueryUnitRequest {
 		if (!p.hasSerializedData()) {
 			return null;
 		}
-		this.serializedData = p.getSerializedData();
+		this.serializedData = p.getSerializedData().toByteArray();
 		return this.serializedData;
 	}
 	
@@ -178,6 +181,23 @@ public class QueryUnitRequestImpl implements QueryUnitRequest {
 	  this.interQuery = true;
 	}
 	
+  public boolean isPipelined() {
+    QueryUnitRequestProtoOrBuilder p = viaProto ? proto : builder;
+    if (pipelined != null) {
+      return pipelined;
+    }
+    if (!p.hasPipelined()) {
+      return false;
+    }
+    this.pipelined = p.getPipelined();
+    return this.pipelined;
+  }
+
+  public void setPipelined() {
+    maybeInitBuilder();
+    this.pipelined = true;
+  }
+
 	public void addFetch(String name, URI uri) {
 	  maybeInitBuilder();
 	  initFetches();
@@ -236,6 +256,25 @@ public class QueryUnitRequestImpl implements QueryUnitRequest {
     return this.enforcer;
   }
 
+  @Override
+  public byte [] getJoinFilter() {
+    QueryUnitRequestProtoOrBuilder p = viaProto ? proto : builder;
+    if (joinFilter != null) {
+      return joinFilter;
+    }
+    if (!p.hasJoinFilter()) {
+      return null;
+    }
+    this.joinFilter = p.getJoinFilter().toByteArray();
+    return this.joinFilter;
+  }
+
+  @Override
+  public void setJoinFilter(byte [] joinFilter) {
+    maybeInitBuilder();
+    this.joinFilter = joinFilter;
+  }
+
   public List<Fetch> getFetches() {
 	  initFetches();    
 
@@ -295,11 +334,14 @@ public class QueryUnitRequestImpl implements QueryUnitRequest {
 			builder.setClusteredOutput(this.clusteredOutput);
 		}
 		if (this.serializedData != null) {
-			builder.setSerializedData(this.serializedData);
+			builder.setSerializedData(ByteString.copyFrom(this.serializedData));
 		}
 		if (this.interQuery != null) {
 		  builder.setInterQuery(this.interQuery);
 		}
+    if (this.pipelined != null) {
+      builder.setPipelined(this.pipelined);
+    }
 		if (this.fetches != null) {
 		  builder.addAllFetches(this.fetches);
 		}
@@ -314,6 +356,9 @@ public class QueryUnitRequestImpl implements QueryUnitRequest {
     }
     if (this.enforcer != null) {
       builder.setEnforcer(enforcer.getProto());
+    }
+    if (this.joinFilter != null) {
+      builder.setJoinFilter(ByteString.copyFrom(joinFilter));
     }
 	}
 
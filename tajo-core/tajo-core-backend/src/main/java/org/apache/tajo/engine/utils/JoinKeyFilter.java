@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.utils;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.util.bloom.BloomFilter;
+import org.apache.hadoop.util.bloom.Key;
+import org.apache.hadoop.util.hash.Hash;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.storage.Tuple;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * <code>JoinKeyFilter</code> is a Bloom filter over the join keys of one side of a repartition join.
+ * The filter built from one side is used to drop the rows of the other side which cannot be joined,
+ * before they are shuffled. A row whose join keys contain null is never added to or passed by the filter.
+ *
+ * The filters built by the tasks of an execution block are merged into one filter by
+ * {@link #merge(JoinKeyFilter)}, so all of them must have the same numbers of bits and hash functions.
+ */
+public class JoinKeyFilter {
+  private static final int MIN_BIT_NUM = 1024;
+  private static final int MAX_HASH_NUM = 8;
+
+  private final BloomFilter filter;
+  private final DataOutputBuffer keyBuffer = new DataOutputBuffer();
+  private int mergedNum = 0;
+
+  public JoinKeyFilter(int bitNum, int hashNum) {
+    this.filter = new BloomFilter(bitNum, hashNum, Hash.MURMUR_HASH);
+  }
+
+  /**
+   * Creates a filter which shares the bits of the given filter. Each task running concurrently probes
+   * its own instance, because an instance is not thread-safe.
+   */
+  public JoinKeyFilter(JoinKeyFilter shared) {
+    this.filter = shared.filter;
+  }
+
+  public JoinKeyFilter(byte [] bytes) throws IOException {
+    this.filter = new BloomFilter();
+    DataInputBuffer in = new DataInputBuffer();
+    in.reset(bytes, bytes.length);
+    filter.readFields(in);
+  }
+
+  /**
+   * Adds the join keys of the given row.
+   *
+   * @param keyIds the column ids of join keys
+   */
+  public void add(Tuple tuple, int [] keyIds) throws IOException {
+    Key key = toKey(tuple, keyIds);
+    if (key != null) {
+      filter.add(key);
+    }
+  }
+
+  /**
+   * @param keyIds the column ids of join keys
+   * @return false if the other side surely does not have the join keys of the given row.
+   */
+  public boolean mightContain(Tuple tuple, int [] keyIds) throws IOException {
+    Key key = toKey(tuple, keyIds);
+    return key != null && filter.membershipTest(key);
+  }
+
+  private Key toKey(Tuple tuple, int [] keyIds) throws IOException {
+    keyBuffer.reset();
+    for (int keyId : keyIds) {
+      Datum datum = tuple.get(keyId);
+      if (datum == null || datum.isNull()) {
+        return null;
+      }
+      byte [] bytes = datum.asByteArray();
+      keyBuffer.writeInt(bytes.length);
+      keyBuffer.write(bytes);
+    }
+    return new Key(Arrays.copyOf(keyBuffer.getData(), keyBuffer.getLength()));
+  }
+
+  public void merge(JoinKeyFilter other) {
+    filter.or(other.filter);
+    mergedNum++;
+  }
+
+  /**
+   * @return the number of filters merged into this filter
+   */
+  public int getMergedNum() {
+    return mergedNum;
+  }
+
+  /**
+   * Computes the number of bits with which the given number of keys pass the filter with the given
+   * false positive rate, within [1024, maxBitNum].
+   *
+   * @param keyNum the expected number of keys
+   */
+  public static int getBitNum(long keyNum, double falsePositiveRate, int maxBitNum) {
+    double bitNum = -Math.max(keyNum, 1) * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+    return (int) Math.max(MIN_BIT_NUM, Math.min(Math.ceil(bitNum), maxBitNum));
+  }
+
+  /**
+   * Computes the number of hash functions which minimizes the false positive rate, within [1, 8].
+   *
+   * @param keyNum the expected number of keys
+   */
+  public static int getHashNum(int bitNum, long keyNum) {
+    long hashNum = Math.round((double) bitNum / Math.max(keyNum, 1) * Math.log(2));
+    return (int) Math.max(1, Math.min(hashNum, MAX_HASH_NUM));
+  }
+
+  /**
+   * Estimates the probability that a key which has not been added passes the filter.
+   *
+   * @param keyNum the number of added keys
+   */
+  public static double estimateFalsePositiveRate(int bitNum, int hashNum, long keyNum) {
+    return Math.pow(1 - Math.exp(-(double) hashNum * keyNum / bitNum), hashNum);
+  }
+
+  public byte [] toBytes() throws IOException {
+    DataOutputBuffer out = new DataOutputBuffer();
+    filter.write(out);
+    return Arrays.copyOf(out.getData(), out.getLength());
+  }
+}
@@ -35,6 +35,7 @@ import org.apache.tajo.datum.NullDatum;
 import org.apache.tajo.engine.eval.EvalContext;
 import org.apache.tajo.engine.eval.EvalNode;
 import org.apache.tajo.engine.planner.PlannerUtil;
+import org.apache.tajo.storage.PrimitiveTuple;
 import org.apache.tajo.storage.RowStoreUtil;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.TupleRange;
@@ -53,6 +54,11 @@ import java.util.Map;
 public class TupleUtil {
   /** class logger **/
   private static final Log LOG = LogFactory.getLog(TupleUtil.class);
+  /** the estimated heap bytes of a tuple object with the header of its value array and a list entry */
+  private static final int TUPLE_HEAP_OVERHEAD = 48;
+  /** the estimated heap bytes of a Datum object except for its value, and its value array if any */
+  private static final int DATUM_HEAP_OVERHEAD = 32;
+  private static final int REFERENCE_SIZE = 8;
 
   /**
    * It computes the value cardinality of a tuple range.
@@ -410,6 +416,80 @@ public class TupleUtil {
     return aTuple;
   }
 
+  /**
+   * It estimates the number of bytes taken by the values of a tuple. It is used to keep
+   * in-memory hash tables within a memory budget.
+   *
+   * @param tuple The tuple to be estimated
+   * @return The estimated number of bytes
+   */
+  public static long estimateSize(Tuple tuple) {
+    long size = 0;
+    if (tuple instanceof PrimitiveTuple) {
+      PrimitiveTuple primitiveTuple = (PrimitiveTuple) tuple;
+      for (int i = 0; i < primitiveTuple.size(); i++) {
+        if (!primitiveTuple.contains(i) || primitiveTuple.isNull(i)) {
+          size += 1;
+        } else if (primitiveTuple.isPrimitive(i)) {
+          size += 8;
+        } else if (primitiveTuple.isVariableLength(i)) {
+          size += primitiveTuple.getBytesLength(i);
+        } else {
+          size += primitiveTuple.get(i).size();
+        }
+      }
+    } else {
+      for (int i = 0; i < tuple.size(); i++) {
+        Datum datum = tuple.get(i);
+        size += datum == null ? 1 : datum.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * It estimates the number of bytes which a tuple occupies on the heap, including its Datum objects.
+   * It is used to keep buffered tuples within a memory budget.
+   *
+   * @param tuple The tuple to be estimated
+   * @return The estimated number of bytes
+   */
+  public static long estimateHeapSize(Tuple tuple) {
+    if (tuple instanceof PrimitiveTuple) {
+      return ((PrimitiveTuple) tuple).estimateHeapSize();
+    }
+
+    long size = TUPLE_HEAP_OVERHEAD;
+    for (int i = 0; i < tuple.size(); i++) {
+      Datum datum = tuple.get(i);
+      size += REFERENCE_SIZE;
+      if (datum != null && !(datum instanceof NullDatum)) {
+        size += DATUM_HEAP_OVERHEAD + datum.size();
+      }
+    }
+    return size;
+  }
+
+  /**
+   * It returns the partition id of a key tuple for spilling hash tables to disk.
+   * A different seed gives a different partitioning of the same keys, so that a spilled partition
+   * can be partitioned again.
+   *
+   * @param keyTuple The key tuple
+   * @param seed The seed of the hash function, usually the depth of recursive partitioning
+   * @param partitionNum The number of partitions
+   * @return The partition id
+   */
+  public static int getSpillPartition(Tuple keyTuple, int seed, int partitionNum) {
+    int hash = keyTuple.hashCode() + seed * 0x9E3779B9;
+    hash ^= hash >>> 16;
+    hash *= 0x85EBCA6B;
+    hash ^= hash >>> 13;
+    hash *= 0xC2B2AE35;
+    hash ^= hash >>> 16;
+    return (hash & Integer.MAX_VALUE) % partitionNum;
+  }
+
   @SuppressWarnings("unused")
   public static Collection<Tuple> filterTuple(Schema schema, Collection<Tuple> tupleBlock, EvalNode filterCondition) {
     TupleBlockFilterScanner filter = new TupleBlockFilterScanner(schema, tupleBlock, filterCondition);
@@ -18,7 +18,7 @@
 
 package org.apache.tajo.master;
 
-import com.google.common.collect.Lists;
+import com.google.protobuf.ByteString;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
@@ -28,6 +28,7 @@ import org.apache.hadoop.yarn.util.RackResolver;
 import org.apache.tajo.ExecutionBlockId;
 import org.apache.tajo.QueryIdFactory;
 import org.apache.tajo.QueryUnitAttemptId;
+import org.apache.tajo.TajoProtos.TaskAttemptState;
 import org.apache.tajo.engine.planner.global.ExecutionBlock;
 import org.apache.tajo.engine.planner.global.MasterPlan;
 import org.apache.tajo.engine.planner.logical.ScanNode;
@@ -39,6 +40,7 @@ import org.apache.tajo.master.event.QueryUnitAttemptScheduleEvent.QueryUnitAttem
 import org.apache.tajo.master.event.TaskSchedulerEvent.EventType;
 import org.apache.tajo.master.querymaster.QueryUnit;
 import org.apache.tajo.master.querymaster.QueryUnitAttempt;
+import org.apache.tajo.master.querymaster.Speculator;
 import org.apache.tajo.master.querymaster.SubQuery;
 import org.apache.tajo.storage.DataLocation;
 import org.apache.tajo.storage.fragment.FileFragment;
@@ -62,6 +64,7 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
 
   private ScheduledRequests scheduledRequests;
   private TaskRequests taskRequests;
+  private Speculator speculator;
 
   private int hostLocalAssigned = 0;
   private int rackLocalAssigned = 0;
@@ -79,6 +82,8 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
 
     scheduledRequests = new ScheduledRequests();
     taskRequests  = new TaskRequests();
+    speculator = new Speculator(conf, subQuery,
+        scheduledRequests.checkIfInterQuery(subQuery.getMasterPlan(), subQuery.getBlock()));
 
     super.init(conf);
   }
@@ -118,7 +123,7 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
     builder.setId(NULL_ATTEMPT_ID.getProto());
     builder.setShouldDie(true);
     builder.setOutputTable("");
-    builder.setSerializedData("");
+    builder.setSerializedData(ByteString.EMPTY);
     builder.setClusteredOutput(false);
     stopTaskRunnerReq = builder.build();
   }
@@ -170,6 +175,16 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
         taskRequestEvents.clear();
       }
     }
+
+    // Speculative attempts only take the requests which are left after all other tasks are assigned.
+    if (taskRequests.size() > 0 && scheduledRequests.speculativeTaskNum() > 0
+        && scheduledRequests.leafTaskNum() == 0 && scheduledRequests.nonLeafTaskNum() == 0) {
+      taskRequests.getTaskRequests(taskRequestEvents, scheduledRequests.speculativeTaskNum());
+      scheduledRequests.assignToSpeculativeTasks(taskRequestEvents);
+      taskRequestEvents.clear();
+    }
+
+    speculator.speculate();
   }
 
   @Override
@@ -195,6 +210,7 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
         Map<String, List<URI>> fetches = castEvent.getFetches();
         QueryUnitAttemptScheduleContext queryUnitContext = new QueryUnitAttemptScheduleContext();
         QueryUnit task = SubQuery.newEmptyQueryUnit(context, queryUnitContext, subQuery, nextTaskId++);
+        task.setPipelinedPartId(castEvent.getPipelinedPartId());
         for (Entry<String, List<URI>> eachFetch : fetches.entrySet()) {
           task.addFetches(eachFetch.getKey(), eachFetch.getValue());
           task.setFragment(fragmentsForNonLeafTask[0]);
@@ -205,7 +221,9 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
         subQuery.getEventHandler().handle(new TaskEvent(task.getId(), TaskEventType.T_SCHEDULE));
       } else if (event instanceof QueryUnitAttemptScheduleEvent) {
         QueryUnitAttemptScheduleEvent castEvent = (QueryUnitAttemptScheduleEvent) event;
-        if (context.isLeafQuery()) {
+        if (castEvent.getQueryUnitAttempt().isSpeculative()) {
+          scheduledRequests.addSpeculativeTask(castEvent);
+        } else if (context.isLeafQuery()) {
           scheduledRequests.addLeafTask(castEvent);
         } else {
           scheduledRequests.addNonLeafTask(castEvent);
@@ -248,9 +266,17 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
       taskRequestQueue.add(event);
     }
 
+    /**
+     * It takes requests which can take <code>num</code> tasks in total. A batched request can take several tasks.
+     */
     public void getTaskRequests(final Collection<TaskRequestEvent> taskRequests,
                                 int num) {
-      taskRequestQueue.drainTo(taskRequests, num);
+      int taskNum = 0;
+      TaskRequestEvent request;
+      while (taskNum < num && (request = taskRequestQueue.poll()) != null) {
+        taskRequests.add(request);
+        taskNum += request.getMaxTaskNum();
+      }
     }
 
     public int size() {
@@ -341,6 +367,8 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
   private class ScheduledRequests {
     private final Set<QueryUnitAttemptId> leafTasks = Collections.synchronizedSet(new HashSet<QueryUnitAttemptId>());
     private final Set<QueryUnitAttemptId> nonLeafTasks = Collections.synchronizedSet(new HashSet<QueryUnitAttemptId>());
+    private final Set<QueryUnitAttemptId> speculativeTasks =
+        Collections.synchronizedSet(new LinkedHashSet<QueryUnitAttemptId>());
     private Map<String, TaskBlockLocation> leafTaskHostMapping = new HashMap<String, TaskBlockLocation>();
     private final Map<String, LinkedList<QueryUnitAttemptId>> leafTasksRackMapping =
         new HashMap<String, LinkedList<QueryUnitAttemptId>>();
@@ -382,6 +410,14 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
       nonLeafTasks.add(event.getQueryUnitAttempt().getId());
     }
 
+    private void addSpeculativeTask(QueryUnitAttemptScheduleEvent event) {
+      speculativeTasks.add(event.getQueryUnitAttempt().getId());
+    }
+
+    public int speculativeTaskNum() {
+      return speculativeTasks.size();
+    }
+
     public int leafTaskNum() {
       return leafTasks.size();
     }
@@ -408,71 +444,21 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
         }
         String host = container.getTaskHostName();
 
-        QueryUnitAttemptId attemptId = null;
-        LinkedList<QueryUnitAttemptId> list = null;
-
         // local disk allocation
         if(!leafTaskHostMapping.containsKey(host)){
           host = NetUtils.normalizeHost(host);
         }
 
-        TaskBlockLocation taskBlockLocation = leafTaskHostMapping.get(host);
-        if (taskBlockLocation != null) {
-          list = taskBlockLocation.getQueryUnitAttemptIdList(taskRequest.getContainerId());
-        }
-
-        while (list != null && list.size() > 0) {
-          QueryUnitAttemptId tId = list.removeFirst();
-
-          if (leafTasks.contains(tId)) {
-            leafTasks.remove(tId);
-            attemptId = tId;
-            //LOG.info(attemptId + " Assigned based on host match " + hostName);
-            hostLocalAssigned++;
+        // A batched request takes several tasks, and they are found in the same way of locality.
+        List<TajoWorkerProtocol.QueryUnitRequestProto> assigned =
+            new ArrayList<TajoWorkerProtocol.QueryUnitRequestProto>();
+        while (assigned.size() < taskRequest.getMaxTaskNum() && leafTasks.size() > 0) {
+          QueryUnitAttemptId attemptId = allocateLeafTask(host, taskRequest.getContainerId());
+          if (attemptId == null) {
             break;
           }
-        }
-
-        // rack allocation
-        if (attemptId == null) {
-          String rack = RackResolver.resolve(host).getNetworkLocation();
-          list = leafTasksRackMapping.get(rack);
-          while(list != null && list.size() > 0) {
-
-            QueryUnitAttemptId tId = list.removeFirst();
 
-            if (leafTasks.contains(tId)) {
-              leafTasks.remove(tId);
-              attemptId = tId;
-              //LOG.info(attemptId + "Assigned based on rack match " + rack);
-              rackLocalAssigned++;
-              break;
-            }
-          }
-
-          // random allocation
-          if (attemptId == null && leafTaskNum() > 0) {
-            synchronized (leafTasks){
-              attemptId = leafTasks.iterator().next();
-              leafTasks.remove(attemptId);
-            }
-            //LOG.info(attemptId + " Assigned based on * match");
-          }
-        }
-
-        if (attemptId != null) {
-          QueryUnit task = subQuery.getQueryUnit(attemptId.getQueryUnitId());
-          QueryUnitRequest taskAssign = new QueryUnitRequestImpl(
-              attemptId,
-              new ArrayList<FragmentProto>(task.getAllFragments()),
-              "",
-              false,
-              task.getLogicalPlan().toJson(),
-              context.getMasterContext().getQueryContext(),
-              subQuery.getDataChannel(), subQuery.getBlock().getEnforcer());
-          if (checkIfInterQuery(subQuery.getMasterPlan(), subQuery.getBlock())) {
-            taskAssign.setInterQuery();
-          }
+          QueryUnitRequest taskAssign = newQueryUnitRequest(taskRequest, attemptId);
 
           context.getMasterContext().getEventHandler().handle(new TaskAttemptAssignedEvent(attemptId,
               taskRequest.getContainerId(),
@@ -480,16 +466,114 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
           assignedRequest.add(attemptId);
 
           totalAssigned++;
-          taskRequest.getCallback().run(taskAssign.getProto());
+          assigned.add(taskAssign.getProto());
+        }
+
+        if (assigned.size() > 0) {
+          taskRequest.respond(assigned);
         } else {
           throw new RuntimeException("Illegal State!!!!!!!!!!!!!!!!!!!!!");
         }
       }
 
+      // The requests which have not taken any task wait for the next schedule.
+      while (it.hasNext()) {
+        DefaultTaskScheduler.this.taskRequests.handle(it.next());
+      }
+
       LOG.debug("HostLocalAssigned / Total: " + hostLocalAssigned + " / " + totalAssigned);
       LOG.debug("RackLocalAssigned: " + rackLocalAssigned + " / " + totalAssigned);
     }
 
+    /**
+     * It finds a leaf task to be assigned to a given container in the order of disk-local, host-local,
+     * rack-local, and random allocations.
+     *
+     * @return a task attempt id, or null if there is no remain leaf task.
+     */
+    private QueryUnitAttemptId allocateLeafTask(String host, ContainerId containerId) {
+      QueryUnitAttemptId attemptId = null;
+      LinkedList<QueryUnitAttemptId> list = null;
+
+      TaskBlockLocation taskBlockLocation = leafTaskHostMapping.get(host);
+      if (taskBlockLocation != null) {
+        list = taskBlockLocation.getQueryUnitAttemptIdList(containerId);
+      }
+
+      while (list != null && list.size() > 0) {
+        QueryUnitAttemptId tId = list.removeFirst();
+
+        if (leafTasks.contains(tId)) {
+          leafTasks.remove(tId);
+          attemptId = tId;
+          //LOG.info(attemptId + " Assigned based on host match " + hostName);
+          hostLocalAssigned++;
+          break;
+        }
+      }
+
+      // rack allocation
+      if (attemptId == null) {
+        String rack = RackResolver.resolve(host).getNetworkLocation();
+        list = leafTasksRackMapping.get(rack);
+        while(list != null && list.size() > 0) {
+
+          QueryUnitAttemptId tId = list.removeFirst();
+
+          if (leafTasks.contains(tId)) {
+            leafTasks.remove(tId);
+            attemptId = tId;
+            //LOG.info(attemptId + "Assigned based on rack match " + rack);
+            rackLocalAssigned++;
+            break;
+          }
+        }
+
+        // random allocation
+        if (attemptId == null && leafTaskNum() > 0) {
+          synchronized (leafTasks){
+            attemptId = leafTasks.iterator().next();
+            leafTasks.remove(attemptId);
+          }
+          //LOG.info(attemptId + " Assigned based on * match");
+        }
+      }
+
+      return attemptId;
+    }
+
+    private QueryUnitRequest newQueryUnitRequest(TaskRequestEvent taskRequest, QueryUnitAttemptId attemptId) {
+      QueryUnit task = subQuery.getQueryUnit(attemptId.getQueryUnitId());
+      QueryUnitRequest taskAssign = new QueryUnitRequestImpl(
+          attemptId,
+          new ArrayList<FragmentProto>(task.getAllFragments()),
+          "",
+          false,
+          taskRequest.isPlanCached() ? null : subQuery.getSerializedPlan(),
+          context.getMasterContext().getQueryContext(),
+          subQuery.getDataChannel(),
+          subQuery.getBlock().getEnforcer());
+      // the join filter is cached on the worker together with the plan
+      if (!taskRequest.isPlanCached() && subQuery.getProbeJoinFilter() != null) {
+        taskAssign.setJoinFilter(subQuery.getProbeJoinFilter());
+      }
+      if (checkIfInterQuery(subQuery.getMasterPlan(), subQuery.getBlock())) {
+        taskAssign.setInterQuery();
+      }
+      if (task.isPipelined()) {
+        taskAssign.setPipelined();
+      }
+      for (ScanNode scan : task.getScanNodes()) {
+        Collection<URI> fetches = task.getFetch(scan);
+        if (fetches != null) {
+          for (URI fetch : fetches) {
+            taskAssign.addFetch(scan.getTableName(), fetch);
+          }
+        }
+      }
+      return taskAssign;
+    }
+
     private boolean checkIfInterQuery(MasterPlan masterPlan, ExecutionBlock block) {
       if (masterPlan.isRoot(block)) {
         return false;
@@ -511,46 +595,90 @@ public class DefaultTaskScheduler extends AbstractTaskScheduler {
         taskRequest = it.next();
         LOG.debug("assignToNonLeafTasks: " + taskRequest.getExecutionBlockId());
 
-        QueryUnitAttemptId attemptId;
-        // random allocation
-        if (nonLeafTasks.size() > 0) {
+        if (nonLeafTasks.size() == 0) {
+          // it waits for the next schedule.
+          DefaultTaskScheduler.this.taskRequests.handle(taskRequest);
+          continue;
+        }
+
+        ContainerProxy container = context.getMasterContext().getResourceAllocator().getContainer(
+            taskRequest.getContainerId());
+        List<TajoWorkerProtocol.QueryUnitRequestProto> assigned =
+            new ArrayList<TajoWorkerProtocol.QueryUnitRequestProto>();
+        while (assigned.size() < taskRequest.getMaxTaskNum() && nonLeafTasks.size() > 0) {
+          QueryUnitAttemptId attemptId;
+          // random allocation
           synchronized (nonLeafTasks){
             attemptId = nonLeafTasks.iterator().next();
             nonLeafTasks.remove(attemptId);
           }
           LOG.debug("Assigned based on * match");
 
-          QueryUnit task;
-          task = subQuery.getQueryUnit(attemptId.getQueryUnitId());
-          QueryUnitRequest taskAssign = new QueryUnitRequestImpl(
-              attemptId,
-              Lists.newArrayList(task.getAllFragments()),
-              "",
-              false,
-              task.getLogicalPlan().toJson(),
-              context.getMasterContext().getQueryContext(),
-              subQuery.getDataChannel(),
-              subQuery.getBlock().getEnforcer());
-          if (checkIfInterQuery(subQuery.getMasterPlan(), subQuery.getBlock())) {
-            taskAssign.setInterQuery();
-          }
-          for (ScanNode scan : task.getScanNodes()) {
-            Collection<URI> fetches = task.getFetch(scan);
-            if (fetches != null) {
-              for (URI fetch : fetches) {
-                taskAssign.addFetch(scan.getTableName(), fetch);
-              }
-            }
-          }
+          QueryUnitRequest taskAssign = newQueryUnitRequest(taskRequest, attemptId);
 
-          ContainerProxy container = context.getMasterContext().getResourceAllocator().getContainer(
-              taskRequest.getContainerId());
           context.getMasterContext().getEventHandler().handle(new TaskAttemptAssignedEvent(attemptId,
               taskRequest.getContainerId(), container.getTaskHostName(), container.getTaskPort()));
-          taskRequest.getCallback().run(taskAssign.getProto());
+          assigned.add(taskAssign.getProto());
           totalAssigned++;
         }
+        taskRequest.respond(assigned);
+      }
+    }
+
+    /**
+     * A speculative attempt is assigned to a host where no other attempt of the same task has run,
+     * because the straggler is likely to be caused by its host.
+     */
+    public void assignToSpeculativeTasks(List<TaskRequestEvent> taskRequests) {
+      for (TaskRequestEvent taskRequest : taskRequests) {
+        ContainerProxy container = context.getMasterContext().getResourceAllocator().getContainer(
+            taskRequest.getContainerId());
+        if (container == null) {
+          continue;
+        }
+        String host = NetUtils.normalizeHost(container.getTaskHostName());
+
+        List<TajoWorkerProtocol.QueryUnitRequestProto> assigned =
+            new ArrayList<TajoWorkerProtocol.QueryUnitRequestProto>();
+        synchronized (speculativeTasks) {
+          Iterator<QueryUnitAttemptId> it = speculativeTasks.iterator();
+          while (it.hasNext() && assigned.size() < taskRequest.getMaxTaskNum()) {
+            QueryUnitAttemptId attemptId = it.next();
+            QueryUnit task = subQuery.getQueryUnit(attemptId.getQueryUnitId());
+            if (task.getAttempt(attemptId).getState() != TaskAttemptState.TA_UNASSIGNED) {
+              // it is killed because another attempt has succeeded.
+              it.remove();
+              continue;
+            }
+            if (hasAttemptOnHost(task, host)) {
+              continue;
+            }
+            it.remove();
+
+            QueryUnitRequest taskAssign = newQueryUnitRequest(taskRequest, attemptId);
+            context.getMasterContext().getEventHandler().handle(new TaskAttemptAssignedEvent(attemptId,
+                taskRequest.getContainerId(), container.getTaskHostName(), container.getTaskPort()));
+            assigned.add(taskAssign.getProto());
+          }
+        }
+
+        if (assigned.size() > 0) {
+          taskRequest.respond(assigned);
+        } else {
+          // it waits for the next schedule.
+          DefaultTaskScheduler.this.taskRequests.handle(taskRequest);
+        }
+      }
+    }
+
+    private boolean hasAttemptOnHost(QueryUnit task, String host) {
+      for (int i = 0; i <= task.getRetryCount(); i++) {
+        QueryUnitAttempt attempt = task.getAttempt(i);
+        if (attempt != null && attempt.getHost() != null && host.equals(NetUtils.normalizeHost(attempt.getHost()))) {
+          return true;
+        }
       }
+      return false;
     }
   }
 }
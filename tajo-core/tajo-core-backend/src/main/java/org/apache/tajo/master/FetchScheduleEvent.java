@@ -27,14 +27,28 @@ import java.util.Map;
 
 public class FetchScheduleEvent extends TaskSchedulerEvent {
   private final Map<String, List<URI>> fetches;
+  private final int pipelinedPartId;
 
   public FetchScheduleEvent(final EventType eventType, final ExecutionBlockId blockId,
                             final Map<String, List<URI>> fetches) {
+    this(eventType, blockId, fetches, -1);
+  }
+
+  /**
+   * @param pipelinedPartId the shuffle partition of a pipelined task, whose fetches are given while it runs
+   */
+  public FetchScheduleEvent(final EventType eventType, final ExecutionBlockId blockId,
+                            final Map<String, List<URI>> fetches, final int pipelinedPartId) {
     super(eventType, blockId);
     this.fetches = fetches;
+    this.pipelinedPartId = pipelinedPartId;
   }
 
   public Map<String, List<URI>> getFetches() {
     return fetches;
   }
+
+  public int getPipelinedPartId() {
+    return pipelinedPartId;
+  }
 }
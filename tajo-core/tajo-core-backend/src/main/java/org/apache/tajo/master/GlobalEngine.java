@@ -92,6 +92,7 @@ public class GlobalEngine extends AbstractService {
       hookManager = new DistributedQueryHookManager();
       hookManager.addHook(new CreateTableHook());
       hookManager.addHook(new InsertHook());
+      hookManager.addHook(new AnalyzeHook());
     } catch (Throwable t) {
       LOG.error(t.getMessage(), t);
     }
@@ -123,6 +124,10 @@ public class GlobalEngine extends AbstractService {
           }
       }
 
+      // the session variables are kept in the query context, so later changes do not affect this query
+      queryContext.put(TajoConf.ConfVars.SHUFFLE_COMPRESSION_CODEC,
+          context.getConf().getVar(TajoConf.ConfVars.SHUFFLE_COMPRESSION_CODEC));
+
       final boolean hiveQueryMode = context.getConf().getBoolVar(TajoConf.ConfVars.HIVE_QUERY_MODE);
       LOG.info("hive.query.mode:" + hiveQueryMode);
 
@@ -226,7 +231,6 @@ public class GlobalEngine extends AbstractService {
         DropTableNode dropTable = (DropTableNode) root;
         dropTable(dropTable.getTableName(), dropTable.isPurge());
         return true;
-
       default:
         throw new InternalError("updateQuery cannot handle such query: \n" + root.toJson());
     }
@@ -393,6 +397,20 @@ public class GlobalEngine extends AbstractService {
     }
   }
 
+  public static class AnalyzeHook implements DistributedQueryHook {
+
+    @Override
+    public boolean isEligible(QueryContext queryContext, LogicalPlan plan) {
+      return plan.getRootBlock().getRootType() == NodeType.ANALYZE_TABLE;
+    }
+
+    @Override
+    public void hook(QueryContext queryContext, LogicalPlan plan) throws Exception {
+      // ANALYZE does not write any output. Instead, the statistics of the table are updated at the end of the query.
+      queryContext.setAnalyze();
+    }
+  }
+
   public static class InsertHook implements DistributedQueryHook {
 
     @Override
@@ -18,6 +18,7 @@
 
 package org.apache.tajo.master;
 
+import com.google.protobuf.ByteString;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
@@ -133,7 +134,7 @@ public class LazyTaskScheduler extends AbstractTaskScheduler {
     builder.setId(NULL_ATTEMPT_ID.getProto());
     builder.setShouldDie(true);
     builder.setOutputTable("");
-    builder.setSerializedData("");
+    builder.setSerializedData(ByteString.EMPTY);
     builder.setClusteredOutput(false);
     stopTaskRunnerReq = builder.build();
   }
@@ -466,9 +467,12 @@ public class LazyTaskScheduler extends AbstractTaskScheduler {
         new ArrayList<FragmentProto>(taskAttempt.getQueryUnit().getAllFragments()),
         "",
         false,
-        taskAttempt.getQueryUnit().getLogicalPlan().toJson(),
+        subQuery.getSerializedPlan(),
         context.getMasterContext().getQueryContext(),
         subQuery.getDataChannel(), subQuery.getBlock().getEnforcer());
+    if (subQuery.getProbeJoinFilter() != null) {
+      taskAssign.setJoinFilter(subQuery.getProbeJoinFilter());
+    }
     if (checkIfInterQuery(subQuery.getMasterPlan(), subQuery.getBlock())) {
       taskAssign.setInterQuery();
     }
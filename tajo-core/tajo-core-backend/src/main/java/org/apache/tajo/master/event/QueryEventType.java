@@ -22,6 +22,7 @@ public enum QueryEventType {
   START,
   INTERNAL_ERROR,
   SUBQUERY_COMPLETED,
+  SUBQUERY_PIPELINED,
   KILL,
   DIAGNOSTIC_UPDATE,
 }
@@ -18,13 +18,17 @@
 
 package org.apache.tajo.master.event;
 
+import com.google.common.base.Preconditions;
 import com.google.protobuf.RpcCallback;
 import org.apache.hadoop.yarn.api.records.ContainerId;
 import org.apache.hadoop.yarn.event.AbstractEvent;
 import org.apache.tajo.ExecutionBlockId;
+import org.apache.tajo.ipc.TajoWorkerProtocol.QueryUnitRequestListProto;
 import org.apache.tajo.ipc.TajoWorkerProtocol.QueryUnitRequestProto;
 import org.apache.tajo.master.event.TaskRequestEvent.TaskRequestEventType;
 
+import java.util.List;
+
 public class TaskRequestEvent extends AbstractEvent<TaskRequestEventType> {
 
   public enum TaskRequestEventType {
@@ -33,8 +37,11 @@ public class TaskRequestEvent extends AbstractEvent<TaskRequestEventType> {
 
   private final ContainerId workerId;
   private final ExecutionBlockId executionBlockId;
+  private final int maxTaskNum;
+  private boolean planCached = false;
 
   private final RpcCallback<QueryUnitRequestProto> callback;
+  private final RpcCallback<QueryUnitRequestListProto> batchCallback;
 
   public TaskRequestEvent(ContainerId workerId,
                           ExecutionBlockId executionBlockId,
@@ -42,7 +49,30 @@ public class TaskRequestEvent extends AbstractEvent<TaskRequestEventType> {
     super(TaskRequestEventType.TASK_REQ);
     this.workerId = workerId;
     this.executionBlockId = executionBlockId;
+    this.maxTaskNum = 1;
     this.callback = callback;
+    this.batchCallback = null;
+  }
+
+  /**
+   * A batched request which can take up to <code>maxTaskNum</code> tasks at once.
+   */
+  public TaskRequestEvent(ContainerId workerId,
+                          ExecutionBlockId executionBlockId,
+                          int maxTaskNum,
+                          final RpcCallback<QueryUnitRequestListProto> batchCallback) {
+    super(TaskRequestEventType.TASK_REQ);
+    this.workerId = workerId;
+    this.executionBlockId = executionBlockId;
+    this.maxTaskNum = Math.max(1, maxTaskNum);
+    this.batchCallback = batchCallback;
+    // a single task or the terminal signal is responded as a list of one
+    this.callback = new RpcCallback<QueryUnitRequestProto>() {
+      @Override
+      public void run(QueryUnitRequestProto request) {
+        batchCallback.run(QueryUnitRequestListProto.newBuilder().addRequests(request).build());
+      }
+    };
   }
 
   public ContainerId getContainerId() {
@@ -53,7 +83,36 @@ public class TaskRequestEvent extends AbstractEvent<TaskRequestEventType> {
     return executionBlockId;
   }
 
+  public int getMaxTaskNum() {
+    return maxTaskNum;
+  }
+
+  /**
+   * @return true if the requester has already cached the plan of the execution block,
+   * so the plan does not need to be shipped again.
+   */
+  public boolean isPlanCached() {
+    return planCached;
+  }
+
+  public void setPlanCached(boolean planCached) {
+    this.planCached = planCached;
+  }
+
   public RpcCallback<QueryUnitRequestProto> getCallback() {
     return this.callback;
   }
+
+  /**
+   * It responds the assigned tasks at once. A request which is not batched can take only one task.
+   */
+  public void respond(List<QueryUnitRequestProto> requests) {
+    Preconditions.checkArgument(requests.size() > 0 && requests.size() <= maxTaskNum,
+        "The number of tasks must be between 1 and %s: %s", maxTaskNum, requests.size());
+    if (batchCallback != null) {
+      batchCallback.run(QueryUnitRequestListProto.newBuilder().addAllRequests(requests).build());
+    } else {
+      callback.run(requests.get(0));
+    }
+  }
 }
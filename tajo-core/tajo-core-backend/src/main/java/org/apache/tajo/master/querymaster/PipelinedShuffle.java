@@ -0,0 +1,122 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.master.querymaster;
+
+import org.apache.tajo.ExecutionBlockId;
+import org.apache.tajo.QueryUnitId;
+import org.apache.tajo.ipc.TajoWorkerProtocol.Fetch;
+import org.apache.tajo.ipc.TajoWorkerProtocol.FetchListProto;
+import org.apache.tajo.master.querymaster.QueryUnit.IntermediateEntry;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import static org.apache.tajo.ipc.TajoWorkerProtocol.ShuffleType.HASH_SHUFFLE;
+
+/**
+ * PipelinedShuffle keeps the hash shuffle outputs of a producer subquery for a consumer subquery
+ * which is started before the producer is finished. Each consumer task asks for the outputs of its
+ * partition which have been added since its last request, and it finishes fetching when the producer
+ * is completed.
+ */
+public class PipelinedShuffle {
+  private final ExecutionBlockId producerId;
+  private final String tableName;
+  private final Set<QueryUnitId> addedTasks = new HashSet<QueryUnitId>();
+  private final Map<Integer, List<IntermediateEntry>> outputs = new HashMap<Integer, List<IntermediateEntry>>();
+  private boolean completed = false;
+  private boolean aborted = false;
+
+  public PipelinedShuffle(ExecutionBlockId producerId, String tableName) {
+    this.producerId = producerId;
+    this.tableName = tableName;
+  }
+
+  public ExecutionBlockId getProducerId() {
+    return producerId;
+  }
+
+  /**
+   * Adds the outputs of a succeeded producer task. The outputs of a task are added only once.
+   */
+  public synchronized void addOutputs(QueryUnit producerTask) {
+    if (completed || !addedTasks.add(producerTask.getId()) || producerTask.getIntermediateData() == null) {
+      return;
+    }
+    for (IntermediateEntry entry : producerTask.getIntermediateData()) {
+      List<IntermediateEntry> entries = outputs.get(entry.getPartId());
+      if (entries == null) {
+        entries = new ArrayList<IntermediateEntry>();
+        outputs.put(entry.getPartId(), entries);
+      }
+      entries.add(entry);
+    }
+  }
+
+  /**
+   * It is called when all producer tasks have succeeded.
+   */
+  public synchronized void complete() {
+    completed = true;
+  }
+
+  /**
+   * It is called when the producer fails. The consumer tasks fail on their next request.
+   */
+  public synchronized void abort() {
+    aborted = true;
+  }
+
+  public synchronized boolean isCompleted() {
+    return completed;
+  }
+
+  /**
+   * @param partId the partition of a consumer task
+   * @param offset the number of outputs which the consumer task has already received
+   * @return the fetches of the outputs added after the offset, merged by hosts
+   */
+  public synchronized FetchListProto getFetches(int partId, int offset) {
+    if (aborted) {
+      throw new IllegalStateException("The producer " + producerId + " has failed");
+    }
+    FetchListProto.Builder builder = FetchListProto.newBuilder();
+    List<IntermediateEntry> entries = outputs.get(partId);
+    int size = entries == null ? 0 : entries.size();
+    if (offset < size) {
+      Map<String, List<IntermediateEntry>> hashedByHost =
+          Repartitioner.hashByHost(entries.subList(offset, size));
+      for (Entry<String, List<IntermediateEntry>> e : hashedByHost.entrySet()) {
+        for (URI uri : Repartitioner.createHashFetchURL(e.getKey(), producerId, partId, HASH_SHUFFLE,
+            e.getValue())) {
+          builder.addFetches(Fetch.newBuilder().setName(tableName).setUrls(uri.toString()));
+        }
+      }
+    }
+    builder.setOffset(size);
+    builder.setCompleted(completed);
+    return builder.build();
+  }
+}
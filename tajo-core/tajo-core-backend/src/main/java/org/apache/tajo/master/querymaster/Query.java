@@ -35,13 +35,17 @@ import org.apache.tajo.TajoProtos.QueryState;
 import org.apache.tajo.catalog.CatalogService;
 import org.apache.tajo.catalog.TableDesc;
 import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.statistics.ColumnStats;
 import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.engine.planner.global.DataChannel;
 import org.apache.tajo.engine.planner.global.ExecutionBlock;
 import org.apache.tajo.engine.planner.global.ExecutionBlockCursor;
 import org.apache.tajo.engine.planner.global.MasterPlan;
+import org.apache.tajo.engine.planner.logical.AnalyzeTableNode;
+import org.apache.tajo.engine.planner.logical.NodeType;
 import org.apache.tajo.engine.query.QueryContext;
+import org.apache.tajo.master.TaskState;
 import org.apache.tajo.master.event.*;
 import org.apache.tajo.storage.AbstractStorageManager;
 
@@ -51,6 +55,8 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import static org.apache.tajo.ipc.TajoWorkerProtocol.ShuffleType;
+
 public class Query implements EventHandler<QueryEvent> {
   private static final Log LOG = LogFactory.getLog(Query.class);
 
@@ -108,6 +114,9 @@ public class Query implements EventHandler<QueryEvent> {
                   QueryState.QUERY_ERROR),
               QueryEventType.SUBQUERY_COMPLETED,
               new SubQueryCompletedTransition())
+          .addTransition(QueryState.QUERY_RUNNING, QueryState.QUERY_RUNNING,
+              QueryEventType.SUBQUERY_PIPELINED,
+              new SubQueryPipelinedTransition())
           .addTransition(QueryState.QUERY_RUNNING, QueryState.QUERY_RUNNING,
               QueryEventType.DIAGNOSTIC_UPDATE,
               DIAGNOSTIC_UPDATE_TRANSITION)
@@ -119,6 +128,9 @@ public class Query implements EventHandler<QueryEvent> {
           .addTransition(QueryState.QUERY_FAILED, QueryState.QUERY_FAILED,
               QueryEventType.DIAGNOSTIC_UPDATE,
               DIAGNOSTIC_UPDATE_TRANSITION)
+          // Ignore-able events from the subqueries which run with a pipelined one
+          .addTransition(QueryState.QUERY_FAILED, QueryState.QUERY_FAILED,
+              EnumSet.of(QueryEventType.SUBQUERY_COMPLETED, QueryEventType.SUBQUERY_PIPELINED))
           .addTransition(QueryState.QUERY_FAILED, QueryState.QUERY_ERROR,
               QueryEventType.INTERNAL_ERROR,
               INTERNAL_ERROR_TRANSITION)
@@ -127,6 +139,8 @@ public class Query implements EventHandler<QueryEvent> {
           .addTransition(QueryState.QUERY_ERROR, QueryState.QUERY_ERROR,
               QueryEventType.DIAGNOSTIC_UPDATE,
               DIAGNOSTIC_UPDATE_TRANSITION)
+          .addTransition(QueryState.QUERY_ERROR, QueryState.QUERY_ERROR,
+              EnumSet.of(QueryEventType.SUBQUERY_COMPLETED, QueryEventType.SUBQUERY_PIPELINED))
           .addTransition(QueryState.QUERY_ERROR, QueryState.QUERY_ERROR,
               QueryEventType.INTERNAL_ERROR,
               INTERNAL_ERROR_TRANSITION)
@@ -300,8 +314,13 @@ public class Query implements EventHandler<QueryEvent> {
       SubQueryCompletedEvent castEvent = (SubQueryCompletedEvent) event;
       ExecutionBlockCursor cursor = query.getExecutionBlockCursor();
       MasterPlan masterPlan = query.getPlan();
+      SubQuery consumer = query.getPipelinedConsumer(castEvent.getExecutionBlockId());
       // if the subquery is succeeded
-      if (castEvent.getFinalState() == SubQueryState.SUCCEEDED) {
+      if (castEvent.getFinalState() == SubQueryState.SUCCEEDED && consumer != null) {
+        // the consumer is already running, and it finishes fetching the outputs of the subquery.
+        consumer.getPipelinedShuffle().complete();
+        return query.checkQueryForCompleted();
+      } else if (castEvent.getFinalState() == SubQueryState.SUCCEEDED) {
         ExecutionBlock nextBlock = cursor.nextBlock();
         if (!query.getPlan().isTerminal(nextBlock)) {
           SubQuery nextSubQuery = new SubQuery(query.context, query.getPlan(), nextBlock, query.sm);
@@ -317,34 +336,43 @@ public class Query implements EventHandler<QueryEvent> {
 
         } else { // Finish a query
           if (query.checkQueryForCompleted() == QueryState.QUERY_SUCCEEDED) {
-            DataChannel finalChannel = masterPlan.getChannel(castEvent.getExecutionBlockId(), nextBlock.getId());
-            Path finalOutputDir = commitOutputData(query);
-            TableDesc finalTableDesc = buildOrUpdateResultTableDesc(query, castEvent.getExecutionBlockId(),
-                finalOutputDir);
-
             QueryContext queryContext = query.context.getQueryContext();
-            CatalogService catalog = query.context.getQueryMasterContext().getWorkerContext().getCatalog();
 
-            if (queryContext.hasOutputTable()) { // TRUE only if a query command is 'CREATE TABLE' OR 'INSERT INTO'
-              if (queryContext.isOutputOverwrite()) { // TRUE only if a query is 'INSERT OVERWRITE INTO'
-                catalog.deleteTable(finalOutputDir.getName());
+            if (queryContext.isAnalyze()) { // ANALYZE only updates the statistics of a table
+              query.setResultDesc(updateAnalyzedTableDesc(query, castEvent.getExecutionBlockId()));
+            } else {
+              DataChannel finalChannel = masterPlan.getChannel(castEvent.getExecutionBlockId(), nextBlock.getId());
+              Path finalOutputDir = commitOutputData(query);
+              TableDesc finalTableDesc = buildOrUpdateResultTableDesc(query, castEvent.getExecutionBlockId(),
+                  finalOutputDir);
+
+              CatalogService catalog = query.context.getQueryMasterContext().getWorkerContext().getCatalog();
+
+              if (queryContext.hasOutputTable()) { // TRUE only if a query command is 'CREATE TABLE' OR 'INSERT INTO'
+                if (queryContext.isOutputOverwrite()) { // TRUE only if a query is 'INSERT OVERWRITE INTO'
+                  catalog.deleteTable(finalOutputDir.getName());
+                }
+                catalog.addTable(finalTableDesc);
               }
-              catalog.addTable(finalTableDesc);
+              query.setResultDesc(finalTableDesc);
             }
-            query.setResultDesc(finalTableDesc);
             query.finished(QueryState.QUERY_SUCCEEDED);
             query.eventHandler.handle(new QueryFinishEvent(query.getId()));
           }
 
           return QueryState.QUERY_SUCCEEDED;
         }
-      } else if (castEvent.getFinalState() == SubQueryState.ERROR) {
-        query.setFinishTime();
-        return QueryState.QUERY_ERROR;
       } else {
-        // if at least one subquery is failed, the query is also failed.
+        if (consumer != null) {
+          consumer.getPipelinedShuffle().abort();
+        }
         query.setFinishTime();
-        return QueryState.QUERY_FAILED;
+        if (castEvent.getFinalState() == SubQueryState.ERROR) {
+          return QueryState.QUERY_ERROR;
+        } else {
+          // if at least one subquery is failed, the query is also failed.
+          return QueryState.QUERY_FAILED;
+        }
       }
     }
 
@@ -371,6 +399,36 @@ public class Query implements EventHandler<QueryEvent> {
       return finalOutputDir;
     }
 
+    /**
+     * It replaces the statistics of the analyzed table with the statistics merged from all tasks.
+     */
+    public TableDesc updateAnalyzedTableDesc(Query query, ExecutionBlockId finalExecBlockId) {
+      SubQuery subQuery = query.getSubQuery(finalExecBlockId);
+      AnalyzeTableNode analyzeNode = query.getPlan().getLogicalPlan().getRootBlock().getNode(NodeType.ANALYZE_TABLE);
+      CatalogService catalog = query.context.getQueryMasterContext().getWorkerContext().getCatalog();
+      TableDesc desc = catalog.getTableDesc(analyzeNode.getTableName());
+
+      TableStats stats = subQuery.getTableStat();
+      // the sketches are only needed to merge the statistics of tasks.
+      for (ColumnStats columnStats : stats.getColumnStats()) {
+        columnStats.setDistValSketch(null);
+      }
+      try {
+        FileSystem fs = desc.getPath().getFileSystem(query.systemConf);
+        stats.setNumBytes(fs.getContentSummary(desc.getPath()).getLength());
+      } catch (IOException e) {
+        LOG.error(e.getMessage(), e);
+      }
+      desc.setStats(stats);
+
+      // a table description is replaced in order to update it, like the result table of INSERT OVERWRITE.
+      catalog.deleteTable(desc.getName());
+      catalog.addTable(desc);
+      LOG.info("Table \"" + desc.getName() + "\" is analyzed (" + stats.getNumRows() + " rows)");
+
+      return desc;
+    }
+
     /**
      * It builds a table desc and update the table desc if necessary.
      */
@@ -418,6 +476,69 @@ public class Query implements EventHandler<QueryEvent> {
     }
   }
 
+  /**
+   * It starts the consumer of a running subquery if the consumer can fetch the outputs of the subquery
+   * while they are produced.
+   */
+  public static class SubQueryPipelinedTransition implements SingleArcTransition<Query, QueryEvent> {
+
+    @Override
+    public void transition(Query query, QueryEvent event) {
+      SubQueryPipelineEvent castEvent = (SubQueryPipelineEvent) event;
+      SubQuery producer = query.getSubQuery(castEvent.getExecutionBlockId());
+      ExecutionBlockCursor cursor = query.getExecutionBlockCursor();
+      if (producer == null || producer.getState() != SubQueryState.RUNNING || !cursor.hasNext()
+          || !isPipelinable(query.getPlan(), producer.getBlock(), cursor.peek())) {
+        return;
+      }
+
+      ExecutionBlock nextBlock = cursor.nextBlock();
+      PipelinedShuffle shuffle = new PipelinedShuffle(producer.getId(),
+          nextBlock.getScanNodes()[0].getTableName());
+      for (QueryUnit task : producer.getQueryUnits()) {
+        if (task.getState() == TaskState.SUCCEEDED) {
+          shuffle.addOutputs(task);
+        }
+      }
+
+      SubQuery nextSubQuery = new SubQuery(query.context, query.getPlan(), nextBlock, query.sm);
+      nextSubQuery.setPriority(query.priority--);
+      nextSubQuery.setPipelinedShuffle(shuffle);
+      query.addSubQuery(nextSubQuery);
+      nextSubQuery.handle(new SubQueryEvent(nextSubQuery.getId(), SubQueryEventType.SQ_INIT));
+      LOG.info("Scheduling SubQuery:" + nextSubQuery.getId() + " pipelined with " + producer.getId());
+    }
+  }
+
+  /**
+   * A consumer can run with its producer only if the producer is its only input through a hash shuffle.
+   * A range shuffle needs the statistics of the whole producer outputs to determine the ranges, and a join
+   * needs the volumes of both inputs.
+   */
+  static boolean isPipelinable(MasterPlan plan, ExecutionBlock producer, ExecutionBlock consumer) {
+    if (plan.isTerminal(consumer) || plan.isRoot(producer) || producer.hasUnion() || consumer.hasUnion()) {
+      return false;
+    }
+    if (!plan.getParent(producer).getId().equals(consumer.getId()) || plan.getChilds(consumer).size() != 1
+        || consumer.getScanNodes().length != 1) {
+      return false;
+    }
+    DataChannel channel = plan.getChannel(producer.getId(), consumer.getId());
+    return channel.getShuffleType() == ShuffleType.HASH_SHUFFLE && channel.getShuffleOutputNum() > 0;
+  }
+
+  /**
+   * @return the subquery pipelined with a given producer, or null if there is no such subquery.
+   */
+  SubQuery getPipelinedConsumer(ExecutionBlockId producerId) {
+    for (SubQuery subQuery : subqueries.values()) {
+      if (subQuery.isPipelined() && subQuery.getPipelinedShuffle().getProducerId().equals(producerId)) {
+        return subQuery;
+      }
+    }
+    return null;
+  }
+
   private static class DiagnosticsUpdateTransition implements SingleArcTransition<Query, QueryEvent> {
     @Override
     public void transition(Query query, QueryEvent event) {
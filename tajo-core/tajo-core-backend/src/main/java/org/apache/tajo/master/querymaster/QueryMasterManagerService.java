@@ -29,6 +29,7 @@ import org.apache.tajo.ExecutionBlockId;
 import org.apache.tajo.QueryId;
 import org.apache.tajo.QueryUnitAttemptId;
 import org.apache.tajo.TajoIdProtos;
+import org.apache.tajo.TajoProtos.TaskAttemptState;
 import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.engine.query.QueryContext;
 import org.apache.tajo.ipc.QueryMasterProtocol;
@@ -132,25 +133,71 @@ public class QueryMasterManagerService extends CompositeService
         done.run(LazyTaskScheduler.stopTaskRunnerReq);
       } else {
         LOG.debug("getTask:" + cid + ", ebId:" + ebId);
-        queryMasterTask.handleTaskRequestEvent(new TaskRequestEvent(cid, ebId, done));
+        TaskRequestEvent event = new TaskRequestEvent(cid, ebId, done);
+        event.setPlanCached(request.getPlanCached());
+        queryMasterTask.handleTaskRequestEvent(event);
       }
     } catch (Exception e) {
       LOG.error(e.getMessage(), e);
     }
   }
 
+  @Override
+  public void getTasks(RpcController controller, TajoWorkerProtocol.GetTaskRequestProto request,
+                       RpcCallback<TajoWorkerProtocol.QueryUnitRequestListProto> done) {
+    try {
+      ExecutionBlockId ebId = new ExecutionBlockId(request.getExecutionBlockId());
+      QueryMasterTask queryMasterTask = workerContext.getQueryMaster().getQueryMasterTask(ebId.getQueryId());
+
+      if(queryMasterTask == null || queryMasterTask.isStopped()) {
+        LOG.debug("getTasks: ebId:" + ebId + ", but query is finished.");
+        done.run(TajoWorkerProtocol.QueryUnitRequestListProto.newBuilder()
+            .addRequests(LazyTaskScheduler.stopTaskRunnerReq).build());
+      } else {
+        ContainerId cid =
+            queryMasterTask.getQueryTaskContext().getResourceAllocator().makeContainerId(request.getContainerId());
+        LOG.debug("getTasks:" + cid + ", ebId:" + ebId + ", maxTaskNum:" + request.getMaxTaskNum());
+        TaskRequestEvent event = new TaskRequestEvent(cid, ebId, request.getMaxTaskNum(), done);
+        event.setPlanCached(request.getPlanCached());
+        queryMasterTask.handleTaskRequestEvent(event);
+      }
+    } catch (Exception e) {
+      LOG.error(e.getMessage(), e);
+    }
+  }
+
+  @Override
+  public void getFetches(RpcController controller, TajoWorkerProtocol.GetFetchesRequestProto request,
+                         RpcCallback<TajoWorkerProtocol.FetchListProto> done) {
+    try {
+      QueryUnitAttemptId attemptId = new QueryUnitAttemptId(request.getId());
+      ExecutionBlockId ebId = attemptId.getQueryUnitId().getExecutionBlockId();
+      QueryMasterTask queryMasterTask = queryMaster.getQueryMasterTask(ebId.getQueryId());
+      SubQuery subQuery = queryMasterTask.getQuery().getSubQuery(ebId);
+      QueryUnit queryUnit = subQuery.getQueryUnit(attemptId.getQueryUnitId());
+      done.run(subQuery.getPipelinedShuffle().getFetches(queryUnit.getPipelinedPartId(), request.getOffset()));
+    } catch (Exception e) {
+      LOG.error(e.getMessage(), e);
+      // the worker fails the task without any response.
+      controller.setFailed(e.getMessage());
+      done.run(null);
+    }
+  }
+
   @Override
   public void statusUpdate(RpcController controller, TajoWorkerProtocol.TaskStatusProto request,
                            RpcCallback<PrimitiveProtos.BoolProto> done) {
     try {
       QueryMasterTask queryMasterTask = queryMaster.getQueryMasterTask(
           new QueryId(request.getId().getQueryUnitId().getExecutionBlockId().getQueryId()));
-      queryMasterTask.getEventHandler().handle(
-          new TaskAttemptStatusUpdateEvent(new QueryUnitAttemptId(request.getId()), request));
-      done.run(TajoWorker.TRUE_PROTO);
+      QueryUnitAttemptId attemptId = new QueryUnitAttemptId(request.getId());
+      queryMasterTask.getEventHandler().handle(new TaskAttemptStatusUpdateEvent(attemptId, request));
+      // false lets the worker kill the attempt.
+      done.run(isKilled(queryMasterTask, attemptId) ? TajoWorker.FALSE_PROTO : TajoWorker.TRUE_PROTO);
     } catch (Exception e) {
       LOG.error(e.getMessage(), e);
-      done.run(TajoWorker.FALSE_PROTO);
+      // a transient error must not kill a running attempt.
+      done.run(TajoWorker.TRUE_PROTO);
     }
   }
 
@@ -158,7 +205,34 @@ public class QueryMasterManagerService extends CompositeService
   public void ping(RpcController controller,
                    TajoIdProtos.QueryUnitAttemptIdProto attemptId,
                    RpcCallback<PrimitiveProtos.BoolProto> done) {
-    done.run(TajoWorker.TRUE_PROTO);
+    try {
+      QueryUnitAttemptId id = new QueryUnitAttemptId(attemptId);
+      QueryMasterTask queryMasterTask = queryMaster.getQueryMasterTask(
+          id.getQueryUnitId().getExecutionBlockId().getQueryId());
+      // false lets the worker kill the attempt.
+      done.run(isKilled(queryMasterTask, id) ? TajoWorker.FALSE_PROTO : TajoWorker.TRUE_PROTO);
+    } catch (Exception e) {
+      LOG.error(e.getMessage(), e);
+      done.run(TajoWorker.TRUE_PROTO);
+    }
+  }
+
+  /**
+   * @return true if a given attempt has been killed, e.g., because another attempt of the same task has succeeded.
+   */
+  private static boolean isKilled(QueryMasterTask queryMasterTask, QueryUnitAttemptId attemptId) {
+    if (queryMasterTask == null || queryMasterTask.getQuery() == null) {
+      return false;
+    }
+    SubQuery subQuery = queryMasterTask.getQuery().getSubQuery(attemptId.getQueryUnitId().getExecutionBlockId());
+    if (subQuery == null) {
+      return false;
+    }
+    QueryUnit queryUnit = subQuery.getQueryUnit(attemptId.getQueryUnitId());
+    if (queryUnit == null || queryUnit.getAttempt(attemptId) == null) {
+      return false;
+    }
+    return queryUnit.getAttempt(attemptId).getState() == TaskAttemptState.TA_KILLED;
   }
 
   @Override
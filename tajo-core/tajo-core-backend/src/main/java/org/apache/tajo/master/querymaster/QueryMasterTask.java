@@ -285,6 +285,7 @@ public class QueryMasterTask extends CompositeService {
 
     GlobalEngine.DistributedQueryHookManager hookManager = new GlobalEngine.DistributedQueryHookManager();
     hookManager.addHook(new GlobalEngine.InsertHook());
+    hookManager.addHook(new GlobalEngine.AnalyzeHook());
     hookManager.doHooks(queryContext, plan);
 
     try {
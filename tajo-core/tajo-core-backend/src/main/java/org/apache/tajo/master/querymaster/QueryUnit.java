@@ -31,6 +31,7 @@ import org.apache.tajo.QueryUnitAttemptId;
 import org.apache.tajo.QueryUnitId;
 import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.engine.planner.logical.*;
+import org.apache.tajo.engine.utils.JoinKeyFilter;
 import org.apache.tajo.master.FragmentPair;
 import org.apache.tajo.master.TaskState;
 import org.apache.tajo.master.event.*;
@@ -39,6 +40,7 @@ import org.apache.tajo.storage.DataLocation;
 import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.util.TajoIdUtils;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.*;
 import java.util.Map.Entry;
@@ -65,8 +67,12 @@ public class QueryUnit implements EventHandler<TaskEvent> {
 	
   private List<ShuffleFileOutput> shuffleFileOutputs;
 	private TableStats stats;
+  /** the join filter of the subquery, into which the filter of the committed attempt is merged */
+  private JoinKeyFilter joinFilter;
   private final boolean isLeafTask;
   private List<IntermediateEntry> intermediateData;
+  /** the shuffle partition whose fetches are given incrementally, or -1 if the task is not pipelined */
+  private int pipelinedPartId = -1;
 
   private Map<QueryUnitAttemptId, QueryUnitAttempt> attempts;
   private final int maxAttempts = 3;
@@ -74,6 +80,9 @@ public class QueryUnit implements EventHandler<TaskEvent> {
   private QueryUnitAttemptId lastAttemptId;
 
   private QueryUnitAttemptId successfulAttempt;
+  /** the attempt whose output is taken, which is the first finished one among concurrent attempts */
+  private QueryUnitAttemptId committedAttempt;
+  private boolean speculated = false;
   private String succeededHost;
   private int succeededPullServerPort;
 
@@ -93,6 +102,9 @@ public class QueryUnit implements EventHandler<TaskEvent> {
       .addTransition(TaskState.NEW, TaskState.SCHEDULED,
           TaskEventType.T_SCHEDULE, new InitialScheduleTransition())
 
+       .addTransition(TaskState.SCHEDULED, TaskState.SCHEDULED,
+           TaskEventType.T_ADD_SPEC_ATTEMPT)
+
        .addTransition(TaskState.SCHEDULED, TaskState.RUNNING,
            TaskEventType.T_ATTEMPT_LAUNCHED, new AttemptLaunchedTransition())
 
@@ -106,6 +118,13 @@ public class QueryUnit implements EventHandler<TaskEvent> {
             EnumSet.of(TaskState.RUNNING, TaskState.FAILED),
             TaskEventType.T_ATTEMPT_FAILED, new AttemptFailedTransition())
 
+       .addTransition(TaskState.RUNNING, TaskState.RUNNING,
+           TaskEventType.T_ADD_SPEC_ATTEMPT, new AddSpeculativeAttemptTransition())
+
+       // Other attempts may be still running or waiting for a slot while an attempt succeeds.
+       .addTransition(TaskState.SUCCEEDED, TaskState.SUCCEEDED,
+           EnumSet.of(TaskEventType.T_ATTEMPT_LAUNCHED, TaskEventType.T_ATTEMPT_FAILED,
+               TaskEventType.T_ADD_SPEC_ATTEMPT))
 
 
       .installTopology();
@@ -298,6 +317,22 @@ public class QueryUnit implements EventHandler<TaskEvent> {
 	public List<ShuffleFileOutput> getShuffleFileOutputs() {
 	  return this.shuffleFileOutputs;
 	}
+
+  public void setJoinFilter(JoinKeyFilter joinFilter) {
+    this.joinFilter = joinFilter;
+  }
+
+  /**
+   * Merges the join filter built by the committed attempt into the join filter of the subquery,
+   * so the filters of the tasks are not kept.
+   */
+  public void mergeJoinFilter(byte [] attemptFilter) throws IOException {
+    if (joinFilter != null) {
+      synchronized (joinFilter) {
+        joinFilter.merge(new JoinKeyFilter(attemptFilter));
+      }
+    }
+  }
 	
 	public int getShuffleOutpuNum() {
 	  return this.shuffleFileOutputs.size();
@@ -339,6 +374,49 @@ public class QueryUnit implements EventHandler<TaskEvent> {
     return this.nextAttempt;
   }
 
+  /**
+   * @return true if a speculative attempt has been launched for this task.
+   */
+  public boolean isSpeculated() {
+    readLock.lock();
+    try {
+      return speculated;
+    } finally {
+      readLock.unlock();
+    }
+  }
+
+  /**
+   * Several attempts of a task can run at the same time, and only the first finished one is committed.
+   *
+   * @return true if the given attempt is committed, or false if another attempt has been already committed.
+   */
+  synchronized boolean commitAttempt(QueryUnitAttemptId attemptId) {
+    if (committedAttempt != null) {
+      return false;
+    }
+    committedAttempt = attemptId;
+    return true;
+  }
+
+  synchronized void abortCommit(QueryUnitAttemptId attemptId) {
+    if (attemptId.equals(committedAttempt)) {
+      committedAttempt = null;
+    }
+  }
+
+  /**
+   * @return true if any attempt except the given one may still succeed.
+   */
+  private boolean hasOtherActiveAttempt(QueryUnitAttemptId attemptId) {
+    for (QueryUnitAttempt attempt : attempts.values()) {
+      if (!attempt.getId().equals(attemptId) && attempt.isActive()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private static class InitialScheduleTransition implements
     SingleArcTransition<QueryUnit, TaskEvent> {
 
@@ -366,8 +444,16 @@ public class QueryUnit implements EventHandler<TaskEvent> {
 
   // This is always called in the Write Lock
   private void addAndScheduleAttempt() {
+    addAndScheduleAttempt(false);
+  }
+
+  // This is always called in the Write Lock
+  private void addAndScheduleAttempt(boolean speculative) {
     // Create new task attempt
     QueryUnitAttempt attempt = newAttempt();
+    if (speculative) {
+      attempt.setSpeculative();
+    }
     if (LOG.isDebugEnabled()) {
       LOG.debug("Created attempt " + attempt.getId());
     }
@@ -412,11 +498,31 @@ public class QueryUnit implements EventHandler<TaskEvent> {
       task.succeededHost = attempt.getHost();
       task.finishTime = System.currentTimeMillis();
       task.succeededPullServerPort = attempt.getPullServerPort();
+
+      // the other attempts are not necessary anymore
+      for (QueryUnitAttempt other : task.attempts.values()) {
+        if (!other.getId().equals(task.successfulAttempt) && other.isActive()) {
+          LOG.info("Kill " + other.getId() + " because " + task.successfulAttempt + " has succeeded");
+          task.eventHandler.handle(new TaskAttemptEvent(other.getId(), TaskAttemptEventType.TA_KILL));
+        }
+      }
+
       task.eventHandler.handle(new SubQueryTaskEvent(event.getTaskId(),
           SubQueryEventType.SQ_TASK_COMPLETED));
     }
   }
 
+  private static class AddSpeculativeAttemptTransition implements SingleArcTransition<QueryUnit, TaskEvent> {
+    @Override
+    public void transition(QueryUnit task, TaskEvent event) {
+      if (task.successfulAttempt == null && !task.speculated) {
+        task.speculated = true;
+        task.addAndScheduleAttempt(true);
+        LOG.info("Speculative attempt " + task.lastAttemptId + " is scheduled for " + task.getId());
+      }
+    }
+  }
+
   private static class AttemptLaunchedTransition implements SingleArcTransition<QueryUnit, TaskEvent> {
     @Override
     public void transition(QueryUnit task,
@@ -442,7 +548,8 @@ public class QueryUnit implements EventHandler<TaskEvent> {
       task.finishedAttempts++;
 
       if (task.failedAttempts < task.maxAttempts) {
-        if (task.successfulAttempt == null) {
+        // If a speculative attempt is still running, it takes over the task.
+        if (task.successfulAttempt == null && !task.hasOtherActiveAttempt(attemptEvent.getTaskAttemptId())) {
           task.addAndScheduleAttempt();
         }
       } else {
@@ -495,12 +602,26 @@ public class QueryUnit implements EventHandler<TaskEvent> {
     return this.intermediateData;
   }
 
+  public void setPipelinedPartId(int partId) {
+    this.pipelinedPartId = partId;
+  }
+
+  public int getPipelinedPartId() {
+    return this.pipelinedPartId;
+  }
+
+  public boolean isPipelined() {
+    return this.pipelinedPartId >= 0;
+  }
+
   public static class IntermediateEntry {
     int taskId;
     int attemptId;
     int partId;
     String pullHost;
     int port;
+    /** the bytes of this partition, or 0 if the producer does not report it */
+    long volume;
 
     public IntermediateEntry(int taskId, int attemptId, int partId,
                              String pullServerAddr, int pullServerPort) {
@@ -534,5 +655,13 @@ public class QueryUnit implements EventHandler<TaskEvent> {
     public String getPullAddress() {
       return pullHost + ":" + port;
     }
+
+    public void setVolume(long volume) {
+      this.volume = volume;
+    }
+
+    public long getVolume() {
+      return this.volume;
+    }
   }
 }
@@ -32,6 +32,7 @@ import org.apache.tajo.master.event.TaskSchedulerEvent.EventType;
 import org.apache.tajo.master.querymaster.QueryUnit.IntermediateEntry;
 import org.apache.tajo.util.TajoIdUtils;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
@@ -55,6 +56,10 @@ public class QueryUnitAttempt implements EventHandler<TaskAttemptEvent> {
   private int port;
   private int expire;
 
+  private boolean speculative = false;
+  private volatile long launchTime;
+  private volatile float progress;
+
   private final Lock readLock;
   private final Lock writeLock;
 
@@ -107,6 +112,22 @@ public class QueryUnitAttempt implements EventHandler<TaskAttemptEvent> {
       .addTransition(TaskAttemptState.TA_SUCCEEDED, TaskAttemptState.TA_FAILED,
           TaskAttemptEventType.TA_FATAL_ERROR, new FailedTransition())
 
+      // killed because another attempt of the same task has succeeded
+      .addTransition(TaskAttemptState.TA_UNASSIGNED, TaskAttemptState.TA_KILLED,
+          TaskAttemptEventType.TA_KILL, new KillTransition())
+      .addTransition(TaskAttemptState.TA_ASSIGNED, TaskAttemptState.TA_KILLED,
+          TaskAttemptEventType.TA_KILL, new KillTransition())
+      .addTransition(TaskAttemptState.TA_RUNNING, TaskAttemptState.TA_KILLED,
+          TaskAttemptEventType.TA_KILL, new KillTransition())
+      .addTransition(TaskAttemptState.TA_SUCCEEDED, TaskAttemptState.TA_SUCCEEDED,
+          TaskAttemptEventType.TA_KILL)
+      .addTransition(TaskAttemptState.TA_FAILED, TaskAttemptState.TA_FAILED,
+          TaskAttemptEventType.TA_KILL)
+      // A killed attempt may be still assigned or running until its worker is notified.
+      .addTransition(TaskAttemptState.TA_KILLED, TaskAttemptState.TA_KILLED,
+          EnumSet.of(TaskAttemptEventType.TA_ASSIGNED, TaskAttemptEventType.TA_UPDATE,
+              TaskAttemptEventType.TA_DONE, TaskAttemptEventType.TA_FATAL_ERROR, TaskAttemptEventType.TA_KILL))
+
       .installTopology();
 
   private final StateMachine<TaskAttemptState, TaskAttemptEventType, TaskAttemptEvent>
@@ -186,7 +207,38 @@ public class QueryUnitAttempt implements EventHandler<TaskAttemptEvent> {
     return this.expire;
   }
 
-  private void fillTaskStatistics(TaskCompletionReport report) {
+  public boolean isSpeculative() {
+    return speculative;
+  }
+
+  void setSpeculative() {
+    this.speculative = true;
+  }
+
+  /**
+   * @return the time when this attempt is assigned to a worker, or 0 if it is not assigned yet.
+   */
+  public long getLaunchTime() {
+    return launchTime;
+  }
+
+  /**
+   * @return the last progress reported by the worker
+   */
+  public float getProgress() {
+    return progress;
+  }
+
+  /**
+   * @return true if this attempt is waiting for an assignment or running, so it may succeed.
+   */
+  public boolean isActive() {
+    TaskAttemptState state = getState();
+    return state == TaskAttemptState.TA_NEW || state == TaskAttemptState.TA_UNASSIGNED ||
+        state == TaskAttemptState.TA_ASSIGNED || state == TaskAttemptState.TA_RUNNING;
+  }
+
+  private void fillTaskStatistics(TaskCompletionReport report) throws IOException {
     if (report.getShuffleFileOutputsCount() > 0) {
       this.getQueryUnit().setShuffleFileOutputs(report.getShuffleFileOutputsList());
 
@@ -194,6 +246,9 @@ public class QueryUnitAttempt implements EventHandler<TaskAttemptEvent> {
       for (ShuffleFileOutput p : report.getShuffleFileOutputsList()) {
         IntermediateEntry entry = new IntermediateEntry(getId().getQueryUnitId().getId(),
             getId().getId(), p.getPartId(), getHost(), getPullServerPort());
+        if (p.hasVolume()) {
+          entry.setVolume(p.getVolume());
+        }
         partitions.add(entry);
       }
       this.getQueryUnit().setIntermediateData(partitions);
@@ -201,6 +256,9 @@ public class QueryUnitAttempt implements EventHandler<TaskAttemptEvent> {
     if (report.hasResultStats()) {
       this.getQueryUnit().setStats(new TableStats(report.getResultStats()));
     }
+    if (report.hasJoinFilter()) {
+      this.getQueryUnit().mergeJoinFilter(report.getJoinFilter().toByteArray());
+    }
   }
 
   private static class TaskAttemptScheduleTransition implements
@@ -224,6 +282,7 @@ public class QueryUnitAttempt implements EventHandler<TaskAttemptEvent> {
       TaskAttemptAssignedEvent castEvent = (TaskAttemptAssignedEvent) event;
       taskAttempt.setHost(castEvent.getHostName());
       taskAttempt.setPullServerPort(castEvent.getPullServerPort());
+      taskAttempt.launchTime = System.currentTimeMillis();
       taskAttempt.eventHandler.handle(
           new TaskTAttemptEvent(taskAttempt.getId(),
               TaskEventType.T_ATTEMPT_LAUNCHED));
@@ -238,6 +297,7 @@ public class QueryUnitAttempt implements EventHandler<TaskAttemptEvent> {
                                        TaskAttemptEvent event) {
       TaskAttemptStatusUpdateEvent updateEvent =
           (TaskAttemptStatusUpdateEvent) event;
+      taskAttempt.progress = updateEvent.getStatus().getProgress();
 
       switch (updateEvent.getStatus().getState()) {
         case TA_PENDING:
@@ -279,16 +339,32 @@ public class QueryUnitAttempt implements EventHandler<TaskAttemptEvent> {
     public void transition(QueryUnitAttempt taskAttempt,
                            TaskAttemptEvent event) {
       TaskCompletionReport report = ((TaskCompletionEvent)event).getReport();
+      taskAttempt.progress = 1.0f;
+
+      // Only the output of the first finished attempt is taken.
+      if (!taskAttempt.getQueryUnit().commitAttempt(taskAttempt.getId())) {
+        LOG.info(taskAttempt.getId() + " has finished, but another attempt has been already committed");
+        return;
+      }
 
       try {
         taskAttempt.fillTaskStatistics(report);
         taskAttempt.eventHandler.handle(new TaskTAttemptEvent(taskAttempt.getId(), TaskEventType.T_ATTEMPT_SUCCEEDED));
       } catch (Throwable t) {
+        taskAttempt.getQueryUnit().abortCommit(taskAttempt.getId());
         taskAttempt.eventHandler.handle(new TaskFatalErrorEvent(taskAttempt.getId(), t.getMessage()));
       }
     }
   }
 
+  private static class KillTransition implements SingleArcTransition<QueryUnitAttempt, TaskAttemptEvent> {
+    @Override
+    public void transition(QueryUnitAttempt taskAttempt, TaskAttemptEvent event) {
+      LOG.info(taskAttempt.getId() + " is killed" + (taskAttempt.getHost() != null ?
+          " on " + taskAttempt.getHost() : ""));
+    }
+  }
+
   private static class FailedTransition implements SingleArcTransition<QueryUnitAttempt, TaskAttemptEvent>{
     @Override
     public void transition(QueryUnitAttempt taskAttempt, TaskAttemptEvent event) {
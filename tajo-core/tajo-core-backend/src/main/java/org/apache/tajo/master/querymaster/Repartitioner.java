@@ -27,6 +27,7 @@ import org.apache.tajo.ExecutionBlockId;
 import org.apache.tajo.catalog.*;
 import org.apache.tajo.catalog.statistics.StatisticsUtil;
 import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.conf.TajoConf.ConfVars;
 import org.apache.tajo.engine.planner.PlannerUtil;
 import org.apache.tajo.engine.planner.RangePartitionAlgorithm;
@@ -35,9 +36,12 @@ import org.apache.tajo.engine.planner.global.DataChannel;
 import org.apache.tajo.engine.planner.global.ExecutionBlock;
 import org.apache.tajo.engine.planner.global.MasterPlan;
 import org.apache.tajo.engine.planner.logical.GroupbyNode;
+import org.apache.tajo.engine.planner.logical.JoinNode;
+import org.apache.tajo.engine.planner.logical.LogicalNode;
 import org.apache.tajo.engine.planner.logical.NodeType;
 import org.apache.tajo.engine.planner.logical.ScanNode;
 import org.apache.tajo.engine.planner.logical.SortNode;
+import org.apache.tajo.engine.utils.JoinKeyFilter;
 import org.apache.tajo.engine.utils.TupleUtil;
 import org.apache.tajo.exception.InternalException;
 import org.apache.tajo.master.TaskSchedulerContext;
@@ -179,10 +183,18 @@ public class Repartitioner {
 
       SubQuery.scheduleFragment(subQuery, fragments[0], fragments[1]);
 
+      Map<Integer, SkewedPartition> skewedPartitions = findSkewedJoinPartitions(subQuery, scans, hashEntries);
+
       // Assign partitions to tasks in a round robin manner.
       for (Entry<Integer, Map<String, List<IntermediateEntry>>> entry
           : hashEntries.entrySet()) {
-        addJoinShuffle(subQuery, entry.getKey(), entry.getValue());
+        SkewedPartition skewed = skewedPartitions.get(entry.getKey());
+        if (skewed != null) {
+          addSkewedJoinShuffle(subQuery, entry.getKey(), entry.getValue(), skewed);
+          joinTaskNum += skewed.splitNum - 1;
+        } else {
+          addJoinShuffle(subQuery, entry.getKey(), entry.getValue());
+        }
       }
 
       schedulerContext.setTaskSize((int) Math.ceil((double) bothFetchSize / joinTaskNum));
@@ -219,19 +231,358 @@ public class Repartitioner {
       } else {
         return;
       }
-      Set<URI> fetchURIs = TUtil.newHashSet();
-      for (Entry<String, List<IntermediateEntry>> requestPerNode : requests.entrySet()) {
-        Collection<URI> uris = createHashFetchURL(requestPerNode.getKey(),
-            execBlock.getId(),
-            partitionId, HASH_SHUFFLE,
-            requestPerNode.getValue());
-        fetchURIs.addAll(uris);
-      }
-      fetches.put(execBlock.getId().toString(), Lists.newArrayList(fetchURIs));
+      fetches.put(execBlock.getId().toString(), createJoinFetchURIs(execBlock.getId(), partitionId, requests));
     }
     SubQuery.scheduleFetches(subQuery, fetches);
   }
 
+  private static List<URI> createJoinFetchURIs(ExecutionBlockId ebId, int partitionId,
+                                               Map<String, List<IntermediateEntry>> requests) {
+    Set<URI> fetchURIs = TUtil.newHashSet();
+    for (Entry<String, List<IntermediateEntry>> requestPerNode : requests.entrySet()) {
+      Collection<URI> uris = createHashFetchURL(requestPerNode.getKey(),
+          ebId,
+          partitionId, HASH_SHUFFLE,
+          requestPerNode.getValue());
+      fetchURIs.addAll(uris);
+    }
+    return Lists.newArrayList(fetchURIs);
+  }
+
+  /**
+   * A partition of a repartition join which is much larger than the others. It is split into several tasks
+   * on the side of <code>tableName</code>, and the same partition of the other side is fetched by all of them.
+   */
+  private static class SkewedPartition {
+    final String tableName;
+    final long volume;
+    final int splitNum;
+
+    SkewedPartition(String tableName, long volume, int splitNum) {
+      this.tableName = tableName;
+      this.volume = volume;
+      this.splitNum = splitNum;
+    }
+  }
+
+  /**
+   * Finds skewed partitions of a repartition join from the partition volumes reported by the shuffle writers.
+   * A partition is only split on a side which does not change the join result when the rows of the side are
+   * divided, e.g., the left side of a left outer join. If both sides are skewed, the larger one is split.
+   *
+   * @return key: partition id, value: how to split the partition
+   */
+  private static Map<Integer, SkewedPartition> findSkewedJoinPartitions(
+      SubQuery subQuery, ScanNode [] scans, Map<Integer, Map<String, List<IntermediateEntry>>> hashEntries) {
+    Map<Integer, SkewedPartition> skewedPartitions = new HashMap<Integer, SkewedPartition>();
+    TajoConf conf = subQuery.getContext().getConf();
+    if (!conf.getBoolVar(ConfVars.DIST_QUERY_JOIN_SKEW_ENABLED)) {
+      return skewedPartitions;
+    }
+    float factor = conf.getFloatVar(ConfVars.DIST_QUERY_JOIN_SKEW_FACTOR);
+    long minVolume = conf.getLongVar(ConfVars.DIST_QUERY_JOIN_SKEW_MIN_VOLUME);
+
+    boolean [] splittable = getSplittableJoinSides(subQuery.getBlock(), scans);
+    for (int i = 0; i < scans.length; i++) {
+      if (!splittable[i]) {
+        continue;
+      }
+      String tableName = scans[i].getCanonicalName();
+      Map<Integer, Long> volumes = new HashMap<Integer, Long>();
+      for (Entry<Integer, Map<String, List<IntermediateEntry>>> entry : hashEntries.entrySet()) {
+        List<IntermediateEntry> entries = entry.getValue().get(tableName);
+        // a partition which only one side has is not joined at all.
+        if (entries != null && entry.getValue().size() == scans.length) {
+          volumes.put(entry.getKey(), getVolume(entries));
+        }
+      }
+
+      for (Entry<Integer, Integer> skewed : findSkewedPartitions(volumes, factor, minVolume).entrySet()) {
+        int partId = skewed.getKey();
+        long volume = volumes.get(partId);
+        // a split cannot be smaller than the output of a single producer task
+        int splitNum = Math.min(skewed.getValue(), hashEntries.get(partId).get(tableName).size());
+        SkewedPartition prev = skewedPartitions.get(partId);
+        if (splitNum > 1 && (prev == null || prev.volume < volume)) {
+          skewedPartitions.put(partId, new SkewedPartition(tableName, volume, splitNum));
+        }
+      }
+    }
+    return skewedPartitions;
+  }
+
+  /**
+   * @return whether each scan of a repartition join can be split without changing the join result
+   */
+  private static boolean [] getSplittableJoinSides(ExecutionBlock execBlock, ScanNode [] scans) {
+    boolean [] splittable = new boolean[scans.length];
+    LogicalNode [] joins = PlannerUtil.findAllNodes(execBlock.getPlan(), NodeType.JOIN);
+    if (joins.length != 1) {
+      return splittable;
+    }
+
+    JoinNode join = (JoinNode) joins[0];
+    for (int i = 0; i < scans.length; i++) {
+      boolean leftSide = isLeftSide(join, scans[i].getCanonicalName());
+      switch (join.getJoinType()) {
+      case CROSS:
+      case INNER:
+        splittable[i] = true;
+        break;
+      case LEFT_OUTER:
+      case LEFT_SEMI:
+      case LEFT_ANTI:
+        splittable[i] = leftSide;
+        break;
+      case RIGHT_OUTER:
+      case RIGHT_SEMI:
+      case RIGHT_ANTI:
+        splittable[i] = !leftSide;
+        break;
+      default:
+        splittable[i] = false;
+      }
+    }
+    return splittable;
+  }
+
+  private static boolean isLeftSide(JoinNode join, String scanName) {
+    for (LogicalNode node : PlannerUtil.findAllNodes(join.getLeftChild(), NodeType.SCAN)) {
+      if (((ScanNode) node).getCanonicalName().equals(scanName)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The rows of a join side which have no matching row can be dropped before the join,
+   * unless the join preserves them like the left side of a left outer join.
+   */
+  private static boolean isFilterableJoinSide(JoinNode join, String scanName) {
+    boolean leftSide = isLeftSide(join, scanName);
+    switch (join.getJoinType()) {
+    case INNER:
+    case LEFT_SEMI:
+    case RIGHT_SEMI:
+      return true;
+    case LEFT_OUTER:
+    case LEFT_ANTI:
+      return !leftSide;
+    case RIGHT_OUTER:
+    case RIGHT_ANTI:
+      return leftSide;
+    default:
+      return false;
+    }
+  }
+
+  /**
+   * If the given subquery is a child of a repartition join, the subquery which runs first builds a join filter
+   * over its shuffle keys, and the other subquery drops the rows whose shuffle keys do not pass the filter.
+   */
+  public static void setJoinFilterIfNecessary(SubQuery subQuery, DataChannel channel) {
+    TajoConf conf = subQuery.getContext().getConf();
+    if (!conf.getBoolVar(ConfVars.DIST_QUERY_JOIN_FILTER_ENABLED) || channel.getShuffleType() != HASH_SHUFFLE) {
+      return;
+    }
+
+    MasterPlan masterPlan = subQuery.getMasterPlan();
+    ExecutionBlock parent = masterPlan.getParent(subQuery.getBlock());
+    List<ExecutionBlock> childs = masterPlan.getChilds(parent);
+    LogicalNode [] joins = PlannerUtil.findAllNodes(parent.getPlan(), NodeType.JOIN);
+    if (parent.getScanNodes().length != 2 || childs.size() != 2 || joins.length != 1) {
+      return;
+    }
+    JoinNode join = (JoinNode) joins[0];
+    ExecutionBlock sibling = childs.get(0).getId().equals(subQuery.getId()) ? childs.get(1) : childs.get(0);
+    if (sibling.hasUnion()) {
+      return;
+    }
+
+    // the filters are built over the serialized join keys, so both sides must have the same types of keys.
+    DataChannel siblingChannel = masterPlan.getChannel(sibling.getId(), parent.getId());
+    Column [] keys = channel.getShuffleKeys();
+    Column [] siblingKeys = siblingChannel.getShuffleKeys();
+    if (keys == null || siblingKeys == null || keys.length == 0 || keys.length != siblingKeys.length) {
+      return;
+    }
+    for (int i = 0; i < keys.length; i++) {
+      if (!keys[i].getDataType().equals(siblingKeys[i].getDataType())) {
+        return;
+      }
+    }
+
+    SubQuery siblingSubQuery = subQuery.getContext().getSubQuery(sibling.getId());
+    if (siblingSubQuery == null) {
+      if (isFilterableJoinSide(join, sibling.getId().toString())) {
+        long keyNum = estimateRowNum(subQuery.getContext(), masterPlan, subQuery.getBlock());
+        int bitNum = JoinKeyFilter.getBitNum(keyNum, conf.getFloatVar(ConfVars.DIST_QUERY_JOIN_FILTER_FALSE_POSITIVE),
+            conf.getIntVar(ConfVars.DIST_QUERY_JOIN_FILTER_MAX_BIT_NUM));
+        int hashNum = JoinKeyFilter.getHashNum(bitNum, keyNum);
+        channel.setJoinFilterBuild(bitNum, hashNum);
+        subQuery.buildJoinFilter(bitNum, hashNum);
+        LOG.info("[Join Filter] " + subQuery.getId() + " builds a join filter for " + sibling.getId()
+            + " (expected keys: " + keyNum + ", bits: " + bitNum + ", hashes: " + hashNum + ")");
+      }
+    } else if (siblingSubQuery.getJoinFilter() != null && isFilterableJoinSide(join, subQuery.getId().toString())) {
+      subQuery.setProbeJoinFilter(siblingSubQuery.getJoinFilter());
+      LOG.info("[Join Filter] " + subQuery.getId() + " is filtered by the join filter of " + sibling.getId());
+    }
+  }
+
+  /**
+   * Estimates the number of rows which the given block outputs before it runs. Each row has at most one
+   * join key, so it is the upper bound of the number of join keys.
+   */
+  private static long estimateRowNum(QueryMasterTask.QueryMasterTaskContext context, MasterPlan masterPlan, ExecutionBlock block) {
+    long rowNum = 0;
+    if (masterPlan.isLeaf(block)) {
+      for (ScanNode scan : block.getScanNodes()) {
+        TableStats stats = context.getTableDescMap().get(scan.getCanonicalName()).getStats();
+        if (stats.getNumRows() != null && stats.getNumRows() > 0) {
+          rowNum += stats.getNumRows();
+        } else {
+          rowNum += stats.getNumBytes() / estimateRowWidth(scan.getTableSchema());
+        }
+      }
+    } else {
+      for (ExecutionBlock child : masterPlan.getChilds(block)) {
+        SubQuery childSubQuery = context.getSubQuery(child.getId());
+        if (childSubQuery != null && childSubQuery.getState() == SubQueryState.SUCCEEDED) {
+          rowNum += childSubQuery.getTableStat().getNumRows();
+        } else {
+          rowNum += estimateRowNum(context, masterPlan, child);
+        }
+      }
+    }
+    return rowNum;
+  }
+
+  private static int estimateRowWidth(Schema schema) {
+    int width = 0;
+    for (Column column : schema.getColumns()) {
+      switch (column.getDataType().getType()) {
+      case BOOLEAN:
+      case BIT:
+      case CHAR:
+        width += 1;
+        break;
+      case INT2:
+        width += 2;
+        break;
+      case INT4:
+      case FLOAT4:
+      case DATE:
+        width += 4;
+        break;
+      case INT8:
+      case FLOAT8:
+      case TIME:
+      case TIMESTAMP:
+        width += 8;
+        break;
+      default:
+        width += 16;
+      }
+    }
+    return Math.max(width, 1);
+  }
+
+  private static long getVolume(List<IntermediateEntry> entries) {
+    long volume = 0;
+    for (IntermediateEntry entry : entries) {
+      volume += entry.getVolume();
+    }
+    return volume;
+  }
+
+  /**
+   * Finds partitions whose volumes are larger than both <code>factor</code> times the median volume of
+   * non-empty partitions and <code>minVolume</code>.
+   *
+   * @param volumes key: partition id, value: the bytes of the partition
+   * @return key: partition id, value: the number of splits by which each split becomes close to the median
+   */
+  public static Map<Integer, Integer> findSkewedPartitions(Map<Integer, Long> volumes, float factor,
+                                                           long minVolume) {
+    Map<Integer, Integer> skewed = new HashMap<Integer, Integer>();
+    List<Long> nonEmptyVolumes = new ArrayList<Long>();
+    for (long volume : volumes.values()) {
+      if (volume > 0) {
+        nonEmptyVolumes.add(volume);
+      }
+    }
+    if (nonEmptyVolumes.isEmpty()) {
+      return skewed;
+    }
+    Collections.sort(nonEmptyVolumes);
+    long median = nonEmptyVolumes.get(nonEmptyVolumes.size() / 2);
+
+    double threshold = Math.max((double) median * factor, minVolume);
+    for (Entry<Integer, Long> entry : volumes.entrySet()) {
+      if (entry.getValue() > threshold) {
+        int splitNum = (int) Math.ceil((double) entry.getValue() / median);
+        if (splitNum > 1) {
+          skewed.put(entry.getKey(), splitNum);
+        }
+      }
+    }
+    return skewed;
+  }
+
+  /**
+   * Divides the intermediate entries of a partition into the given number of groups of similar volumes.
+   */
+  public static List<List<IntermediateEntry>> splitIntermediateEntries(List<IntermediateEntry> entries, int num) {
+    List<IntermediateEntry> sorted = new ArrayList<IntermediateEntry>(entries);
+    Collections.sort(sorted, new Comparator<IntermediateEntry>() {
+      @Override
+      public int compare(IntermediateEntry e1, IntermediateEntry e2) {
+        return Long.valueOf(e2.getVolume()).compareTo(e1.getVolume());
+      }
+    });
+
+    List<List<IntermediateEntry>> splits = new ArrayList<List<IntermediateEntry>>();
+    long [] splitVolumes = new long[Math.min(num, sorted.size())];
+    for (int i = 0; i < splitVolumes.length; i++) {
+      splits.add(new ArrayList<IntermediateEntry>());
+    }
+    // the largest remaining entry is given to the smallest split
+    for (IntermediateEntry entry : sorted) {
+      int smallest = 0;
+      for (int i = 1; i < splitVolumes.length; i++) {
+        if (splitVolumes[i] < splitVolumes[smallest]) {
+          smallest = i;
+        }
+      }
+      splits.get(smallest).add(entry);
+      splitVolumes[smallest] += entry.getVolume();
+    }
+    return splits;
+  }
+
+  private static void addSkewedJoinShuffle(SubQuery subQuery, int partitionId,
+                                           Map<String, List<IntermediateEntry>> grouppedPartitions,
+                                           SkewedPartition skewed) {
+    LOG.info("[Skewed Join] Partition " + partitionId + " of " + skewed.tableName + " (" + skewed.volume
+        + " bytes) is split into " + skewed.splitNum + " tasks");
+    List<List<IntermediateEntry>> splits =
+        splitIntermediateEntries(grouppedPartitions.get(skewed.tableName), skewed.splitNum);
+
+    for (List<IntermediateEntry> split : splits) {
+      Map<String, List<URI>> fetches = new HashMap<String, List<URI>>();
+      for (ExecutionBlock execBlock : subQuery.getMasterPlan().getChilds(subQuery.getId())) {
+        String tableName = execBlock.getId().toString();
+        List<IntermediateEntry> entries = tableName.equals(skewed.tableName) ?
+            split : grouppedPartitions.get(tableName);
+        fetches.put(tableName,
+            createJoinFetchURIs(execBlock.getId(), partitionId, mergeHashShuffleRequest(entries)));
+      }
+      SubQuery.scheduleFetches(subQuery, fetches);
+    }
+  }
+
   /**
    * This method merges the partition request associated with the pullserver's address.
    * It reduces the number of TCP connections.
@@ -449,6 +800,32 @@ public class Repartitioner {
     schedulerContext.setEstimatedTaskNum(determinedTaskNum);
   }
 
+  /**
+   * It schedules a task for every partition of the producer, which is still running. The fetches of a task
+   * are given by {@link PipelinedShuffle} while the producer outputs are produced.
+   */
+  public static void schedulePipelinedHashShuffledFetches(TaskSchedulerContext schedulerContext,
+                                                          MasterPlan masterPlan, SubQuery subQuery) {
+    ExecutionBlock execBlock = subQuery.getBlock();
+    DataChannel channel = masterPlan.getChannel(subQuery.getPipelinedShuffle().getProducerId(), subQuery.getId());
+    int partNum = channel.getShuffleOutputNum();
+
+    ScanNode scan = execBlock.getScanNodes()[0];
+    Path tablePath = subQuery.getContext().getStorageManager().getTablePath(scan.getTableName());
+    FileFragment frag = new FileFragment(scan.getCanonicalName(), tablePath, 0, 0, new String[]{UNKNOWN_HOST});
+    SubQuery.scheduleFragment(subQuery, frag);
+
+    for (int partId = 0; partId < partNum; partId++) {
+      Map<String, List<URI>> fetches = new HashMap<String, List<URI>>();
+      fetches.put(scan.getTableName(), new ArrayList<URI>());
+      SubQuery.schedulePipelinedFetches(subQuery, fetches, partId);
+    }
+    LOG.info(partNum + " tasks are scheduled in advance of the producer "
+        + subQuery.getPipelinedShuffle().getProducerId());
+
+    schedulerContext.setEstimatedTaskNum(partNum);
+  }
+
   public static Collection<URI> createHashFetchURL(String hostAndPort, ExecutionBlockId ebid,
                                        int partitionId, ShuffleType type, List<IntermediateEntry> entries) {
     String scheme = "http://";
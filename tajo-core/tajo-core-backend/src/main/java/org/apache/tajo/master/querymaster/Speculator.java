@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.master.querymaster;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.tajo.TajoProtos.TaskAttemptState;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.master.TaskState;
+import org.apache.tajo.master.event.TaskEvent;
+import org.apache.tajo.master.event.TaskEventType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Speculator launches backup attempts of straggler tasks in a subquery. A single slow disk or overloaded
+ * worker can hold a whole subquery, and a backup attempt on another host often finishes earlier.
+ * The first finished attempt of a task is committed, and the others are killed by {@link QueryUnit}.
+ *
+ * The running time of an attempt is estimated from its elapsed time and its reported progress. Without
+ * any progress, the elapsed time itself is the estimate. An attempt is a straggler if its estimated running
+ * time is longer than the average running time of finished tasks times the slow task factor.
+ *
+ * Only the tasks whose outputs are shuffled are speculated, because the outputs of different attempts are
+ * kept separately in their own hosts. The final outputs of a query are written in the same path.
+ */
+public class Speculator {
+  private static final Log LOG = LogFactory.getLog(Speculator.class);
+  private static final long CHECK_INTERVAL = 1000;
+
+  private final SubQuery subQuery;
+  private final boolean enabled;
+  private final float slowTaskFactor;
+  private final long minRunTime;
+  private final float minFinishedRatio;
+  private final float maxSpeculativeRatio;
+
+  private long lastCheckTime = 0;
+
+  public Speculator(Configuration conf, SubQuery subQuery, boolean interQuery) {
+    this.subQuery = subQuery;
+    this.enabled = interQuery && TajoConf.getBoolVar(conf, ConfVars.DIST_QUERY_SPECULATION_ENABLED);
+    this.slowTaskFactor = TajoConf.getFloatVar(conf, ConfVars.DIST_QUERY_SPECULATION_SLOW_TASK_FACTOR);
+    this.minRunTime = TajoConf.getLongVar(conf, ConfVars.DIST_QUERY_SPECULATION_MIN_RUNTIME);
+    this.minFinishedRatio = TajoConf.getFloatVar(conf, ConfVars.DIST_QUERY_SPECULATION_MIN_FINISHED_RATIO);
+    this.maxSpeculativeRatio = TajoConf.getFloatVar(conf, ConfVars.DIST_QUERY_SPECULATION_MAX_RATIO);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * It is called periodically by the task scheduler, and it launches backup attempts for stragglers.
+   */
+  public void speculate() {
+    if (!enabled) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    if (now - lastCheckTime < CHECK_INTERVAL) {
+      return;
+    }
+    lastCheckTime = now;
+
+    QueryUnit [] tasks = subQuery.getQueryUnits();
+    long totalRunTime = 0;
+    int finishedNum = 0;
+    int speculatedNum = 0;
+    List<QueryUnitAttempt> running = new ArrayList<QueryUnitAttempt>();
+    for (QueryUnit task : tasks) {
+      if (task.isSpeculated()) {
+        speculatedNum++;
+      }
+      TaskState state = task.getState();
+      if (state == TaskState.SUCCEEDED) {
+        totalRunTime += task.getRunningTime();
+        finishedNum++;
+      } else if (state == TaskState.RUNNING && !task.isSpeculated()) {
+        QueryUnitAttempt attempt = task.getLastAttempt();
+        if (attempt != null && attempt.getState() == TaskAttemptState.TA_RUNNING) {
+          running.add(attempt);
+        }
+      }
+    }
+
+    if (finishedNum == 0 || finishedNum < tasks.length * minFinishedRatio) {
+      return;
+    }
+    int availableNum = Math.max(1, (int) (tasks.length * maxSpeculativeRatio)) - speculatedNum;
+    if (availableNum <= 0) {
+      return;
+    }
+
+    double meanRunTime = (double) totalRunTime / finishedNum;
+    List<QueryUnitAttempt> stragglers = new ArrayList<QueryUnitAttempt>();
+    final Map<QueryUnitAttempt, Double> finishTimes = new HashMap<QueryUnitAttempt, Double>();
+    for (QueryUnitAttempt attempt : running) {
+      long elapsed = now - attempt.getLaunchTime();
+      if (isStraggler(elapsed, attempt.getProgress(), meanRunTime)) {
+        stragglers.add(attempt);
+        finishTimes.put(attempt, attempt.getLaunchTime() + estimateRunTime(elapsed, attempt.getProgress()));
+      }
+    }
+
+    // the attempts expected to finish last are speculated first
+    Collections.sort(stragglers, new Comparator<QueryUnitAttempt>() {
+      @Override
+      public int compare(QueryUnitAttempt a1, QueryUnitAttempt a2) {
+        return finishTimes.get(a2).compareTo(finishTimes.get(a1));
+      }
+    });
+    for (QueryUnitAttempt straggler : stragglers.subList(0, Math.min(availableNum, stragglers.size()))) {
+      LOG.info("Straggler " + straggler.getId() + " on " + straggler.getHost() + " has run for "
+          + (now - straggler.getLaunchTime()) + " ms with progress " + straggler.getProgress()
+          + ", while the average running time is " + (long) meanRunTime + " ms");
+      subQuery.getEventHandler().handle(new TaskEvent(straggler.getQueryUnit().getId(),
+          TaskEventType.T_ADD_SPEC_ATTEMPT));
+    }
+  }
+
+  /**
+   * @param elapsed the elapsed time of an attempt in milliseconds
+   * @param progress the reported progress of an attempt
+   * @param meanRunTime the average running time of finished tasks in milliseconds
+   * @return true if the attempt is expected to run much longer than the finished tasks.
+   */
+  boolean isStraggler(long elapsed, float progress, double meanRunTime) {
+    if (elapsed < minRunTime) {
+      return false;
+    }
+    return estimateRunTime(elapsed, progress) > meanRunTime * slowTaskFactor;
+  }
+
+  /**
+   * It estimates the whole running time of an attempt from its progress rate. If there is no progress,
+   * the elapsed time is used as the lower bound of the running time.
+   */
+  static double estimateRunTime(long elapsed, float progress) {
+    if (progress > 0 && progress < 1) {
+      return elapsed / progress;
+    } else {
+      return elapsed;
+    }
+  }
+}
@@ -40,11 +40,13 @@ import org.apache.tajo.catalog.statistics.ColumnStats;
 import org.apache.tajo.catalog.statistics.StatisticsUtil;
 import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.engine.json.CoreGsonHelper;
 import org.apache.tajo.engine.planner.PlannerUtil;
 import org.apache.tajo.engine.planner.global.DataChannel;
 import org.apache.tajo.engine.planner.global.ExecutionBlock;
 import org.apache.tajo.engine.planner.global.MasterPlan;
 import org.apache.tajo.engine.planner.logical.*;
+import org.apache.tajo.engine.utils.JoinKeyFilter;
 import org.apache.tajo.ipc.TajoMasterProtocol;
 import org.apache.tajo.master.*;
 import org.apache.tajo.master.TaskRunnerGroupEvent.EventType;
@@ -78,6 +80,18 @@ public class SubQuery implements EventHandler<SubQueryEvent> {
   private Schema schema;
   private TableMeta meta;
   private TableStats statistics;
+  /** the join filter into which the filters of the committed attempts are merged while this subquery runs */
+  private JoinKeyFilter joinFilterBuilder;
+  /** the serialized join filter built by this subquery, or null if it is not built */
+  private byte [] joinFilter;
+  /** the serialized join filter of the other join side, which is shipped to the tasks of this subquery */
+  private byte [] probeJoinFilter;
+  /** the plan of this execution block serialized once, which is shared by all tasks */
+  private volatile byte [] serializedPlan;
+  /** the outputs of the running producer if this subquery is pipelined, or null otherwise */
+  private PipelinedShuffle pipelinedShuffle;
+  /** whether the consumer of this subquery has been requested to start before this subquery finishes */
+  private boolean pipelineRequested = false;
   private EventHandler<Event> eventHandler;
   private final AbstractStorageManager sm;
   private AbstractTaskScheduler taskScheduler;
@@ -281,6 +295,61 @@ public class SubQuery implements EventHandler<SubQueryEvent> {
     return block;
   }
 
+  /**
+   * All tasks of this subquery run the same plan of the execution block, so it is serialized only once
+   * instead of for every task assignment. It is shipped in the binary form of {@link CoreGsonHelper#toBinary}.
+   */
+  public byte [] getSerializedPlan() {
+    if (serializedPlan == null) {
+      serializedPlan = CoreGsonHelper.toBinary(block.getPlan(), LogicalNode.class);
+    }
+    return serializedPlan;
+  }
+
+  public void setPipelinedShuffle(PipelinedShuffle pipelinedShuffle) {
+    this.pipelinedShuffle = pipelinedShuffle;
+  }
+
+  public PipelinedShuffle getPipelinedShuffle() {
+    return pipelinedShuffle;
+  }
+
+  /**
+   * @return true if this subquery has been started before its producer is finished.
+   */
+  public boolean isPipelined() {
+    return pipelinedShuffle != null;
+  }
+
+  /**
+   * It passes the outputs of a succeeded task to the pipelined consumer, or requests the consumer to start
+   * if enough tasks have finished.
+   */
+  private void pipelineIfNecessary(QueryUnit task) {
+    if (masterPlan.isRoot(block)) {
+      return;
+    }
+    SubQuery consumer = context.getSubQuery(masterPlan.getParent(block).getId());
+    if (consumer != null) {
+      if (consumer.isPipelined()) {
+        consumer.getPipelinedShuffle().addOutputs(task);
+      }
+      return;
+    }
+
+    TajoConf conf = context.getConf();
+    if (pipelineRequested || !conf.getBoolVar(ConfVars.DIST_QUERY_PIPELINING_ENABLED)
+        || !(taskScheduler instanceof DefaultTaskScheduler)) {
+      return;
+    }
+    int taskNum = getQueryUnits().length;
+    if (completedTaskCount < taskNum
+        && completedTaskCount >= taskNum * conf.getFloatVar(ConfVars.DIST_QUERY_PIPELINING_SLOWSTART_RATIO)) {
+      pipelineRequested = true;
+      eventHandler.handle(new SubQueryPipelineEvent(getId()));
+    }
+  }
+
   public void addTask(QueryUnit task) {
     tasks.put(task.getId(), task);
   }
@@ -339,6 +408,25 @@ public class SubQuery implements EventHandler<SubQueryEvent> {
     return statistics;
   }
 
+  /**
+   * The tasks of this subquery build join filters of the given size, and they are merged into one filter.
+   */
+  public void buildJoinFilter(int bitNum, int hashNum) {
+    joinFilterBuilder = new JoinKeyFilter(bitNum, hashNum);
+  }
+
+  public byte [] getJoinFilter() {
+    return joinFilter;
+  }
+
+  public void setProbeJoinFilter(byte [] probeJoinFilter) {
+    this.probeJoinFilter = probeJoinFilter;
+  }
+
+  public byte [] getProbeJoinFilter() {
+    return probeJoinFilter;
+  }
+
   public List<String> getDiagnostics() {
     readLock.lock();
     try {
@@ -424,6 +512,36 @@ public class SubQuery implements EventHandler<SubQueryEvent> {
     return tableStats;
   }
 
+  /**
+   * Completes the join filter merged from all tasks. The filter is given up if it is likely to pass too many rows.
+   *
+   * @param keyNum the upper bound of the number of keys added to the filter
+   */
+  private byte [] completeJoinFilter(DataChannel channel, long keyNum) {
+    JoinKeyFilter merged = joinFilterBuilder;
+    joinFilterBuilder = null;
+    if (merged.getMergedNum() != getQueryUnits().length) {
+      LOG.info("The join filter of " + getId() + " is not used because some tasks have not built their filters");
+      return null;
+    }
+
+    TajoConf conf = context.getConf();
+    double falsePositiveRate = JoinKeyFilter.estimateFalsePositiveRate(channel.getJoinFilterBitNum(),
+        channel.getJoinFilterHashNum(), keyNum);
+    if (falsePositiveRate > conf.getFloatVar(ConfVars.DIST_QUERY_JOIN_FILTER_MAX_FALSE_POSITIVE)) {
+      LOG.info("The join filter of " + getId() + " is not used because of its estimated false positive rate ("
+          + falsePositiveRate + ")");
+      return null;
+    }
+
+    try {
+      return merged.toBytes();
+    } catch (IOException e) {
+      LOG.warn("The join filter of " + getId() + " cannot be serialized", e);
+      return null;
+    }
+  }
+
   private void stopScheduler() {
     // If there are launched TaskRunners, send the 'shouldDie' message to all r
     // via received task requests.
@@ -457,6 +575,9 @@ public class SubQuery implements EventHandler<SubQueryEvent> {
     schema = channel.getSchema();
     meta = CatalogUtil.newTableMeta(storeType, new Options());
     statistics = stats;
+    if (joinFilterBuilder != null) {
+      joinFilter = completeJoinFilter(channel, stats.getNumRows());
+    }
     setFinishTime();
 
     eventHandler.handle(new SubQuerySucceeEvent(getId()));
@@ -513,6 +634,7 @@ public class SubQuery implements EventHandler<SubQueryEvent> {
           ExecutionBlock parent = subQuery.getMasterPlan().getParent(subQuery.getBlock());
           DataChannel channel = subQuery.getMasterPlan().getChannel(subQuery.getId(), parent.getId());
           setShuffleIfNecessary(subQuery, channel);
+          Repartitioner.setJoinFilterIfNecessary(subQuery, channel);
           initTaskScheduler(subQuery);
           schedule(subQuery);
           LOG.info(subQuery.getTaskScheduler().remainingScheduledObjectNum() + " objects are scheduled");
@@ -665,7 +787,9 @@ public class SubQuery implements EventHandler<SubQueryEvent> {
         scheduleFragmentsForLeafQuery(subQuery);
       } else if (execBlock.getScanNodes().length > 1) { // Case 2: Join
         Repartitioner.scheduleFragmentsForJoinQuery(subQuery.schedulerContext, subQuery);
-      } else { // Case 3: Others (Sort or Aggregation)
+      } else if (subQuery.isPipelined()) { // Case 3: Aggregation started before its producer finishes
+        Repartitioner.schedulePipelinedHashShuffledFetches(subQuery.schedulerContext, masterPlan, subQuery);
+      } else { // Case 4: Others (Sort or Aggregation)
         int numTasks = getNonLeafTaskNum(subQuery);
 //        ExecutionBlockId childId = masterPlan.getChilds(subQuery.getBlock()).get(0).getId();
 //        SubQuery child = subQuery.context.getSubQuery(childId);
@@ -814,6 +938,11 @@ public class SubQuery implements EventHandler<SubQueryEvent> {
         subQuery.getId(), fetches));
   }
 
+  public static void schedulePipelinedFetches(SubQuery subQuery, Map<String, List<URI>> fetches, int partId) {
+    subQuery.taskScheduler.handle(new FetchScheduleEvent(TaskSchedulerEvent.EventType.T_SCHEDULE,
+        subQuery.getId(), fetches, partId));
+  }
+
   public static QueryUnit newEmptyQueryUnit(TaskSchedulerContext schedulerContext,
                                             QueryUnitAttemptScheduleContext queryUnitContext,
                                             SubQuery subQuery, int taskId) {
@@ -823,6 +952,7 @@ public class SubQuery implements EventHandler<SubQueryEvent> {
         QueryIdFactory.newQueryUnitId(schedulerContext.getBlockId(), taskId),
         schedulerContext.isLeafQuery(), subQuery.eventHandler);
     unit.setLogicalPlan(execBlock.getPlan());
+    unit.setJoinFilter(subQuery.joinFilterBuilder);
     subQuery.addTask(unit);
     return unit;
   }
@@ -888,6 +1018,7 @@ public class SubQuery implements EventHandler<SubQueryEvent> {
       } else {
         LOG.info(subQuery.getId() + " SubQuery Succeeded " + subQuery.completedTaskCount + "/"
             + subQuery.schedulerContext.getEstimatedTaskNum() + " on " + task.getHost() + ":" + task.getPort());
+        subQuery.pipelineIfNecessary(task.getQueryUnit());
         if (subQuery.taskScheduler.remainingScheduledObjectNum() == 0
             && subQuery.getQueryUnits().length == subQuery.completedTaskCount) {
           subQuery.eventHandler.handle(new SubQueryEvent(subQuery.getId(),
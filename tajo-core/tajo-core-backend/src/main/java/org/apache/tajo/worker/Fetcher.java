@@ -29,11 +29,11 @@ import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
 import org.jboss.netty.handler.codec.http.*;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.net.InetSocketAddress;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -43,12 +43,19 @@ import static org.jboss.netty.channel.Channels.pipeline;
 /**
  * Fetcher fetches data from a given uri via HTTP protocol and stores them into
  * a specific file. It aims at asynchronous and efficient data transmit.
+ *
+ * If a {@link ShuffleFetchService} is given, the request is sent over a connection shared
+ * by the worker. Otherwise, the fetcher opens its own connection and closes it after the fetch.
+ *
+ * If a {@link ShuffleStream} is given, the fetched data are passed to the stream, and the file is used
+ * only when the stream spills the data.
  */
 public class Fetcher {
   private final static Log LOG = LogFactory.getLog(Fetcher.class);
 
   private final URI uri;
   private final File file;
+  private final ShuffleFetchService fetchService;
 
   private final String host;
   private int port;
@@ -60,9 +67,23 @@ public class Fetcher {
   private ChannelFactory factory;
   private ClientBootstrap bootstrap;
 
+  // the state of the response being received
+  private boolean readingChunks;
+  private RandomAccessFile raf;
+  private FileChannel fc;
+  private long length = -1;
+
+  private ShuffleStream stream;
+  private ShuffleStream.Segment segment;
+
   public Fetcher(URI uri, File file) {
+    this(uri, file, null);
+  }
+
+  public Fetcher(URI uri, File file, ShuffleFetchService fetchService) {
     this.uri = uri;
     this.file = file;
+    this.fetchService = fetchService;
 
     String scheme = uri.getScheme() == null ? "http" : uri.getScheme();
     this.host = uri.getHost() == null ? "localhost" : uri.getHost();
@@ -75,6 +96,10 @@ public class Fetcher {
       }
     }
 
+    if (fetchService != null) {
+      return;
+    }
+
     ThreadFactory bossFactory = new ThreadFactoryBuilder()
         .setNameFormat("Fetcher Netty Boss #%d")
         .build();
@@ -91,7 +116,7 @@ public class Fetcher {
     bootstrap.setOption("receiveBufferSize", 1048576); // set 1M
     bootstrap.setOption("tcpNoDelay", true);
 
-    ChannelPipelineFactory factory = new HttpClientPipelineFactory(file);
+    ChannelPipelineFactory factory = new HttpClientPipelineFactory();
     bootstrap.setPipelineFactory(factory);
   }
 
@@ -123,8 +148,38 @@ public class Fetcher {
     }
   }
 
+  public void setStream(ShuffleStream stream) {
+    this.stream = stream;
+  }
+
+  public ShuffleStream getStream() {
+    return stream;
+  }
+
+  String getHost() {
+    return host;
+  }
+
+  int getPort() {
+    return port;
+  }
+
   public File get() throws IOException {
     startTime = System.currentTimeMillis();
+    readingChunks = false;
+    length = -1;
+
+    if (fetchService != null) {
+      try {
+        fetchService.fetch(this);
+      } finally {
+        IOUtils.cleanup(LOG, fc, raf);
+        raf = null;
+        discardSegment();
+      }
+      finishTime = System.currentTimeMillis();
+      return file;
+    }
 
     ChannelFuture future = bootstrap.connect(new InetSocketAddress(host, port));
 
@@ -135,18 +190,8 @@ public class Fetcher {
       throw new IOException(future.getCause());
     }
 
-    String query = uri.getPath()
-        + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
-    // Prepare the HTTP request.
-    HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, query);
-    request.setHeader(HttpHeaders.Names.HOST, host);
-    LOG.info("Fetch: " + uri);
-    request.setHeader(HttpHeaders.Names.CONNECTION, HttpHeaders.Values.CLOSE);
-    request.setHeader(HttpHeaders.Names.ACCEPT_ENCODING, HttpHeaders.Values.GZIP);
-
-
     // Send the HTTP request.
-    ChannelFuture channelFuture = channel.write(request);
+    ChannelFuture channelFuture = channel.write(createRequest(false));
 
     // Wait for the server to close the connection.
     channel.getCloseFuture().awaitUninterruptibly();
@@ -155,6 +200,7 @@ public class Fetcher {
 
     // Shut down executor threads to exit.
     bootstrap.releaseExternalResources();
+    discardSegment();
     finishTime = System.currentTimeMillis();
     return file;
   }
@@ -163,99 +209,136 @@ public class Fetcher {
     return this.uri;
   }
 
-  class HttpClientHandler extends SimpleChannelUpstreamHandler {
-    private volatile boolean readingChunks;
-    private final File file;
-    private RandomAccessFile raf;
-    private FileChannel fc;
-    private long length = -1;
-
-    public HttpClientHandler(File file) throws FileNotFoundException {
-      this.file = file;
+  private void discardSegment() {
+    if (segment != null) {
+      stream.discard(segment);
+      segment = null;
     }
+  }
 
-    @Override
-    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e)
-        throws Exception {
-      messageReceiveCount++;
-      try {
-        if (!readingChunks) {
-          HttpResponse response = (HttpResponse) e.getMessage();
-
-          StringBuilder sb = new StringBuilder();
-          if (LOG.isDebugEnabled()) {
-            sb.append("STATUS: ").append(response.getStatus())
-                .append(", VERSION: ").append(response.getProtocolVersion())
-                .append(", HEADER: ");
-          }
-          if (!response.getHeaderNames().isEmpty()) {
-            for (String name : response.getHeaderNames()) {
-              for (String value : response.getHeaders(name)) {
-                if (LOG.isDebugEnabled()) {
-                  sb.append(name).append(" = ").append(value);
-                }
-                if (this.length == -1 && name.equals("Content-Length")) {
-                  this.length = Long.valueOf(value);
-                }
+  private void write(ByteBuffer buffer) throws IOException {
+    if (segment != null) {
+      segment.write(buffer);
+    } else {
+      fc.write(buffer);
+    }
+  }
+
+  HttpRequest createRequest(boolean keepAlive) {
+    String query = uri.getPath()
+        + (uri.getRawQuery() != null ? "?" + uri.getRawQuery() : "");
+    // Prepare the HTTP request.
+    HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, query);
+    request.setHeader(HttpHeaders.Names.HOST, host);
+    LOG.info("Fetch: " + uri);
+    request.setHeader(HttpHeaders.Names.CONNECTION,
+        keepAlive ? HttpHeaders.Values.KEEP_ALIVE : HttpHeaders.Values.CLOSE);
+    request.setHeader(HttpHeaders.Names.ACCEPT_ENCODING, HttpHeaders.Values.GZIP);
+    return request;
+  }
+
+  /**
+   * Receives a message of the response.
+   *
+   * @return true if the response is completely received
+   */
+  boolean receive(Object message) throws IOException {
+    messageReceiveCount++;
+    boolean done = false;
+    try {
+      if (!readingChunks) {
+        HttpResponse response = (HttpResponse) message;
+
+        StringBuilder sb = new StringBuilder();
+        if (LOG.isDebugEnabled()) {
+          sb.append("STATUS: ").append(response.getStatus())
+              .append(", VERSION: ").append(response.getProtocolVersion())
+              .append(", HEADER: ");
+        }
+        if (!response.getHeaderNames().isEmpty()) {
+          for (String name : response.getHeaderNames()) {
+            for (String value : response.getHeaders(name)) {
+              if (LOG.isDebugEnabled()) {
+                sb.append(name).append(" = ").append(value);
+              }
+              if (this.length == -1 && name.equals("Content-Length")) {
+                this.length = Long.valueOf(value);
               }
             }
           }
-          if (LOG.isDebugEnabled()) {
-            LOG.debug(sb.toString());
-          }
+        }
+        if (LOG.isDebugEnabled()) {
+          LOG.debug(sb.toString());
+        }
 
-          if (response.getStatus() == HttpResponseStatus.NO_CONTENT) {
-            LOG.info("There are no data corresponding to the request");
-            return;
-          }
+        if (response.getStatus() == HttpResponseStatus.NO_CONTENT) {
+          LOG.info("There are no data corresponding to the request");
+          done = true;
+          return done;
+        }
 
+        if (stream != null) {
+          segment = stream.newSegment(file, length);
+        } else {
           this.raf = new RandomAccessFile(file, "rw");
+          this.raf.setLength(0);
           this.fc = raf.getChannel();
+        }
 
-          if (response.isChunked()) {
-            readingChunks = true;
-          } else {
-            ChannelBuffer content = response.getContent();
-            if (content.readable()) {
-              fc.write(content.toByteBuffer());
-            }
-          }
+        if (response.isChunked()) {
+          readingChunks = true;
         } else {
-          HttpChunk chunk = (HttpChunk) e.getMessage();
-          if (chunk.isLast()) {
-            readingChunks = false;
-            long fileLength = file.length();
-            if (fileLength == length) {
-              LOG.info("Data fetch is done (total received bytes: " + fileLength
-                  + ")");
-            } else {
-              LOG.info("Data fetch is done, but cannot get all data "
-                  + "(received/total: " + fileLength + "/" + length + ")");
-            }
-          } else {
-            fc.write(chunk.getContent().toByteBuffer());
+          ChannelBuffer content = response.getContent();
+          if (content.readable()) {
+            write(content.toByteBuffer());
           }
+          done = true;
         }
-      } finally {
-        if(raf != null) {
-          fileLen = file.length();
+      } else {
+        HttpChunk chunk = (HttpChunk) message;
+        if (chunk.isLast()) {
+          readingChunks = false;
+          done = true;
+          long fileLength = segment != null ? segment.getLength() : file.length();
+          if (fileLength == length) {
+            LOG.info("Data fetch is done (total received bytes: " + fileLength
+                + ")");
+          } else {
+            LOG.info("Data fetch is done, but cannot get all data "
+                + "(received/total: " + fileLength + "/" + length + ")");
+          }
+        } else {
+          write(chunk.getContent().toByteBuffer());
         }
+      }
+    } finally {
+      if(raf != null) {
+        fileLen = file.length();
+      } else if (segment != null) {
+        fileLen = segment.getLength();
+      }
 
-        if(fileLen >= length){
-          IOUtils.cleanup(LOG, fc, raf);
-
-        }
+      if(done || fileLen >= length){
+        IOUtils.cleanup(LOG, fc, raf);
       }
     }
+    if (done && segment != null) {
+      stream.complete(segment);
+      segment = null;
+    }
+    return done;
+  }
+
+  class HttpClientHandler extends SimpleChannelUpstreamHandler {
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e)
+        throws Exception {
+      receive(e.getMessage());
+    }
   }
 
   class HttpClientPipelineFactory implements
       ChannelPipelineFactory {
-    private final File file;
-
-    public HttpClientPipelineFactory(File file) {
-      this.file = file;
-    }
 
     @Override
     public ChannelPipeline getPipeline() throws Exception {
@@ -263,7 +346,7 @@ public class Fetcher {
 
       pipeline.addLast("codec", new HttpClientCodec());
       pipeline.addLast("inflater", new HttpContentDecompressor());
-      pipeline.addLast("handler", new HttpClientHandler(file));
+      pipeline.addLast("handler", new HttpClientHandler());
       return pipeline;
     }
   }
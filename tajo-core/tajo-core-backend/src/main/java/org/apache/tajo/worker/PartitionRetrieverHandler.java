@@ -18,6 +18,7 @@
 
 package org.apache.tajo.worker;
 
+import org.apache.tajo.storage.HashShuffleIndex;
 import org.apache.tajo.worker.dataserver.retriever.FileChunk;
 import org.apache.tajo.worker.dataserver.retriever.RetrieverHandler;
 
@@ -39,6 +40,16 @@ public class PartitionRetrieverHandler implements RetrieverHandler {
     // its validity of the file.
     File file = new File(baseDir + "/" + kvs.get("fn").get(0));
 
+    // a consolidated hash shuffle output keeps all partitions in a single data file
+    File indexFile = new File(file.getParentFile(), HashShuffleIndex.INDEX_FILE_NAME);
+    if (!file.exists() && indexFile.exists()) {
+      long [] range = HashShuffleIndex.read(indexFile, Integer.parseInt(file.getName()));
+      if (range == null) {
+        return null;
+      }
+      return new FileChunk(new File(file.getParentFile(), HashShuffleIndex.DATA_FILE_NAME), range[0], range[1]);
+    }
+
     return new FileChunk(file, 0, file.length());
   }
 }
@@ -0,0 +1,347 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.worker;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.service.AbstractService;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.jboss.netty.bootstrap.ClientBootstrap;
+import org.jboss.netty.channel.*;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.jboss.netty.handler.codec.http.HttpClientCodec;
+import org.jboss.netty.handler.codec.http.HttpContentDecompressor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import static org.jboss.netty.channel.Channels.pipeline;
+
+/**
+ * ShuffleFetchService is a worker-wide service for {@link Fetcher}s. All fetchers share one Netty event loop,
+ * and the connections to each pull server are kept alive and reused by later fetches.
+ *
+ * Requests to the same host are pipelined over the connections, and the number of outstanding requests
+ * to a host is limited by <code>tajo.shuffle.fetcher.requests-per-host</code>. A new connection is opened
+ * only if all connections to the host are busy and the number of connections is less than
+ * <code>tajo.shuffle.fetcher.connections-per-host</code>.
+ */
+public class ShuffleFetchService extends AbstractService {
+  private static final Log LOG = LogFactory.getLog(ShuffleFetchService.class);
+
+  private final Map<String, HostConnections> hostMap = new HashMap<String, HostConnections>();
+  private int connectionsPerHost;
+  private int requestsPerHost;
+  private int connectTimeoutMillis;
+
+  private ChannelFactory channelFactory;
+  private ClientBootstrap bootstrap;
+
+  public ShuffleFetchService() {
+    super(ShuffleFetchService.class.getName());
+  }
+
+  @Override
+  public void init(Configuration conf) {
+    TajoConf tajoConf = (TajoConf) conf;
+    connectionsPerHost = Math.max(1, tajoConf.getIntVar(ConfVars.SHUFFLE_FETCHER_CONNECTIONS_PER_HOST));
+    requestsPerHost = Math.max(1, tajoConf.getIntVar(ConfVars.SHUFFLE_FETCHER_REQUESTS_PER_HOST));
+    connectTimeoutMillis = tajoConf.getIntVar(ConfVars.SHUFFLE_FETCHER_CONNECT_TIMEOUT);
+    super.init(conf);
+  }
+
+  @Override
+  public void start() {
+    channelFactory = new NioClientSocketChannelFactory(
+        Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("Fetch Service Boss #%d").build()),
+        Executors.newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("Fetch Service Worker #%d").build()));
+
+    bootstrap = new ClientBootstrap(channelFactory);
+    bootstrap.setOption("connectTimeoutMillis", connectTimeoutMillis);
+    bootstrap.setOption("receiveBufferSize", 1048576); // set 1M
+    bootstrap.setOption("tcpNoDelay", true);
+    bootstrap.setOption("keepAlive", true);
+    bootstrap.setPipelineFactory(new ChannelPipelineFactory() {
+      @Override
+      public ChannelPipeline getPipeline() throws Exception {
+        ChannelPipeline pipeline = pipeline();
+        pipeline.addLast("codec", new HttpClientCodec());
+        pipeline.addLast("inflater", new HttpContentDecompressor());
+        pipeline.addLast("handler", new FetchConnection());
+        return pipeline;
+      }
+    });
+    LOG.info("ShuffleFetchService started (connections-per-host=" + connectionsPerHost
+        + ", requests-per-host=" + requestsPerHost + ")");
+    super.start();
+  }
+
+  @Override
+  public void stop() {
+    List<FetchConnection> connections = new ArrayList<FetchConnection>();
+    synchronized (hostMap) {
+      for (HostConnections host : hostMap.values()) {
+        synchronized (host) {
+          connections.addAll(host.connections);
+        }
+      }
+      hostMap.clear();
+    }
+    for (FetchConnection connection : connections) {
+      connection.channel.close().awaitUninterruptibly();
+    }
+    if (bootstrap != null) {
+      bootstrap.releaseExternalResources();
+    }
+    LOG.info("ShuffleFetchService stopped");
+    super.stop();
+  }
+
+  /**
+   * Fetches the data of a fetcher. It blocks until the whole response is received.
+   */
+  void fetch(Fetcher fetcher) throws IOException {
+    HostConnections host = getHostConnections(fetcher.getHost(), fetcher.getPort());
+    try {
+      host.permits.acquire();
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException("Interrupted while waiting for " + fetcher.getURI());
+    }
+
+    try {
+      FetchRequest request = new FetchRequest(fetcher);
+      FetchConnection connection = host.getConnection();
+      if (!connection.offer(request)) {
+        throw new IOException("Connection to " + host.address + " is closed");
+      }
+      request.await();
+    } finally {
+      host.permits.release();
+    }
+  }
+
+  private HostConnections getHostConnections(String hostName, int port) {
+    String key = hostName + ":" + port;
+    synchronized (hostMap) {
+      HostConnections host = hostMap.get(key);
+      if (host == null) {
+        host = new HostConnections(new InetSocketAddress(hostName, port));
+        hostMap.put(key, host);
+      }
+      return host;
+    }
+  }
+
+  int getConnectionNum() {
+    int num = 0;
+    synchronized (hostMap) {
+      for (HostConnections host : hostMap.values()) {
+        synchronized (host) {
+          num += host.connections.size();
+        }
+      }
+    }
+    return num;
+  }
+
+  /**
+   * The connections to a pull server.
+   */
+  private class HostConnections {
+    private final InetSocketAddress address;
+    private final Semaphore permits = new Semaphore(requestsPerHost, true);
+    private final List<FetchConnection> connections = new ArrayList<FetchConnection>();
+    // the connections being opened, which are counted in the limit of connections
+    private final List<ChannelFuture> connecting = new ArrayList<ChannelFuture>();
+
+    HostConnections(InetSocketAddress address) {
+      this.address = address;
+    }
+
+    /**
+     * Returns the least loaded connection. A new connection is opened if there is no idle connection
+     * and the number of connections does not reach the limit. The lock is not held while connecting,
+     * so a slow host does not block the fetches which can use the existing connections.
+     */
+    FetchConnection getConnection() throws IOException {
+      ChannelFuture future;
+      synchronized (this) {
+        FetchConnection leastLoaded = null;
+        Iterator<FetchConnection> it = connections.iterator();
+        while (it.hasNext()) {
+          FetchConnection connection = it.next();
+          if (!connection.channel.isConnected()) {
+            it.remove();
+          } else if (leastLoaded == null || connection.getPendingNum() < leastLoaded.getPendingNum()) {
+            leastLoaded = connection;
+          }
+        }
+
+        int num = connections.size() + connecting.size();
+        if (leastLoaded != null && (leastLoaded.getPendingNum() == 0 || num >= connectionsPerHost)) {
+          return leastLoaded;
+        }
+
+        // if all connections are being opened, it shares one of them.
+        future = num < connectionsPerHost ? connect() : connecting.get(0);
+      }
+
+      if (!future.awaitUninterruptibly(connectTimeoutMillis)) {
+        future.cancel();
+        throw new IOException("Connecting to " + address + " timed out after " + connectTimeoutMillis + " ms");
+      }
+      if (!future.isSuccess()) {
+        throw new IOException("Cannot connect to " + address, future.getCause());
+      }
+      // the listener of the future may not have added the connection yet.
+      return getConnection(future.getChannel());
+    }
+
+    /**
+     * Starts to open a new connection. The connection is added when it is established.
+     */
+    private ChannelFuture connect() {
+      ChannelFuture future = bootstrap.connect(address);
+      connecting.add(future);
+      future.addListener(new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) throws Exception {
+          synchronized (HostConnections.this) {
+            connecting.remove(future);
+            if (future.isSuccess()) {
+              connections.add(getConnection(future.getChannel()));
+            }
+          }
+        }
+      });
+      return future;
+    }
+
+    private FetchConnection getConnection(Channel channel) {
+      FetchConnection connection = (FetchConnection) channel.getPipeline().get("handler");
+      connection.channel = channel;
+      return connection;
+    }
+  }
+
+  private static class FetchRequest {
+    private final Fetcher fetcher;
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private volatile IOException cause;
+
+    FetchRequest(Fetcher fetcher) {
+      this.fetcher = fetcher;
+    }
+
+    void done(IOException cause) {
+      this.cause = cause;
+      latch.countDown();
+    }
+
+    void await() throws IOException {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException("Interrupted while fetching " + fetcher.getURI());
+      }
+      if (cause != null) {
+        throw cause;
+      }
+    }
+  }
+
+  /**
+   * A keep-alive connection to a pull server. Responses arrive in the order of requests,
+   * so a response always belongs to the oldest pending request.
+   */
+  private static class FetchConnection extends SimpleChannelUpstreamHandler {
+    private volatile Channel channel;
+    private final Queue<FetchRequest> pending = new LinkedList<FetchRequest>();
+    private boolean closed = false;
+
+    synchronized int getPendingNum() {
+      return pending.size();
+    }
+
+    synchronized boolean offer(FetchRequest request) {
+      if (closed) {
+        return false;
+      }
+      pending.add(request);
+      channel.write(request.fetcher.createRequest(true));
+      return true;
+    }
+
+    @Override
+    public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+      FetchRequest request;
+      synchronized (this) {
+        request = pending.peek();
+      }
+      if (request == null) {
+        LOG.warn("Unexpected response from " + ctx.getChannel().getRemoteAddress());
+        return;
+      }
+
+      boolean done;
+      try {
+        done = request.fetcher.receive(e.getMessage());
+      } catch (IOException ioe) {
+        // the rest of the response cannot be consumed
+        ctx.getChannel().close();
+        throw ioe;
+      }
+      if (done) {
+        synchronized (this) {
+          pending.poll();
+        }
+        request.done(null);
+      }
+    }
+
+    @Override
+    public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+      List<FetchRequest> failed;
+      synchronized (this) {
+        closed = true;
+        failed = new ArrayList<FetchRequest>(pending);
+        pending.clear();
+      }
+      for (FetchRequest request : failed) {
+        request.done(new IOException("Connection to " + ctx.getChannel().getRemoteAddress()
+            + " is closed before " + request.fetcher.getURI() + " is fetched"));
+      }
+      super.channelClosed(ctx, e);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception {
+      LOG.error("Fetch failed: " + e.getCause().getMessage(), e.getCause());
+      ctx.getChannel().close();
+    }
+  }
+}
@@ -0,0 +1,225 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.worker;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.io.IOUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedList;
+
+/**
+ * ShuffleStream passes fetched shuffle data of an input table to the consuming scanner without
+ * materializing them on local disks. Each fetch response becomes a {@link Segment}, which is visible to
+ * the consumer once the response is completely received. A segment is kept in memory if it fits
+ * in the memory budget. Otherwise, it is spilled to the local file of its fetcher.
+ */
+public class ShuffleStream {
+  private static final Log LOG = LogFactory.getLog(ShuffleStream.class);
+
+  private final String tableName;
+  private final long memoryLimit;
+  private final LinkedList<Segment> completed = new LinkedList<Segment>();
+  private int remainingFetches;
+  private long usedMemory = 0;
+
+  // for statistics
+  private int segmentNum = 0;
+  private int spilledSegmentNum = 0;
+
+  public ShuffleStream(String tableName, int fetchNum, long memoryLimit) {
+    this.tableName = tableName;
+    this.remainingFetches = fetchNum;
+    this.memoryLimit = memoryLimit;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+
+  /**
+   * Creates a segment for a fetch response.
+   *
+   * @param spillFile the file to which the segment is spilled
+   * @param length the length of the response, or -1 if it is unknown
+   */
+  public synchronized Segment newSegment(File spillFile, long length) throws IOException {
+    if (length >= 0 && length <= Integer.MAX_VALUE && usedMemory + length <= memoryLimit) {
+      usedMemory += length;
+      return new Segment((int) length);
+    } else {
+      spilledSegmentNum++;
+      return new Segment(spillFile);
+    }
+  }
+
+  /**
+   * Makes a segment visible to the consumer.
+   */
+  public synchronized void complete(Segment segment) throws IOException {
+    segment.finish();
+    if (segment.getLength() > 0) {
+      completed.add(segment);
+      segmentNum++;
+    } else {
+      release(segment);
+    }
+    notifyAll();
+  }
+
+  /**
+   * Drops a segment which is not completely received.
+   */
+  public synchronized void discard(Segment segment) {
+    segment.finish();
+    release(segment);
+  }
+
+  /**
+   * Notifies that a fetcher finishes, whether it succeeds or not.
+   */
+  public synchronized void fetchFinished() {
+    remainingFetches--;
+    notifyAll();
+    if (remainingFetches == 0) {
+      LOG.info("All fetches of " + tableName + " are done (segments: " + segmentNum
+          + ", spilled: " + spilledSegmentNum + ")");
+    }
+  }
+
+  /**
+   * Waits until any data are available or all fetches finish.
+   *
+   * @return true if there are data to be consumed.
+   */
+  public synchronized boolean awaitData() throws InterruptedIOException {
+    while (completed.isEmpty() && remainingFetches > 0) {
+      waitForUpdate();
+    }
+    return !completed.isEmpty();
+  }
+
+  /**
+   * Takes the next completed segment. It blocks until a segment is completed.
+   *
+   * @return a segment, or null if all fetches finish and all segments are taken.
+   */
+  public synchronized Segment take() throws InterruptedIOException {
+    if (!awaitData()) {
+      return null;
+    }
+    return completed.poll();
+  }
+
+  private void waitForUpdate() throws InterruptedIOException {
+    try {
+      wait();
+    } catch (InterruptedException e) {
+      throw new InterruptedIOException("Interrupted while waiting for fetched data of " + tableName);
+    }
+  }
+
+  /**
+   * Releases the resources of a consumed segment.
+   */
+  public synchronized void release(Segment segment) {
+    if (segment.isInMemory()) {
+      usedMemory -= segment.data.length;
+      segment.data = null;
+    } else if (segment.file.exists() && !segment.file.delete()) {
+      LOG.warn("Cannot delete " + segment.file);
+    }
+  }
+
+  synchronized long getUsedMemory() {
+    return usedMemory;
+  }
+
+  synchronized int getSpilledSegmentNum() {
+    return spilledSegmentNum;
+  }
+
+  /**
+   * A fetch response kept in memory or in a spill file.
+   */
+  public static class Segment {
+    private byte [] data;
+    private final File file;
+    private RandomAccessFile raf;
+    private FileChannel fc;
+    private long length = 0;
+
+    Segment(int capacity) {
+      this.data = new byte[capacity];
+      this.file = null;
+    }
+
+    Segment(File file) throws IOException {
+      this.file = file;
+      this.raf = new RandomAccessFile(file, "rw");
+      this.raf.setLength(0);
+      this.fc = raf.getChannel();
+    }
+
+    public boolean isInMemory() {
+      return file == null;
+    }
+
+    public byte [] getData() {
+      return data;
+    }
+
+    public File getFile() {
+      return file;
+    }
+
+    public long getLength() {
+      return length;
+    }
+
+    public void write(ByteBuffer buffer) throws IOException {
+      int n = buffer.remaining();
+      if (isInMemory()) {
+        if (length + n > data.length) {
+          throw new IOException("Received data exceed the content length (" + data.length + ")");
+        }
+        buffer.get(data, (int) length, n);
+      } else {
+        while (buffer.hasRemaining()) {
+          fc.write(buffer);
+        }
+      }
+      length += n;
+    }
+
+    void finish() {
+      if (fc != null) {
+        IOUtils.cleanup(LOG, fc, raf);
+        fc = null;
+        raf = null;
+      }
+    }
+  }
+}
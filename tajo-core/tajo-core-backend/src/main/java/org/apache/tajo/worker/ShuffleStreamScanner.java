@@ -0,0 +1,169 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.worker;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.storage.RawFile;
+import org.apache.tajo.storage.Scanner;
+import org.apache.tajo.storage.Tuple;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ShuffleStreamScanner reads the segments of a {@link ShuffleStream} in the order of their completion, so
+ * the consumer can proceed while the rest of the data are being fetched. The segments which have been read
+ * are kept in memory or in their spill files until this scanner is closed, so {@link #reset()} reads them
+ * again, e.g., for the inner relation of a nested loop join.
+ */
+public class ShuffleStreamScanner implements Scanner {
+  private final Configuration conf;
+  private final Schema schema;
+  private final TableMeta meta;
+  private final ShuffleStream stream;
+  private Object searchCondition;
+
+  /** the segments taken from the stream so far */
+  private final List<ShuffleStream.Segment> segments = new ArrayList<ShuffleStream.Segment>();
+  /** the index of the segment being read */
+  private int segmentIdx = 0;
+  private Scanner current;
+
+  public ShuffleStreamScanner(Configuration conf, Schema schema, TableMeta meta, ShuffleStream stream) {
+    this.conf = conf;
+    this.schema = schema;
+    this.meta = meta;
+    this.stream = stream;
+  }
+
+  @Override
+  public void init() throws IOException {
+  }
+
+  @Override
+  public Tuple next() throws IOException {
+    Tuple tuple;
+    while (true) {
+      if (current == null && !nextSegment()) {
+        return null;
+      }
+      if ((tuple = current.next()) != null) {
+        return tuple;
+      }
+      closeSegment();
+      segmentIdx++;
+    }
+  }
+
+  private boolean nextSegment() throws IOException {
+    ShuffleStream.Segment segment;
+    if (segmentIdx < segments.size()) {
+      // the segment is read again after reset()
+      segment = segments.get(segmentIdx);
+    } else {
+      segment = stream.take();
+      if (segment == null) {
+        return false;
+      }
+      segments.add(segment);
+    }
+    if (segment.isInMemory()) {
+      current = new RawFile.RawFileScanner(conf, schema, meta,
+          Channels.newChannel(new ByteArrayInputStream(segment.getData(), 0, (int) segment.getLength())),
+          segment.getLength());
+    } else {
+      current = new RawFile.RawFileScanner(conf, schema, meta, new Path(segment.getFile().toURI()));
+    }
+    if (searchCondition != null) {
+      current.setSearchCondition(searchCondition);
+    }
+    return true;
+  }
+
+  private void closeSegment() throws IOException {
+    try {
+      current.close();
+    } finally {
+      current = null;
+    }
+  }
+
+  @Override
+  public void reset() throws IOException {
+    if (current != null) {
+      closeSegment();
+    }
+    segmentIdx = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (current != null) {
+        closeSegment();
+      }
+    } finally {
+      for (ShuffleStream.Segment segment : segments) {
+        stream.release(segment);
+      }
+      segments.clear();
+      // release the segments which are not consumed
+      ShuffleStream.Segment segment;
+      while ((segment = stream.take()) != null) {
+        stream.release(segment);
+      }
+    }
+  }
+
+  @Override
+  public boolean isProjectable() {
+    return false;
+  }
+
+  @Override
+  public void setTarget(Column[] targets) {
+  }
+
+  @Override
+  public boolean isSelectable() {
+    return true;
+  }
+
+  @Override
+  public void setSearchCondition(Object expr) {
+    this.searchCondition = expr;
+  }
+
+  @Override
+  public boolean isSplittable() {
+    return false;
+  }
+
+  @Override
+  public Schema getSchema() {
+    return schema;
+  }
+}
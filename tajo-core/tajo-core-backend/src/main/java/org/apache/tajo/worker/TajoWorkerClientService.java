@@ -180,7 +180,8 @@ public class TajoWorkerClientService extends AbstractService {
           builder.setSubmitTime(query.getAppSubmitTime());
           builder.setHasResult(
               !(queryMasterTask.getQueryTaskContext().getQueryContext().isCreateTable() ||
-                  queryMasterTask.getQueryTaskContext().getQueryContext().isInsert())
+                  queryMasterTask.getQueryTaskContext().getQueryContext().isInsert() ||
+                  queryMasterTask.getQueryTaskContext().getQueryContext().isAnalyze())
           );
           if (query.getState() == TajoProtos.QueryState.QUERY_SUCCEEDED) {
             builder.setFinishTime(query.getFinishTime());
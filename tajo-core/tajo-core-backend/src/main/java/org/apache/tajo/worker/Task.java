@@ -20,6 +20,8 @@ package org.apache.tajo.worker;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.RpcCallback;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -34,9 +36,10 @@ import org.apache.tajo.TajoProtos.TaskAttemptState;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.catalog.TableDesc;
 import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
 import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.conf.TajoConf;
-import org.apache.tajo.engine.json.CoreGsonHelper;
+import org.apache.tajo.conf.TajoConf.ConfVars;
 import org.apache.tajo.engine.planner.PlannerUtil;
 import org.apache.tajo.engine.planner.logical.LogicalNode;
 import org.apache.tajo.engine.planner.logical.NodeType;
@@ -47,7 +50,9 @@ import org.apache.tajo.engine.query.QueryContext;
 import org.apache.tajo.engine.query.QueryUnitRequest;
 import org.apache.tajo.ipc.QueryMasterProtocol.QueryMasterProtocolService;
 import org.apache.tajo.ipc.TajoWorkerProtocol.*;
+import org.apache.tajo.rpc.CallFuture;
 import org.apache.tajo.rpc.NullCallback;
+import org.apache.tajo.rpc.protocolrecords.PrimitiveProtos.BoolProto;
 import org.apache.tajo.storage.StorageUtil;
 import org.apache.tajo.storage.TupleComparator;
 import org.apache.tajo.storage.fragment.FileFragment;
@@ -59,12 +64,21 @@ import java.net.URI;
 import java.text.NumberFormat;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.apache.tajo.catalog.proto.CatalogProtos.FragmentProto;
 
 public class Task {
   private static final Log LOG = LogFactory.getLog(Task.class);
+  /** the initial and the maximum intervals of asking QueryMaster for the outputs of a running producer */
+  private static final int PIPELINED_FETCH_MIN_INTERVAL = 500;
+  private static final int PIPELINED_FETCH_MAX_INTERVAL = 8000;
+  /** how long it waits for a response of QueryMaster, and how many times in a row it may not respond */
+  private static final int PIPELINED_FETCH_TIMEOUT_SEC = 3;
+  private static final int PIPELINED_FETCH_MAX_RETRIES = 10;
 
   private final TajoConf systemConf;
   private final QueryContext queryContext;
@@ -82,9 +96,9 @@ public class Task {
   private final Map<String, TableDesc> descs = Maps.newHashMap();
   private PhysicalExec executor;
   private boolean interQuery;
-  private boolean killed = false;
+  private volatile boolean killed = false;
   private boolean aborted = false;
-  private boolean stopped = false;
+  private volatile boolean stopped = false;
   private float progress = 0;
   private final Reporter reporter;
   private Path inputTableBaseDir;
@@ -153,7 +167,8 @@ public class Task {
     this.context.setDataChannel(request.getDataChannel());
     this.context.setEnforcer(request.getEnforcer());
 
-    plan = CoreGsonHelper.fromJson(request.getSerializedData(), LogicalNode.class);
+    plan = worker.getPlan(request);
+    this.context.setProbeJoinFilter(worker.getJoinFilter());
     LogicalNode [] scanNode = PlannerUtil.findAllNodes(plan, NodeType.SCAN);
     for (LogicalNode node : scanNode) {
       ScanNode scan = (ScanNode)node;
@@ -188,7 +203,8 @@ public class Task {
         + (interQuery ? ", Use " + this.shuffleType + " shuffle":""));
 
     LOG.info("* Fragments (num: " + request.getFragments().size() + ")");
-    LOG.info("* Fetches (total:" + request.getFetches().size() + ") :");
+    LOG.info("* Fetches (total:" + request.getFetches().size() + ")"
+        + (request.isPipelined() ? ", pipelined with the running producer" : "") + " :");
     for (Fetch f : request.getFetches()) {
       LOG.info("Table Id: " + f.getName() + ", url: " + f.getUrls());
     }
@@ -204,7 +220,7 @@ public class Task {
     // initialize a task temporal dir
     localFS.mkdirs(taskDir);
 
-    if (request.getFetches().size() > 0) {
+    if (request.getFetches().size() > 0 || request.isPipelined()) {
       inputTableBaseDir = localFS.makeQualified(
           lDirAllocator.getLocalPathForWrite(
               getTaskAttemptDir(context.getTaskId()).toString(), systemConf));
@@ -326,12 +342,19 @@ public class Task {
       builder.setResultStats(new TableStats().getProto());
     }
 
+    if (context.hasJoinFilter()) {
+      builder.setJoinFilter(ByteString.copyFrom(context.getJoinFilter()));
+    }
+
     Iterator<Entry<Integer,String>> it = context.getShuffleFileOutputs();
     if (it.hasNext()) {
       do {
         Entry<Integer,String> entry = it.next();
         ShuffleFileOutput.Builder part = ShuffleFileOutput.newBuilder();
         part.setPartId(entry.getKey());
+        if (context.hasShuffleFileVolume(entry.getKey())) {
+          part.setVolume(context.getShuffleFileVolume(entry.getKey()));
+        }
         builder.addShuffleFileOutputs(part.build());
       } while (it.hasNext());
     }
@@ -339,6 +362,86 @@ public class Task {
     return builder.build();
   }
 
+  /**
+   * Waits until the first fetched data arrive. The executor consumes the rest of them while they are fetched.
+   */
+  private void waitForFirstFetchedData() throws IOException {
+    for (ShuffleStream stream : Lists.newArrayList(context.getShuffleStreams())) {
+      if (!stream.awaitData()) {
+        // there are no data to be consumed, like an empty set of fetched files
+        LOG.info(context.getTaskId() + " All fetches of " + stream.getTableName() + " are done without data");
+        context.removeShuffleStream(stream.getTableName());
+        context.updateAssignedFragments(stream.getTableName(), new FileFragment[0]);
+      }
+    }
+  }
+
+  /**
+   * Fetches the outputs of the producer while the producer is running. It asks QueryMaster for the outputs
+   * finished since the last request until all outputs are given, and it waits until they are fetched.
+   * The polling interval grows while the producer gives no new outputs.
+   */
+  private void fetchPipelined() throws InterruptedException, IOException {
+    List<CountDownLatch> latches = new ArrayList<CountDownLatch>();
+    int offset = 0;
+    int interval = PIPELINED_FETCH_MIN_INTERVAL;
+    int retries = 0;
+    boolean completed = false;
+    while (!completed) {
+      checkKilledWhileFetching();
+      CallFuture<FetchListProto> callFuture = new CallFuture<FetchListProto>();
+      masterProxy.getFetches(callFuture.getController(), GetFetchesRequestProto.newBuilder()
+          .setId(taskId.getProto()).setOffset(offset).build(), callFuture);
+      FetchListProto fetchList;
+      try {
+        fetchList = callFuture.get(PIPELINED_FETCH_TIMEOUT_SEC, TimeUnit.SECONDS);
+      } catch (TimeoutException e) {
+        if (++retries > PIPELINED_FETCH_MAX_RETRIES) {
+          throw new IOException("QueryMaster does not respond to the fetch requests of " + context.getTaskId());
+        }
+        LOG.warn("Timeout getFetches: " + context.getTaskId() + ", but retry (" + retries + ")");
+        continue;
+      }
+      if (fetchList == null) {
+        throw new IOException("Cannot get the fetches of " + context.getTaskId() + ": "
+            + callFuture.getController().errorText());
+      }
+      retries = 0;
+
+      if (fetchList.getFetchesCount() > 0) {
+        CountDownLatch latch = new CountDownLatch(fetchList.getFetchesCount());
+        List<Fetcher> fetchers = createFetchers(context.getFetchIn(), fetchList.getFetchesList(),
+            fetcherRunners.size(), Collections.<String, ShuffleStream>emptyMap());
+        for (Fetcher fetcher : fetchers) {
+          fetcherRunners.add(fetcher);
+          taskRunnerContext.getFetchLauncher().submit(new FetchRunner(context, fetcher, latch));
+        }
+        latches.add(latch);
+        interval = PIPELINED_FETCH_MIN_INTERVAL;
+      } else {
+        interval = Math.min(interval * 2, PIPELINED_FETCH_MAX_INTERVAL);
+      }
+      offset = fetchList.getOffset();
+      completed = fetchList.getCompleted();
+      if (!completed) {
+        Thread.sleep(interval);
+      }
+    }
+
+    for (CountDownLatch latch : latches) {
+      while (!latch.await(PIPELINED_FETCH_MIN_INTERVAL, TimeUnit.MILLISECONDS)) {
+        checkKilledWhileFetching();
+      }
+    }
+    LOG.info(context.getTaskId() + " All pipelined fetches (total:" + fetcherRunners.size() + ") are done!");
+  }
+
+  private void checkKilledWhileFetching() throws IOException {
+    if (killed || stopped) {
+      throw new IOException(context.getTaskId() + " is killed while fetching");
+    }
+  }
+
   private void waitForFetch() throws InterruptedException, IOException {
     context.getFetchLatch().await();
     LOG.info(context.getTaskId() + " All fetches are done!");
@@ -358,9 +461,16 @@ public class Task {
       setProgressFlag();
 
       if (context.hasFetchPhase()) {
-        // If the fetch is still in progress, the query unit must wait for
-        // complete.
-        waitForFetch();
+        if (request.isPipelined()) {
+          fetchPipelined();
+        }
+        if (context.getShuffleStreams().isEmpty()) {
+          // If the fetch is still in progress, the query unit must wait for
+          // complete.
+          waitForFetch();
+        } else {
+          waitForFirstFetchedData();
+        }
       }
 
       if (context.getFragmentSize() > 0) {
@@ -518,10 +628,16 @@ public class Task {
   private class FetchRunner implements Runnable {
     private final TaskAttemptContext ctx;
     private final Fetcher fetcher;
+    private final CountDownLatch latch;
 
     public FetchRunner(TaskAttemptContext ctx, Fetcher fetcher) {
+      this(ctx, fetcher, ctx.getFetchLatch());
+    }
+
+    public FetchRunner(TaskAttemptContext ctx, Fetcher fetcher, CountDownLatch latch) {
       this.ctx = ctx;
       this.fetcher = fetcher;
+      this.latch = latch;
     }
 
     @Override
@@ -551,7 +667,10 @@ public class Task {
           retryNum++;
         }
       } finally {
-        ctx.getFetchLatch().countDown();
+        latch.countDown();
+        if (fetcher.getStream() != null) {
+          fetcher.getStream().fetchFinished();
+        }
       }
 
       if (retryNum == maxRetryNum) {
@@ -563,24 +682,17 @@ public class Task {
   private List<Fetcher> getFetchRunners(TaskAttemptContext ctx,
                                         List<Fetch> fetches) throws IOException {
 
-    if (fetches.size() > 0) {
+    // the fetches of a pipelined task are given while it runs.
+    if (fetches.size() > 0 || request.isPipelined()) {
       Path inputDir = lDirAllocator.
           getLocalPathToRead(
               getTaskAttemptDir(ctx.getTaskId()).toString(), systemConf);
-      File storeDir;
-
-      int i = 0;
-      File storeFile;
-      List<Fetcher> runnerList = Lists.newArrayList();
-      for (Fetch f : fetches) {
-        storeDir = new File(inputDir.toString(), f.getName());
-        if (!storeDir.exists()) {
-          storeDir.mkdirs();
-        }
-        storeFile = new File(storeDir, "in_" + i);
-        Fetcher fetcher = new Fetcher(URI.create(f.getUrls()), storeFile);
-        runnerList.add(fetcher);
-        i++;
+
+      Map<String, ShuffleStream> streams = createShuffleStreams(fetches);
+
+      List<Fetcher> runnerList = createFetchers(new File(inputDir.toString()), fetches, 0, streams);
+      for (ShuffleStream stream : streams.values()) {
+        ctx.addShuffleStream(stream);
       }
       ctx.addFetchPhase(runnerList.size(), new File(inputDir.toString()));
       return runnerList;
@@ -589,12 +701,78 @@ public class Task {
     }
   }
 
+  /**
+   * @param startId the id of the first file to be stored, which is unique in a task
+   */
+  private List<Fetcher> createFetchers(File inputDir, List<Fetch> fetches, int startId,
+                                       Map<String, ShuffleStream> streams) {
+    File storeDir;
+    File storeFile;
+    int i = startId;
+    List<Fetcher> runnerList = Lists.newArrayList();
+    for (Fetch f : fetches) {
+      storeDir = new File(inputDir, f.getName());
+      if (!storeDir.exists()) {
+        storeDir.mkdirs();
+      }
+      storeFile = new File(storeDir, "in_" + i);
+      Fetcher fetcher = new Fetcher(URI.create(f.getUrls()), storeFile, taskRunnerContext.getFetchService());
+      if (streams.containsKey(f.getName())) {
+        fetcher.setStream(streams.get(f.getName()));
+      }
+      runnerList.add(fetcher);
+      i++;
+    }
+    return runnerList;
+  }
+
+  /**
+   * Creates the streams of fetched data if they can be consumed without being materialized. It is only
+   * applied to a task with a single input of the RAW format, because the physical planner estimates
+   * input sizes for a join, and a stream can be read only once.
+   */
+  private Map<String, ShuffleStream> createShuffleStreams(List<Fetch> fetches) {
+    Map<String, ShuffleStream> streams = new HashMap<String, ShuffleStream>();
+    if (!systemConf.getBoolVar(ConfVars.SHUFFLE_FETCH_STREAMING_ENABLED)) {
+      return streams;
+    }
+
+    Map<String, Integer> fetchNums = new HashMap<String, Integer>();
+    for (Fetch f : fetches) {
+      Integer num = fetchNums.get(f.getName());
+      fetchNums.put(f.getName(), num == null ? 1 : num + 1);
+    }
+    if (fetchNums.size() != 1 || descs.size() != 1) {
+      return streams;
+    }
+
+    String tableName = fetchNums.keySet().iterator().next();
+    TableDesc desc = descs.get(tableName);
+    if (desc != null && desc.getMeta().getStoreType() == StoreType.RAW) {
+      long memoryLimit = systemConf.getLongVar(ConfVars.SHUFFLE_FETCH_STREAMING_BUFFER_BYTES);
+      streams.put(tableName, new ShuffleStream(tableName, fetchNums.get(tableName), memoryLimit));
+      LOG.info("Fetched data of " + tableName + " are streamed to the executor");
+    }
+    return streams;
+  }
+
   protected class Reporter implements Runnable {
     private QueryMasterProtocolService.Interface masterStub;
     private Thread pingThread;
     private Object lock = new Object();
     private static final int PROGRESS_INTERVAL = 3000;
 
+    /** QueryMaster responds false if this attempt has been killed, e.g., by a speculative attempt. */
+    private final RpcCallback<BoolProto> killCallback = new RpcCallback<BoolProto>() {
+      @Override
+      public void run(BoolProto response) {
+        if (response != null && !response.getValue() && !killed && !stopped) {
+          LOG.info(taskId + " is killed by QueryMaster");
+          kill();
+        }
+      }
+    };
+
     public Reporter(QueryMasterProtocolService.Interface masterStub) {
       this.masterStub = masterStub;
     }
@@ -619,9 +797,9 @@ public class Task {
 
           if (getProgressFlag()) {
             resetProgressFlag();
-            masterStub.statusUpdate(null, getReport(), NullCallback.get());
+            masterStub.statusUpdate(null, getReport(), killCallback);
           } else {
-            masterStub.ping(null, taskId.getProto(), NullCallback.get());
+            masterStub.ping(null, taskId.getProto(), killCallback);
           }
 
         } catch (Throwable t) {
@@ -30,6 +30,7 @@ import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.engine.planner.enforce.Enforcer;
 import org.apache.tajo.engine.planner.global.DataChannel;
+import org.apache.tajo.engine.utils.JoinKeyFilter;
 import org.apache.tajo.storage.fragment.Fragment;
 import org.apache.tajo.storage.fragment.FragmentConvertor;
 
@@ -58,12 +59,20 @@ public class TaskAttemptContext {
   private float progress = 0;
   /** a map of shuffled file outputs */
   private Map<Integer, String> shuffleFileOutputs;
+  /** the bytes of each shuffled partition */
+  private final Map<Integer, Long> shuffleFileVolumes = Maps.newHashMap();
   private File fetchIn;
+  /** the streams of fetched data, which are consumed without being materialized */
+  private final Map<String, ShuffleStream> shuffleStreams = Maps.newHashMap();
   private boolean stopped = false;
   private boolean interQuery = false;
   private Path outputPath;
   private DataChannel dataChannel;
   private Enforcer enforcer;
+  /** the serialized join filter built from the output of this task */
+  private byte [] joinFilter;
+  /** the join filter of the other join side, which drops the output rows which cannot be joined */
+  private JoinKeyFilter probeJoinFilter;
 
   public TaskAttemptContext(TajoConf conf, final QueryUnitAttemptId queryId,
                             final FragmentProto[] fragments,
@@ -133,6 +142,26 @@ public class TaskAttemptContext {
   public TableStats getResultStats() {
     return this.resultStats;
   }
+
+  public boolean hasJoinFilter() {
+    return joinFilter != null;
+  }
+
+  public void setJoinFilter(byte [] joinFilter) {
+    this.joinFilter = joinFilter;
+  }
+
+  public byte [] getJoinFilter() {
+    return joinFilter;
+  }
+
+  public void setProbeJoinFilter(JoinKeyFilter probeJoinFilter) {
+    this.probeJoinFilter = probeJoinFilter;
+  }
+
+  public JoinKeyFilter getProbeJoinFilter() {
+    return probeJoinFilter;
+  }
   
   public boolean isStopped() {
     return this.stopped;
@@ -167,6 +196,22 @@ public class TaskAttemptContext {
   public File getFetchIn() {
     return this.fetchIn;
   }
+
+  public void addShuffleStream(ShuffleStream stream) {
+    shuffleStreams.put(stream.getTableName(), stream);
+  }
+
+  public void removeShuffleStream(String tableId) {
+    shuffleStreams.remove(tableId);
+  }
+
+  public ShuffleStream getShuffleStream(String tableId) {
+    return shuffleStreams.get(tableId);
+  }
+
+  public Collection<ShuffleStream> getShuffleStreams() {
+    return shuffleStreams.values();
+  }
   
   public boolean hasFetchPhase() {
     return this.needFetch;
@@ -179,6 +224,19 @@ public class TaskAttemptContext {
   public void addShuffleFileOutput(int partId, String fileName) {
     shuffleFileOutputs.put(partId, fileName);
   }
+
+  public void addShuffleFileOutput(int partId, String fileName, long volume) {
+    shuffleFileOutputs.put(partId, fileName);
+    shuffleFileVolumes.put(partId, volume);
+  }
+
+  public boolean hasShuffleFileVolume(int partId) {
+    return shuffleFileVolumes.containsKey(partId);
+  }
+
+  public long getShuffleFileVolume(int partId) {
+    return shuffleFileVolumes.get(partId);
+  }
   
   public Iterator<Entry<Integer,String>> getShuffleFileOutputs() {
     return shuffleFileOutputs.entrySet().iterator();
@@ -37,7 +37,11 @@ import org.apache.tajo.QueryUnitAttemptId;
 import org.apache.tajo.TajoProtos.TaskAttemptState;
 import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.engine.json.CoreGsonHelper;
+import org.apache.tajo.engine.planner.logical.LogicalNode;
+import org.apache.tajo.engine.query.QueryUnitRequest;
 import org.apache.tajo.engine.query.QueryUnitRequestImpl;
+import org.apache.tajo.engine.utils.JoinKeyFilter;
 import org.apache.tajo.ipc.QueryMasterProtocol;
 import org.apache.tajo.ipc.QueryMasterProtocol.QueryMasterProtocolService;
 import org.apache.tajo.rpc.CallFuture;
@@ -46,7 +50,9 @@ import org.apache.tajo.rpc.NullCallback;
 import org.apache.tajo.rpc.RpcConnectionPool;
 import org.apache.tajo.util.TajoIdUtils;
 
+import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.concurrent.*;
 
@@ -91,6 +97,21 @@ public class TaskRunner extends AbstractService {
   private final Map<QueryUnitAttemptId, TaskHistory> taskHistories =
       new ConcurrentHashMap<QueryUnitAttemptId, TaskHistory>();
 
+  // the number of tasks which are run concurrently
+  private int slotNum = 1;
+  // the memory budgets of a task, which are divided by the slots
+  private TajoConf taskConf;
+  // In the multi-slot mode, each task runs in one of the slots of this executor.
+  private ExecutorService taskExecutor;
+  private Semaphore freeSlots;
+  // the number of received tasks, which is only accessed by the task launcher thread
+  private int receivedNum = 0;
+  // the plan of this execution block, which is parsed only once and copied for each task
+  private byte [] serializedPlan;
+  private LogicalNode cachedPlan;
+  // the join filter of the other join side, which is shipped and cached with the plan
+  private JoinKeyFilter cachedJoinFilter;
+
   private LocalDirAllocator lDirAllocator;
 
   // A thread to receive each assigned query unit and execute the query unit
@@ -171,6 +192,7 @@ public class TaskRunner extends AbstractService {
   @Override
   public void init(Configuration conf) {
     this.systemConf = (TajoConf)conf;
+    this.taskConf = systemConf;
 
     try {
       // initialize DFS and LocalFileSystems
@@ -189,6 +211,14 @@ public class TaskRunner extends AbstractService {
       // Setup QueryEngine according to the query plan
       // Here, we can setup row-based query engine or columnar query engine.
       this.queryEngine = new TajoQueryEngine(systemConf);
+
+      slotNum = getSlotNum(systemConf);
+      taskConf = getTaskConf(systemConf, slotNum);
+      if (slotNum > 1) {
+        taskExecutor = Executors.newFixedThreadPool(slotNum);
+        freeSlots = new Semaphore(slotNum);
+      }
+      LOG.info("TaskRunner slots: " + slotNum);
     } catch (Throwable t) {
       t.printStackTrace();
       LOG.error(t);
@@ -235,9 +265,50 @@ public class TaskRunner extends AbstractService {
     return finishTime;
   }
 
+  public int getSlotNum() {
+    return slotNum;
+  }
+
+  static int getSlotNum(TajoConf conf) {
+    int slotNum = conf.getIntVar(ConfVars.WORKER_TASKRUNNER_SLOTS);
+    if (slotNum <= 0) {
+      if (conf.getBoolVar(ConfVars.WORKER_RESOURCE_DEDICATED)) {
+        slotNum = Runtime.getRuntime().availableProcessors();
+      } else {
+        slotNum = conf.getIntVar(ConfVars.WORKER_RESOURCE_AVAILABLE_CPU_CORES);
+      }
+    }
+    return Math.max(1, slotNum);
+  }
+
+  /** the memory budgets of a task, which are shared by the tasks running concurrently */
+  private static final ConfVars [] TASK_MEMORY_VARS = new ConfVars[] {
+      ConfVars.EXECUTOR_SORT_EXTERNAL_MEMORY_BYTES,
+      ConfVars.EXECUTOR_INNER_JOIN_INMEMORY_HASH_THRESHOLD,
+      ConfVars.EXECUTOR_OUTER_JOIN_INMEMORY_HASH_THRESHOLD,
+      ConfVars.EXECUTOR_GROUPBY_INMEMORY_HASH_THRESHOLD,
+      ConfVars.SHUFFLE_HASH_BUFFER_BYTES,
+      ConfVars.SHUFFLE_FETCH_STREAMING_BUFFER_BYTES
+  };
+
+  /**
+   * Returns the configuration of tasks. The container memory is shared by the slots, so the memory budgets
+   * of a task are divided by the number of slots.
+   */
+  static TajoConf getTaskConf(TajoConf conf, int slotNum) {
+    if (slotNum <= 1) {
+      return conf;
+    }
+    TajoConf taskConf = new TajoConf(conf);
+    for (ConfVars var : TASK_MEMORY_VARS) {
+      taskConf.setLongVar(var, Math.max(1, conf.getLongVar(var) / slotNum));
+    }
+    return taskConf;
+  }
+
   public class TaskRunnerContext {
     public TajoConf getConf() {
-      return systemConf;
+      return taskConf;
     }
 
     public String getNodeId() {
@@ -276,6 +347,10 @@ public class TaskRunner extends AbstractService {
       return fetchLauncher;
     }
 
+    public ShuffleFetchService getFetchService() {
+      return taskRunnerManager == null ? null : taskRunnerManager.getFetchService();
+    }
+
     public Path getBaseDir() {
       return baseDirPath;
     }
@@ -284,6 +359,14 @@ public class TaskRunner extends AbstractService {
       return executionBlockId;
     }
 
+    public LogicalNode getPlan(QueryUnitRequest request) throws IOException {
+      return TaskRunner.this.getPlan(request);
+    }
+
+    public JoinKeyFilter getJoinFilter() {
+      return TaskRunner.this.getJoinFilter();
+    }
+
     public void addTaskHistory(QueryUnitAttemptId quAttemptId, TaskHistory taskHistory) {
       taskHistories.put(quAttemptId, taskHistory);
     }
@@ -318,9 +401,8 @@ public class TaskRunner extends AbstractService {
       taskLauncher = new Thread(new Runnable() {
         @Override
         public void run() {
-          int receivedNum = 0;
-          CallFuture<QueryUnitRequestProto> callFuture = null;
-          QueryUnitRequestProto taskRequest = null;
+          CallFuture<QueryUnitRequestListProto> callFuture = null;
+          QueryUnitRequestListProto taskRequests = null;
 
           while(!stopped) {
             NettyClientBase qmClient = null;
@@ -330,18 +412,22 @@ public class TaskRunner extends AbstractService {
               qmClientService = qmClient.getStub();
 
               if (callFuture == null) {
-                callFuture = new CallFuture<QueryUnitRequestProto>();
-                LOG.info("Request GetTask: " + getId());
+                callFuture = new CallFuture<QueryUnitRequestListProto>();
+                // It requests as many tasks as free slots, plus one task to be prepared in advance.
+                int maxTaskNum = taskExecutor == null ? 1 : freeSlots.availablePermits() + 1;
+                LOG.info("Request GetTasks: " + getId() + ", maxTaskNum=" + maxTaskNum);
                 GetTaskRequestProto request = GetTaskRequestProto.newBuilder()
                     .setExecutionBlockId(executionBlockId.getProto())
                     .setContainerId(((ContainerIdPBImpl) containerId).getProto())
+                    .setMaxTaskNum(maxTaskNum)
+                    .setPlanCached(isPlanCached())
                     .build();
 
-                qmClientService.getTask(null, request, callFuture);
+                qmClientService.getTasks(null, request, callFuture);
               }
               try {
-                // wait for an assigning task for 3 seconds
-                taskRequest = callFuture.get(3, TimeUnit.SECONDS);
+                // wait for assigning tasks for 3 seconds
+                taskRequests = callFuture.get(3, TimeUnit.SECONDS);
               } catch (InterruptedException e) {
                 if(stopped) {
                   break;
@@ -351,52 +437,31 @@ public class TaskRunner extends AbstractService {
                   break;
                 }
                 // if there has been no assigning task for a given period,
-                // TaskRunner will retry to request an assigning task.
-                LOG.warn("Timeout GetTask:" + getId() + ", but retry", te);
+                // TaskRunner will retry to request assigning tasks.
+                LOG.warn("Timeout GetTasks:" + getId() + ", but retry", te);
                 continue;
               }
 
-              if (taskRequest != null) {
-                // QueryMaster can send the terminal signal to TaskRunner.
-                // If TaskRunner receives the terminal signal, TaskRunner will be terminated
-                // immediately.
-                if (taskRequest.getShouldDie()) {
-                  LOG.info("Received ShouldDie flag:" + getId());
-                  stop();
-                  if(taskRunnerManager != null) {
-                    //notify to TaskRunnerManager
-                    taskRunnerManager.stopTask(getId());
-                  }
-                } else {
-                  taskRunnerManager.getWorkerContext().getWorkerSystemMetrics().counter("query", "task").inc();
-                  LOG.info("Accumulated Received Task: " + (++receivedNum));
-
-                  QueryUnitAttemptId taskAttemptId = new QueryUnitAttemptId(taskRequest.getId());
-                  if (tasks.containsKey(taskAttemptId)) {
-                    fatalError(qmClientService, taskAttemptId, "Duplicate Task Attempt: " + taskAttemptId);
-                    continue;
-                  }
-
-                  LOG.info("Initializing: " + taskAttemptId);
-                  Task task;
-                  try {
-                    task = new Task(taskAttemptId, taskRunnerContext, qmClientService,
-                        new QueryUnitRequestImpl(taskRequest));
-                    tasks.put(taskAttemptId, task);
-
-                    task.init();
-                    if (task.hasFetchPhase()) {
-                      task.fetch(); // The fetch is performed in an asynchronous way.
+              if (taskRequests != null) {
+                try {
+                  for (QueryUnitRequestProto taskRequest : taskRequests.getRequestsList()) {
+                    // QueryMaster can send the terminal signal to TaskRunner.
+                    // If TaskRunner receives the terminal signal, TaskRunner will be terminated
+                    // immediately.
+                    if (taskRequest.getShouldDie()) {
+                      LOG.info("Received ShouldDie flag:" + getId());
+                      stop();
+                      if(taskRunnerManager != null) {
+                        //notify to TaskRunnerManager
+                        taskRunnerManager.stopTask(getId());
+                      }
+                      break;
                     }
-                    // task.run() is a blocking call.
-                    task.run();
-                  } catch (Throwable t) {
-                    fatalError(qmClientService, taskAttemptId, t.getMessage());
-                    t.printStackTrace();
-                  } finally {
-                    callFuture = null;
-                    taskRequest = null;
+                    launchTask(qmClientService, taskRequest);
                   }
+                } finally {
+                  callFuture = null;
+                  taskRequests = null;
                 }
               }
             } catch (Throwable t) {
@@ -412,6 +477,14 @@ public class TaskRunner extends AbstractService {
       taskLauncher.start();
       taskLauncher.join();
 
+      if (taskExecutor != null) {
+        // wait for the tasks running in slots
+        taskExecutor.shutdown();
+        while (!taskExecutor.awaitTermination(3, TimeUnit.SECONDS)) {
+          LOG.info("Waiting for running tasks: " + getId());
+        }
+      }
+
     } catch (Throwable t) {
       LOG.fatal("Unhandled exception. Starting shutdown.", t);
     } finally {
@@ -423,6 +496,108 @@ public class TaskRunner extends AbstractService {
     }
   }
 
+  private void launchTask(QueryMasterProtocolService.Interface qmClientService, QueryUnitRequestProto taskRequest) {
+    taskRunnerManager.getWorkerContext().getWorkerSystemMetrics().counter("query", "task").inc();
+    LOG.info("Accumulated Received Task: " + (++receivedNum));
+
+    QueryUnitAttemptId taskAttemptId = new QueryUnitAttemptId(taskRequest.getId());
+    if (tasks.containsKey(taskAttemptId)) {
+      fatalError(qmClientService, taskAttemptId, "Duplicate Task Attempt: " + taskAttemptId);
+      return;
+    }
+
+    LOG.info("Initializing: " + taskAttemptId);
+    Task task;
+    try {
+      task = new Task(taskAttemptId, taskRunnerContext, qmClientService,
+          new QueryUnitRequestImpl(taskRequest));
+      tasks.put(taskAttemptId, task);
+
+      task.init();
+      if (task.hasFetchPhase()) {
+        task.fetch(); // The fetch is performed in an asynchronous way.
+      }
+      if (taskExecutor == null) {
+        // task.run() is a blocking call.
+        task.run();
+      } else {
+        // It blocks until a slot is free, so the next tasks are requested after this task takes a slot.
+        runInSlot(task, qmClientService);
+      }
+    } catch (Throwable t) {
+      fatalError(qmClientService, taskAttemptId, t.getMessage());
+      t.printStackTrace();
+    }
+  }
+
+  private synchronized boolean isPlanCached() {
+    return cachedPlan != null;
+  }
+
+  /**
+   * All tasks of an execution block run the same plan. QueryMaster ships the plan until this TaskRunner
+   * reports that it has cached the plan, and the plan is parsed only once. Each task takes its own copy,
+   * because tasks may run concurrently in slots.
+   */
+  private synchronized LogicalNode getPlan(QueryUnitRequest request) throws IOException {
+    byte [] shippedPlan = request.getSerializedData();
+    if (shippedPlan != null && !Arrays.equals(shippedPlan, serializedPlan)) {
+      cachedPlan = CoreGsonHelper.fromBinary(shippedPlan, LogicalNode.class);
+      serializedPlan = shippedPlan;
+      cachedJoinFilter = request.getJoinFilter() == null ? null : new JoinKeyFilter(request.getJoinFilter());
+    }
+    if (cachedPlan == null) {
+      throw new IOException("No plan is shipped for " + request.getId());
+    }
+
+    try {
+      return (LogicalNode) cachedPlan.clone();
+    } catch (CloneNotSupportedException e) {
+      throw new IOException(e);
+    }
+  }
+
+  /**
+   * @return the join filter which is cached with the plan, or null if this execution block is not filtered.
+   * Each task takes its own instance sharing the bits of the cached filter.
+   */
+  private synchronized JoinKeyFilter getJoinFilter() {
+    return cachedJoinFilter == null ? null : new JoinKeyFilter(cachedJoinFilter);
+  }
+
+  /**
+   * It waits for a free slot, and then it runs a given task in the slot. While all slots are busy,
+   * the task has been already received and its fetches are performed in advance.
+   */
+  private void runInSlot(final Task task, final QueryMasterProtocolService.Interface qmClientService)
+      throws InterruptedException {
+    while (!freeSlots.tryAcquire(3, TimeUnit.SECONDS)) {
+      if (stopped) {
+        // the pending task will be aborted when TaskRunner is terminated.
+        return;
+      }
+    }
+
+    try {
+      taskExecutor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            task.run();
+          } catch (Throwable t) {
+            fatalError(qmClientService, task.getId(), t.getMessage());
+            LOG.error(t.getMessage(), t);
+          } finally {
+            freeSlots.release();
+          }
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      freeSlots.release();
+      throw e;
+    }
+  }
+
   /**
    * @return true if a stop has been requested.
    */
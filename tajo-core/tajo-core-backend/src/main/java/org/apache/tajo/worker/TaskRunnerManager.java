@@ -38,6 +38,7 @@ public class TaskRunnerManager extends CompositeService {
   private TajoConf tajoConf;
   private AtomicBoolean stop = new AtomicBoolean(false);
   private FinishedTaskCleanThread finishedTaskCleanThread;
+  private ShuffleFetchService fetchService;
 
   public TaskRunnerManager(TajoWorker.WorkerContext workerContext) {
     super(TaskRunnerManager.class.getName());
@@ -49,9 +50,15 @@ public class TaskRunnerManager extends CompositeService {
     return workerContext;
   }
 
+  public ShuffleFetchService getFetchService() {
+    return fetchService;
+  }
+
   @Override
   public void init(Configuration conf) {
     tajoConf = (TajoConf)conf;
+    fetchService = new ShuffleFetchService();
+    addService(fetchService);
     super.init(tajoConf);
   }
 
@@ -98,6 +98,8 @@ public class TajoTestingCluster {
     }
     conf.setInt(ConfVars.WORKER_RESOURCE_AVAILABLE_MEMORY_MB.varname, 1024);
     conf.setFloat(ConfVars.WORKER_RESOURCE_AVAILABLE_DISKS.varname, 2.0f);
+    // each TaskRunner runs two tasks concurrently
+    conf.setInt(ConfVars.WORKER_TASKRUNNER_SLOTS.varname, 2);
 
     this.standbyWorkerMode = conf.getVar(ConfVars.RESOURCE_MANAGER_CLASS)
         .indexOf(TajoWorkerResourceManager.class.getName()) >= 0;
@@ -29,7 +29,10 @@ import org.apache.tajo.IntegrationTest;
 import org.apache.tajo.TajoTestingCluster;
 import org.apache.tajo.TpchTestBase;
 import org.apache.tajo.catalog.TableDesc;
+import org.apache.tajo.catalog.statistics.ColumnStats;
+import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.datum.DatumFactory;
 import org.apache.tajo.storage.StorageUtil;
 import org.apache.tajo.util.CommonTestingUtil;
 import org.junit.BeforeClass;
@@ -37,6 +40,7 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import java.io.IOException;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Set;
 
@@ -78,6 +82,38 @@ public class TestTajoClient {
     assertFalse(client.existTable(tableName));
   }
 
+  @Test
+  public final void testAnalyzeTable() throws IOException, ServiceException, SQLException {
+    final String tableName = "testAnalyzeTable";
+    Path tablePath = writeTmpTable(tableName);
+
+    String sql =
+        "create external table " + tableName + " (deptname text, score int4) "
+            + "using csv location '" + tablePath + "'";
+    client.updateQuery(sql);
+    assertTrue(client.existTable(tableName));
+
+    // ANALYZE is executed as a distributed query, and it does not have any result.
+    ResultSet res = client.executeQueryAndGetResult("analyze table " + tableName);
+    assertFalse(res.next());
+    res.close();
+    TableStats stats = client.getTableDesc(tableName).getStats();
+    assertEquals(100, stats.getNumRows().longValue());
+    assertEquals(2, stats.getColumnStats().size());
+
+    // 100 distinct department names and scores between 1 and 100
+    ColumnStats deptName = stats.getColumnStats().get(0);
+    assertTrue(Math.abs(deptName.getNumDistValues() - 100) <= 2);
+    assertTrue(deptName.hasHistogram());
+    ColumnStats score = stats.getColumnStats().get(1);
+    assertEquals(DatumFactory.createInt4(1), score.getMinValue());
+    assertEquals(DatumFactory.createInt4(100), score.getMaxValue());
+    assertTrue(score.hasHistogram());
+
+    client.dropTable(tableName);
+    assertFalse(client.existTable(tableName));
+  }
+
   @Test
   public final void testCreateAndDropExternalTable()
       throws IOException, ServiceException, SQLException {
@@ -0,0 +1,226 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.codegen;
+
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.engine.eval.*;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.apache.tajo.common.TajoDataTypes.Type.*;
+import static org.junit.Assert.*;
+
+public class TestEvalCodeGenerator {
+  private static final Type [] NUMERIC_TYPES = {INT2, INT4, INT8, FLOAT4, FLOAT8};
+  private static final EvalType [] ARITHMETIC_OPS = {
+      EvalType.PLUS, EvalType.MINUS, EvalType.MULTIPLY, EvalType.DIVIDE, EvalType.MODULAR};
+  private static final EvalType [] COMPARISON_OPS = {
+      EvalType.EQUAL, EvalType.NOT_EQUAL, EvalType.LTH, EvalType.LEQ, EvalType.GTH, EvalType.GEQ};
+
+  private static Schema schema;
+  private static List<Tuple> tuples;
+
+  static {
+    schema = new Schema();
+    for (Type type : NUMERIC_TYPES) {
+      schema.addColumn("t.l_" + type.name().toLowerCase(), type);
+      schema.addColumn("t.r_" + type.name().toLowerCase(), type);
+    }
+    schema.addColumn("t.flag", BOOLEAN);
+    schema.addColumn("t.name", TEXT);
+
+    tuples = new ArrayList<Tuple>();
+    int [][] values = {{7, 3}, {-7, 2}, {5, 5}, {0, 9}};
+    for (int [] pair : values) {
+      tuples.add(makeTuple(pair[0], pair[1], DatumFactory.createBool(pair[0] > 0), "tajo"));
+    }
+    Tuple nullTuple = new VTuple(schema.getColumnNum());
+    for (int i = 0; i < schema.getColumnNum(); i++) {
+      nullTuple.put(i, NullDatum.get());
+    }
+    tuples.add(nullTuple);
+    Tuple halfNull = makeTuple(4, 2, NullDatum.get(), "hive");
+    for (int i = 1; i < NUMERIC_TYPES.length * 2; i += 2) {
+      halfNull.put(i, NullDatum.get());
+    }
+    tuples.add(halfNull);
+  }
+
+  private static Tuple makeTuple(int left, int right, Datum flag, String name) {
+    Tuple tuple = new VTuple(schema.getColumnNum());
+    int i = 0;
+    for (Type type : NUMERIC_TYPES) {
+      tuple.put(i++, createNumeric(type, left));
+      tuple.put(i++, createNumeric(type, right));
+    }
+    tuple.put(i++, flag);
+    tuple.put(i, DatumFactory.createText(name));
+    return tuple;
+  }
+
+  private static Datum createNumeric(Type type, int value) {
+    switch (type) {
+      case INT2: return DatumFactory.createInt2((short) value);
+      case INT4: return DatumFactory.createInt4(value);
+      case INT8: return DatumFactory.createInt8(value);
+      case FLOAT4: return DatumFactory.createFloat4(value + 0.5f);
+      default: return DatumFactory.createFloat8(value + 0.25d);
+    }
+  }
+
+  private static FieldEval field(String name) {
+    Column column = schema.getColumnByFQN("t." + name);
+    return new FieldEval(column.getQualifiedName(), column.getDataType());
+  }
+
+  private static FieldEval left(Type type) {
+    return field("l_" + type.name().toLowerCase());
+  }
+
+  private static FieldEval right(Type type) {
+    return field("r_" + type.name().toLowerCase());
+  }
+
+  private static Datum interpret(EvalNode eval, Tuple tuple) {
+    EvalContext ctx = eval.newContext();
+    eval.eval(ctx, schema, tuple);
+    return eval.terminate(ctx);
+  }
+
+  private static void assertSameResults(EvalNode eval) {
+    CompiledEval compiled = EvalCodeGenerator.tryCompile(eval, schema);
+    assertNotNull("not compiled: " + eval, compiled);
+
+    for (Tuple tuple : tuples) {
+      Datum expected = interpret(eval, tuple);
+      Datum actual = compiled.eval(tuple);
+      assertEquals(eval + " for " + tuple, expected.type(), actual.type());
+      assertEquals(eval + " for " + tuple, expected, actual);
+      assertEquals(eval + " for " + tuple, expected.isTrue(), compiled.isTrue(tuple));
+    }
+  }
+
+  @Test
+  public void testArithmetic() {
+    for (Type leftType : NUMERIC_TYPES) {
+      for (Type rightType : NUMERIC_TYPES) {
+        for (EvalType op : ARITHMETIC_OPS) {
+          if (op == EvalType.MODULAR && leftType == FLOAT4) {
+            continue; // see testCallOut()
+          }
+          assertSameResults(new BinaryEval(op, left(leftType), right(rightType)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testComparison() {
+    for (Type leftType : NUMERIC_TYPES) {
+      for (Type rightType : NUMERIC_TYPES) {
+        for (EvalType op : COMPARISON_OPS) {
+          assertSameResults(new BinaryEval(op, left(leftType), right(rightType)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testNestedExpressions() {
+    // (l_int4 + 3) * r_int8 > l_float8 / 2
+    EvalNode arith = new BinaryEval(EvalType.GTH,
+        new BinaryEval(EvalType.MULTIPLY,
+            new BinaryEval(EvalType.PLUS, left(INT4), new ConstEval(DatumFactory.createInt4(3))),
+            right(INT8)),
+        new BinaryEval(EvalType.DIVIDE, left(FLOAT8), new ConstEval(DatumFactory.createInt2((short) 2))));
+    assertSameResults(arith);
+
+    // flag AND l_int4 < r_int4, flag OR l_int2 = 5, NOT flag
+    EvalNode lth = new BinaryEval(EvalType.LTH, left(INT4), right(INT4));
+    EvalNode eq = new BinaryEval(EvalType.EQUAL, left(INT2), new ConstEval(DatumFactory.createInt4(5)));
+    assertSameResults(new BinaryEval(EvalType.AND, field("flag"), lth));
+    assertSameResults(new BinaryEval(EvalType.OR, field("flag"), eq));
+    assertSameResults(new NotEval(field("flag")));
+    assertSameResults(new NotEval(new BinaryEval(EvalType.AND, lth, eq)));
+
+    // IS NULL and IS NOT NULL
+    assertSameResults(new IsNullEval(false, right(INT8)));
+    assertSameResults(new IsNullEval(true, new BinaryEval(EvalType.PLUS, left(FLOAT4), right(INT4))));
+    assertSameResults(new IsNullEval(false, field("flag")));
+  }
+
+  @Test
+  public void testCallOut() {
+    // a text comparison is evaluated by the interpreter
+    EvalNode textEq = new BinaryEval(EvalType.EQUAL, field("name"),
+        new ConstEval(DatumFactory.createText("tajo")));
+    EvalNode gth = new BinaryEval(EvalType.GTH, left(INT8), right(INT8));
+    assertSameResults(new BinaryEval(EvalType.AND, textEq, gth));
+    assertSameResults(new BinaryEval(EvalType.OR, new LikePredicateEval(false, field("name"),
+        new ConstEval(DatumFactory.createText("h%")), true), gth));
+
+    // FLOAT4 modular is left to the interpreter
+    EvalNode modular = new BinaryEval(EvalType.MODULAR, left(FLOAT4), right(INT4));
+    assertSameResults(new BinaryEval(EvalType.OR,
+        new BinaryEval(EvalType.GTH, modular, right(INT8)), field("flag")));
+    assertNull(EvalCodeGenerator.tryCompile(new BinaryEval(EvalType.PLUS, modular, right(INT8)), schema));
+
+    // an expression which does not have any compiled node is not compiled
+    assertNull(EvalCodeGenerator.tryCompile(textEq, schema));
+    assertNull(EvalCodeGenerator.tryCompile(field("l_int4"), schema));
+  }
+
+  @Test
+  public void testCache() {
+    EvalNode eval1 = new BinaryEval(EvalType.LEQ, left(INT4), right(FLOAT8));
+    EvalNode eval2 = new BinaryEval(EvalType.LEQ, left(INT4), right(FLOAT8));
+    EvalNode eval3 = new BinaryEval(EvalType.LEQ, left(INT4), right(INT8));
+
+    CompiledEval compiled1 = EvalCodeGenerator.tryCompile(eval1, schema);
+    CompiledEval compiled2 = EvalCodeGenerator.tryCompile(eval2, schema);
+    CompiledEval compiled3 = EvalCodeGenerator.tryCompile(eval3, schema);
+    assertNotSame(compiled1, compiled2);
+    assertSame(compiled1.getClass(), compiled2.getClass());
+    assertNotSame(compiled1.getClass(), compiled3.getClass());
+  }
+
+  @Test
+  public void testCodegenDisabled() {
+    TajoConf conf = new TajoConf();
+    EvalNode eval = new BinaryEval(EvalType.GTH, left(INT4), right(INT4));
+    assertFalse(EvalCodeGenerator.compile(conf, eval, schema) instanceof InterpretedEval);
+
+    conf.setBoolVar(TajoConf.ConfVars.EXECUTOR_CODEGEN_ENABLED, false);
+    CompiledEval interpreted = EvalCodeGenerator.compile(conf, eval, schema);
+    assertTrue(interpreted instanceof InterpretedEval);
+    for (Tuple tuple : tuples) {
+      assertEquals(interpret(eval, tuple), interpreted.eval(tuple));
+    }
+  }
+}
@@ -38,6 +38,7 @@ import org.apache.tajo.engine.planner.logical.GroupbyNode;
 import org.apache.tajo.engine.planner.logical.NodeType;
 import org.apache.tajo.exception.InternalException;
 import org.apache.tajo.master.TajoMaster;
+import org.apache.tajo.storage.ScanFilter;
 import org.apache.tajo.util.CommonTestingUtil;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -334,4 +335,35 @@ public class TestEvalTreeUtil {
       assertTrue(result.contains(eval.getName()));
     }
   }
+  @Test
+  public final void testToScanFilter() throws PlanningException {
+    // "select score from people where score < 10 and 4 < score and age > 5"
+    ScanFilter filter = EvalTreeUtil.toScanFilter(getRootSelection(QUERIES[6]));
+    assertEquals(3, filter.getPredicates().size());
+    for (ScanFilter.Predicate predicate : filter.getPredicates()) {
+      // a constant on the left side is mirrored
+      if (predicate.getColumn().getColumnName().equals("score")) {
+        assertTrue(predicate.getOperator() == ScanFilter.Operator.LTH ? predicate.getValue().asInt4() == 10 :
+            predicate.getOperator() == ScanFilter.Operator.GTH && predicate.getValue().asInt4() == 4);
+      } else {
+        assertEquals("age", predicate.getColumn().getColumnName());
+        assertEquals(ScanFilter.Operator.GTH, predicate.getOperator());
+        assertEquals(5, predicate.getValue().asInt4());
+      }
+    }
+
+    // conjuncts which are not simple comparisons between a column and a constant are ignored
+    filter = EvalTreeUtil.toScanFilter(getRootSelection(
+        "select score from people where score between 1 and 3 and name is not null and score + 1 > age"));
+    Set<ScanFilter.Operator> operators = Sets.newHashSet();
+    for (ScanFilter.Predicate predicate : filter.getPredicates()) {
+      operators.add(predicate.getOperator());
+    }
+    assertEquals(3, filter.getPredicates().size());
+    assertEquals(Sets.newHashSet(ScanFilter.Operator.GEQ, ScanFilter.Operator.LEQ, ScanFilter.Operator.IS_NOT_NULL),
+        operators);
+
+    // a disjunction cannot be pushed down
+    assertTrue(EvalTreeUtil.toScanFilter(getRootSelection(QUERIES[7])).isEmpty());
+  }
 }
\ No newline at end of file
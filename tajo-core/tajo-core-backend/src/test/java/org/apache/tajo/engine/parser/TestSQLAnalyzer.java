@@ -185,6 +185,12 @@ public class TestSQLAnalyzer {
     parseQuery(sql);
   }
 
+  @Test
+  public void testAnalyzeTable() throws IOException {
+    String sql = FileUtil.readTextFile(new File("src/test/resources/queries/default/analyze_table.sql"));
+    parseQuery(sql);
+  }
+
   @Test
   public void testCreateTable1() throws IOException {
     String sql = FileUtil.readTextFile(new File("src/test/resources/queries/default/create_table_1.sql"));
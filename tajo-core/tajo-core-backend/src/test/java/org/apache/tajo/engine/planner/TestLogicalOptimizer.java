@@ -18,12 +18,17 @@
 
 package org.apache.tajo.engine.planner;
 
+import org.apache.hadoop.fs.Path;
 import org.apache.tajo.TajoTestingCluster;
 import org.apache.tajo.algebra.Expr;
+import org.apache.tajo.algebra.JoinType;
 import org.apache.tajo.catalog.*;
 import org.apache.tajo.catalog.proto.CatalogProtos.FunctionType;
 import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
+import org.apache.tajo.catalog.statistics.ColumnStats;
+import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.engine.function.builtin.SumInt;
 import org.apache.tajo.engine.parser.SQLAnalyzer;
 import org.apache.tajo.engine.planner.logical.*;
@@ -76,6 +81,28 @@ public class TestLogicalOptimizer {
     TableDesc score = new TableDesc("score", schema3, StoreType.CSV, new Options(), CommonTestingUtil.getTestDir());
     catalog.addTable(score);
 
+    // tables with column statistics
+    // Their paths do not exist, so that the planner does not overwrite the volumes with the actual file sizes.
+    Schema factSchema = new Schema();
+    factSchema.addColumn("k1", Type.INT4);
+    factSchema.addColumn("k2", Type.INT4);
+    TableDesc fact = new TableDesc("fact", factSchema, meta, new Path(CommonTestingUtil.getTestDir(), "fact"));
+    fact.setStats(newTableStats(factSchema, 1000000000L, 10000000L, 1000000L, 1000L));
+    catalog.addTable(fact);
+
+    Schema dim1Schema = new Schema();
+    dim1Schema.addColumn("k1", Type.INT4);
+    dim1Schema.addColumn("name", Type.TEXT);
+    TableDesc dim1 = new TableDesc("dim1", dim1Schema, meta, new Path(CommonTestingUtil.getTestDir(), "dim1"));
+    dim1.setStats(newTableStats(dim1Schema, 100000000L, 1000000L, 1000000L, 1000000L));
+    catalog.addTable(dim1);
+
+    Schema dim2Schema = new Schema();
+    dim2Schema.addColumn("k2", Type.INT4);
+    TableDesc dim2 = new TableDesc("dim2", dim2Schema, meta, new Path(CommonTestingUtil.getTestDir(), "dim2"));
+    dim2.setStats(newTableStats(dim2Schema, 2000000L, 1000L, 1000L));
+    catalog.addTable(dim2);
+
     FunctionDesc funcDesc = new FunctionDesc("sumtest", SumInt.class, FunctionType.GENERAL,
         CatalogUtil.newSimpleDataType(Type.INT4),
         CatalogUtil.newSimpleDataTypeArray(Type.INT4));
@@ -86,6 +113,18 @@ public class TestLogicalOptimizer {
     optimizer = new LogicalOptimizer(util.getConfiguration());
   }
 
+  private static TableStats newTableStats(Schema schema, long numBytes, long numRows, long... numDistVals) {
+    TableStats stats = new TableStats();
+    stats.setNumBytes(numBytes);
+    stats.setNumRows(numRows);
+    for (int i = 0; i < schema.getColumnNum(); i++) {
+      ColumnStats columnStats = new ColumnStats(schema.getColumn(i));
+      columnStats.setNumDistVals(numDistVals[i]);
+      stats.addColumnStat(columnStats);
+    }
+    return stats;
+  }
+
   @AfterClass
   public static void tearDown() throws Exception {
     util.shutdownCatalogCluster();
@@ -98,6 +137,8 @@ public class TestLogicalOptimizer {
     "select name, max(empId) as final from employee where empId > 50 group by name", // 3
     "select name, score from employee natural join score", // 4
     "select name, score from employee join score on employee.deptName = score.deptName", // 5
+    "select * from fact f, dim1 d1, dim2 d2 where f.k1 = d1.k1 and f.k2 = d2.k2 and d1.name = 'x'", // 6
+    "select * from dim1 d1, dim2 d2, fact f where d1.k1 = f.k1 and d2.k2 = f.k2", // 7
   };
   
   @Test
@@ -238,6 +279,46 @@ public class TestLogicalOptimizer {
     assertTrue(PlannerUtil.canBeEvaluated(selNode.getQual(), scanNode));
   }
 
+  @Test
+  public final void testJoinOrderWithColumnStats() throws PlanningException {
+    Expr expr = sqlAnalyzer.parse(QUERIES[6]);
+    LogicalPlan newPlan = planner.createPlan(expr);
+    LogicalNode optimized = optimizer.optimize(newPlan);
+
+    // dim1 is larger than dim2, but only a few rows of dim1 pass the filter on its unique column.
+    // So, fact has to be joined with dim1 first.
+    LogicalNode [] joins = PlannerUtil.findAllNodes(optimized, NodeType.JOIN);
+    assertEquals(2, joins.length);
+    // the joins are found in post order
+    String [] relations = PlannerUtil.getRelationLineage(joins[0]);
+    assertEquals(2, relations.length);
+    assertTrue(relations[0].equals("d1") || relations[1].equals("d1"));
+  }
+
+  @Test
+  public final void testJoinOrderWithoutCrossJoin() throws PlanningException {
+    TajoConf greedyConf = new TajoConf(util.getConfiguration());
+    greedyConf.setIntVar(TajoConf.ConfVars.OPTIMIZER_JOIN_ORDER_DP_MAX_RELATIONS, 0);
+    LogicalOptimizer greedyOptimizer = new LogicalOptimizer(greedyConf);
+
+    // Both enumerations have to reorder two dimension tables which are not joinable to each other.
+    for (LogicalOptimizer each : new LogicalOptimizer[] {optimizer, greedyOptimizer}) {
+      Expr expr = sqlAnalyzer.parse(QUERIES[7]);
+      LogicalPlan newPlan = planner.createPlan(expr);
+      LogicalNode optimized = each.optimize(newPlan);
+
+      LogicalNode [] joins = PlannerUtil.findAllNodes(optimized, NodeType.JOIN);
+      assertEquals(2, joins.length);
+      for (LogicalNode join : joins) {
+        assertEquals(JoinType.INNER, ((JoinNode) join).getJoinType());
+      }
+      // dim2 is small enough to be broadcasted, but its wide rows would be shuffled for the next join.
+      String [] relations = PlannerUtil.getRelationLineage(joins[0]);
+      assertEquals(2, relations.length);
+      assertTrue(relations[0].equals("d1") || relations[1].equals("d1"));
+    }
+  }
+
   @Test
   public final void testInsertInto() throws CloneNotSupportedException, PlanningException {
     Expr expr = sqlAnalyzer.parse(TestLogicalPlanner.insertStatements[0]);
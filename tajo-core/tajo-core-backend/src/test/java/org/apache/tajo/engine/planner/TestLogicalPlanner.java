@@ -29,6 +29,7 @@ import org.apache.tajo.catalog.proto.CatalogProtos.FunctionType;
 import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
 import org.apache.tajo.common.TajoDataTypes.Type;
 import org.apache.tajo.engine.eval.EvalType;
+import org.apache.tajo.engine.exception.VerifyException;
 import org.apache.tajo.engine.function.builtin.SumInt;
 import org.apache.tajo.engine.json.CoreGsonHelper;
 import org.apache.tajo.engine.parser.SQLAnalyzer;
@@ -429,6 +430,31 @@ public class TestLogicalPlanner {
     testQuery7(storeNode.getChild());
   }
 
+  @Test
+  public final void testAnalyzeTable() throws CloneNotSupportedException, PlanningException {
+    Expr context = sqlAnalyzer.parse("analyze table employee");
+    LogicalNode plan = planner.createPlan(context).getRootBlock().getRoot();
+    TestLogicalNode.testCloneLogicalNode(plan);
+    testJsonSerDerObject(plan);
+
+    assertEquals(NodeType.ROOT, plan.getType());
+    LogicalRootNode root = (LogicalRootNode) plan;
+    assertEquals(NodeType.ANALYZE_TABLE, root.getChild().getType());
+    AnalyzeTableNode analyzeNode = root.getChild();
+    assertEquals("employee", analyzeNode.getTableName());
+
+    // every column of the table is scanned
+    assertEquals(NodeType.SCAN, analyzeNode.getChild().getType());
+    ScanNode scanNode = analyzeNode.getChild();
+    assertEquals("employee", scanNode.getTableName());
+    assertEquals(catalog.getTableDesc("employee").getSchema().getColumnNum(), scanNode.getTargets().length);
+  }
+
+  @Test(expected = VerifyException.class)
+  public final void testAnalyzeNoSuchTable() throws PlanningException {
+    planner.createPlan(sqlAnalyzer.parse("analyze table no_such_table"));
+  }
+
   @Test
   public final void testOrderBy() throws CloneNotSupportedException, PlanningException {
     Expr expr = sqlAnalyzer.parse(QUERIES[4]);
@@ -751,6 +777,24 @@ public class TestLogicalPlanner {
     assertEquals(NodeType.SCAN, projectionNode.getChild().getType());
   }
 
+  @Test
+  public final void testCloneDeserializedPlan() throws CloneNotSupportedException, PlanningException {
+    // A worker decodes the binary plan of an execution block once, and each task runs a copy of it.
+    for (int i = 0; i < QUERIES.length; i++) {
+      if (i == 11) { // create index
+        continue;
+      }
+      Expr expr = sqlAnalyzer.parse(QUERIES[i]);
+      LogicalNode plan = planner.createPlan(expr).getRootBlock().getRoot();
+      byte [] binary = CoreGsonHelper.toBinary(plan, LogicalNode.class);
+      assertTrue(QUERIES[i], binary.length < plan.toJson().length());
+      LogicalNode fromBinary = CoreGsonHelper.fromBinary(binary, LogicalNode.class);
+      LogicalNode copy = (LogicalNode) fromBinary.clone();
+      assertTrue(QUERIES[i], plan.deepEquals(copy));
+      assertEquals(QUERIES[i], plan.toJson(), copy.toJson());
+    }
+  }
+
   public void testJsonSerDerObject(LogicalNode rootNode) {
     String json = rootNode.toJson();
     LogicalNode fromJson = CoreGsonHelper.fromJson(json, LogicalNode.class);
@@ -170,4 +170,52 @@ public class TestExternalSortExec {
     exec.close();
     System.out.println("Sort Time: " + (end - start) + " msc");
   }
+
+  @Test
+  public final void testMultiPassMerge() throws IOException, PlanningException {
+    // a small memory budget and fan-in cause many runs and multiple merge passes
+    TajoConf sortConf = new TajoConf(conf);
+    sortConf.setLongVar(TajoConf.ConfVars.EXECUTOR_SORT_EXTERNAL_MEMORY_BYTES, 2 * 1048576);
+    sortConf.setIntVar(TajoConf.ConfVars.EXECUTOR_SORT_MERGE_FANIN, 4);
+
+    FileFragment[] frags = sm.splitNG(conf, "employee", employee.getMeta(), employee.getPath(),
+        Integer.MAX_VALUE);
+    Path workDir = new Path(testDir, TestExternalSortExec.class.getName() + "_multipass");
+    TaskAttemptContext ctx = new TaskAttemptContext(sortConf,
+        LocalTajoTestingUtility.newQueryUnitAttemptId(), new FileFragment[] { frags[0] }, workDir);
+    ctx.setEnforcer(new Enforcer());
+    Expr expr = analyzer.parse(QUERIES[0]);
+    LogicalPlan plan = planner.createPlan(expr);
+    LogicalNode rootNode = plan.getRootBlock().getRoot();
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(sortConf, sm);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, rootNode);
+
+    ProjectionExec proj = (ProjectionExec) exec;
+    if (!(proj.getChild() instanceof ExternalSortExec)) {
+      UnaryPhysicalExec sortExec = (UnaryPhysicalExec) proj.getChild();
+      SeqScanExec scan = (SeqScanExec)sortExec.getChild();
+
+      ExternalSortExec extSort = new ExternalSortExec(ctx, sm,
+          ((MemSortExec)sortExec).getPlan(), scan);
+      proj.setChild(extSort);
+    }
+
+    Tuple tuple;
+    int preManagerId = -1;
+    int preEmpId = Integer.MAX_VALUE;
+    int cnt = 0;
+    exec.init();
+    while ((tuple = exec.next()) != null) {
+      int managerId = tuple.get(0).asInt4();
+      int empId = tuple.get(1).asInt4();
+      // order by managerId, empId desc
+      assertTrue(preManagerId < managerId || (preManagerId == managerId && preEmpId >= empId));
+      preManagerId = managerId;
+      preEmpId = empId;
+      cnt++;
+    }
+    exec.close();
+    assertEquals(numTuple, cnt);
+  }
 }
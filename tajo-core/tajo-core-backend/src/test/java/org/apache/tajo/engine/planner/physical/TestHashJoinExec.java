@@ -18,6 +18,8 @@
 
 package org.apache.tajo.engine.planner.physical;
 
+import com.google.common.collect.Sets;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.tajo.LocalTajoTestingUtility;
 import org.apache.tajo.TajoTestingCluster;
@@ -44,6 +46,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Set;
 
 import static org.apache.tajo.ipc.TajoWorkerProtocol.JoinEnforce.JoinAlgorithm;
 import static org.junit.Assert.assertEquals;
@@ -172,4 +175,140 @@ public class TestHashJoinExec {
     exec.close();
     assertEquals(10 / 2, count);
   }
+
+  @Test
+  public final void testVectorizedHashInnerJoin() throws IOException, PlanningException {
+    TajoConf vectorizedConf = new TajoConf(conf);
+    vectorizedConf.setBoolVar(TajoConf.ConfVars.EXECUTOR_VECTORIZED_ENABLED, true);
+    vectorizedConf.setIntVar(TajoConf.ConfVars.EXECUTOR_VECTORIZED_BATCH_SIZE, 2);
+
+    Expr expr = analyzer.parse(QUERIES[0]);
+    LogicalNode plan = planner.createPlan(expr).getRootBlock().getRoot();
+
+    JoinNode joinNode = PlannerUtil.findTopNode(plan, NodeType.JOIN);
+    Enforcer enforcer = new Enforcer();
+    enforcer.enforceJoinAlgorithm(joinNode.getPID(), JoinAlgorithm.IN_MEMORY_HASH_JOIN);
+
+    FileFragment[] empFrags = StorageManager.splitNG(conf, "e", employee.getMeta(), employee.getPath(), Integer.MAX_VALUE);
+    FileFragment[] peopleFrags = StorageManager.splitNG(conf, "p", people.getMeta(), people.getPath(), Integer.MAX_VALUE);
+    FileFragment[] merged = TUtil.concat(empFrags, peopleFrags);
+
+    Path workDir = CommonTestingUtil.getTestDir("target/test-data/testVectorizedHashInnerJoin");
+    TaskAttemptContext ctx = new TaskAttemptContext(vectorizedConf,
+        LocalTajoTestingUtility.newQueryUnitAttemptId(), merged, workDir);
+    ctx.setEnforcer(enforcer);
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(vectorizedConf, sm);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, plan);
+
+    // the probe side is driven by batches up to the projection
+    assertTrue(exec instanceof BatchToRowExec);
+    ProjectionExec proj = (ProjectionExec) ((BatchToRowExec) exec).getChild();
+    assertTrue(proj.getChild() instanceof HashJoinExec);
+
+    Tuple tuple;
+    int count = 0;
+    int i = 1;
+    exec.init();
+    while ((tuple = exec.next()) != null) {
+      count++;
+      assertTrue(i == tuple.getInt(0).asInt4());
+      assertTrue(i == tuple.getInt(1).asInt4());
+      assertTrue(("dept_" + i).equals(tuple.getString(2).asChars()));
+      assertTrue(10 + i == tuple.getInt(3).asInt4());
+
+      i += 2;
+    }
+    exec.close();
+    assertEquals(10 / 2, count);
+  }
+
+  @Test
+  public final void testHybridHashJoin() throws IOException, PlanningException {
+    // a tiny memory budget forces the hash table to spill partitions
+    TajoConf hybridConf = new TajoConf(conf);
+    hybridConf.setLongVar(TajoConf.ConfVars.EXECUTOR_INNER_JOIN_INMEMORY_HASH_THRESHOLD, 32);
+    hybridConf.setIntVar(TajoConf.ConfVars.EXECUTOR_JOIN_SPILL_PARTITION_NUM, 4);
+
+    Expr expr = analyzer.parse(QUERIES[0]);
+    LogicalNode plan = planner.createPlan(expr).getRootBlock().getRoot();
+
+    JoinNode joinNode = PlannerUtil.findTopNode(plan, NodeType.JOIN);
+    Enforcer enforcer = new Enforcer();
+    enforcer.enforceJoinAlgorithm(joinNode.getPID(), JoinAlgorithm.IN_MEMORY_HASH_JOIN);
+
+    FileFragment[] empFrags = StorageManager.splitNG(conf, "e", employee.getMeta(), employee.getPath(), Integer.MAX_VALUE);
+    FileFragment[] peopleFrags = StorageManager.splitNG(conf, "p", people.getMeta(), people.getPath(), Integer.MAX_VALUE);
+    FileFragment[] merged = TUtil.concat(empFrags, peopleFrags);
+
+    Path workDir = CommonTestingUtil.getTestDir("target/test-data/testHybridHashJoin");
+    TaskAttemptContext ctx = new TaskAttemptContext(hybridConf,
+        LocalTajoTestingUtility.newQueryUnitAttemptId(), merged, workDir);
+    ctx.setEnforcer(enforcer);
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(hybridConf, sm);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, plan);
+
+    ProjectionExec proj = (ProjectionExec) exec;
+    assertTrue(proj.getChild() instanceof HashJoinExec);
+    HashJoinExec join = (HashJoinExec) proj.getChild();
+
+    // spilled partitions are joined later, so the output order is not preserved.
+    Set<Integer> expected = Sets.newHashSet(1, 3, 5, 7, 9);
+    Tuple tuple;
+    int count = 0;
+    exec.init();
+    while ((tuple = exec.next()) != null) {
+      count++;
+      int i = tuple.getInt(1).asInt4();
+      assertTrue(expected.remove(i));
+      assertTrue(i == tuple.getInt(0).asInt4());
+      assertTrue(("dept_" + i).equals(tuple.getString(2).asChars()));
+      assertTrue(10 + i == tuple.getInt(3).asInt4());
+    }
+    assertTrue(join.hashTable.hasSpilled());
+    exec.close();
+    assertEquals(10 / 2, count);
+
+    // all spill files are removed
+    FileSystem localFS = FileSystem.getLocal(conf);
+    assertEquals(0, localFS.listStatus(workDir).length);
+  }
+
+  @Test
+  public final void testHybridHashJoinHeapEstimation() throws IOException, PlanningException {
+    // the serialized right tuples take about 110 bytes, but their heap objects take far more than the budget.
+    TajoConf hybridConf = new TajoConf(conf);
+    hybridConf.setLongVar(TajoConf.ConfVars.EXECUTOR_INNER_JOIN_INMEMORY_HASH_THRESHOLD, 512);
+    hybridConf.setIntVar(TajoConf.ConfVars.EXECUTOR_JOIN_SPILL_PARTITION_NUM, 4);
+
+    Expr expr = analyzer.parse(QUERIES[0]);
+    LogicalNode plan = planner.createPlan(expr).getRootBlock().getRoot();
+
+    JoinNode joinNode = PlannerUtil.findTopNode(plan, NodeType.JOIN);
+    Enforcer enforcer = new Enforcer();
+    enforcer.enforceJoinAlgorithm(joinNode.getPID(), JoinAlgorithm.IN_MEMORY_HASH_JOIN);
+
+    FileFragment[] empFrags = StorageManager.splitNG(conf, "e", employee.getMeta(), employee.getPath(), Integer.MAX_VALUE);
+    FileFragment[] peopleFrags = StorageManager.splitNG(conf, "p", people.getMeta(), people.getPath(), Integer.MAX_VALUE);
+    FileFragment[] merged = TUtil.concat(empFrags, peopleFrags);
+
+    Path workDir = CommonTestingUtil.getTestDir("target/test-data/testHybridHashJoinHeapEstimation");
+    TaskAttemptContext ctx = new TaskAttemptContext(hybridConf,
+        LocalTajoTestingUtility.newQueryUnitAttemptId(), merged, workDir);
+    ctx.setEnforcer(enforcer);
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(hybridConf, sm);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, plan);
+    HashJoinExec join = ((ProjectionExec) exec).getChild();
+
+    int count = 0;
+    exec.init();
+    while (exec.next() != null) {
+      count++;
+    }
+    assertTrue(join.hashTable.hasSpilled());
+    exec.close();
+    assertEquals(10 / 2, count);
+  }
 }
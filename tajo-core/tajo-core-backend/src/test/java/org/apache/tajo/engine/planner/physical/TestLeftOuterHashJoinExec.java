@@ -280,6 +280,45 @@ public class TestLeftOuterHashJoinExec {
     assertEquals(12, count);
   }
 
+  @Test
+  public final void testLeftOuterHybridHashJoin() throws IOException, PlanningException {
+    // a tiny memory budget forces the hash table to spill partitions
+    TajoConf hybridConf = new TajoConf(conf);
+    hybridConf.setLongVar(TajoConf.ConfVars.EXECUTOR_OUTER_JOIN_INMEMORY_HASH_THRESHOLD, 32);
+    hybridConf.setIntVar(TajoConf.ConfVars.EXECUTOR_JOIN_SPILL_PARTITION_NUM, 4);
+
+    Expr expr = analyzer.parse(QUERIES[0]);
+    LogicalNode plan = planner.createPlan(expr).getRootBlock().getRoot();
+    JoinNode joinNode = PlannerUtil.findTopNode(plan, NodeType.JOIN);
+    Enforcer enforcer = new Enforcer();
+    enforcer.enforceJoinAlgorithm(joinNode.getPID(), JoinAlgorithm.IN_MEMORY_HASH_JOIN);
+
+    FileFragment[] dep3Frags = StorageManager.splitNG(conf, "dep3", dep3.getMeta(), dep3.getPath(), Integer.MAX_VALUE);
+    FileFragment[] emp3Frags = StorageManager.splitNG(conf, "emp3", emp3.getMeta(), emp3.getPath(), Integer.MAX_VALUE);
+    FileFragment[] merged = TUtil.concat(dep3Frags, emp3Frags);
+
+    Path workDir = CommonTestingUtil.getTestDir("target/test-data/TestLeftOuterHybridHashJoin");
+    TaskAttemptContext ctx = new TaskAttemptContext(hybridConf,
+        LocalTajoTestingUtility.newQueryUnitAttemptId(), merged, workDir);
+    ctx.setEnforcer(enforcer);
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(hybridConf, sm);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, plan);
+
+    ProjectionExec proj = (ProjectionExec) exec;
+    assertTrue(proj.getChild() instanceof HashLeftOuterJoinExec);
+    HashLeftOuterJoinExec join = (HashLeftOuterJoinExec) proj.getChild();
+
+    int count = 0;
+    exec.init();
+    while (exec.next() != null) {
+      count = count + 1;
+    }
+    assertTrue(join.hashTable.hasSpilled());
+    exec.close();
+    assertEquals(12, count);
+  }
+
 
   @Test
   public final void testLeftOuter_HashJoinExec1() throws IOException, PlanningException {
@@ -25,12 +25,14 @@ import org.apache.commons.codec.binary.Base64;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.compress.DeflateCodec;
 import org.apache.tajo.*;
 import org.apache.tajo.algebra.Expr;
 import org.apache.tajo.catalog.*;
 import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
 import org.apache.tajo.common.TajoDataTypes.Type;
 import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
 import org.apache.tajo.datum.Datum;
 import org.apache.tajo.datum.DatumFactory;
 import org.apache.tajo.datum.NullDatum;
@@ -58,7 +60,10 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -179,6 +184,8 @@ public class TestPhysicalPlanner {
       "select sum(score), max(score), min(score) from score", // 14
       "select deptname, sum(score), max(score), min(score) from score group by deptname", // 15
       "select name from employee where empid >= 0", // 16
+      "select deptName, class, sum(score), max(score), min(score) from score where score > 1 " +
+          "group by deptName, class", // 17
   };
 
   @Test
@@ -266,6 +273,233 @@ public class TestPhysicalPlanner {
     assertEquals(10, i);
   }
 
+  @Test
+  public final void testVectorizedGroupByPlan() throws IOException, PlanningException {
+    FileFragment[] frags = StorageManager.splitNG(conf, "score", score.getMeta(), score.getPath(),
+        Integer.MAX_VALUE);
+    Path workDir = CommonTestingUtil.getTestDir("target/test-data/testVectorizedGroupByPlan");
+    TajoConf vectorizedConf = new TajoConf(conf);
+    vectorizedConf.setBoolVar(TajoConf.ConfVars.EXECUTOR_VECTORIZED_ENABLED, true);
+    vectorizedConf.setIntVar(TajoConf.ConfVars.EXECUTOR_VECTORIZED_BATCH_SIZE, 4);
+    TaskAttemptContext ctx = new TaskAttemptContext(vectorizedConf,
+        LocalTajoTestingUtility.newQueryUnitAttemptId(masterPlan), new FileFragment[] { frags[0] }, workDir);
+    ctx.setEnforcer(new Enforcer());
+    Expr context = analyzer.parse(QUERIES[17]);
+    LogicalPlan plan = planner.createPlan(context);
+    optimizer.optimize(plan);
+    LogicalNode rootNode = plan.getRootBlock().getRoot();
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(vectorizedConf, sm);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, rootNode);
+    assertTrue(exec instanceof BatchToRowExec);
+
+    int i = 0;
+    Tuple tuple;
+    exec.init();
+    while ((tuple = exec.next()) != null) {
+      assertEquals(5, tuple.get(2).asInt4()); // sum
+      assertEquals(3, tuple.get(3).asInt4()); // max
+      assertEquals(2, tuple.get(4).asInt4()); // min
+      i++;
+    }
+    exec.close();
+    assertEquals(10, i);
+  }
+
+  @Test
+  public final void testVectorizedSpillableGroupByPlan() throws IOException, PlanningException {
+    FileFragment[] frags = StorageManager.splitNG(conf, "score", score.getMeta(), score.getPath(),
+        Integer.MAX_VALUE);
+    Path workDir = CommonTestingUtil.getTestDir("target/test-data/testVectorizedSpillableGroupByPlan");
+    TajoConf vectorizedConf = new TajoConf(conf);
+    vectorizedConf.setBoolVar(TajoConf.ConfVars.EXECUTOR_VECTORIZED_ENABLED, true);
+    vectorizedConf.setIntVar(TajoConf.ConfVars.EXECUTOR_VECTORIZED_BATCH_SIZE, 4);
+    vectorizedConf.setLongVar(TajoConf.ConfVars.EXECUTOR_GROUPBY_INMEMORY_HASH_THRESHOLD, 256);
+    vectorizedConf.setIntVar(TajoConf.ConfVars.EXECUTOR_GROUPBY_SPILL_PARTITION_NUM, 4);
+    TaskAttemptContext ctx = new TaskAttemptContext(vectorizedConf,
+        LocalTajoTestingUtility.newQueryUnitAttemptId(masterPlan), new FileFragment[] { frags[0] }, workDir);
+    ctx.setEnforcer(new Enforcer());
+    Expr context = analyzer.parse(QUERIES[7]);
+    LogicalPlan plan = planner.createPlan(context);
+    optimizer.optimize(plan);
+    LogicalNode rootNode = plan.getRootBlock().getRoot();
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(vectorizedConf, sm);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, rootNode);
+    assertTrue(exec instanceof BatchToRowExec);
+    HashAggregateExec aggExec = (HashAggregateExec) ((BatchToRowExec) exec).getChild();
+    assertTrue(aggExec.isBatchSupported());
+
+    int i = 0;
+    Tuple tuple;
+    exec.init();
+    while ((tuple = exec.next()) != null) {
+      assertEquals(6, tuple.get(2).asInt4()); // sum
+      assertEquals(3, tuple.get(3).asInt4()); // max
+      assertEquals(1, tuple.get(4).asInt4()); // min
+      i++;
+    }
+    assertTrue(aggExec.hasSpilled());
+    exec.close();
+    assertEquals(10, i);
+  }
+
+  @Test
+  public final void testVectorizedGroupByFallback() throws IOException, PlanningException {
+    FileFragment[] frags = StorageManager.splitNG(conf, "score", score.getMeta(), score.getPath(),
+        Integer.MAX_VALUE);
+    Path workDir = CommonTestingUtil.getTestDir("target/test-data/testVectorizedGroupByFallback");
+    TajoConf vectorizedConf = new TajoConf(conf);
+    vectorizedConf.setBoolVar(TajoConf.ConfVars.EXECUTOR_VECTORIZED_ENABLED, true);
+    vectorizedConf.setIntVar(TajoConf.ConfVars.EXECUTOR_VECTORIZED_BATCH_SIZE, 4);
+    TaskAttemptContext ctx = new TaskAttemptContext(vectorizedConf,
+        LocalTajoTestingUtility.newQueryUnitAttemptId(masterPlan), new FileFragment[] { frags[0] }, workDir);
+    ctx.setEnforcer(new Enforcer());
+    Expr context = analyzer.parse("select deptName, min(class) from score group by deptName");
+    LogicalPlan plan = planner.createPlan(context);
+    optimizer.optimize(plan);
+    LogicalNode rootNode = plan.getRootBlock().getRoot();
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(vectorizedConf, sm);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, rootNode);
+    // min of a text column is not vectorized, so the aggregation consumes the rows of the scan
+    assertTrue(exec instanceof HashAggregateExec);
+    assertFalse(exec.isBatchSupported());
+    assertTrue(((HashAggregateExec) exec).getChild() instanceof SeqScanExec);
+
+    int i = 0;
+    Tuple tuple;
+    exec.init();
+    while ((tuple = exec.next()) != null) {
+      assertEquals("3rd", tuple.get(1).asChars());
+      i++;
+    }
+    exec.close();
+    assertEquals(5, i);
+  }
+
+  @Test
+  public final void testSpillableHashGroupByPlan() throws IOException, PlanningException {
+    // a tiny memory budget forces the hash aggregation to spill partial aggregates
+    assertTrue(testSpillableHashGroupBy("testSpillableHashGroupByPlan", 256));
+  }
+
+  @Test
+  public final void testHashGroupByHeapEstimation() throws IOException, PlanningException {
+    // the ten groups take more than 2KB of heap including the key copies and hash entries,
+    // although their key payloads take much less.
+    assertTrue(testSpillableHashGroupBy("testHashGroupByHeapEstimation", 2048));
+  }
+
+  /**
+   * @return true if the aggregation has spilled
+   */
+  private boolean testSpillableHashGroupBy(String testName, long budget)
+      throws IOException, PlanningException {
+    FileFragment[] frags = StorageManager.splitNG(conf, "score", score.getMeta(), score.getPath(),
+        Integer.MAX_VALUE);
+    Path workDir = CommonTestingUtil.getTestDir("target/test-data/" + testName);
+    TajoConf spillConf = new TajoConf(conf);
+    spillConf.setLongVar(TajoConf.ConfVars.EXECUTOR_GROUPBY_INMEMORY_HASH_THRESHOLD, budget);
+    spillConf.setIntVar(TajoConf.ConfVars.EXECUTOR_GROUPBY_SPILL_PARTITION_NUM, 4);
+    TaskAttemptContext ctx = new TaskAttemptContext(spillConf,
+        LocalTajoTestingUtility.newQueryUnitAttemptId(masterPlan), new FileFragment[] { frags[0] }, workDir);
+    ctx.setEnforcer(new Enforcer());
+    Expr context = analyzer.parse(QUERIES[7]);
+    LogicalPlan plan = planner.createPlan(context);
+    optimizer.optimize(plan);
+    LogicalNode rootNode = plan.getRootBlock().getRoot();
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(spillConf, sm);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, rootNode);
+    assertTrue(exec instanceof HashAggregateExec);
+
+    int i = 0;
+    Tuple tuple;
+    Set<String> groups = Sets.newHashSet();
+    exec.init();
+    while ((tuple = exec.next()) != null) {
+      assertTrue(groups.add(tuple.get(0).asChars() + "_" + tuple.get(1).asChars()));
+      assertEquals(6, tuple.get(2).asInt4()); // sum
+      assertEquals(3, tuple.get(3).asInt4()); // max
+      assertEquals(1, tuple.get(4).asInt4()); // min
+      i++;
+    }
+    boolean spilled = ((HashAggregateExec) exec).hasSpilled();
+    exec.close();
+    assertEquals(10, i);
+    return spilled;
+  }
+
+  @Test
+  public final void testPartialAggregation() throws IOException, PlanningException {
+    // groups are flushed whenever the tiny hash table is full, so three groups are emitted twice
+    PartialAggregateExec exec = testPartialAggregation("testPartialAggregation", 0.0f, 13);
+    assertFalse(exec.isPassThrough());
+    // the first flush measures a low reduction ratio, so the remaining rows are not aggregated
+    exec = testPartialAggregation("testPartialAggregationPassThrough", 0.9f, 24);
+    assertTrue(exec.isPassThrough());
+  }
+
+  private PartialAggregateExec testPartialAggregation(String testName, float minReduction, int expectedRows)
+      throws IOException, PlanningException {
+    FileFragment[] frags = StorageManager.splitNG(conf, "score", score.getMeta(), score.getPath(),
+        Integer.MAX_VALUE);
+    Path workDir = CommonTestingUtil.getTestDir("target/test-data/" + testName);
+    TajoConf partialConf = new TajoConf(conf);
+    partialConf.setIntVar(ConfVars.EXECUTOR_GROUPBY_PARTIAL_TABLE_SIZE, 4);
+    partialConf.setFloatVar(ConfVars.EXECUTOR_GROUPBY_PARTIAL_MIN_REDUCTION, minReduction);
+    TaskAttemptContext ctx = new TaskAttemptContext(partialConf,
+        LocalTajoTestingUtility.newQueryUnitAttemptId(masterPlan), new FileFragment[] { frags[0] }, workDir);
+    ctx.setEnforcer(new Enforcer());
+    DataChannel dataChannel = new DataChannel(masterPlan.newExecutionBlockId(), masterPlan.newExecutionBlockId(),
+        ShuffleType.HASH_SHUFFLE, 4);
+    dataChannel.setShuffleKeys(new Column[] {new Column("score.deptName", Type.TEXT),
+        new Column("score.class", Type.TEXT)});
+    ctx.setDataChannel(dataChannel);
+
+    Expr context = analyzer.parse(QUERIES[7]);
+    LogicalPlan plan = planner.createPlan(context);
+    LogicalNode rootNode = optimizer.optimize(plan);
+    GroupbyNode groupbyNode = PlannerUtil.findTopNode(rootNode, NodeType.GROUP_BY);
+    GroupbyNode firstPhase = PlannerUtil.transformGroupbyTo2P(groupbyNode);
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(partialConf, sm);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, firstPhase);
+    assertTrue(exec instanceof HashShuffleFileWriteExec);
+    PhysicalExec child = ((HashShuffleFileWriteExec) exec).getChild();
+    assertTrue(child instanceof PartialAggregateExec);
+    PartialAggregateExec partialAgg = (PartialAggregateExec) child;
+
+    // merge the partial aggregates of each group
+    Map<String, long []> groups = Maps.newHashMap();
+    int rows = 0;
+    Tuple tuple;
+    exec.init();
+    while ((tuple = partialAgg.next()) != null) {
+      String key = tuple.get(0).asChars() + "_" + tuple.get(1).asChars();
+      long [] merged = groups.get(key);
+      if (merged == null) {
+        groups.put(key, new long[] {tuple.get(2).asInt8(), tuple.get(3).asInt8(), tuple.get(4).asInt8()});
+      } else {
+        merged[0] += tuple.get(2).asInt8();
+        merged[1] = Math.max(merged[1], tuple.get(3).asInt8());
+        merged[2] = Math.min(merged[2], tuple.get(4).asInt8());
+      }
+      rows++;
+    }
+    exec.close();
+
+    assertEquals(expectedRows, rows);
+    assertEquals(10, groups.size());
+    for (long [] merged : groups.values()) {
+      assertEquals(6, merged[0]); // sum
+      assertEquals(3, merged[1]); // max
+      assertEquals(1, merged[2]); // min
+    }
+    return partialAgg;
+  }
+
   @Test
   public final void testHashGroupByPlanWithALLField() throws IOException, PlanningException {
     // TODO - currently, this query does not use hash-based group operator.
@@ -441,7 +675,10 @@ public class TestPhysicalPlanner {
         Integer.MAX_VALUE);
     QueryUnitAttemptId id = LocalTajoTestingUtility.newQueryUnitAttemptId(masterPlan);
     Path workDir = CommonTestingUtil.getTestDir("target/test-data/testPartitionedStorePlan");
-    TaskAttemptContext ctx = new TaskAttemptContext(conf, id, new FileFragment[] { frags[0] }, workDir);
+    // one file per partition
+    TajoConf shuffleConf = new TajoConf(conf);
+    shuffleConf.setBoolVar(ConfVars.SHUFFLE_HASH_CONSOLIDATED_ENABLED, false);
+    TaskAttemptContext ctx = new TaskAttemptContext(shuffleConf, id, new FileFragment[] { frags[0] }, workDir);
     ctx.setEnforcer(new Enforcer());
     Expr context = analyzer.parse(QUERIES[7]);
     LogicalPlan plan = planner.createPlan(context);
@@ -492,6 +729,104 @@ public class TestPhysicalPlanner {
     assertEquals(10, ctx.getResultStats().getNumRows().longValue());
   }
 
+  @Test
+  public final void testPartitionedStorePlanWithConsolidatedOutput() throws IOException, PlanningException {
+    testConsolidatedOutput("testPartitionedStorePlanWithConsolidatedOutput", null);
+  }
+
+  @Test
+  public final void testPartitionedStorePlanWithCompressedOutput() throws IOException, PlanningException {
+    testConsolidatedOutput("testPartitionedStorePlanWithCompressedOutput", DeflateCodec.class.getName());
+  }
+
+  private void testConsolidatedOutput(String testName, String codec) throws IOException, PlanningException {
+    FileFragment[] frags = StorageManager.splitNG(conf, "score", score.getMeta(), score.getPath(),
+        Integer.MAX_VALUE);
+    QueryUnitAttemptId id = LocalTajoTestingUtility.newQueryUnitAttemptId(masterPlan);
+    Path workDir = CommonTestingUtil.getTestDir("target/test-data/" + testName);
+    // a small buffer causes spills which are merged into the data file
+    TajoConf shuffleConf = new TajoConf(conf);
+    shuffleConf.setBoolVar(ConfVars.SHUFFLE_HASH_CONSOLIDATED_ENABLED, true);
+    shuffleConf.setLongVar(ConfVars.SHUFFLE_HASH_BUFFER_BYTES, 128);
+    TaskAttemptContext ctx = new TaskAttemptContext(shuffleConf, id, new FileFragment[] { frags[0] }, workDir);
+    ctx.setEnforcer(new Enforcer());
+    Expr context = analyzer.parse(QUERIES[7]);
+    LogicalPlan plan = planner.createPlan(context);
+
+    int numPartitions = 3;
+    Column key1 = new Column("score.deptName", Type.TEXT);
+    Column key2 = new Column("score.class", Type.TEXT);
+    DataChannel dataChannel = new DataChannel(masterPlan.newExecutionBlockId(), masterPlan.newExecutionBlockId(),
+        ShuffleType.HASH_SHUFFLE, numPartitions);
+    dataChannel.setShuffleKeys(new Column[]{key1, key2});
+    ctx.setDataChannel(dataChannel);
+    LogicalNode rootNode = optimizer.optimize(plan);
+
+    TableMeta outputMeta = CatalogUtil.newTableMeta(dataChannel.getStoreType());
+    if (codec != null) {
+      dataChannel.setCompressionCodec(codec);
+      outputMeta.putOption(TableMeta.COMPRESSION_CODEC, codec);
+    }
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(conf,sm);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, rootNode);
+    exec.init();
+    exec.next();
+    exec.close();
+
+    // only the data file and its index remain
+    Path path = new Path(workDir, "output");
+    FileSystem fs = sm.getFileSystem();
+    FileStatus [] list = fs.listStatus(path);
+    assertEquals(2, list.length);
+    Path dataPath = new Path(path, HashShuffleIndex.DATA_FILE_NAME);
+    File indexFile = new File(new Path(path, HashShuffleIndex.INDEX_FILE_NAME).toUri().getPath());
+
+    int i = 0;
+    int nonEmptyPartitions = 0;
+    for (int partId = 0; partId < numPartitions; partId++) {
+      long [] range = HashShuffleIndex.read(indexFile, partId);
+      if (range == null) {
+        continue;
+      }
+      nonEmptyPartitions++;
+      // fetch the byte range of the partition as the pull server serves it
+      File partFile = new File(indexFile.getParentFile(), "fetched_" + partId);
+      FileChunk chunk = new FileChunk(new File(dataPath.toUri().getPath()), range[0], range[1]);
+      RandomAccessFile in = new RandomAccessFile(chunk.getFile(), "r");
+      FileOutputStream out = new FileOutputStream(partFile);
+      in.getChannel().transferTo(chunk.startOffset(), chunk.length(), out.getChannel());
+      out.close();
+      in.close();
+      FileFragment fragment = new FileFragment("partition", new Path(partFile.toURI()), 0, partFile.length());
+      Scanner scanner = StorageManagerFactory.getStorageManager(conf).getScanner(outputMeta,
+          rootNode.getOutSchema(), fragment);
+      scanner.init();
+      Tuple tuple;
+      while ((tuple = scanner.next()) != null) {
+        assertEquals(6, tuple.get(2).asInt4()); // sum
+        assertEquals(3, tuple.get(3).asInt4()); // max
+        assertEquals(1, tuple.get(4).asInt4()); // min
+        i++;
+      }
+      scanner.close();
+    }
+    assertEquals(10, i);
+    assertNull(HashShuffleIndex.read(indexFile, numPartitions));
+
+    // only non-empty partitions are reported
+    int reported = 0;
+    Iterator<Map.Entry<Integer, String>> it = ctx.getShuffleFileOutputs();
+    while (it.hasNext()) {
+      assertEquals(HashShuffleIndex.DATA_FILE_NAME, it.next().getValue());
+      reported++;
+    }
+    assertEquals(nonEmptyPartitions, reported);
+
+    // Examine the statistics information
+    assertEquals(10, ctx.getResultStats().getNumRows().longValue());
+  }
+
   @Test
   public final void testPartitionedStorePlanWithEmptyGroupingSet()
       throws IOException, PlanningException {
@@ -501,7 +836,10 @@ public class TestPhysicalPlanner {
 
     Path workDir = CommonTestingUtil.getTestDir(
         "target/test-data/testPartitionedStorePlanWithEmptyGroupingSet");
-    TaskAttemptContext ctx = new TaskAttemptContext(conf, id, new FileFragment[] { frags[0] }, workDir);
+    // one file per partition
+    TajoConf shuffleConf = new TajoConf(conf);
+    shuffleConf.setBoolVar(ConfVars.SHUFFLE_HASH_CONSOLIDATED_ENABLED, false);
+    TaskAttemptContext ctx = new TaskAttemptContext(shuffleConf, id, new FileFragment[] { frags[0] }, workDir);
     ctx.setEnforcer(new Enforcer());
     Expr expr = analyzer.parse(QUERIES[14]);
     LogicalPlan plan = planner.createPlan(expr);
@@ -756,9 +1094,47 @@ public class TestPhysicalPlanner {
   }
 
   public String [] SORT_QUERY = {
-      "select name, empId from employee order by empId"
+      "select name, empId from employee order by empId",
+      "select name, empId from employee order by empId desc limit 7"
   };
 
+  @Test
+  public final void testTopNSortPlan() throws IOException, PlanningException {
+    FileFragment[] frags = StorageManager.splitNG(conf, "employee", employee.getMeta(),
+        employee.getPath(), Integer.MAX_VALUE);
+
+    Path workDir = CommonTestingUtil.getTestDir("target/test-data/testTopNSortPlan");
+    TaskAttemptContext ctx = new TaskAttemptContext(conf, LocalTajoTestingUtility.newQueryUnitAttemptId(masterPlan),
+        new FileFragment[] {frags[0]}, workDir);
+    ctx.setEnforcer(new Enforcer());
+    Expr context = analyzer.parse(SORT_QUERY[1]);
+    LogicalPlan plan = planner.createPlan(context);
+    LogicalNode rootNode = optimizer.optimize(plan);
+
+    PhysicalPlanner phyPlanner = new PhysicalPlannerImpl(conf, sm);
+    PhysicalExec exec = phyPlanner.createPlan(ctx, rootNode);
+    TopNSortExec topN = PhysicalPlanUtil.findExecutor(exec, TopNSortExec.class);
+    assertNotNull(topN);
+    assertEquals(7, topN.getFetchFirstNum());
+
+    Tuple tuple;
+    int expectedEmpId = 99;
+    exec.init();
+    while ((tuple = exec.next()) != null) {
+      assertEquals(expectedEmpId--, tuple.get(1).asInt4());
+    }
+    assertEquals(92, expectedEmpId);
+
+    // rescan should return the same top N tuples without reading the input again
+    exec.rescan();
+    expectedEmpId = 99;
+    while ((tuple = exec.next()) != null) {
+      assertEquals(expectedEmpId--, tuple.get(1).asInt4());
+    }
+    assertEquals(92, expectedEmpId);
+    exec.close();
+  }
+
   @Test
   public final void testIndexedStoreExec() throws IOException, PlanningException {
     FileFragment[] frags = StorageManager.splitNG(conf, "employee", employee.getMeta(),
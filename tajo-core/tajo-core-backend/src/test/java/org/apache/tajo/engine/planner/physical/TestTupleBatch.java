@@ -0,0 +1,198 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.planner.physical;
+
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.engine.eval.*;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestTupleBatch {
+
+  private static Schema createSchema() {
+    Schema schema = new Schema();
+    schema.addColumn("id", Type.INT4);
+    schema.addColumn("score", Type.FLOAT8);
+    schema.addColumn("name", Type.TEXT);
+    return schema;
+  }
+
+  private static TupleBatch createBatch(Schema schema, int num) {
+    TupleBatch batch = new TupleBatch(schema, num);
+    Tuple tuple = new VTuple(schema.getColumnNum());
+    for (int i = 0; i < num; i++) {
+      tuple.put(new Datum[] {
+          i % 5 == 0 ? NullDatum.get() : DatumFactory.createInt4(i),
+          DatumFactory.createFloat8(i * 0.5),
+          DatumFactory.createText("name_" + i)
+      });
+      batch.addTuple(tuple);
+    }
+    return batch;
+  }
+
+  @Test
+  public final void testAddAndGetTuple() {
+    Schema schema = createSchema();
+    TupleBatch batch = createBatch(schema, 100);
+
+    assertTrue(batch.isFull());
+    assertEquals(100, batch.getRowNum());
+    assertEquals(100, batch.getSelectedNum());
+    assertEquals(TupleBatch.VectorType.LONG, batch.getVectorType(0));
+    assertEquals(TupleBatch.VectorType.DOUBLE, batch.getVectorType(1));
+    assertEquals(TupleBatch.VectorType.DATUM, batch.getVectorType(2));
+
+    Tuple tuple = new VTuple(schema.getColumnNum());
+    for (int i = 0; i < batch.getRowNum(); i++) {
+      batch.getTuple(i, tuple);
+      if (i % 5 == 0) {
+        assertTrue(tuple.isNull(0));
+      } else {
+        assertEquals(DatumFactory.createInt4(i), tuple.get(0));
+      }
+      assertEquals(DatumFactory.createFloat8(i * 0.5), tuple.get(1));
+      assertEquals(DatumFactory.createText("name_" + i), tuple.get(2));
+    }
+
+    batch.reset();
+    assertEquals(0, batch.getRowNum());
+    assertFalse(batch.isSelectionInUse());
+  }
+
+  @Test
+  public final void testVectorizedFilter() {
+    Schema schema = createSchema();
+    TupleBatch batch = createBatch(schema, 100);
+
+    // id > 10 and score <= 30.0
+    EvalNode idPredicate = new BinaryEval(EvalType.GTH,
+        new FieldEval(schema.getColumn(0)), new ConstEval(DatumFactory.createInt4(10)));
+    EvalNode scorePredicate = new BinaryEval(EvalType.GEQ,
+        new ConstEval(DatumFactory.createFloat8(30.0)), new FieldEval(schema.getColumn(1)));
+    EvalNode qual = new BinaryEval(EvalType.AND, idPredicate, scorePredicate);
+
+    VectorizedFilter filter = VectorizedFilter.compile(qual, schema);
+    assertNotNull(filter);
+    filter.filter(batch);
+
+    EvalContext qualCtx = qual.newContext();
+    Tuple tuple = new VTuple(schema.getColumnNum());
+    int expected = 0;
+    for (int i = 0; i < batch.getRowNum(); i++) {
+      batch.getTuple(i, tuple);
+      qual.eval(qualCtx, schema, tuple);
+      if (qual.terminate(qualCtx).isTrue()) {
+        assertEquals(i, batch.getRowId(expected));
+        expected++;
+      }
+    }
+    assertEquals(expected, batch.getSelectedNum());
+    // 11 ~ 60 except for multiples of 5
+    assertEquals(40, batch.getSelectedNum());
+  }
+
+  @Test
+  public final void testUnsupportedFilter() {
+    Schema schema = createSchema();
+    EvalNode qual = new BinaryEval(EvalType.EQUAL,
+        new FieldEval(schema.getColumn(2)), new ConstEval(DatumFactory.createText("name_1")));
+    assertNull(VectorizedFilter.compile(qual, schema));
+  }
+
+  @Test
+  public final void testVectorizedExpression() {
+    Schema schema = createSchema();
+    FieldEval id = new FieldEval(schema.getColumn(0));
+    FieldEval score = new FieldEval(schema.getColumn(1));
+
+    EvalNode [] exprs = new EvalNode[] {
+        // id * 3 + 1
+        new BinaryEval(EvalType.PLUS, new BinaryEval(EvalType.MULTIPLY, id, new ConstEval(DatumFactory.createInt4(3))),
+            new ConstEval(DatumFactory.createInt4(1))),
+        // id * 100000 * 100000, which overflows as int4
+        new BinaryEval(EvalType.MULTIPLY, new BinaryEval(EvalType.MULTIPLY, id,
+            new ConstEval(DatumFactory.createInt4(100000))), new ConstEval(DatumFactory.createInt4(100000))),
+        // id / 7 - score
+        new BinaryEval(EvalType.MINUS, new BinaryEval(EvalType.DIVIDE, id, new ConstEval(DatumFactory.createInt4(7))),
+            score),
+        // cast(score * 3 as int4)
+        new CastEval(new BinaryEval(EvalType.MULTIPLY, score, new ConstEval(DatumFactory.createInt4(3))),
+            CatalogUtil.newSimpleDataType(Type.INT4)),
+        // id % 4 = 1
+        new BinaryEval(EvalType.EQUAL, new BinaryEval(EvalType.MODULAR, id, new ConstEval(DatumFactory.createInt4(4))),
+            new ConstEval(DatumFactory.createInt4(1))),
+        // score < id
+        new BinaryEval(EvalType.LTH, score, id)
+    };
+
+    for (EvalNode expr : exprs) {
+      TupleBatch batch = createBatch(schema, 100);
+      // id > 10
+      VectorizedFilter.compile(new BinaryEval(EvalType.GTH, id, new ConstEval(DatumFactory.createInt4(10))),
+          schema).filter(batch);
+
+      Schema outSchema = new Schema();
+      outSchema.addColumn("result", expr.getValueType());
+      TupleBatch outBatch = new TupleBatch(outSchema, 100);
+      for (int i = 0; i < batch.getSelectedNum(); i++) {
+        outBatch.nextRow(0);
+      }
+
+      VectorizedExpression vectorized = VectorizedExpression.compile(expr, schema);
+      assertNotNull(expr.toString(), vectorized);
+      vectorized.eval(batch, outBatch, 0);
+
+      EvalContext exprCtx = expr.newContext();
+      Tuple tuple = new VTuple(schema.getColumnNum());
+      for (int i = 0; i < batch.getSelectedNum(); i++) {
+        batch.getTuple(batch.getRowId(i), tuple);
+        expr.eval(exprCtx, schema, tuple);
+        Datum expected = expr.terminate(exprCtx);
+        Datum result = outBatch.get(0, i);
+        if (expected.isNull()) {
+          assertTrue(expr.toString(), result.isNull());
+        } else if (expected.type() == Type.BOOLEAN) {
+          assertEquals(expr.toString(), expected.asBool(), result.asBool());
+        } else {
+          assertEquals(expr.toString(), expected.asFloat8(), result.asFloat8(), 0.0);
+        }
+      }
+    }
+  }
+
+  @Test
+  public final void testUnsupportedExpression() {
+    Schema schema = createSchema();
+    EvalNode expr = new BinaryEval(EvalType.CONCATENATE,
+        new FieldEval(schema.getColumn(2)), new ConstEval(DatumFactory.createText("_suffix")));
+    assertNull(VectorizedExpression.compile(expr, schema));
+    expr = new BinaryEval(EvalType.PLUS,
+        new FieldEval(schema.getColumn(0)), new ConstEval(DatumFactory.createFloat4(1.0f)));
+    assertNull(VectorizedExpression.compile(expr, schema));
+  }
+}
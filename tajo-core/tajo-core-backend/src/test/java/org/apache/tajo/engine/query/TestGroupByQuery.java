@@ -95,6 +95,15 @@ public class TestGroupByQuery extends QueryTestCaseBase {
     cleanupQuery(res);
   }
 
+  @Test
+  public final void testApproxCountDistinct() throws Exception {
+    // select l_orderkey, count(*) as cnt, approx_count_distinct(l_linenumber) as unique_key from lineitem
+    // group by l_orderkey;
+    ResultSet res = executeQuery();
+    assertResultSet(res);
+    cleanupQuery(res);
+  }
+
   @Test
   public final void testComplexParameter() throws Exception {
     // select sum(l_extendedprice*l_discount) as revenue from lineitem;
@@ -29,6 +29,9 @@ import org.apache.tajo.TajoTestingCluster;
 import org.apache.tajo.TpchTestBase;
 import org.apache.tajo.catalog.CatalogService;
 import org.apache.tajo.catalog.TableDesc;
+import org.apache.tajo.catalog.statistics.ColumnStats;
+import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.datum.DatumFactory;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -368,4 +371,58 @@ public class TestTablePartitions {
     assertFalse(res.next());
     res.close();
   }
+
+  @Test
+  public final void testGroupByOnColumnPartitionedTable() throws Exception {
+    String tableName = "testGroupByOnColumnPartitionedTable";
+    ResultSet res = tpch.execute(
+        "create table " + tableName + " (col1 int4, col2 int4) partition by column(key float8) ");
+    res.close();
+    res = tpch.execute("insert overwrite into " + tableName
+        + " (col1, col2, key) select l_orderkey, l_partkey, l_quantity from lineitem");
+    res.close();
+
+    // every partition is scanned by its own task, and the aggregation can start while they are running.
+    res = tpch.execute(
+        "select col1, count(*) as cnt, sum(col2) as total from " + tableName + " group by col1 order by col1");
+    int [][] expected = new int[][] {{1, 2, 2}, {2, 1, 2}, {3, 2, 5}};
+    for (int [] row : expected) {
+      assertTrue(res.next());
+      assertEquals(row[0], res.getInt(1));
+      assertEquals(row[1], res.getInt(2));
+      assertEquals(row[2], res.getInt(3));
+    }
+    assertFalse(res.next());
+    res.close();
+  }
+
+  @Test
+  public final void testAnalyzeColumnPartitionedTable() throws Exception {
+    String tableName = "testAnalyzeColumnPartitionedTable";
+    ResultSet res = tpch.execute(
+        "create table " + tableName + " (col1 int4, col2 int4) partition by column(key float8) ");
+    res.close();
+    res = tpch.execute("insert overwrite into " + tableName
+        + " (col1, col2, key) select l_orderkey, l_partkey, l_quantity from lineitem");
+    res.close();
+
+    // every partition is analyzed, including the values of the partition column.
+    res = tpch.execute("analyze table " + tableName);
+    assertFalse(res.next());
+    res.close();
+
+    CatalogService catalog = tpch.getTestingCluster().getMaster().getCatalog();
+    TableDesc desc = catalog.getTableDesc(tableName);
+    assertNotNull(desc.getPartitions());
+    TableStats stats = desc.getStats();
+    assertEquals(5, stats.getNumRows().longValue());
+    assertEquals(3, stats.getColumnStats().size());
+    assertEquals(3, stats.getColumnStats().get(0).getNumDistValues().longValue());
+    assertEquals(3, stats.getColumnStats().get(1).getNumDistValues().longValue());
+    ColumnStats key = stats.getColumnStats().get(2);
+    assertEquals(5, key.getNumDistValues().longValue());
+    assertEquals(DatumFactory.createFloat8(17.0d), key.getMinValue());
+    assertEquals(DatumFactory.createFloat8(49.0d), key.getMaxValue());
+    assertTrue(key.hasHistogram());
+  }
 }
@@ -0,0 +1,105 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.engine.util;
+
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.engine.utils.JoinKeyFilter;
+import org.apache.tajo.storage.Tuple;
+import org.apache.tajo.storage.VTuple;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestJoinKeyFilter {
+  private static final int [] KEY_IDS = new int[] {0, 2};
+
+  private static Tuple newTuple(int key1, String key2) {
+    Tuple tuple = new VTuple(3);
+    tuple.put(0, DatumFactory.createInt4(key1));
+    tuple.put(1, DatumFactory.createText("value" + key1));
+    tuple.put(2, DatumFactory.createText(key2));
+    return tuple;
+  }
+
+  @Test
+  public final void testMembership() throws Exception {
+    JoinKeyFilter filter1 = new JoinKeyFilter(65536, 3);
+    JoinKeyFilter filter2 = new JoinKeyFilter(65536, 3);
+    for (int i = 0; i < 500; i++) {
+      if (i % 2 == 0) {
+        filter1.add(newTuple(i, "key" + i), KEY_IDS);
+      } else {
+        filter2.add(newTuple(i, "key" + i), KEY_IDS);
+      }
+    }
+
+    // the filters built by tasks are serialized and merged
+    JoinKeyFilter merged = new JoinKeyFilter(65536, 3);
+    merged.merge(new JoinKeyFilter(filter1.toBytes()));
+    merged.merge(new JoinKeyFilter(filter2.toBytes()));
+    assertEquals(2, merged.getMergedNum());
+    // the tasks probe their own instances sharing the cached filter
+    JoinKeyFilter filter = new JoinKeyFilter(new JoinKeyFilter(merged.toBytes()));
+
+    for (int i = 0; i < 500; i++) {
+      assertTrue(filter.mightContain(newTuple(i, "key" + i), KEY_IDS));
+    }
+
+    int falsePositives = 0;
+    for (int i = 500; i < 1500; i++) {
+      if (filter.mightContain(newTuple(i, "key" + i), KEY_IDS)) {
+        falsePositives++;
+      }
+      // the same values in the other key column
+      if (filter.mightContain(newTuple(i - 500, "key" + i), KEY_IDS)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 10);
+
+    Tuple nullKey = newTuple(0, "key0");
+    nullKey.put(2, NullDatum.get());
+    assertFalse(filter.mightContain(nullKey, KEY_IDS));
+  }
+
+  @Test
+  public final void testEstimateFalsePositiveRate() {
+    assertEquals(0.0, JoinKeyFilter.estimateFalsePositiveRate(1024, 3, 0), 0.0001);
+    double small = JoinKeyFilter.estimateFalsePositiveRate(8 * 1048576, 3, 1000000);
+    double large = JoinKeyFilter.estimateFalsePositiveRate(8 * 1048576, 3, 10000000);
+    assertTrue(small < 0.05);
+    assertTrue(large > 0.5);
+  }
+
+  @Test
+  public final void testGetBitNum() {
+    int bitNum = JoinKeyFilter.getBitNum(1000000, 0.05, 64 * 1048576);
+    int hashNum = JoinKeyFilter.getHashNum(bitNum, 1000000);
+    assertEquals(4, hashNum);
+    assertEquals(0.05, JoinKeyFilter.estimateFalsePositiveRate(bitNum, hashNum, 1000000), 0.005);
+
+    // a filter of small build side is small
+    assertEquals(1024, JoinKeyFilter.getBitNum(10, 0.05, 64 * 1048576));
+    assertEquals(8, JoinKeyFilter.getHashNum(1024, 10));
+    // the size is bounded
+    assertEquals(8 * 1048576, JoinKeyFilter.getBitNum(100000000, 0.05, 8 * 1048576));
+    assertEquals(1, JoinKeyFilter.getHashNum(8 * 1048576, 100000000));
+  }
+}
@@ -276,4 +276,26 @@ public class TestTupleUtil {
     assertEquals(DatumFactory.createInt8(123), tuple.get(0));
     assertEquals(DatumFactory.createText("abc"), tuple.get(1));
   }
+
+  @Test
+  public void testEstimateHeapSize() {
+    VTuple vtuple = new VTuple(3);
+    vtuple.put(0, DatumFactory.createInt4(1));
+    vtuple.put(1, DatumFactory.createText("tajo"));
+    vtuple.put(2, DatumFactory.createNullDatum());
+
+    PrimitiveTuple ptuple = new PrimitiveTuple(new Type [] {Type.INT4, Type.TEXT, Type.INT8});
+    ptuple.putInt4(0, 1);
+    ptuple.putBytes(1, "tajo".getBytes(), 0, 4);
+    ptuple.setNull(2);
+
+    // the heap size includes the objects, which are much larger than the values
+    assertTrue(TupleUtil.estimateHeapSize(vtuple) > TupleUtil.estimateSize(vtuple) * 4);
+    assertTrue(TupleUtil.estimateHeapSize(ptuple) > TupleUtil.estimateSize(ptuple) * 4);
+
+    // the datums materialized from a primitive tuple are charged
+    long before = TupleUtil.estimateHeapSize(ptuple);
+    ptuple.get(1);
+    assertTrue(TupleUtil.estimateHeapSize(ptuple) > before);
+  }
 }
@@ -0,0 +1,194 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.master;
+
+import com.google.protobuf.RpcCallback;
+import org.apache.hadoop.yarn.api.records.ApplicationAttemptId;
+import org.apache.hadoop.yarn.api.records.ApplicationId;
+import org.apache.hadoop.yarn.api.records.ContainerId;
+import org.apache.hadoop.yarn.event.EventHandler;
+import org.apache.hadoop.yarn.util.RackResolver;
+import org.apache.tajo.ExecutionBlockId;
+import org.apache.tajo.LocalTajoTestingUtility;
+import org.apache.tajo.QueryIdFactory;
+import org.apache.tajo.QueryUnitAttemptId;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.apache.tajo.engine.planner.global.ExecutionBlock;
+import org.apache.tajo.engine.planner.global.MasterPlan;
+import org.apache.tajo.engine.planner.logical.ScanNode;
+import org.apache.tajo.ipc.TajoWorkerProtocol.QueryUnitRequestListProto;
+import org.apache.tajo.ipc.TajoWorkerProtocol.QueryUnitRequestProto;
+import org.apache.tajo.master.event.QueryUnitAttemptScheduleEvent;
+import org.apache.tajo.master.event.QueryUnitAttemptScheduleEvent.QueryUnitAttemptScheduleContext;
+import org.apache.tajo.master.event.TaskAttemptAssignedEvent;
+import org.apache.tajo.master.event.TaskRequestEvent;
+import org.apache.tajo.master.event.TaskSchedulerEvent;
+import org.apache.tajo.master.querymaster.QueryMasterTask;
+import org.apache.tajo.master.querymaster.QueryUnit;
+import org.apache.tajo.master.querymaster.QueryUnitAttempt;
+import org.apache.tajo.master.querymaster.SubQuery;
+import org.apache.tajo.storage.DataLocation;
+import org.apache.tajo.worker.AbstractResourceAllocator;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class TestDefaultTaskScheduler {
+  private static final ApplicationAttemptId APP_ATTEMPT_ID =
+      ApplicationAttemptId.newInstance(ApplicationId.newInstance(0, 1), 1);
+
+  private TajoConf conf;
+  private ExecutionBlockId ebId;
+  private SubQuery subQuery;
+  private EventHandler eventHandler;
+  private AbstractResourceAllocator allocator;
+  private DefaultTaskScheduler scheduler;
+
+  @BeforeClass
+  public static void setUpClass() {
+    RackResolver.init(new TajoConf());
+  }
+
+  private void setUp(boolean leafQuery) {
+    conf = new TajoConf();
+    conf.setBoolVar(ConfVars.DIST_QUERY_SPECULATION_ENABLED, false);
+    ebId = QueryIdFactory.newExecutionBlockId(LocalTajoTestingUtility.newQueryId(), 1);
+
+    MasterPlan masterPlan = mock(MasterPlan.class);
+    when(masterPlan.isRoot(any(ExecutionBlock.class))).thenReturn(true);
+    subQuery = mock(SubQuery.class);
+    when(subQuery.getMasterPlan()).thenReturn(masterPlan);
+    when(subQuery.getBlock()).thenReturn(mock(ExecutionBlock.class));
+    when(subQuery.getSerializedPlan()).thenReturn(new byte[0]);
+
+    eventHandler = mock(EventHandler.class);
+    allocator = mock(AbstractResourceAllocator.class);
+    QueryMasterTask.QueryMasterTaskContext masterContext = mock(QueryMasterTask.QueryMasterTaskContext.class);
+    when(masterContext.getEventHandler()).thenReturn(eventHandler);
+    when(masterContext.getResourceAllocator()).thenReturn(allocator);
+
+    scheduler = new DefaultTaskScheduler(new TaskSchedulerContext(masterContext, leafQuery, ebId), subQuery);
+    scheduler.init(conf);
+  }
+
+  private void addTasks(int num) {
+    for (int i = 0; i < num; i++) {
+      QueryUnitAttemptId attemptId =
+          QueryIdFactory.newQueryUnitAttemptId(QueryIdFactory.newQueryUnitId(ebId, i), 0);
+      QueryUnit task = mock(QueryUnit.class);
+      when(task.getScanNodes()).thenReturn(new ScanNode[0]);
+      when(task.getDataLocations()).thenReturn(new DataLocation[] {new DataLocation("host" + i, 0)});
+      when(subQuery.getQueryUnit(attemptId.getQueryUnitId())).thenReturn(task);
+
+      QueryUnitAttempt attempt = mock(QueryUnitAttempt.class);
+      when(attempt.getId()).thenReturn(attemptId);
+      when(attempt.getQueryUnit()).thenReturn(task);
+      scheduler.handle(new QueryUnitAttemptScheduleEvent(TaskSchedulerEvent.EventType.T_SCHEDULE, ebId,
+          new QueryUnitAttemptScheduleContext(), attempt));
+    }
+  }
+
+  private BatchCallback request(int containerId, int slots) {
+    ContainerId id = ContainerId.newInstance(APP_ATTEMPT_ID, containerId);
+    ContainerProxy container = mock(ContainerProxy.class);
+    when(container.getTaskHostName()).thenReturn("host" + containerId);
+    when(container.getTaskPort()).thenReturn(28092);
+    when(allocator.getContainer(id)).thenReturn(container);
+
+    BatchCallback callback = new BatchCallback();
+    scheduler.handleTaskRequestEvent(new TaskRequestEvent(id, ebId, slots, callback));
+    return callback;
+  }
+
+  private static class BatchCallback implements RpcCallback<QueryUnitRequestListProto> {
+    private final List<QueryUnitRequestProto> received = new ArrayList<QueryUnitRequestProto>();
+    private int responses = 0;
+
+    @Override
+    public void run(QueryUnitRequestListProto parameter) {
+      received.addAll(parameter.getRequestsList());
+      responses++;
+    }
+
+    int getTaskNum() {
+      int num = 0;
+      for (QueryUnitRequestProto request : received) {
+        if (!request.getShouldDie()) {
+          num++;
+        }
+      }
+      return num;
+    }
+
+    boolean isStopped() {
+      return received.size() > 0 && received.get(received.size() - 1).getShouldDie();
+    }
+  }
+
+  @Test
+  public final void testBatchedRequest() {
+    setUp(false);
+    addTasks(4);
+
+    // the first request takes all tasks at once, and the second one waits in the queue.
+    BatchCallback first = request(1, 4);
+    BatchCallback second = request(2, 4);
+    scheduler.schedule();
+
+    assertEquals(1, first.responses);
+    assertEquals(4, first.getTaskNum());
+    assertEquals(0, second.responses);
+    verify(eventHandler, times(4)).handle(any(TaskAttemptAssignedEvent.class));
+
+    // the remaining requests are returned when the scheduler stops.
+    scheduler.stop();
+    assertEquals(1, second.responses);
+    assertTrue(second.isStopped());
+  }
+
+  @Test
+  public final void testBatchedLeafRequests() {
+    for (int round = 0; round < 20; round++) {
+      setUp(true);
+      addTasks(3);
+
+      // both requests are taken for three tasks, but the second one in the shuffled order may get no task.
+      BatchCallback single = request(1, 1);
+      BatchCallback batched = request(2, 3);
+      scheduler.schedule();
+
+      assertEquals(3, single.getTaskNum() + batched.getTaskNum());
+      assertTrue(batched.getTaskNum() >= 2);
+      assertEquals(1, batched.responses);
+      verify(eventHandler, times(3)).handle(any(TaskAttemptAssignedEvent.class));
+
+      // a request which has got no task is queued again.
+      scheduler.stop();
+      assertEquals(1, single.responses);
+      assertEquals(single.getTaskNum() == 0, single.isStopped());
+    }
+  }
+}
@@ -29,9 +29,14 @@ import org.apache.tajo.engine.parser.SQLAnalyzer;
 import org.apache.tajo.engine.planner.LogicalOptimizer;
 import org.apache.tajo.engine.planner.LogicalPlan;
 import org.apache.tajo.engine.planner.LogicalPlanner;
+import org.apache.tajo.engine.planner.PlannerUtil;
 import org.apache.tajo.engine.planner.PlanningException;
+import org.apache.tajo.engine.planner.global.ExecutionBlock;
+import org.apache.tajo.engine.planner.global.ExecutionBlockCursor;
 import org.apache.tajo.engine.planner.global.GlobalPlanner;
 import org.apache.tajo.engine.planner.global.MasterPlan;
+import org.apache.tajo.engine.planner.logical.LimitNode;
+import org.apache.tajo.engine.planner.logical.NodeType;
 import org.apache.tajo.engine.query.QueryContext;
 import org.apache.tajo.storage.StorageManagerFactory;
 import org.apache.tajo.util.CommonTestingUtil;
@@ -42,6 +47,8 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 
+import static org.junit.Assert.assertEquals;
+
 public class TestGlobalPlanner {
 
   private static TajoTestingCluster util;
@@ -109,7 +116,23 @@ public class TestGlobalPlanner {
 
   @Test
   public void testSortLimit() throws Exception {
-    buildPlan("select max(l_quantity) as max_quantity, l_orderkey from lineitem group by l_orderkey order by max_quantity limit 3");
+    MasterPlan plan = buildPlan("select max(l_quantity) as max_quantity, l_orderkey from lineitem " +
+        "group by l_orderkey order by max_quantity limit 3");
+
+    // the limit should be pushed down into the first-phase sort.
+    int sortBlockNum = 0;
+    ExecutionBlockCursor cursor = new ExecutionBlockCursor(plan);
+    while (cursor.hasNext()) {
+      ExecutionBlock block = cursor.nextBlock();
+      LimitNode limitNode = block.getPlan() == null ? null :
+          (LimitNode) PlannerUtil.findTopNode(block.getPlan(), NodeType.LIMIT);
+      if (limitNode != null && limitNode.getChild().getType() == NodeType.SORT) {
+        assertEquals(3, limitNode.getFetchFirstNum());
+        sortBlockNum++;
+      }
+    }
+    // both the first-phase and the second-phase sorts are bounded by the limit.
+    assertEquals(2, sortBlockNum);
   }
 
   @Test
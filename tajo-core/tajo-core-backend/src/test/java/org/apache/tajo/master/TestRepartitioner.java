@@ -32,6 +32,7 @@ import java.net.URI;
 import java.util.*;
 
 import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
 
 public class TestRepartitioner {
   @Test
@@ -64,6 +65,63 @@ public class TestRepartitioner {
     }
   }
 
+  @Test
+  public void testFindSkewedPartitions() {
+    Map<Integer, Long> volumes = new HashMap<Integer, Long>();
+    volumes.put(0, 100l);
+    volumes.put(1, 120l);
+    volumes.put(2, 0l);
+    volumes.put(3, 90l);
+    volumes.put(4, 1000l);
+    volumes.put(5, 350l);
+
+    // the median of non-empty partitions is 120.
+    Map<Integer, Integer> skewed = Repartitioner.findSkewedPartitions(volumes, 2.0f, 0);
+    assertEquals(2, skewed.size());
+    assertEquals(9, (int) skewed.get(4));
+    assertEquals(3, (int) skewed.get(5));
+
+    skewed = Repartitioner.findSkewedPartitions(volumes, 2.0f, 500);
+    assertEquals(1, skewed.size());
+    assertEquals(9, (int) skewed.get(4));
+
+    skewed = Repartitioner.findSkewedPartitions(volumes, 10.0f, 0);
+    assertTrue(skewed.isEmpty());
+
+    // no volume is reported
+    volumes.clear();
+    volumes.put(0, 0l);
+    volumes.put(1, 0l);
+    assertTrue(Repartitioner.findSkewedPartitions(volumes, 2.0f, 0).isEmpty());
+  }
+
+  @Test
+  public void testSplitIntermediateEntries() {
+    long [] volumes = new long[] {10, 70, 20, 40, 30, 50, 60};
+    List<QueryUnit.IntermediateEntry> entries = TUtil.newList();
+    for (int i = 0; i < volumes.length; i++) {
+      QueryUnit.IntermediateEntry entry = new QueryUnit.IntermediateEntry(i, 0, 1, "tajo1", 1234);
+      entry.setVolume(volumes[i]);
+      entries.add(entry);
+    }
+
+    List<List<QueryUnit.IntermediateEntry>> splits = Repartitioner.splitIntermediateEntries(entries, 3);
+    assertEquals(3, splits.size());
+    Set<Integer> taskIds = new HashSet<Integer>();
+    for (List<QueryUnit.IntermediateEntry> split : splits) {
+      long volume = 0;
+      for (QueryUnit.IntermediateEntry entry : split) {
+        volume += entry.getVolume();
+        taskIds.add(entry.getTaskId());
+      }
+      assertTrue(volume >= 90 && volume <= 100);
+    }
+    assertEquals(volumes.length, taskIds.size());
+
+    // a split has at least one entry
+    assertEquals(volumes.length, Repartitioner.splitIntermediateEntries(entries, 10).size());
+  }
+
   private List<String> splitMaps(List<String> mapq) {
     if (null == mapq) {
       return null;
@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.master.querymaster;
+
+import org.apache.tajo.ExecutionBlockId;
+import org.apache.tajo.LocalTajoTestingUtility;
+import org.apache.tajo.QueryIdFactory;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.ipc.TajoWorkerProtocol.FetchListProto;
+import org.apache.tajo.master.querymaster.QueryUnit.IntermediateEntry;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestPipelinedShuffle {
+
+  private static QueryUnit newProducerTask(ExecutionBlockId ebId, int taskId, String host, int ... partIds) {
+    QueryUnit task = new QueryUnit(new TajoConf(), null, QueryIdFactory.newQueryUnitId(ebId, taskId), true, null);
+    List<IntermediateEntry> entries = new ArrayList<IntermediateEntry>();
+    for (int partId : partIds) {
+      entries.add(new IntermediateEntry(taskId, 0, partId, host, 8080));
+    }
+    task.setIntermediateData(entries);
+    return task;
+  }
+
+  @Test
+  public final void testGetFetches() {
+    ExecutionBlockId ebId = QueryIdFactory.newExecutionBlockId(LocalTajoTestingUtility.newQueryId());
+    PipelinedShuffle shuffle = new PipelinedShuffle(ebId, "t1");
+
+    FetchListProto fetches = shuffle.getFetches(0, 0);
+    assertEquals(0, fetches.getFetchesCount());
+    assertEquals(0, fetches.getOffset());
+    assertFalse(fetches.getCompleted());
+
+    QueryUnit task1 = newProducerTask(ebId, 1, "host1", 0, 1);
+    shuffle.addOutputs(task1);
+    // the outputs of a task are added only once.
+    shuffle.addOutputs(task1);
+    shuffle.addOutputs(newProducerTask(ebId, 2, "host1", 0));
+    shuffle.addOutputs(newProducerTask(ebId, 3, "host2", 0));
+
+    // the outputs are merged by hosts
+    fetches = shuffle.getFetches(0, 0);
+    assertEquals(2, fetches.getFetchesCount());
+    assertEquals(3, fetches.getOffset());
+    assertEquals("t1", fetches.getFetches(0).getName());
+    assertFalse(fetches.getCompleted());
+
+    fetches = shuffle.getFetches(1, 0);
+    assertEquals(1, fetches.getFetchesCount());
+    assertEquals(1, fetches.getOffset());
+    assertTrue(fetches.getFetches(0).getUrls().contains("p=1"));
+
+    // only the outputs after the offset are given
+    shuffle.addOutputs(newProducerTask(ebId, 4, "host2", 0));
+    shuffle.complete();
+    fetches = shuffle.getFetches(0, 3);
+    assertEquals(1, fetches.getFetchesCount());
+    assertEquals(4, fetches.getOffset());
+    assertTrue(fetches.getFetches(0).getUrls().contains("ta=4_0"));
+    assertTrue(fetches.getCompleted());
+
+    fetches = shuffle.getFetches(2, 0);
+    assertEquals(0, fetches.getFetchesCount());
+    assertTrue(fetches.getCompleted());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public final void testAbort() {
+    ExecutionBlockId ebId = QueryIdFactory.newExecutionBlockId(LocalTajoTestingUtility.newQueryId());
+    PipelinedShuffle shuffle = new PipelinedShuffle(ebId, "t1");
+    shuffle.addOutputs(newProducerTask(ebId, 1, "host1", 0));
+    shuffle.abort();
+    shuffle.getFetches(0, 0);
+  }
+}
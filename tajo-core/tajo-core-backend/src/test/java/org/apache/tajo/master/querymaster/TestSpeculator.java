@@ -0,0 +1,67 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.master.querymaster;
+
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestSpeculator {
+
+  @Test
+  public final void testEstimateRunTime() {
+    assertEquals(40000, Speculator.estimateRunTime(10000, 0.25f), 0.1);
+    // without any progress, the elapsed time is the lower bound
+    assertEquals(10000, Speculator.estimateRunTime(10000, 0.0f), 0.1);
+    assertEquals(10000, Speculator.estimateRunTime(10000, 1.0f), 0.1);
+  }
+
+  @Test
+  public final void testIsStraggler() {
+    TajoConf conf = new TajoConf();
+    conf.setBoolVar(ConfVars.DIST_QUERY_SPECULATION_ENABLED, true);
+    conf.setFloatVar(ConfVars.DIST_QUERY_SPECULATION_SLOW_TASK_FACTOR, 2.0f);
+    conf.setLongVar(ConfVars.DIST_QUERY_SPECULATION_MIN_RUNTIME, 5000);
+    Speculator speculator = new Speculator(conf, null, true);
+    assertTrue(speculator.isEnabled());
+
+    // finished tasks took 4 seconds on average
+    double meanRunTime = 4000;
+    // too early to decide
+    assertFalse(speculator.isStraggler(3000, 0.01f, meanRunTime));
+    // it is expected to take 60 seconds.
+    assertTrue(speculator.isStraggler(6000, 0.1f, meanRunTime));
+    // it is expected to take 6.6 seconds.
+    assertFalse(speculator.isStraggler(6000, 0.9f, meanRunTime));
+    // no progress is reported, so the elapsed time is compared
+    assertFalse(speculator.isStraggler(7000, 0.0f, meanRunTime));
+    assertTrue(speculator.isStraggler(9000, 0.0f, meanRunTime));
+  }
+
+  @Test
+  public final void testDisabled() {
+    TajoConf conf = new TajoConf();
+    // speculation is disabled by default
+    assertFalse(new Speculator(conf, null, true).isEnabled());
+    conf.setBoolVar(ConfVars.DIST_QUERY_SPECULATION_ENABLED, true);
+    assertFalse(new Speculator(conf, null, false).isEnabled());
+  }
+}
@@ -34,10 +34,14 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.net.ServerSocket;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.*;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class TestFetcher {
   private String TEST_DATA = "target/test-data/TestFetcher";
@@ -79,4 +83,99 @@ public class TestFetcher {
     FileStatus outStatus = fs.getFileStatus(new Path(OUTPUT_DIR, "data"));
     assertEquals(inStatus.getLen(), outStatus.getLen());
   }
+
+  @Test
+  public void testGetWithFetchService() throws Exception {
+    final int fileNum = 20;
+    Random rnd = new Random();
+    for (int i = 0; i < fileNum; i++) {
+      FileWriter writer = new FileWriter(INPUT_DIR + "data_" + i);
+      for (int j = 0; j < 100 * (i + 1); j++) {
+        writer.write("" + rnd.nextInt());
+      }
+      writer.close();
+    }
+
+    DataRetriever ret = new DirectoryRetriever(INPUT_DIR);
+    HttpDataServer server = new HttpDataServer(
+        NetUtils.createSocketAddr("127.0.0.1:0"), ret);
+    server.start();
+    InetSocketAddress addr = server.getBindAddress();
+
+    TajoConf conf = new TajoConf();
+    conf.setIntVar(TajoConf.ConfVars.SHUFFLE_FETCHER_CONNECTIONS_PER_HOST, 2);
+    conf.setIntVar(TajoConf.ConfVars.SHUFFLE_FETCHER_REQUESTS_PER_HOST, 4);
+    ShuffleFetchService fetchService = new ShuffleFetchService();
+    fetchService.init(conf);
+    fetchService.start();
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<File>> futures = new ArrayList<Future<File>>();
+    for (int i = 0; i < fileNum; i++) {
+      URI uri = URI.create("http://127.0.0.1:" + addr.getPort() + "/data_" + i);
+      final Fetcher fetcher = new Fetcher(uri, new File(OUTPUT_DIR + "data_" + i), fetchService);
+      futures.add(executor.submit(new Callable<File>() {
+        @Override
+        public File call() throws Exception {
+          return fetcher.get();
+        }
+      }));
+    }
+    for (Future<File> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    // all fetches share the keep-alive connections
+    assertTrue(fetchService.getConnectionNum() <= 2);
+    fetchService.stop();
+    server.stop();
+
+    FileSystem fs = FileSystem.getLocal(conf);
+    for (int i = 0; i < fileNum; i++) {
+      FileStatus inStatus = fs.getFileStatus(new Path(INPUT_DIR, "data_" + i));
+      FileStatus outStatus = fs.getFileStatus(new Path(OUTPUT_DIR, "data_" + i));
+      assertEquals(inStatus.getLen(), outStatus.getLen());
+    }
+  }
+
+  @Test
+  public void testConnectFailureWithFetchService() throws Exception {
+    // a port which nobody listens to
+    ServerSocket socket = new ServerSocket(0);
+    int port = socket.getLocalPort();
+    socket.close();
+
+    TajoConf conf = new TajoConf();
+    conf.setIntVar(TajoConf.ConfVars.SHUFFLE_FETCHER_CONNECT_TIMEOUT, 1000);
+    ShuffleFetchService fetchService = new ShuffleFetchService();
+    fetchService.init(conf);
+    fetchService.start();
+
+    // concurrent fetches to the dead host fail instead of waiting for each other forever
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<File>> futures = new ArrayList<Future<File>>();
+    for (int i = 0; i < 4; i++) {
+      URI uri = URI.create("http://127.0.0.1:" + port + "/data_" + i);
+      final Fetcher fetcher = new Fetcher(uri, new File(OUTPUT_DIR + "failed_" + i), fetchService);
+      futures.add(executor.submit(new Callable<File>() {
+        @Override
+        public File call() throws Exception {
+          return fetcher.get();
+        }
+      }));
+    }
+    for (Future<File> future : futures) {
+      try {
+        future.get(10, TimeUnit.SECONDS);
+        fail("Fetching from a dead host must fail");
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof IOException);
+      }
+    }
+    executor.shutdown();
+
+    assertEquals(0, fetchService.getConnectionNum());
+    fetchService.stop();
+  }
 }
@@ -0,0 +1,212 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.worker;
+
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.storage.*;
+import org.apache.tajo.util.CommonTestingUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class TestShuffleStream {
+  private static final String TEST_PATH = "target/test-data/TestShuffleStream";
+  private static final int SEGMENT_NUM = 10;
+  private static final int ROWS_PER_SEGMENT = 1000;
+
+  private TajoConf conf;
+  private Path testDir;
+  private Schema schema;
+  private TableMeta meta;
+
+  @Before
+  public void setUp() throws Exception {
+    conf = new TajoConf();
+    testDir = CommonTestingUtil.getTestDir(TEST_PATH);
+    schema = new Schema();
+    schema.addColumn("id", Type.INT4);
+    schema.addColumn("name", Type.TEXT);
+    meta = CatalogUtil.newTableMeta(StoreType.RAW);
+  }
+
+  private static String nameOf(int id) {
+    // some rows are larger than a read from an in-memory segment
+    if (id % 100 == 0) {
+      StringBuilder sb = new StringBuilder();
+      for (int i = 0; i < 2000; i++) {
+        sb.append("name_").append(id);
+      }
+      return sb.toString();
+    }
+    return "name_" + id;
+  }
+
+  private byte [] writeSegment(int segmentId) throws IOException {
+    Path path = new Path(testDir, "segment_" + segmentId);
+    Appender appender = StorageManagerFactory.getStorageManager(conf).getAppender(meta, schema, path);
+    appender.init();
+    for (int i = 0; i < ROWS_PER_SEGMENT; i++) {
+      int id = segmentId * ROWS_PER_SEGMENT + i;
+      Tuple tuple = new VTuple(2);
+      tuple.put(0, DatumFactory.createInt4(id));
+      tuple.put(1, DatumFactory.createText(nameOf(id)));
+      appender.addTuple(tuple);
+    }
+    appender.close();
+
+    File file = new File(path.toUri());
+    byte [] data = new byte[(int) file.length()];
+    FileInputStream in = new FileInputStream(file);
+    try {
+      int read = 0;
+      while (read < data.length) {
+        read += in.read(data, read, data.length - read);
+      }
+    } finally {
+      in.close();
+    }
+    return data;
+  }
+
+  @Test
+  public void testStreamWithSpill() throws Exception {
+    final byte [][] segments = new byte[SEGMENT_NUM][];
+    for (int i = 0; i < SEGMENT_NUM; i++) {
+      segments[i] = writeSegment(i);
+    }
+
+    // the memory budget is enough only for a few segments, so the others are spilled
+    final ShuffleStream stream = new ShuffleStream("test", SEGMENT_NUM, segments[0].length * 3);
+    Thread producer = new Thread() {
+      public void run() {
+        try {
+          for (int i = 0; i < SEGMENT_NUM; i++) {
+            ShuffleStream.Segment segment = stream.newSegment(
+                new File(new Path(testDir, "in_" + i).toUri()), segments[i].length);
+            // deliver the data in several pieces like the chunks of a response
+            int half = segments[i].length / 2;
+            segment.write(ByteBuffer.wrap(segments[i], 0, half));
+            segment.write(ByteBuffer.wrap(segments[i], half, segments[i].length - half));
+            stream.complete(segment);
+            stream.fetchFinished();
+          }
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    producer.start();
+
+    assertTrue(stream.awaitData());
+    Scanner scanner = new ShuffleStreamScanner(conf, schema, meta, stream);
+    scanner.init();
+    int i = 0;
+    Tuple tuple;
+    while ((tuple = scanner.next()) != null) {
+      assertEquals(i, tuple.get(0).asInt4());
+      assertEquals(nameOf(i), tuple.get(1).asChars());
+      i++;
+    }
+    scanner.close();
+    producer.join();
+
+    assertEquals(SEGMENT_NUM * ROWS_PER_SEGMENT, i);
+    assertTrue(stream.getSpilledSegmentNum() > 0);
+    assertEquals(0, stream.getUsedMemory());
+    for (int j = 0; j < SEGMENT_NUM; j++) {
+      assertFalse(new File(new Path(testDir, "in_" + j).toUri()).exists());
+    }
+  }
+
+  @Test
+  public void testReset() throws Exception {
+    int segmentNum = 3;
+    ShuffleStream stream = new ShuffleStream("test", segmentNum, 0);
+    byte [] first = writeSegment(0);
+    ShuffleStream.Segment segment = stream.newSegment(new File(new Path(testDir, "in_0").toUri()), first.length);
+    segment.write(ByteBuffer.wrap(first));
+    stream.complete(segment);
+    stream.fetchFinished();
+
+    Scanner scanner = new ShuffleStreamScanner(conf, schema, meta, stream);
+    scanner.init();
+    // read a part of the first segment before the others are fetched
+    for (int i = 0; i < ROWS_PER_SEGMENT / 2; i++) {
+      assertEquals(i, scanner.next().get(0).asInt4());
+    }
+    scanner.reset();
+
+    for (int i = 1; i < segmentNum; i++) {
+      byte [] data = writeSegment(i);
+      // a spilled segment
+      segment = stream.newSegment(new File(new Path(testDir, "in_" + i).toUri()), data.length);
+      segment.write(ByteBuffer.wrap(data));
+      stream.complete(segment);
+      stream.fetchFinished();
+    }
+
+    // the segments which have been read are read again
+    for (int pass = 0; pass < 2; pass++) {
+      int i = 0;
+      Tuple tuple;
+      while ((tuple = scanner.next()) != null) {
+        assertEquals(i, tuple.get(0).asInt4());
+        i++;
+      }
+      assertEquals(segmentNum * ROWS_PER_SEGMENT, i);
+      scanner.reset();
+    }
+    scanner.close();
+
+    for (int i = 0; i < segmentNum; i++) {
+      assertFalse(new File(new Path(testDir, "in_" + i).toUri()).exists());
+    }
+  }
+
+  @Test
+  public void testDiscardAndEmptyStream() throws Exception {
+    ShuffleStream stream = new ShuffleStream("test", 2, 1024);
+    ShuffleStream.Segment segment = stream.newSegment(new File(new Path(testDir, "in_0").toUri()), 100);
+    segment.write(ByteBuffer.wrap(new byte[50]));
+    // a failed fetch drops its partial data
+    stream.discard(segment);
+    assertEquals(0, stream.getUsedMemory());
+    stream.fetchFinished();
+
+    // a response without content
+    stream.complete(stream.newSegment(new File(new Path(testDir, "in_1").toUri()), 0));
+    stream.fetchFinished();
+
+    assertFalse(stream.awaitData());
+    assertNull(stream.take());
+  }
+}
@@ -0,0 +1,71 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.worker;
+
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.conf.TajoConf.ConfVars;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestTaskRunner {
+
+  @Test
+  public final void testGetSlotNum() {
+    TajoConf conf = new TajoConf();
+    conf.setIntVar(ConfVars.WORKER_TASKRUNNER_SLOTS, 1);
+    assertEquals(1, TaskRunner.getSlotNum(conf));
+
+    conf.setIntVar(ConfVars.WORKER_TASKRUNNER_SLOTS, 4);
+    assertEquals(4, TaskRunner.getSlotNum(conf));
+
+    // 0 means the cpu cores of the worker
+    conf.setIntVar(ConfVars.WORKER_TASKRUNNER_SLOTS, 0);
+    conf.setBoolVar(ConfVars.WORKER_RESOURCE_DEDICATED, false);
+    conf.setIntVar(ConfVars.WORKER_RESOURCE_AVAILABLE_CPU_CORES, 6);
+    assertEquals(6, TaskRunner.getSlotNum(conf));
+
+    // a dedicated worker uses all processors of the machine
+    conf.setBoolVar(ConfVars.WORKER_RESOURCE_DEDICATED, true);
+    assertEquals(Runtime.getRuntime().availableProcessors(), TaskRunner.getSlotNum(conf));
+
+    // at least one slot
+    conf.setBoolVar(ConfVars.WORKER_RESOURCE_DEDICATED, false);
+    conf.setIntVar(ConfVars.WORKER_RESOURCE_AVAILABLE_CPU_CORES, 0);
+    assertEquals(1, TaskRunner.getSlotNum(conf));
+  }
+
+  @Test
+  public final void testGetTaskConf() {
+    TajoConf conf = new TajoConf();
+    conf.setLongVar(ConfVars.EXECUTOR_SORT_EXTERNAL_MEMORY_BYTES, 256 * 1048576);
+    conf.setLongVar(ConfVars.SHUFFLE_HASH_BUFFER_BYTES, 64 * 1048576);
+
+    // a single slot uses the whole budgets
+    assertSame(conf, TaskRunner.getTaskConf(conf, 1));
+
+    TajoConf taskConf = TaskRunner.getTaskConf(conf, 4);
+    assertEquals(64 * 1048576, taskConf.getLongVar(ConfVars.EXECUTOR_SORT_EXTERNAL_MEMORY_BYTES));
+    assertEquals(16 * 1048576, taskConf.getLongVar(ConfVars.SHUFFLE_HASH_BUFFER_BYTES));
+    assertEquals(conf.getLongVar(ConfVars.EXECUTOR_GROUPBY_INMEMORY_HASH_THRESHOLD) / 4,
+        taskConf.getLongVar(ConfVars.EXECUTOR_GROUPBY_INMEMORY_HASH_THRESHOLD));
+    // the original configuration is not changed
+    assertEquals(256 * 1048576, conf.getLongVar(ConfVars.EXECUTOR_SORT_EXTERNAL_MEMORY_BYTES));
+  }
+}
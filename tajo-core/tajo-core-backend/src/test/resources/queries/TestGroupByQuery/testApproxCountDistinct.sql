@@ -0,0 +1 @@
+select l_orderkey, count(*) as cnt, approx_count_distinct(l_linenumber) as unique_key from lineitem group by l_orderkey order by l_orderkey;
\ No newline at end of file
@@ -48,6 +48,7 @@ import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.conf.TajoConf.ConfVars;
 import org.apache.tajo.pullserver.retriever.FileChunk;
+import org.apache.tajo.storage.HashShuffleIndex;
 import org.apache.tajo.storage.RowStoreUtil;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.TupleComparator;
@@ -425,12 +426,24 @@ public class PullServerAuxService extends AuxiliaryService {
         // if a subquery requires a hash repartition
       } else if (repartitionType.equals("h")) {
         for (String ta : taskIds) {
-          Path path = localFS.makeQualified(
-              lDirAlloc.getLocalPathToRead(queryBaseDir + "/" + sid + "/" +
-                  ta + "/output/" + partitionId, conf));
-          File file = new File(path.toUri());
-          FileChunk chunk = new FileChunk(file, 0, file.length());
-          chunks.add(chunk);
+          Path outputDir = localFS.makeQualified(
+              lDirAlloc.getLocalPathToRead(queryBaseDir + "/" + sid + "/" + ta + "/output", conf));
+          File indexFile = new File(new File(outputDir.toUri()), HashShuffleIndex.INDEX_FILE_NAME);
+          if (indexFile.exists()) {
+            // all partitions of this task are consolidated into a single data file
+            long [] range = HashShuffleIndex.read(indexFile, Integer.parseInt(partitionId));
+            if (range != null) {
+              File file = new File(new File(outputDir.toUri()), HashShuffleIndex.DATA_FILE_NAME);
+              chunks.add(new FileChunk(file, range[0], range[1]));
+            }
+          } else {
+            Path path = localFS.makeQualified(
+                lDirAlloc.getLocalPathToRead(queryBaseDir + "/" + sid + "/" +
+                    ta + "/output/" + partitionId, conf));
+            File file = new File(path.toUri());
+            FileChunk chunk = new FileChunk(file, 0, file.length());
+            chunks.add(chunk);
+          }
         }
       } else {
         LOG.error("Unknown repartition type: " + repartitionType);
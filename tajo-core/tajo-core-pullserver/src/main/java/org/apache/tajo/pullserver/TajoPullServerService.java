@@ -45,6 +45,7 @@ import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.conf.TajoConf;
 import org.apache.tajo.conf.TajoConf.ConfVars;
 import org.apache.tajo.pullserver.retriever.FileChunk;
+import org.apache.tajo.storage.HashShuffleIndex;
 import org.apache.tajo.storage.RowStoreUtil;
 import org.apache.tajo.storage.Tuple;
 import org.apache.tajo.storage.TupleComparator;
@@ -432,12 +433,24 @@ public class TajoPullServerService extends AbstractService {
         // if a subquery requires a hash shuffle
       } else if (shuffleType.equals("h")) {
         for (String ta : taskIds) {
-          Path path = localFS.makeQualified(
-              lDirAlloc.getLocalPathToRead(queryBaseDir + "/" + sid + "/" +
-                  ta + "/output/" + partId, conf));
-          File file = new File(path.toUri());
-          FileChunk chunk = new FileChunk(file, 0, file.length());
-          chunks.add(chunk);
+          Path outputDir = localFS.makeQualified(
+              lDirAlloc.getLocalPathToRead(queryBaseDir + "/" + sid + "/" + ta + "/output", conf));
+          File indexFile = new File(new File(outputDir.toUri()), HashShuffleIndex.INDEX_FILE_NAME);
+          if (indexFile.exists()) {
+            // all partitions of this task are consolidated into a single data file
+            long [] range = HashShuffleIndex.read(indexFile, Integer.parseInt(partId));
+            if (range != null) {
+              File file = new File(new File(outputDir.toUri()), HashShuffleIndex.DATA_FILE_NAME);
+              chunks.add(new FileChunk(file, range[0], range[1]));
+            }
+          } else {
+            Path path = localFS.makeQualified(
+                lDirAlloc.getLocalPathToRead(queryBaseDir + "/" + sid + "/" +
+                    ta + "/output/" + partId, conf));
+            File file = new File(path.toUri());
+            FileChunk chunk = new FileChunk(file, 0, file.length());
+            chunks.add(chunk);
+          }
         }
       } else {
         LOG.error("Unknown shuffle type: " + shuffleType);
@@ -44,6 +44,8 @@ import org.apache.tajo.util.Bytes;
 import java.io.*;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 public class CSVFile {
 
@@ -282,6 +284,14 @@ public class CSVFile {
     private NonSyncByteArrayOutputStream buffer = new NonSyncByteArrayOutputStream(DEFAULT_PAGE_SIZE);
     private SerializerDeserializer serde;
 
+    // for the search condition
+    private ScanFilter filter;
+    private int [] filterColumnIds;
+    /** the distinct column ids referred by the filter in ascending order */
+    private int [] filterFields;
+    private Tuple filterTuple;
+    private int filteredRecordCount = 0;
+
     @Override
     public void init() throws IOException {
 
@@ -292,6 +302,7 @@ public class CSVFile {
       if(fis == null) fis = fs.open(fragment.getPath());
 
       recordCount = 0;
+      filteredRecordCount = 0;
       pos = startOffset = fragment.getStartKey();
       end = startOffset + fragment.getEndKey();
 
@@ -336,6 +347,22 @@ public class CSVFile {
         throw new IOException(e);
       }
 
+      if (filter != null) {
+        filterColumnIds = filter.getColumnIds(schema);
+        SortedSet<Integer> fields = new TreeSet<Integer>();
+        for (int id : filterColumnIds) {
+          if (id >= 0) {
+            fields.add(id);
+          }
+        }
+        filterFields = new int[fields.size()];
+        int i = 0;
+        for (int id : fields) {
+          filterFields[i++] = id;
+        }
+        filterTuple = new VTuple(schema.getColumnNum());
+      }
+
       super.init();
       Arrays.sort(targetColumnIndexes);
       if (LOG.isDebugEnabled()) {
@@ -406,30 +433,83 @@ public class CSVFile {
       }
     }
 
+    /**
+     * Evaluates the filter only on the fields referred by it. The line is not split entirely.
+     *
+     * @return false if the line cannot satisfy the filter.
+     */
+    private boolean acceptLine(byte [] bytes, int offset, int length) {
+      int end = offset + length;
+      int start = offset;
+      int field = 0;
+      int next = 0;
+      for (int i = offset; i <= end && next < filterFields.length; i++) {
+        if (i == end || bytes[i] == delimiter) {
+          if (field == filterFields[next]) {
+            filterTuple.put(field, deserialize(field, bytes, start, i - start));
+            next++;
+          }
+          field++;
+          start = i + 1;
+        }
+      }
+      // fields which are absent in the line are nulls
+      for (; next < filterFields.length; next++) {
+        filterTuple.put(filterFields[next], NullDatum.get());
+      }
+      return filter.accept(filterTuple, filterColumnIds);
+    }
+
+    private Datum deserialize(int fieldId, byte [] bytes, int offset, int length) {
+      try {
+        return serde.deserialize(schema.getColumn(fieldId), bytes, offset, length, nullChars);
+      } catch (Exception e) {
+        return NullDatum.get();
+      }
+    }
+
     @Override
     public Tuple next() throws IOException {
       try {
-        if (currentIdx == validIdx) {
-          if (eof) {
-            return null;
-          } else {
-            page();
-
-            if(currentIdx == validIdx){
+        while (true) {
+          if (currentIdx == validIdx) {
+            if (eof) {
               return null;
+            } else {
+              page();
+
+              if (currentIdx == validIdx) {
+                return null;
+              }
             }
           }
-        }
 
-        long offset = -1;
-        if(!isCompress()){
-          offset = fileOffsets.get(currentIdx);
-        }
+          if (filter != null
+              && !acceptLine(buffer.getData(), startOffsets.get(currentIdx), rowLengthList.get(currentIdx))) {
+            currentIdx++;
+            filteredRecordCount++;
+            continue;
+          }
 
-        byte[][] cells = Bytes.splitPreserveAllTokens(buffer.getData(), startOffsets.get(currentIdx),
-            rowLengthList.get(currentIdx),  delimiter, targetColumnIndexes);
-        currentIdx++;
-        return new LazyTuple(schema, cells, offset, nullChars, serde);
+          long offset = -1;
+          if (!isCompress()) {
+            offset = fileOffsets.get(currentIdx);
+          }
+
+          byte[][] cells = Bytes.splitPreserveAllTokens(buffer.getData(), startOffsets.get(currentIdx),
+              rowLengthList.get(currentIdx), delimiter, targetColumnIndexes);
+          currentIdx++;
+          LazyTuple tuple = new LazyTuple(schema, cells, offset, nullChars, serde);
+          if (filter != null) {
+            // the fields read by the filter are not deserialized again
+            for (int fieldId : filterFields) {
+              if (fieldId < cells.length) {
+                tuple.put(fieldId, filterTuple.get(fieldId));
+              }
+            }
+          }
+          return tuple;
+        }
       } catch (Throwable t) {
         LOG.error("Tuple list length: " + (fileOffsets != null ? fileOffsets.size() : 0), t);
         LOG.error("Tuple list current index: " + currentIdx, t);
@@ -459,7 +539,7 @@ public class CSVFile {
         is = null;
         fis = null;
         if (LOG.isDebugEnabled()) {
-          LOG.debug("CSVScanner processed record:" + recordCount);
+          LOG.debug("CSVScanner processed record:" + recordCount + ", filtered record:" + filteredRecordCount);
         }
       } finally {
         if (decompressor != null) {
@@ -476,11 +556,15 @@ public class CSVFile {
 
     @Override
     public boolean isSelectable() {
-      return false;
+      return true;
     }
 
     @Override
     public void setSearchCondition(Object expr) {
+      super.setSearchCondition(expr);
+      if (expr instanceof ScanFilter && !((ScanFilter) expr).isEmpty()) {
+        this.filter = (ScanFilter) expr;
+      }
     }
 
     @Override
@@ -167,6 +167,33 @@ public class FrameTuple implements Tuple {
     return (Float8Datum) get(fieldId);
   }
 
+  @Override
+  public int getInt4(int fieldId) {
+    if (fieldId < leftSize) {
+      return left.getInt4(fieldId);
+    } else {
+      return right.getInt4(fieldId - leftSize);
+    }
+  }
+
+  @Override
+  public long getInt8(int fieldId) {
+    if (fieldId < leftSize) {
+      return left.getInt8(fieldId);
+    } else {
+      return right.getInt8(fieldId - leftSize);
+    }
+  }
+
+  @Override
+  public double getFloat8(int fieldId) {
+    if (fieldId < leftSize) {
+      return left.getFloat8(fieldId);
+    } else {
+      return right.getFloat8(fieldId - leftSize);
+    }
+  }
+
   @Override
   public Inet4Datum getIPv4(int fieldId) {
     return (Inet4Datum) get(fieldId);
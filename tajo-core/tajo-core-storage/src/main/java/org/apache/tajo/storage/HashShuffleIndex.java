@@ -0,0 +1,76 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import org.apache.hadoop.io.IOUtils;
+
+import java.io.*;
+
+/**
+ * HashShuffleIndex describes a consolidated hash shuffle output, where all partitions of a task are
+ * stored in a single data file. The partitions are stored in the order of partition ids, and the index
+ * keeps the start offset of each partition.
+ *
+ * The index file consists of the number of partitions (int) and the offsets (long) of N + 1 boundaries.
+ * The partition i is the byte range [offset(i), offset(i + 1)) of the data file.
+ */
+public class HashShuffleIndex {
+  public static final String DATA_FILE_NAME = "hash.data";
+  public static final String INDEX_FILE_NAME = "hash.index";
+
+  private static final int HEADER_SIZE = 4;
+
+  /**
+   * Writes an index.
+   *
+   * @param offsets the offsets of N + 1 partition boundaries, where the last one is the data file length.
+   */
+  public static void write(File indexFile, long [] offsets) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+    try {
+      out.writeInt(offsets.length - 1);
+      for (long offset : offsets) {
+        out.writeLong(offset);
+      }
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Reads the byte range of a partition. Only the two boundaries of the partition are read.
+   *
+   * @return a pair of the start offset and the length, or null if the partition is empty or out of range.
+   */
+  public static long [] read(File indexFile, int partId) throws IOException {
+    RandomAccessFile in = new RandomAccessFile(indexFile, "r");
+    try {
+      int partNum = in.readInt();
+      if (partId < 0 || partId >= partNum) {
+        return null;
+      }
+      in.seek(HEADER_SIZE + (long) partId * 8);
+      long start = in.readLong();
+      long end = in.readLong();
+      return end > start ? new long[] {start, end - start} : null;
+    } finally {
+      IOUtils.closeStream(in);
+    }
+  }
+}
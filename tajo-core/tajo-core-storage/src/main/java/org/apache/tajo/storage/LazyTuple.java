@@ -187,6 +187,21 @@ public class LazyTuple implements Tuple {
     return (Float8Datum) get(fieldId);
   }
 
+  @Override
+  public int getInt4(int fieldId) {
+    return get(fieldId).asInt4();
+  }
+
+  @Override
+  public long getInt8(int fieldId) {
+    return get(fieldId).asInt8();
+  }
+
+  @Override
+  public double getFloat8(int fieldId) {
+    return get(fieldId).asFloat8();
+  }
+
   @Override
   public Inet4Datum getIPv4(int fieldId) {
     return (Inet4Datum) get(fieldId);
@@ -45,6 +45,7 @@ public class MergeScanner implements Scanner {
   private boolean projectable = false;
   private boolean selectable = false;
   private Schema target;
+  private Object searchCondition;
 
   public MergeScanner(Configuration conf, Schema schema, TableMeta meta, Collection<FileFragment> rawFragmentList)
       throws IOException {
@@ -105,6 +106,9 @@ public class MergeScanner implements Scanner {
       currentFragment = iterator.next();
       currentScanner = StorageManagerFactory.getStorageManager((TajoConf)conf).getScanner(meta, schema,
           currentFragment, target);
+      if (selectable && searchCondition != null) {
+        currentScanner.setSearchCondition(searchCondition);
+      }
       currentScanner.init();
       return currentScanner;
     } else {
@@ -140,6 +144,20 @@ public class MergeScanner implements Scanner {
 
   @Override
   public void setSearchCondition(Object expr) {
+    if (selectable) {
+      this.searchCondition = expr;
+      // the first scanner will be opened again with the search condition
+      if (currentScanner != null) {
+        try {
+          currentScanner.close();
+        } catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      this.iterator = fragments.iterator();
+      this.currentScanner = null;
+      this.tuple = null;
+    }
   }
 
   @Override
@@ -0,0 +1,228 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SortSpec;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.util.Bytes;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * NormalizedKeyEncoder encodes the sort keys of a tuple into a binary prefix whose unsigned
+ * lexicographic order is the same as the order of {@link TupleComparator}, including ascending/descending
+ * orders and null orderings.
+ *
+ * Integer and floating point keys are encoded in fixed widths. A text key is encoded as its bytes,
+ * and it is always the last encoded key because its length varies. Keys which do not fit in the prefix
+ * or whose types are not supported are not encoded. So, a tie of prefixes must be resolved by the full
+ * comparison unless the prefix is exact.
+ */
+public class NormalizedKeyEncoder {
+  private static final byte NULL_FIRST = 0x00;
+  private static final byte NOT_NULL = 0x01;
+  private static final byte NULL_LAST = 0x02;
+
+  private final int [] sortKeyIds;
+  private final Type [] types;
+  private final boolean [] asc;
+  private final boolean [] nullFirsts;
+  private final int length;
+  /** the number of encoded keys */
+  private final int encodedKeyNum;
+  /** true if the prefix contains all keys entirely */
+  private final boolean exact;
+
+  public NormalizedKeyEncoder(Schema schema, SortSpec [] sortSpecs, int maxLength) {
+    int keyNum = sortSpecs.length;
+    this.sortKeyIds = new int[keyNum];
+    this.types = new Type[keyNum];
+    this.asc = new boolean[keyNum];
+    this.nullFirsts = new boolean[keyNum];
+
+    int encodedLength = 0;
+    int encoded = 0;
+    boolean variable = false;
+    for (int i = 0; i < keyNum; i++) {
+      sortKeyIds[i] = schema.getColumnId(sortSpecs[i].getSortKey().getQualifiedName());
+      types[i] = schema.getColumn(sortKeyIds[i]).getDataType().getType();
+      asc[i] = sortSpecs[i].isAscending();
+      nullFirsts[i] = sortSpecs[i].isNullFirst();
+
+      if (encoded == i && !variable) {
+        int width = getFixedWidth(types[i]);
+        if (types[i] == Type.TEXT && encodedLength + 1 < maxLength) {
+          // a text key takes the rest of the prefix
+          encodedLength = maxLength;
+          encoded++;
+          variable = true;
+        } else if (width > 0 && encodedLength + 1 + width <= maxLength) {
+          encodedLength += 1 + width;
+          encoded++;
+        }
+      }
+    }
+
+    this.length = encodedLength;
+    this.encodedKeyNum = encoded;
+    this.exact = encoded == keyNum && !variable;
+  }
+
+  private static int getFixedWidth(Type type) {
+    switch (type) {
+      case INT2:
+      case INT4:
+      case INT8:
+      case FLOAT4:
+      case FLOAT8:
+        return 8;
+      default:
+        return -1;
+    }
+  }
+
+  /**
+   * @return true if at least one key can be encoded.
+   */
+  public boolean isEncodable() {
+    return encodedKeyNum > 0;
+  }
+
+  /**
+   * @return true if equal prefixes mean equal sort keys.
+   */
+  public boolean isExact() {
+    return exact;
+  }
+
+  public int getLength() {
+    return length;
+  }
+
+  public byte [] encode(Tuple tuple) {
+    return encode(tuple, new byte[length]);
+  }
+
+  /**
+   * Encodes the sort keys of a tuple into a given array.
+   */
+  public byte [] encode(Tuple tuple, byte [] dest) {
+    int pos = 0;
+    for (int i = 0; i < encodedKeyNum; i++) {
+      int fieldId = sortKeyIds[i];
+
+      if (tuple.isNull(fieldId)) {
+        // nulls are ordered independently of ascending or descending order
+        dest[pos++] = nullFirsts[i] ? NULL_FIRST : NULL_LAST;
+        int end = types[i] == Type.TEXT ? length : pos + 8;
+        Arrays.fill(dest, pos, end, (byte) 0);
+        pos = end;
+        continue;
+      }
+
+      dest[pos++] = NOT_NULL;
+      int start = pos;
+      switch (types[i]) {
+        case INT2:
+        case INT4:
+        case INT8:
+          pos = Bytes.putLong(dest, pos, tuple.getInt8(fieldId) ^ Long.MIN_VALUE);
+          break;
+        case FLOAT4:
+        case FLOAT8: {
+          double value = tuple.getFloat8(fieldId);
+          if (value == 0.0d) {
+            value = 0.0d; // -0.0 is equal to 0.0
+          }
+          long bits = Double.doubleToLongBits(value);
+          bits ^= (bits >> 63) | Long.MIN_VALUE;
+          pos = Bytes.putLong(dest, pos, bits);
+          break;
+        }
+        case TEXT: {
+          Datum datum = tuple.get(fieldId);
+          byte [] bytes = datum.asByteArray();
+          int len = Math.min(bytes.length, length - pos);
+          System.arraycopy(bytes, 0, dest, pos, len);
+          Arrays.fill(dest, pos + len, length, (byte) 0);
+          pos = length;
+          break;
+        }
+        default:
+          throw new UnsupportedOperationException("Cannot encode " + types[i]);
+      }
+
+      if (!asc[i]) {
+        for (int j = start; j < pos; j++) {
+          dest[j] = (byte) ~dest[j];
+        }
+      }
+    }
+    return dest;
+  }
+
+  /**
+   * Compares two encoded prefixes as unsigned bytes.
+   */
+  public static int compare(byte [] prefix1, byte [] prefix2) {
+    return Bytes.compareTo(prefix1, prefix2);
+  }
+
+  /**
+   * Sorts a list of tuples. Tuples are compared by their prefixes first, and the given comparator
+   * is used only for the ties of prefixes.
+   */
+  public void sort(List<Tuple> tuples, final Comparator<Tuple> comparator) {
+    int size = tuples.size();
+    KeyedTuple [] entries = new KeyedTuple[size];
+    for (int i = 0; i < size; i++) {
+      Tuple tuple = tuples.get(i);
+      entries[i] = new KeyedTuple(encode(tuple), tuple);
+    }
+
+    Arrays.sort(entries, new Comparator<KeyedTuple>() {
+      @Override
+      public int compare(KeyedTuple o1, KeyedTuple o2) {
+        int cmp = Bytes.compareTo(o1.key, o2.key);
+        if (cmp != 0 || exact) {
+          return cmp;
+        }
+        return comparator.compare(o1.tuple, o2.tuple);
+      }
+    });
+
+    for (int i = 0; i < size; i++) {
+      tuples.set(i, entries[i].tuple);
+    }
+  }
+
+  private static class KeyedTuple {
+    private final byte [] key;
+    private final Tuple tuple;
+
+    KeyedTuple(byte [] key, Tuple tuple) {
+      this.key = key;
+      this.tuple = tuple;
+    }
+  }
+}
@@ -0,0 +1,849 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.DataType;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.*;
+import org.apache.tajo.datum.exception.InvalidCastException;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * PrimitiveTuple keeps fixed-width numeric fields in primitive slots and variable-length
+ * fields (TEXT and BLOB) in a byte buffer shared by all fields of the tuple, so that reading
+ * and writing a row does not allocate a Datum per field. The other types are kept as Datums.
+ *
+ * A Datum is materialized only when {@link #get(int)} is called, and it is cached until the
+ * field is overwritten. Callers that only need numeric values should use the primitive
+ * accessors, such as {@link #getInt8(int)}.
+ *
+ * A tuple is created for every row by some operators, so only the slots of the kinds used by
+ * the types are allocated, and the Datum slots and the byte buffer are allocated when they are
+ * first used. Tuples created by {@link #PrimitiveTuple(PrimitiveTuple)} or {@link #newEmptyTuple()}
+ * share the type information of the original tuple.
+ */
+public class PrimitiveTuple implements Tuple {
+  private static final int INITIAL_VAR_BUFFER_SIZE = 64;
+  // the estimated heap bytes of this object, an object header, an array header and a reference
+  private static final int TUPLE_OBJECT_SIZE = 80;
+  private static final int OBJECT_HEADER_SIZE = 16;
+  private static final int ARRAY_HEADER_SIZE = 16;
+  private static final int REFERENCE_SIZE = 8;
+
+  private static enum SlotType {
+    LONG,
+    DOUBLE,
+    BYTES,
+    DATUM
+  }
+
+  // the flags of a field state
+  private static final byte DEFINED = 1;
+  private static final byte NULL = 2;
+  // the value is only kept as a Datum
+  private static final byte BOXED = 4;
+
+  private final Type [] types;
+  private final SlotType [] slotTypes;
+  private final byte [] states;
+  // null if no field uses the slots
+  private final long [] longs;
+  private final double [] doubles;
+  private final int [] varOffsets;
+  private final int [] varLengths;
+  // allocated when they are first used
+  private Datum [] datums;
+  private byte [] varBuffer;
+  private int varBufferPos = 0;
+
+  private long offset;
+
+  public PrimitiveTuple(Schema schema) {
+    this(getTypes(schema));
+  }
+
+  /**
+   * Creates a tuple whose fields have the types of the given columns of a schema.
+   * It is mainly used for key tuples.
+   */
+  public PrimitiveTuple(Schema schema, int [] fieldIds) {
+    this(getTypes(schema, fieldIds));
+  }
+
+  public PrimitiveTuple(DataType [] dataTypes) {
+    this(getTypes(dataTypes));
+  }
+
+  public PrimitiveTuple(Type [] types) {
+    this(types, getSlotTypes(types));
+  }
+
+  public PrimitiveTuple(PrimitiveTuple tuple) {
+    this(tuple.types, tuple.slotTypes);
+    int varLength = 0;
+    for (int i = 0; i < types.length; i++) {
+      if (tuple.hasVarBytes(i)) {
+        varLength += tuple.varLengths[i];
+      }
+    }
+    if (varLength > 0) {
+      varBuffer = new byte[varLength];
+    }
+    for (int i = 0; i < types.length; i++) {
+      copyFrom(i, tuple, i);
+    }
+    this.offset = tuple.offset;
+  }
+
+  private PrimitiveTuple(Type [] types, SlotType [] slotTypes) {
+    int size = types.length;
+    this.types = types;
+    this.slotTypes = slotTypes;
+    this.states = new byte[size];
+
+    boolean hasLong = false, hasDouble = false, hasBytes = false;
+    for (SlotType slotType : slotTypes) {
+      hasLong |= slotType == SlotType.LONG;
+      hasDouble |= slotType == SlotType.DOUBLE;
+      hasBytes |= slotType == SlotType.BYTES;
+    }
+    this.longs = hasLong ? new long[size] : null;
+    this.doubles = hasDouble ? new double[size] : null;
+    this.varOffsets = hasBytes ? new int[size] : null;
+    this.varLengths = hasBytes ? new int[size] : null;
+  }
+
+  /**
+   * @return an empty tuple of the same types as this tuple
+   */
+  public PrimitiveTuple newEmptyTuple() {
+    return new PrimitiveTuple(types, slotTypes);
+  }
+
+  private static SlotType [] getSlotTypes(Type [] types) {
+    SlotType [] slotTypes = new SlotType[types.length];
+    for (int i = 0; i < types.length; i++) {
+      slotTypes[i] = getSlotType(types[i]);
+    }
+    return slotTypes;
+  }
+
+  private static Type [] getTypes(Schema schema) {
+    Type [] types = new Type[schema.getColumnNum()];
+    for (int i = 0; i < types.length; i++) {
+      types[i] = schema.getColumn(i).getDataType().getType();
+    }
+    return types;
+  }
+
+  private static Type [] getTypes(Schema schema, int [] fieldIds) {
+    Type [] types = new Type[fieldIds.length];
+    for (int i = 0; i < types.length; i++) {
+      types[i] = schema.getColumn(fieldIds[i]).getDataType().getType();
+    }
+    return types;
+  }
+
+  private static Type [] getTypes(DataType [] dataTypes) {
+    Type [] types = new Type[dataTypes.length];
+    for (int i = 0; i < types.length; i++) {
+      types[i] = dataTypes[i].getType();
+    }
+    return types;
+  }
+
+  private static SlotType getSlotType(Type type) {
+    switch (type) {
+      case INT2:
+      case INT4:
+      case INT8:
+        return SlotType.LONG;
+      case FLOAT4:
+      case FLOAT8:
+        return SlotType.DOUBLE;
+      case TEXT:
+      case BLOB:
+        return SlotType.BYTES;
+      default:
+        return SlotType.DATUM;
+    }
+  }
+
+  public Type getType(int fieldId) {
+    return types[fieldId];
+  }
+
+  @Override
+  public int size() {
+    return types.length;
+  }
+
+  @Override
+  public boolean contains(int fieldId) {
+    return (states[fieldId] & DEFINED) != 0;
+  }
+
+  @Override
+  public boolean isNull(int fieldId) {
+    return (states[fieldId] & NULL) != 0;
+  }
+
+  /**
+   * Makes all fields undefined and releases the variable-length bytes of this tuple.
+   */
+  @Override
+  public void clear() {
+    Arrays.fill(states, (byte) 0);
+    if (datums != null) {
+      Arrays.fill(datums, null);
+    }
+    varBufferPos = 0;
+  }
+
+  //////////////////////////////////////////////////////
+  // Setter
+  //////////////////////////////////////////////////////
+
+  private void setState(int fieldId, byte state) {
+    states[fieldId] = state;
+    if (datums != null) {
+      datums[fieldId] = null;
+    }
+  }
+
+  private void define(int fieldId) {
+    setState(fieldId, DEFINED);
+  }
+
+  public void setNull(int fieldId) {
+    setState(fieldId, (byte) (DEFINED | NULL));
+  }
+
+  private Datum [] getDatums() {
+    if (datums == null) {
+      datums = new Datum[types.length];
+    }
+    return datums;
+  }
+
+  public void putInt4(int fieldId, int value) {
+    putInt8(fieldId, value);
+  }
+
+  public void putInt8(int fieldId, long value) {
+    switch (slotTypes[fieldId]) {
+      case LONG:
+        define(fieldId);
+        longs[fieldId] = value;
+        break;
+      case DOUBLE:
+        define(fieldId);
+        doubles[fieldId] = value;
+        break;
+      default:
+        put(fieldId, DatumFactory.createInt8(value));
+    }
+  }
+
+  public void putFloat8(int fieldId, double value) {
+    switch (slotTypes[fieldId]) {
+      case LONG:
+        define(fieldId);
+        longs[fieldId] = (long) value;
+        break;
+      case DOUBLE:
+        define(fieldId);
+        doubles[fieldId] = value;
+        break;
+      default:
+        put(fieldId, DatumFactory.createFloat8(value));
+    }
+  }
+
+  public void putBytes(int fieldId, byte [] bytes, int off, int len) {
+    if (slotTypes[fieldId] != SlotType.BYTES) {
+      put(fieldId, createVarDatum(types[fieldId], Arrays.copyOfRange(bytes, off, off + len)));
+      return;
+    }
+
+    define(fieldId);
+    varLengths[fieldId] = 0;
+    ensureVarCapacity(len);
+    System.arraycopy(bytes, off, varBuffer, varBufferPos, len);
+    varOffsets[fieldId] = varBufferPos;
+    varLengths[fieldId] = len;
+    varBufferPos += len;
+  }
+
+  /**
+   * Reads <code>len</code> bytes of a variable-length field from a given buffer.
+   */
+  public void putBytes(int fieldId, ByteBuffer buffer, int len) {
+    if (slotTypes[fieldId] != SlotType.BYTES) {
+      byte [] bytes = new byte[len];
+      buffer.get(bytes);
+      put(fieldId, createVarDatum(types[fieldId], bytes));
+      return;
+    }
+
+    define(fieldId);
+    varLengths[fieldId] = 0;
+    ensureVarCapacity(len);
+    buffer.get(varBuffer, varBufferPos, len);
+    varOffsets[fieldId] = varBufferPos;
+    varLengths[fieldId] = len;
+    varBufferPos += len;
+  }
+
+  /**
+   * Overwritten fields leave garbage in the buffer. Before the buffer grows,
+   * the live fields are compacted so that a reused tuple does not grow infinitely.
+   */
+  private void ensureVarCapacity(int len) {
+    if (varBuffer == null) {
+      varBuffer = new byte[Math.max(INITIAL_VAR_BUFFER_SIZE, len)];
+      return;
+    }
+    if (varBufferPos + len <= varBuffer.length) {
+      return;
+    }
+
+    int liveLength = 0;
+    for (int i = 0; i < slotTypes.length; i++) {
+      if (hasVarBytes(i)) {
+        liveLength += varLengths[i];
+      }
+    }
+
+    int required = liveLength + len;
+    int newSize = required * 2 > varBuffer.length ? Math.max(varBuffer.length * 2, required) : varBuffer.length;
+    byte [] newBuffer = new byte[newSize];
+    int pos = 0;
+    for (int i = 0; i < slotTypes.length; i++) {
+      if (hasVarBytes(i)) {
+        System.arraycopy(varBuffer, varOffsets[i], newBuffer, pos, varLengths[i]);
+        varOffsets[i] = pos;
+        pos += varLengths[i];
+      }
+    }
+    varBuffer = newBuffer;
+    varBufferPos = pos;
+  }
+
+  private boolean hasVarBytes(int fieldId) {
+    return slotTypes[fieldId] == SlotType.BYTES && states[fieldId] == DEFINED;
+  }
+
+  @Override
+  public void put(int fieldId, Datum value) {
+    if (value == null) {
+      setState(fieldId, (byte) 0);
+      return;
+    }
+
+    if (value instanceof NullDatum) {
+      setNull(fieldId);
+      return;
+    }
+
+    SlotType slotType = slotTypes[fieldId];
+    if (slotType == SlotType.DATUM || slotType != getSlotType(value.type())) {
+      setState(fieldId, (byte) (DEFINED | BOXED));
+    } else if (slotType == SlotType.LONG) {
+      putInt8(fieldId, value.asInt8());
+    } else if (slotType == SlotType.DOUBLE) {
+      putFloat8(fieldId, value.asFloat8());
+    } else {
+      byte [] bytes = value.asByteArray();
+      putBytes(fieldId, bytes, 0, bytes.length);
+    }
+    // the given datum is kept so that get() returns the same instance.
+    getDatums()[fieldId] = value;
+  }
+
+  @Override
+  public void put(int fieldId, Datum[] values) {
+    for (int i = fieldId, j = 0; j < values.length; i++, j++) {
+      put(i, values[j]);
+    }
+  }
+
+  @Override
+  public void put(int fieldId, Tuple tuple) {
+    for (int i = fieldId, j = 0; j < tuple.size(); i++, j++) {
+      copyFrom(i, tuple, j);
+    }
+  }
+
+  @Override
+  public void put(Datum[] values) {
+    for (int i = 0; i < size(); i++) {
+      put(i, values[i]);
+    }
+  }
+
+  /**
+   * Copies a field of another tuple. If the source is also a PrimitiveTuple,
+   * the field is copied without materializing a Datum.
+   */
+  public void copyFrom(int fieldId, Tuple src, int srcFieldId) {
+    if (!(src instanceof PrimitiveTuple)) {
+      put(fieldId, src.get(srcFieldId));
+      return;
+    }
+
+    PrimitiveTuple other = (PrimitiveTuple) src;
+    if (!other.contains(srcFieldId)) {
+      put(fieldId, (Datum) null);
+    } else if (other.isNull(srcFieldId)) {
+      setNull(fieldId);
+    } else if (other.isBoxed(srcFieldId)) {
+      put(fieldId, other.datums[srcFieldId]);
+    } else {
+      switch (other.slotTypes[srcFieldId]) {
+        case LONG:
+          putInt8(fieldId, other.longs[srcFieldId]);
+          break;
+        case DOUBLE:
+          putFloat8(fieldId, other.doubles[srcFieldId]);
+          break;
+        case BYTES:
+          putBytes(fieldId, other.varBuffer, other.varOffsets[srcFieldId], other.varLengths[srcFieldId]);
+          break;
+        default:
+          put(fieldId, other.get(srcFieldId));
+      }
+    }
+  }
+
+  /**
+   * Clears this tuple and copies the given fields of another tuple in order.
+   * It is mainly used to build a key tuple for hashing.
+   */
+  public void copyFrom(Tuple src, int [] srcFieldIds) {
+    clear();
+    if (varBuffer == null && varOffsets != null && src instanceof PrimitiveTuple) {
+      // a new tuple allocates the buffer for exactly the copied bytes
+      PrimitiveTuple other = (PrimitiveTuple) src;
+      int varLength = 0;
+      for (int srcFieldId : srcFieldIds) {
+        if (other.hasVarBytes(srcFieldId)) {
+          varLength += other.varLengths[srcFieldId];
+        }
+      }
+      if (varLength > 0) {
+        varBuffer = new byte[varLength];
+      }
+    }
+    for (int i = 0; i < srcFieldIds.length; i++) {
+      copyFrom(i, src, srcFieldIds[i]);
+    }
+  }
+
+  //////////////////////////////////////////////////////
+  // Getter
+  //////////////////////////////////////////////////////
+
+  @Override
+  public Datum get(int fieldId) {
+    if (!contains(fieldId)) {
+      return null;
+    }
+    if (isNull(fieldId)) {
+      return NullDatum.get();
+    }
+    Datum [] datums = getDatums();
+    if (datums[fieldId] == null) {
+      datums[fieldId] = materialize(fieldId);
+    }
+    return datums[fieldId];
+  }
+
+  private Datum materialize(int fieldId) {
+    switch (types[fieldId]) {
+      case INT2:
+        return DatumFactory.createInt2((short) longs[fieldId]);
+      case INT4:
+        return DatumFactory.createInt4((int) longs[fieldId]);
+      case INT8:
+        return DatumFactory.createInt8(longs[fieldId]);
+      case FLOAT4:
+        return DatumFactory.createFloat4((float) doubles[fieldId]);
+      case FLOAT8:
+        return DatumFactory.createFloat8(doubles[fieldId]);
+      default:
+        return createVarDatum(types[fieldId], getBytes(fieldId, null));
+    }
+  }
+
+  private static Datum createVarDatum(Type type, byte [] bytes) {
+    if (type == Type.TEXT) {
+      return DatumFactory.createText(bytes);
+    } else if (type == Type.BLOB) {
+      return DatumFactory.createBlob(bytes);
+    } else {
+      return DatumFactory.createFromBytes(DataType.newBuilder().setType(type).build(), bytes);
+    }
+  }
+
+  /**
+   * @return the length of a variable-length field in bytes
+   */
+  public int getBytesLength(int fieldId) {
+    return isBoxed(fieldId) ? datums[fieldId].asByteArray().length : varLengths[fieldId];
+  }
+
+  /**
+   * Copies the bytes of a variable-length field into a given array.
+   * If the array is null or too small, a new array is allocated.
+   */
+  public byte [] getBytes(int fieldId, byte [] dest) {
+    if (isBoxed(fieldId)) {
+      return datums[fieldId].asByteArray();
+    }
+    int len = varLengths[fieldId];
+    if (dest == null || dest.length < len) {
+      dest = new byte[len];
+    }
+    System.arraycopy(varBuffer, varOffsets[fieldId], dest, 0, len);
+    return dest;
+  }
+
+  /**
+   * Writes the bytes of a variable-length field into a given buffer.
+   */
+  public void writeBytes(int fieldId, ByteBuffer buffer) {
+    if (isBoxed(fieldId)) {
+      buffer.put(datums[fieldId].asByteArray());
+      return;
+    }
+    buffer.put(varBuffer, varOffsets[fieldId], varLengths[fieldId]);
+  }
+
+  private boolean isBoxed(int fieldId) {
+    return (states[fieldId] & BOXED) != 0;
+  }
+
+  /**
+   * @return true if the bytes of a field can be read by {@link #writeBytes(int, ByteBuffer)}
+   */
+  public boolean isVariableLength(int fieldId) {
+    return slotTypes[fieldId] == SlotType.BYTES;
+  }
+
+  /**
+   * @return true if a field is kept in a long or double slot
+   */
+  public boolean isPrimitive(int fieldId) {
+    return (slotTypes[fieldId] == SlotType.LONG || slotTypes[fieldId] == SlotType.DOUBLE) && !isBoxed(fieldId);
+  }
+
+  @Override
+  public int getInt4(int fieldId) {
+    if (isBoxed(fieldId)) {
+      return datums[fieldId].asInt4();
+    }
+    switch (slotTypes[fieldId]) {
+      case LONG: return (int) longs[fieldId];
+      case DOUBLE: return (int) doubles[fieldId];
+      default: return get(fieldId).asInt4();
+    }
+  }
+
+  @Override
+  public long getInt8(int fieldId) {
+    if (isBoxed(fieldId)) {
+      return datums[fieldId].asInt8();
+    }
+    switch (slotTypes[fieldId]) {
+      case LONG: return longs[fieldId];
+      case DOUBLE: return (long) doubles[fieldId];
+      default: return get(fieldId).asInt8();
+    }
+  }
+
+  @Override
+  public double getFloat8(int fieldId) {
+    if (isBoxed(fieldId)) {
+      return datums[fieldId].asFloat8();
+    }
+    switch (slotTypes[fieldId]) {
+      case LONG: return longs[fieldId];
+      case DOUBLE: return doubles[fieldId];
+      default: return get(fieldId).asFloat8();
+    }
+  }
+
+  /**
+   * @return the estimated number of bytes which this tuple occupies on the heap.
+   * The type information shared with other tuples is not counted.
+   */
+  public long estimateHeapSize() {
+    int size = types.length;
+    long bytes = TUPLE_OBJECT_SIZE + ARRAY_HEADER_SIZE + size;
+    if (longs != null) {
+      bytes += ARRAY_HEADER_SIZE + 8L * size;
+    }
+    if (doubles != null) {
+      bytes += ARRAY_HEADER_SIZE + 8L * size;
+    }
+    if (varOffsets != null) {
+      bytes += 2 * (ARRAY_HEADER_SIZE + 4L * size);
+    }
+    if (varBuffer != null) {
+      bytes += ARRAY_HEADER_SIZE + varBuffer.length;
+    }
+    if (datums != null) {
+      bytes += ARRAY_HEADER_SIZE + (long) REFERENCE_SIZE * size;
+      for (Datum datum : datums) {
+        if (datum != null) {
+          bytes += OBJECT_HEADER_SIZE + ARRAY_HEADER_SIZE + datum.size();
+        }
+      }
+    }
+    return bytes;
+  }
+
+  @Override
+  public void setOffset(long offset) {
+    this.offset = offset;
+  }
+
+  @Override
+  public long getOffset() {
+    return this.offset;
+  }
+
+  @Override
+  public BooleanDatum getBoolean(int fieldId) {
+    return (BooleanDatum) get(fieldId);
+  }
+
+  @Override
+  public BitDatum getByte(int fieldId) {
+    return (BitDatum) get(fieldId);
+  }
+
+  @Override
+  public CharDatum getChar(int fieldId) {
+    return (CharDatum) get(fieldId);
+  }
+
+  @Override
+  public BlobDatum getBytes(int fieldId) {
+    return (BlobDatum) get(fieldId);
+  }
+
+  @Override
+  public Int2Datum getShort(int fieldId) {
+    return (Int2Datum) get(fieldId);
+  }
+
+  @Override
+  public Int4Datum getInt(int fieldId) {
+    return (Int4Datum) get(fieldId);
+  }
+
+  @Override
+  public Int8Datum getLong(int fieldId) {
+    return (Int8Datum) get(fieldId);
+  }
+
+  @Override
+  public Float4Datum getFloat(int fieldId) {
+    return (Float4Datum) get(fieldId);
+  }
+
+  @Override
+  public Float8Datum getDouble(int fieldId) {
+    return (Float8Datum) get(fieldId);
+  }
+
+  @Override
+  public Inet4Datum getIPv4(int fieldId) {
+    return (Inet4Datum) get(fieldId);
+  }
+
+  @Override
+  public byte[] getIPv4Bytes(int fieldId) {
+    return get(fieldId).asByteArray();
+  }
+
+  @Override
+  public InetAddress getIPv6(int fieldId) {
+    throw new InvalidCastException("IPv6 is unsupported yet");
+  }
+
+  @Override
+  public byte[] getIPv6Bytes(int fieldId) {
+    throw new InvalidCastException("IPv6 is unsupported yet");
+  }
+
+  @Override
+  public TextDatum getString(int fieldId) {
+    return (TextDatum) get(fieldId);
+  }
+
+  @Override
+  public TextDatum getText(int fieldId) {
+    return (TextDatum) get(fieldId);
+  }
+
+  public Datum [] toArray() {
+    Datum [] datums = new Datum[size()];
+    for (int i = 0; i < datums.length; i++) {
+      datums[i] = get(i);
+    }
+    return datums;
+  }
+
+  @Override
+  public Tuple clone() throws CloneNotSupportedException {
+    return new PrimitiveTuple(this);
+  }
+
+  public String toString() {
+    boolean first = true;
+    StringBuilder str = new StringBuilder();
+    str.append("(");
+    for(int i = 0; i < size(); i++) {
+      if(contains(i)) {
+        if(first) {
+          first = false;
+        } else {
+          str.append(", ");
+        }
+        str.append(i)
+            .append("=>")
+            .append(get(i));
+      }
+    }
+    str.append(")");
+    return str.toString();
+  }
+
+  /**
+   * A hash value of a field is the same as the hash value of its materialized datum,
+   * so PrimitiveTuple is hashed in the same way as {@link VTuple}.
+   */
+  private int hashField(int fieldId) {
+    if (isBoxed(fieldId)) {
+      return datums[fieldId].hashCode();
+    }
+
+    switch (slotTypes[fieldId]) {
+      case LONG:
+        return (int) longs[fieldId];
+      case DOUBLE:
+        return (int) doubles[fieldId];
+      default:
+        int hash = 1;
+        int start = varOffsets[fieldId];
+        int end = start + varLengths[fieldId];
+        if (types[fieldId] == Type.BLOB) {
+          // the same as ByteBuffer.hashCode()
+          for (int i = end - 1; i >= start; i--) {
+            hash = 31 * hash + varBuffer[i];
+          }
+        } else {
+          // the same as Arrays.hashCode(byte[])
+          for (int i = start; i < end; i++) {
+            hash = 31 * hash + varBuffer[i];
+          }
+        }
+        return hash;
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    int hashCode = 37;
+    for (int i = 0; i < size(); i++) {
+      if (!contains(i)) {
+        hashCode = hashCode ^ (i + 17);
+      } else if (!isNull(i)) {
+        hashCode ^= (hashField(i) * 41);
+      }
+    }
+    return hashCode;
+  }
+
+  private boolean equalsField(int fieldId, PrimitiveTuple other) {
+    if (contains(fieldId) != other.contains(fieldId)) {
+      return false;
+    }
+    if (!contains(fieldId)) {
+      return true;
+    }
+    if (isNull(fieldId) || other.isNull(fieldId)) {
+      return isNull(fieldId) == other.isNull(fieldId);
+    }
+
+    if (slotTypes[fieldId] != other.slotTypes[fieldId] || isBoxed(fieldId) || other.isBoxed(fieldId) ||
+        (slotTypes[fieldId] == SlotType.BYTES && types[fieldId] != other.types[fieldId])) {
+      return get(fieldId).equals(other.get(fieldId));
+    }
+
+    switch (slotTypes[fieldId]) {
+      case LONG:
+        return longs[fieldId] == other.longs[fieldId];
+      case DOUBLE:
+        return doubles[fieldId] == other.doubles[fieldId];
+      case BYTES:
+        int len = varLengths[fieldId];
+        if (len != other.varLengths[fieldId]) {
+          return false;
+        }
+        for (int i = 0, j = varOffsets[fieldId], k = other.varOffsets[fieldId]; i < len; i++, j++, k++) {
+          if (varBuffer[j] != other.varBuffer[k]) {
+            return false;
+          }
+        }
+        return true;
+      default:
+        return get(fieldId).equals(other.get(fieldId));
+    }
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof PrimitiveTuple) {
+      PrimitiveTuple other = (PrimitiveTuple) obj;
+      if (size() != other.size()) {
+        return false;
+      }
+      for (int i = 0; i < size(); i++) {
+        if (!equalsField(i, other)) {
+          return false;
+        }
+      }
+      return true;
+    } else if (obj instanceof VTuple) {
+      return Arrays.equals(toArray(), ((VTuple) obj).values);
+    } else if (obj instanceof LazyTuple) {
+      return Arrays.equals(toArray(), ((LazyTuple) obj).toArray());
+    }
+
+    return false;
+  }
+}
@@ -23,6 +23,13 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.IOUtils;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionCodecFactory;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+import org.apache.hadoop.io.compress.Compressor;
+import org.apache.hadoop.io.compress.Decompressor;
 import org.apache.tajo.catalog.Schema;
 import org.apache.tajo.catalog.TableMeta;
 import org.apache.tajo.catalog.statistics.TableStats;
@@ -31,28 +38,60 @@ import org.apache.tajo.datum.DatumFactory;
 import org.apache.tajo.datum.NullDatum;
 import org.apache.tajo.datum.ProtobufDatumFactory;
 import org.apache.tajo.datum.TimestampDatum;
+import org.apache.tajo.storage.compress.CodecPool;
 import org.apache.tajo.storage.fragment.FileFragment;
 import org.apache.tajo.util.BitArray;
 
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Arrays;
 
+/**
+ * RawFile stores rows in a binary format without any header. If a compression codec is given by
+ * {@link TableMeta#COMPRESSION_CODEC}, each flushed buffer is stored as a compressed block which consists of
+ * the uncompressed length, the compressed length and the compressed bytes. Since a block is independent from
+ * the others, a range of blocks can be shipped and read without decompressing the whole file.
+ */
 public class RawFile {
   private static final Log LOG = LogFactory.getLog(RawFile.class);
+  /** the uncompressed length and the compressed length of a block */
+  private static final int BLOCK_HEADER_SIZE = 8;
+
+  /**
+   * Returns the compression codec of the table meta, or null if rows are not compressed.
+   */
+  private static CompressionCodec getCodec(Configuration conf, TableMeta meta) throws IOException {
+    String codecName = meta.getOption(TableMeta.COMPRESSION_CODEC, null);
+    if (codecName == null || codecName.isEmpty()) {
+      return null;
+    }
+    CompressionCodec codec = new CompressionCodecFactory(conf).getCodecByClassName(codecName);
+    if (codec == null) {
+      throw new IOException("Unknown compression codec: " + codecName);
+    }
+    return codec;
+  }
 
   public static class RawFileScanner extends FileScanner implements SeekableScanner {
     private FileChannel channel;
+    /** the channel to read data from, which is the file channel unless the scanner reads a stream */
+    private ReadableByteChannel in;
+    /** the position of the channel */
+    private long position;
     private DataType[] columnTypes;
     private Path path;
 
     private ByteBuffer buffer;
-    private Tuple tuple;
+    private PrimitiveTuple tuple;
 
     private int headerSize = 0;
     private BitArray nullFlags;
@@ -60,6 +99,16 @@ public class RawFile {
     private boolean eof = false;
     private long fileSize;
     private FileInputStream fis;
+    private CompressionCodec codec;
+    private Decompressor decompressor;
+
+    // for the search condition
+    private ScanFilter filter;
+    private int [] filterColumnIds;
+    /** true if the i'th field is referred by the filter */
+    private boolean [] filterFields;
+    private int lastFilterField;
+    private int filteredRecordCount = 0;
 
     public RawFileScanner(Configuration conf, Schema schema, TableMeta meta, Path path) throws IOException {
       super(conf, schema, meta, null);
@@ -72,16 +121,54 @@ public class RawFile {
       this(conf, schema, meta, fragment.getPath());
     }
 
+    /**
+     * Creates a scanner reading rows from a stream of the given length. The scanner cannot seek or reset.
+     */
+    public RawFileScanner(Configuration conf, Schema schema, TableMeta meta, ReadableByteChannel in, long length)
+        throws IOException {
+      super(conf, schema, meta, null);
+      this.in = in;
+      this.fileSize = length;
+      init();
+    }
+
     public void init() throws IOException {
-      //Preconditions.checkArgument(FileUtil.isLocalPath(path));
-      // TODO - to make it unified one.
-      URI uri = path.toUri();
-      fis = new FileInputStream(new File(uri));
-      channel = fis.getChannel();
-      fileSize = channel.size();
+      if (path == null) {
+        // a stream can be initialized only once
+        if (buffer != null) {
+          return;
+        }
+        codec = getCodec(conf, meta);
+        if (codec != null) {
+          decompressor = CodecPool.getDecompressor(codec);
+          in = new BlockDecompressingChannel(in, codec, decompressor);
+        }
+      } else {
+        //Preconditions.checkArgument(FileUtil.isLocalPath(path));
+        // TODO - to make it unified one.
+        URI uri = path.toUri();
+        fis = new FileInputStream(new File(uri));
+        channel = fis.getChannel();
+        in = channel;
+        position = 0;
+        fileSize = channel.size();
+
+        if (LOG.isDebugEnabled()) {
+          LOG.debug("RawFileScanner open:" + path + "," + channel.position() + ", size :" + channel.size());
+        }
 
-      if (LOG.isDebugEnabled()) {
-        LOG.debug("RawFileScanner open:" + path + "," + channel.position() + ", size :" + channel.size());
+        codec = getCodec(conf, meta);
+        if (codec != null) {
+          if (decompressor == null) {
+            decompressor = CodecPool.getDecompressor(codec);
+          }
+          in = new BlockDecompressingChannel(channel, codec, decompressor);
+        }
+      }
+
+      if (codec != null) {
+        // the uncompressed size is unknown, so the end of rows is detected only by the end of the channel
+        fileSize = Long.MAX_VALUE;
       }
 
       buffer = ByteBuffer.allocateDirect(128 * 1024);
@@ -91,10 +178,10 @@ public class RawFile {
         columnTypes[i] = schema.getColumn(i).getDataType();
       }
 
-      tuple = new VTuple(columnTypes.length);
+      tuple = new PrimitiveTuple(columnTypes);
 
       // initial read
-      channel.read(buffer);
+      read();
       buffer.flip();
 
       nullFlags = new BitArray(schema.getColumnNum());
@@ -103,20 +190,46 @@ public class RawFile {
       super.init();
     }
 
+    /**
+     * Fills the buffer as much as possible, because a stream may return fewer bytes than the buffer can hold.
+     */
+    private int read() throws IOException {
+      int total = 0;
+      while (buffer.hasRemaining()) {
+        int n = in.read(buffer);
+        if (n == -1) {
+          if (total == 0) {
+            return -1;
+          }
+          break;
+        }
+        total += n;
+      }
+      position += total;
+      return total;
+    }
+
     @Override
     public long getNextOffset() throws IOException {
-      return channel.position() - buffer.remaining();
+      return position - buffer.remaining();
     }
 
     @Override
     public void seek(long offset) throws IOException {
+      if (channel == null) {
+        throw new UnsupportedOperationException("RawFileScanner cannot seek a stream");
+      }
+      if (codec != null) {
+        throw new UnsupportedOperationException("RawFileScanner cannot seek compressed rows");
+      }
       long currentPos = channel.position();
       if(currentPos < offset &&  offset < currentPos + buffer.limit()){
         buffer.position((int)(offset - currentPos));
       } else {
         buffer.clear();
         channel.position(offset);
-        channel.read(buffer);
+        position = offset;
+        read();
         buffer.flip();
         eof = false;
       }
@@ -124,7 +237,7 @@ public class RawFile {
 
     private boolean fillBuffer() throws IOException {
       buffer.compact();
-      if (channel.read(buffer) == -1) {
+      if (read() == -1) {
         eof = true;
         return false;
       } else {
@@ -135,145 +248,231 @@ public class RawFile {
 
     @Override
     public Tuple next() throws IOException {
-      if(eof) return null;
-
-      if (buffer.remaining() < headerSize) {
-        if (!fillBuffer()) {
-          return null;
-        }
-      }
-
-      // backup the buffer state
-      int bufferLimit = buffer.limit();
-      int recordSize = buffer.getInt();
-      int nullFlagSize = buffer.getShort();
-
-      buffer.limit(buffer.position() + nullFlagSize);
-      nullFlags.fromByteBuffer(buffer);
-      // restore the start of record contents
-      buffer.limit(bufferLimit);
-      //buffer.position(recordOffset + headerSize);
-      if (buffer.remaining() < (recordSize - headerSize)) {
-        if (!fillBuffer()) {
-          return null;
+      while (!eof) {
+        if (buffer.remaining() < headerSize) {
+          if (!fillBuffer()) {
+            return null;
+          }
         }
-      }
 
-      for (int i = 0; i < columnTypes.length; i++) {
-        // check if the i'th column is null
-        if (nullFlags.get(i)) {
-          tuple.put(i, DatumFactory.createNullDatum());
-          continue;
+        // backup the buffer state
+        int bufferLimit = buffer.limit();
+        int recordSize = buffer.getInt();
+        int nullFlagSize = buffer.getShort();
+
+        buffer.limit(buffer.position() + nullFlagSize);
+        nullFlags.fromByteBuffer(buffer);
+        // restore the start of record contents
+        buffer.limit(bufferLimit);
+        //buffer.position(recordOffset + headerSize);
+        if (buffer.remaining() < (recordSize - headerSize)) {
+          if (!fillBuffer()) {
+            return null;
+          }
         }
 
-        switch (columnTypes[i].getType()) {
-          case BOOLEAN :
-            tuple.put(i, DatumFactory.createBool(buffer.get()));
-            break;
-
-          case BIT :
-            tuple.put(i, DatumFactory.createBit(buffer.get()));
-            break;
-
-          case CHAR :
-            int realLen = buffer.getInt();
-            byte[] buf = new byte[columnTypes[i].getLength()];
-            buffer.get(buf);
-            byte[] charBuf = Arrays.copyOf(buf, realLen);
-            tuple.put(i, DatumFactory.createChar(charBuf));
-            break;
-
-          case INT2 :
-            tuple.put(i, DatumFactory.createInt2(buffer.getShort()));
-            break;
-
-          case INT4 :
-            tuple.put(i, DatumFactory.createInt4(buffer.getInt()));
-            break;
+        tuple.clear();
+        if (filter == null) {
+          for (int i = 0; i < columnTypes.length; i++) {
+            readField(i);
+          }
+        } else {
+          int recordStart = buffer.position();
+          // read only the fields referred by the filter, and skip the others
+          for (int i = 0; i <= lastFilterField; i++) {
+            if (filterFields[i]) {
+              readField(i);
+            } else {
+              skipField(i);
+            }
+          }
 
-          case INT8 :
-            tuple.put(i, DatumFactory.createInt8(buffer.getLong()));
-            break;
+          if (!filter.accept(tuple, filterColumnIds)) {
+            buffer.position(recordStart + recordSize - headerSize);
+            filteredRecordCount++;
+            if (!buffer.hasRemaining() && position == fileSize) {
+              eof = true;
+            }
+            continue;
+          }
 
-          case FLOAT4 :
-            tuple.put(i, DatumFactory.createFloat4(buffer.getFloat()));
-            break;
+          buffer.position(recordStart);
+          for (int i = 0; i < columnTypes.length; i++) {
+            if (filterFields[i]) {
+              skipField(i);
+            } else {
+              readField(i);
+            }
+          }
+        }
 
-          case FLOAT8 :
-            tuple.put(i, DatumFactory.createFloat8(buffer.getDouble()));
-            break;
+        if(!buffer.hasRemaining() && position == fileSize){
+          eof = true;
+        }
+        return tuple;
+      }
+      return null;
+    }
 
-          case TEXT :
-            // TODO - shoud use CharsetEncoder / CharsetDecoder
-            //byte [] rawBytes = getColumnBytes();
-            int strSize2 = buffer.getInt();
-            byte [] strBytes2 = new byte[strSize2];
-            buffer.get(strBytes2);
-            tuple.put(i, DatumFactory.createText(new String(strBytes2)));
-            break;
+    private void readField(int i) throws IOException {
+      // check if the i'th column is null
+      if (nullFlags.get(i)) {
+        tuple.setNull(i);
+        return;
+      }
 
-          case TIMESTAMP:
-            tuple.put(i, DatumFactory.createTimeStampFromMillis(buffer.getLong()));
-            break;
+      switch (columnTypes[i].getType()) {
+        case BOOLEAN :
+          tuple.put(i, DatumFactory.createBool(buffer.get()));
+          break;
+
+        case BIT :
+          tuple.put(i, DatumFactory.createBit(buffer.get()));
+          break;
+
+        case CHAR :
+          int realLen = buffer.getInt();
+          byte[] buf = new byte[columnTypes[i].getLength()];
+          buffer.get(buf);
+          byte[] charBuf = Arrays.copyOf(buf, realLen);
+          tuple.put(i, DatumFactory.createChar(charBuf));
+          break;
+
+        case INT2 :
+          tuple.putInt4(i, buffer.getShort());
+          break;
+
+        case INT4 :
+          tuple.putInt4(i, buffer.getInt());
+          break;
+
+        case INT8 :
+          tuple.putInt8(i, buffer.getLong());
+          break;
+
+        case FLOAT4 :
+          tuple.putFloat8(i, buffer.getFloat());
+          break;
+
+        case FLOAT8 :
+          tuple.putFloat8(i, buffer.getDouble());
+          break;
+
+        case TEXT :
+          // TODO - shoud use CharsetEncoder / CharsetDecoder
+          tuple.putBytes(i, buffer, buffer.getInt());
+          break;
+
+        case TIMESTAMP:
+          tuple.put(i, DatumFactory.createTimeStampFromMillis(buffer.getLong()));
+          break;
+
+        case BLOB :
+          tuple.putBytes(i, buffer, buffer.getInt());
+          break;
+
+        case PROTOBUF: {
+          //byte [] rawBytes = getColumnBytes();
+          int byteSize = buffer.getInt();
+          byte [] rawBytes = new byte[byteSize];
+          buffer.get(rawBytes);
+
+          ProtobufDatumFactory factory = ProtobufDatumFactory.get(columnTypes[i]);
+          Message.Builder builder = factory.newBuilder();
+          builder.mergeFrom(rawBytes);
+          tuple.put(i, factory.createDatum(builder.build()));
+          break;
+        }
 
-          case BLOB : {
-            //byte [] rawBytes = getColumnBytes();
-            int byteSize = buffer.getInt();
-            byte [] rawBytes = new byte[byteSize];
-            buffer.get(rawBytes);
-            tuple.put(i, DatumFactory.createBlob(rawBytes));
-            break;
-          }
+        case INET4 :
+          byte [] ipv4Bytes = new byte[4];
+          buffer.get(ipv4Bytes);
+          tuple.put(i, DatumFactory.createInet4(ipv4Bytes));
+          break;
 
-          case PROTOBUF: {
-            //byte [] rawBytes = getColumnBytes();
-            int byteSize = buffer.getInt();
-            byte [] rawBytes = new byte[byteSize];
-            buffer.get(rawBytes);
-
-            ProtobufDatumFactory factory = ProtobufDatumFactory.get(columnTypes[i]);
-            Message.Builder builder = factory.newBuilder();
-            builder.mergeFrom(rawBytes);
-            tuple.put(i, factory.createDatum(builder.build()));
-            break;
-          }
+        case NULL_TYPE:
+          tuple.setNull(i);
+          break;
 
-          case INET4 :
-            byte [] ipv4Bytes = new byte[4];
-            buffer.get(ipv4Bytes);
-            tuple.put(i, DatumFactory.createInet4(ipv4Bytes));
-            break;
+        default:
+      }
 
-          case NULL_TYPE:
-            tuple.put(i, NullDatum.get());
-            break;
+    }
 
-          default:
-        }
+    /**
+     * Moves the buffer position to the next field without deserializing the i'th field.
+     */
+    private void skipField(int i) {
+      if (nullFlags.get(i)) {
+        return;
       }
 
-      if(!buffer.hasRemaining() && channel.position() == fileSize){
-        eof = true;
+      int length;
+      switch (columnTypes[i].getType()) {
+        case BOOLEAN:
+        case BIT:
+          length = 1;
+          break;
+        case CHAR:
+          buffer.getInt();
+          length = columnTypes[i].getLength();
+          break;
+        case INT2:
+          length = 2;
+          break;
+        case INT4:
+        case FLOAT4:
+        case INET4:
+          length = 4;
+          break;
+        case INT8:
+        case FLOAT8:
+        case TIMESTAMP:
+          length = 8;
+          break;
+        case TEXT:
+        case BLOB:
+        case PROTOBUF:
+          length = buffer.getInt();
+          break;
+        default:
+          length = 0;
       }
-      return tuple;
+      buffer.position(buffer.position() + length);
     }
 
     @Override
     public void reset() throws IOException {
+      if (channel == null) {
+        throw new UnsupportedOperationException("RawFileScanner cannot reset a stream");
+      }
       // clear the buffer
       buffer.clear();
       // reload initial buffer
       channel.position(0);
-      channel.read(buffer);
+      if (codec != null) {
+        in = new BlockDecompressingChannel(channel, codec, decompressor);
+      }
+      position = 0;
+      read();
       buffer.flip();
       eof = false;
     }
 
     @Override
     public void close() throws IOException {
+      if (filter != null && LOG.isDebugEnabled()) {
+        LOG.debug("RawFileScanner filtered " + filteredRecordCount + " records by (" + filter + "), path: " + path);
+      }
       buffer.clear();
-      channel.close();
-      fis.close();
+      in.close();
+      if (fis != null) {
+        fis.close();
+      }
+      if (decompressor != null) {
+        CodecPool.returnDecompressor(decompressor);
+        decompressor = null;
+      }
     }
 
     @Override
@@ -283,7 +482,26 @@ public class RawFile {
 
     @Override
     public boolean isSelectable() {
-      return false;
+      return true;
+    }
+
+    /**
+     * RawFileScanner is initialized in the constructor, so it can be called after init().
+     */
+    @Override
+    public void setSearchCondition(Object expr) {
+      if (expr instanceof ScanFilter && !((ScanFilter) expr).isEmpty()) {
+        this.filter = (ScanFilter) expr;
+        this.filterColumnIds = filter.getColumnIds(schema);
+        this.filterFields = new boolean[schema.getColumnNum()];
+        this.lastFilterField = -1;
+        for (int id : filterColumnIds) {
+          if (id >= 0) {
+            filterFields[id] = true;
+            lastFilterField = Math.max(lastFilterField, id);
+          }
+        }
+      }
     }
 
     @Override
@@ -292,6 +510,99 @@ public class RawFile {
     }
   }
 
+  /**
+   * A channel which reads the uncompressed rows of compressed blocks.
+   */
+  private static class BlockDecompressingChannel implements ReadableByteChannel {
+    private final ReadableByteChannel in;
+    private final CompressionCodec codec;
+    private final Decompressor decompressor;
+    private final ByteBuffer header = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+    private ByteBuffer compressed = ByteBuffer.allocate(0);
+    private byte [] block = new byte[0];
+    private int blockOffset = 0;
+    private int blockLength = 0;
+
+    BlockDecompressingChannel(ReadableByteChannel in, CompressionCodec codec, Decompressor decompressor) {
+      this.in = in;
+      this.codec = codec;
+      this.decompressor = decompressor;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+      if (blockOffset == blockLength && !readBlock()) {
+        return -1;
+      }
+      int length = Math.min(dst.remaining(), blockLength - blockOffset);
+      dst.put(block, blockOffset, length);
+      blockOffset += length;
+      return length;
+    }
+
+    /**
+     * Reads and decompresses the next block.
+     *
+     * @return false if there is no more block
+     */
+    private boolean readBlock() throws IOException {
+      header.clear();
+      if (!readFully(header)) {
+        return false;
+      }
+      header.flip();
+      int rawLength = header.getInt();
+      int compressedLength = header.getInt();
+
+      if (compressed.capacity() < compressedLength) {
+        compressed = ByteBuffer.allocate(compressedLength);
+      }
+      compressed.clear();
+      compressed.limit(compressedLength);
+      if (!readFully(compressed)) {
+        throw new EOFException("Unexpected end of a compressed block");
+      }
+
+      if (block.length < rawLength) {
+        block = new byte[rawLength];
+      }
+      if (decompressor != null) {
+        decompressor.reset();
+      }
+      InputStream blockIn = codec.createInputStream(
+          new ByteArrayInputStream(compressed.array(), 0, compressedLength), decompressor);
+      IOUtils.readFully(blockIn, block, 0, rawLength);
+      blockOffset = 0;
+      blockLength = rawLength;
+      return true;
+    }
+
+    /**
+     * @return false if the channel is already at the end
+     */
+    private boolean readFully(ByteBuffer dst) throws IOException {
+      while (dst.hasRemaining()) {
+        if (in.read(dst) == -1) {
+          if (dst.position() == 0) {
+            return false;
+          }
+          throw new EOFException("Unexpected end of a compressed block");
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return in.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
   public static class RawFileAppender extends FileAppender {
     private FileChannel channel;
     private RandomAccessFile randomAccessFile;
@@ -305,6 +616,15 @@ public class RawFile {
 
     private TableStatistics stats;
 
+    // for the compression
+    private CompressionCodec codec;
+    private Compressor compressor;
+    private DataOutputBuffer compressedBlock;
+    private byte [] block;
+    private ByteBuffer blockHeader;
+    /** the number of bytes written into the file */
+    private long writtenBytes;
+
     public RawFileAppender(Configuration conf, Schema schema, TableMeta meta, Path path) throws IOException {
       super(conf, schema, meta, path);
     }
@@ -324,6 +644,15 @@ public class RawFile {
 
       buffer = ByteBuffer.allocateDirect(64 * 1024);
 
+      codec = getCodec(conf, meta);
+      if (codec != null) {
+        compressor = CodecPool.getCompressor(codec, conf);
+        compressedBlock = new DataOutputBuffer();
+        block = new byte[buffer.capacity()];
+        blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+      }
+      writtenBytes = 0;
+
       // comput the number of bytes, representing the null flags
 
       nullFlags = new BitArray(schema.getColumnNum());
@@ -336,18 +665,58 @@ public class RawFile {
       super.init();
     }
 
+    /**
+     * If rows are compressed, the buffered rows are flushed as a block, and the returned offset is the end of
+     * the block in the file.
+     */
     @Override
     public long getOffset() throws IOException {
-      return pos;
+      if (codec == null) {
+        return pos;
+      } else {
+        flushBuffer();
+        return writtenBytes;
+      }
     }
 
     private void flushBuffer() throws IOException {
       buffer.limit(buffer.position());
       buffer.flip();
-      channel.write(buffer);
+      write(buffer);
       buffer.clear();
     }
 
+    /**
+     * Writes the remaining bytes of the source to the file, as a compressed block if a codec is given.
+     */
+    private void write(ByteBuffer src) throws IOException {
+      if (codec == null) {
+        writtenBytes += channel.write(src);
+        return;
+      }
+
+      int rawLength = src.remaining();
+      if (rawLength == 0) {
+        return;
+      }
+      src.get(block, 0, rawLength);
+      // a new stream is created for each block, because some streams cannot write a header again after reset
+      if (compressor != null) {
+        compressor.reset();
+      }
+      CompressionOutputStream compressedOut = codec.createOutputStream(compressedBlock, compressor);
+      compressedOut.write(block, 0, rawLength);
+      compressedOut.finish();
+
+      blockHeader.clear();
+      blockHeader.putInt(rawLength);
+      blockHeader.putInt(compressedBlock.getLength());
+      blockHeader.flip();
+      writtenBytes += channel.write(blockHeader);
+      writtenBytes += channel.write(ByteBuffer.wrap(compressedBlock.getData(), 0, compressedBlock.getLength()));
+      compressedBlock.reset();
+    }
+
     private boolean flushBufferAndReplace(int recordOffset, int sizeToBeWritten)
         throws IOException {
 
@@ -358,7 +727,7 @@ public class RawFile {
         int limit = buffer.position();
         buffer.limit(recordOffset);
         buffer.flip();
-        channel.write(buffer);
+        write(buffer);
         buffer.position(recordOffset);
         buffer.limit(limit);
         buffer.compact();
@@ -383,7 +752,7 @@ public class RawFile {
       nullFlags.clear();
       for (int i = 0; i < schema.getColumnNum(); i++) {
         if (enabledStats) {
-          stats.analyzeField(i, t.get(i));
+          stats.analyzeField(i, t);
         }
 
         if (t.isNull(i)) {
@@ -414,48 +783,50 @@ public class RawFile {
             break;
 
           case INT2 :
-            buffer.putShort(t.get(i).asInt2());
+            buffer.putShort((short) t.getInt4(i));
             break;
 
           case INT4 :
-            buffer.putInt(t.get(i).asInt4());
+            buffer.putInt(t.getInt4(i));
             break;
 
           case INT8 :
-            buffer.putLong(t.get(i).asInt8());
+            buffer.putLong(t.getInt8(i));
             break;
 
           case FLOAT4 :
-            buffer.putFloat(t.get(i).asFloat4());
+            buffer.putFloat((float) t.getFloat8(i));
             break;
 
           case FLOAT8 :
-            buffer.putDouble(t.get(i).asFloat8());
+            buffer.putDouble(t.getFloat8(i));
             break;
 
           case TEXT:
-            byte [] strBytes2 = t.get(i).asByteArray();
-            if (flushBufferAndReplace(recordOffset, strBytes2.length + 4)) {
-              recordOffset = 0;
+          case BLOB:
+            if (t instanceof PrimitiveTuple && ((PrimitiveTuple) t).isVariableLength(i)) {
+              // write the bytes directly without materializing a datum
+              PrimitiveTuple primitiveTuple = (PrimitiveTuple) t;
+              int length = primitiveTuple.getBytesLength(i);
+              if (flushBufferAndReplace(recordOffset, length + 4)) {
+                recordOffset = 0;
+              }
+              buffer.putInt(length);
+              primitiveTuple.writeBytes(i, buffer);
+            } else {
+              byte [] rawBytes = t.get(i).asByteArray();
+              if (flushBufferAndReplace(recordOffset, rawBytes.length + 4)) {
+                recordOffset = 0;
+              }
+              buffer.putInt(rawBytes.length);
+              buffer.put(rawBytes);
             }
-            buffer.putInt(strBytes2.length);
-            buffer.put(strBytes2);
             break;
 
           case TIMESTAMP:
             buffer.putLong(((TimestampDatum)t.get(i)).getMillis());
             break;
 
-          case BLOB : {
-            byte [] rawBytes = t.get(i).asByteArray();
-            if (flushBufferAndReplace(recordOffset, rawBytes.length + 4)) {
-              recordOffset = 0;
-            }
-            buffer.putInt(rawBytes.length);
-            buffer.put(rawBytes);
-            break;
-          }
-
           case PROTOBUF: {
             // TODO - to be fixed
 //            byte [] lengthByte = new byte[4];
@@ -511,13 +882,18 @@ public class RawFile {
     public void close() throws IOException {
       flush();
       if (enabledStats) {
-        stats.setNumBytes(getOffset());
+        // the uncompressed size is kept, because it is the size of rows to be processed
+        stats.setNumBytes(pos);
       }
       if (LOG.isDebugEnabled()) {
-        LOG.debug("RawFileAppender written: " + getOffset() + " bytes, path: " + path);
+        LOG.debug("RawFileAppender written: " + writtenBytes + " bytes, path: " + path);
       }
       channel.close();
       randomAccessFile.close();
+      if (compressor != null) {
+        CodecPool.returnCompressor(compressor);
+        compressor = null;
+      }
     }
 
     @Override
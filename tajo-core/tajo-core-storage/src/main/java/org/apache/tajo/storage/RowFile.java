@@ -55,7 +55,9 @@ public class RowFile {
   public static class RowFileScanner extends FileScanner {
     private FileSystem fs;
     private FSDataInputStream in;
-    private Tuple tuple;
+    private PrimitiveTuple tuple;
+    // an empty tuple whose type information is shared by the read tuples
+    private final PrimitiveTuple emptyTuple;
 
     private byte[] sync = new byte[SYNC_HASH_SIZE];
     private byte[] checkSync = new byte[SYNC_HASH_SIZE];
@@ -79,6 +81,7 @@ public class RowFile {
       tupleHeaderSize = nullFlags.bytesLength() + (2 * Short.SIZE/8);
       this.start = fragment.getStartKey();
       this.end = this.start + fragment.getEndKey();
+      this.emptyTuple = new PrimitiveTuple(schema);
     }
 
     public void init() throws IOException {
@@ -180,7 +183,7 @@ public class RowFile {
       }
 
       int i;
-      tuple = new VTuple(schema.getColumnNum());
+      tuple = emptyTuple.newEmptyTuple();
 
       int nullFlagSize = buffer.getShort();
       byte[] nullFlagBytes = new byte[nullFlagSize];
@@ -219,28 +222,23 @@ public class RowFile {
               break;
 
             case INT2 :
-              datum = DatumFactory.createInt2(buffer.getShort());
-              tuple.put(i, datum );
+              tuple.putInt4(i, buffer.getShort());
               break;
 
             case INT4 :
-              datum = DatumFactory.createInt4(buffer.getInt());
-              tuple.put(i, datum );
+              tuple.putInt4(i, buffer.getInt());
               break;
 
             case INT8 :
-              datum = DatumFactory.createInt8(buffer.getLong());
-              tuple.put(i, datum );
+              tuple.putInt8(i, buffer.getLong());
               break;
 
             case FLOAT4 :
-              datum = DatumFactory.createFloat4(buffer.getFloat());
-              tuple.put(i, datum);
+              tuple.putFloat8(i, buffer.getFloat());
               break;
 
             case FLOAT8 :
-              datum = DatumFactory.createFloat8(buffer.getDouble());
-              tuple.put(i, datum);
+              tuple.putFloat8(i, buffer.getDouble());
               break;
 
 //            case TEXT :
@@ -252,19 +250,8 @@ public class RowFile {
 //              break;
 
             case TEXT:
-              short bytelen = buffer.getShort();
-              byte[] strbytes = new byte[bytelen];
-              buffer.get(strbytes, 0, bytelen);
-              datum = DatumFactory.createText(strbytes);
-              tuple.put(i, datum);
-              break;
-
             case BLOB:
-              short bytesLen = buffer.getShort();
-              byte [] bytesBuf = new byte[bytesLen];
-              buffer.get(bytesBuf);
-              datum = DatumFactory.createBlob(bytesBuf);
-              tuple.put(i, datum);
+              tuple.putBytes(i, buffer, buffer.getShort());
               break;
 
             case INET4 :
@@ -278,7 +265,7 @@ public class RowFile {
               break;
           }
         } else {
-          tuple.put(i, DatumFactory.createNullDatum());
+          tuple.setNull(i);
         }
       }
       return tuple;
@@ -386,7 +373,7 @@ public class RowFile {
 
       for (int i = 0; i < schema.getColumnNum(); i++) {
         if (enabledStats) {
-          stats.analyzeField(i, t.get(i));
+          stats.analyzeField(i, t);
         }
 
         if (t.isNull(i)) {
@@ -407,29 +394,31 @@ public class RowFile {
               buffer.put(dst);
               break;
             case TEXT:
-              byte [] strbytes = t.getText(i).asByteArray();
-              buffer.putShort((short)strbytes.length);
-              buffer.put(strbytes, 0, strbytes.length);
+            case BLOB:
+              if (t instanceof PrimitiveTuple && ((PrimitiveTuple) t).isVariableLength(i)) {
+                // write the bytes directly without materializing a datum
+                buffer.putShort((short) ((PrimitiveTuple) t).getBytesLength(i));
+                ((PrimitiveTuple) t).writeBytes(i, buffer);
+              } else {
+                byte [] bytes = t.get(i).asByteArray();
+                buffer.putShort((short)bytes.length);
+                buffer.put(bytes);
+              }
               break;
             case INT2:
-              buffer.putShort(t.getShort(i).asInt2());
+              buffer.putShort((short) t.getInt4(i));
               break;
             case INT4:
-              buffer.putInt(t.getInt(i).asInt4());
+              buffer.putInt(t.getInt4(i));
               break;
             case INT8:
-              buffer.putLong(t.getLong(i).asInt8());
+              buffer.putLong(t.getInt8(i));
               break;
             case FLOAT4:
-              buffer.putFloat(t.getFloat(i).asFloat4());
+              buffer.putFloat((float) t.getFloat8(i));
               break;
             case FLOAT8:
-              buffer.putDouble(t.getDouble(i).asFloat8());
-              break;
-            case BLOB:
-              byte [] bytes = t.getBytes(i).asByteArray();
-              buffer.putShort((short)bytes.length);
-              buffer.put(bytes);
+              buffer.putDouble(t.getFloat8(i));
               break;
             case INET4:
               buffer.put(t.getIPv4Bytes(i));
@@ -0,0 +1,250 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import com.google.common.collect.Lists;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * ScanFilter is a conjunction of simple predicates on single columns, such as <code>col &lt; const</code>
+ * or <code>col IS NULL</code>. It is given to a scanner through {@link Scanner#setSearchCondition(Object)}.
+ * A scanner can use it to skip a block of rows by the statistics of the block, or to reject a row
+ * after reading only the columns referred by the predicates.
+ *
+ * It is conservative. A scanner may still return rows which do not satisfy the predicates,
+ * so the original search condition must be evaluated on the returned tuples.
+ */
+public class ScanFilter {
+  public static enum Operator {
+    EQUAL,
+    NOT_EQUAL,
+    LTH,
+    LEQ,
+    GTH,
+    GEQ,
+    IS_NULL,
+    IS_NOT_NULL
+  }
+
+  public static class Predicate {
+    private final Column column;
+    private final Operator operator;
+    private final Datum value;
+
+    public Predicate(Column column, Operator operator, Datum value) {
+      this.column = column;
+      this.operator = operator;
+      this.value = value;
+    }
+
+    public Column getColumn() {
+      return column;
+    }
+
+    public Operator getOperator() {
+      return operator;
+    }
+
+    /**
+     * @return a constant operand, or null for IS NULL and IS NOT NULL.
+     */
+    public Datum getValue() {
+      return value;
+    }
+
+    /**
+     * @return false if no row in a block can satisfy this predicate.
+     */
+    public boolean canMatch(Datum min, Datum max, long nullNum, long rowNum) {
+      switch (operator) {
+        case IS_NULL:
+          return nullNum > 0;
+        case IS_NOT_NULL:
+          return nullNum < rowNum;
+        default:
+      }
+
+      // a comparison with null is never true
+      if (nullNum >= rowNum) {
+        return false;
+      }
+      if (min == null || max == null || !isComparable(min) || !isComparable(max)) {
+        return true;
+      }
+
+      switch (operator) {
+        case EQUAL:
+          return min.compareTo(value) <= 0 && max.compareTo(value) >= 0;
+        case NOT_EQUAL:
+          return !(min.compareTo(value) == 0 && max.compareTo(value) == 0);
+        case LTH:
+          return min.compareTo(value) < 0;
+        case LEQ:
+          return min.compareTo(value) <= 0;
+        case GTH:
+          return max.compareTo(value) > 0;
+        case GEQ:
+          return max.compareTo(value) >= 0;
+        default:
+          return true;
+      }
+    }
+
+    /**
+     * @return false if a given value cannot satisfy this predicate. A null reference means an unknown value.
+     */
+    public boolean accept(Datum datum) {
+      if (datum == null) {
+        return true;
+      }
+
+      boolean isNull = datum.isNull();
+      switch (operator) {
+        case IS_NULL:
+          return isNull;
+        case IS_NOT_NULL:
+          return !isNull;
+        default:
+      }
+
+      // a comparison with null is never true
+      if (isNull) {
+        return false;
+      }
+      if (!isComparable(datum)) {
+        return true;
+      }
+
+      int cmp = datum.compareTo(value);
+      switch (operator) {
+        case EQUAL:
+          return cmp == 0;
+        case NOT_EQUAL:
+          return cmp != 0;
+        case LTH:
+          return cmp < 0;
+        case LEQ:
+          return cmp <= 0;
+        case GTH:
+          return cmp > 0;
+        case GEQ:
+          return cmp >= 0;
+        default:
+          return true;
+      }
+    }
+
+    private boolean isComparable(Datum datum) {
+      Type type = datum.type();
+      Type valueType = value.type();
+      if (isNumeric(type) && isNumeric(valueType)) {
+        // compareTo regards NaN as equal to any number
+        return !isNaN(datum) && !isNaN(value);
+      }
+      return type == Type.TEXT && valueType == Type.TEXT;
+    }
+
+    @Override
+    public String toString() {
+      return column.getQualifiedName() + " " + operator + (value != null ? " " + value : "");
+    }
+  }
+
+  private final List<Predicate> predicates = Lists.newArrayList();
+
+  public static boolean isNumeric(Type type) {
+    switch (type) {
+      case INT2:
+      case INT4:
+      case INT8:
+      case FLOAT4:
+      case FLOAT8:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private static boolean isNaN(Datum datum) {
+    switch (datum.type()) {
+      case FLOAT4:
+        return Float.isNaN(datum.asFloat4());
+      case FLOAT8:
+        return Double.isNaN(datum.asFloat8());
+      default:
+        return false;
+    }
+  }
+
+  public void addPredicate(Column column, Operator operator, Datum value) {
+    predicates.add(new Predicate(column, operator, value));
+  }
+
+  public List<Predicate> getPredicates() {
+    return Collections.unmodifiableList(predicates);
+  }
+
+  public boolean isEmpty() {
+    return predicates.isEmpty();
+  }
+
+  /**
+   * @return the column id of each predicate in a given schema. It is -1 if the column is not found.
+   */
+  public int [] getColumnIds(Schema schema) {
+    int [] columnIds = new int[predicates.size()];
+    for (int i = 0; i < predicates.size(); i++) {
+      columnIds[i] = schema.getColumnIdByName(predicates.get(i).getColumn().getColumnName());
+    }
+    return columnIds;
+  }
+
+  /**
+   * Evaluates the predicates on a tuple. Only the columns referred by the predicates are read.
+   *
+   * @param columnIds the column ids returned by {@link #getColumnIds(Schema)}
+   * @return false if the tuple cannot satisfy the predicates.
+   */
+  public boolean accept(Tuple tuple, int [] columnIds) {
+    for (int i = 0; i < columnIds.length; i++) {
+      if (columnIds[i] >= 0 && !predicates.get(i).accept(tuple.get(columnIds[i]))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (Predicate predicate : predicates) {
+      if (sb.length() > 0) {
+        sb.append(" AND ");
+      }
+      sb.append(predicate);
+    }
+    return sb.toString();
+  }
+}
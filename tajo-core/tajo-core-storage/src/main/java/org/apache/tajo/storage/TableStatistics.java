@@ -24,12 +24,27 @@ import org.apache.tajo.catalog.statistics.TableStats;
 import org.apache.tajo.common.TajoDataTypes.DataType;
 import org.apache.tajo.common.TajoDataTypes.Type;
 import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
 import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.util.HyperLogLog;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 /**
  * This class is not thread-safe.
+ *
+ * If it is created with <code>collectDistribution</code>, it also estimates the number of distinct values of
+ * each column with a {@link HyperLogLog} sketch, and builds an equi-depth histogram of each comparable column
+ * from a uniform sample of its values. It costs much more than min and max values, so it is intended for
+ * the explicit statistics collection (i.e., ANALYZE) rather than every table write.
  */
 public class TableStatistics {
+  public static final int HISTOGRAM_BUCKET_NUM = 100;
+  public static final int HISTOGRAM_SAMPLE_SIZE = 10000;
+
   private Schema schema;
   private Tuple minValues;
   private Tuple maxValues;
@@ -40,7 +55,27 @@ public class TableStatistics {
 
   private boolean [] comparable;
 
+  // min and max values of numeric columns are kept in primitive forms
+  private Type [] types;
+  private boolean [] integral;
+  private boolean [] real;
+  private boolean [] analyzed;
+  private long [] minLongs;
+  private long [] maxLongs;
+  private double [] minDoubles;
+  private double [] maxDoubles;
+
+  private final boolean collectDistribution;
+  private HyperLogLog [] sketches;
+  private Datum [][] samples;
+  private long [] offeredNums;
+  private Random random;
+
   public TableStatistics(Schema schema) {
+    this(schema, false);
+  }
+
+  public TableStatistics(Schema schema, boolean collectDistribution) {
     this.schema = schema;
     minValues = new VTuple(schema.getColumnNum());
     maxValues = new VTuple(schema.getColumnNum());
@@ -48,6 +83,15 @@ public class TableStatistics {
     numNulls = new long[schema.getColumnNum()];
     comparable = new boolean[schema.getColumnNum()];
 
+    types = new Type[schema.getColumnNum()];
+    integral = new boolean[schema.getColumnNum()];
+    real = new boolean[schema.getColumnNum()];
+    analyzed = new boolean[schema.getColumnNum()];
+    minLongs = new long[schema.getColumnNum()];
+    maxLongs = new long[schema.getColumnNum()];
+    minDoubles = new double[schema.getColumnNum()];
+    maxDoubles = new double[schema.getColumnNum()];
+
     DataType type;
     for (int i = 0; i < schema.getColumnNum(); i++) {
       type = schema.getColumn(i).getDataType();
@@ -56,6 +100,25 @@ public class TableStatistics {
       } else {
         comparable[i] = true;
       }
+
+      types[i] = type.getType();
+      integral[i] = types[i] == Type.INT2 || types[i] == Type.INT4 || types[i] == Type.INT8;
+      real[i] = types[i] == Type.FLOAT4 || types[i] == Type.FLOAT8;
+    }
+
+    this.collectDistribution = collectDistribution;
+    if (collectDistribution) {
+      sketches = new HyperLogLog[schema.getColumnNum()];
+      samples = new Datum[schema.getColumnNum()][];
+      offeredNums = new long[schema.getColumnNum()];
+      // a fixed seed keeps the collected histograms, and plans built with them, reproducible.
+      random = new Random(0);
+      for (int i = 0; i < schema.getColumnNum(); i++) {
+        sketches[i] = new HyperLogLog();
+        if (comparable[i]) {
+          samples[i] = new Datum[HISTOGRAM_SAMPLE_SIZE];
+        }
+      }
     }
   }
 
@@ -79,12 +142,92 @@ public class TableStatistics {
     return this.numBytes;
   }
 
+  /**
+   * Analyzes a field of a given tuple. A numeric field of {@link PrimitiveTuple} is
+   * analyzed without materializing a Datum.
+   */
+  public void analyzeField(int idx, Tuple tuple) {
+    if (tuple instanceof PrimitiveTuple && tuple.contains(idx)) {
+      if (tuple.isNull(idx)) {
+        numNulls[idx]++;
+        return;
+      }
+      if (integral[idx] && ((PrimitiveTuple) tuple).isPrimitive(idx)) {
+        analyzeLong(idx, tuple.getInt8(idx));
+        return;
+      }
+      if (real[idx] && ((PrimitiveTuple) tuple).isPrimitive(idx)) {
+        analyzeDouble(idx, tuple.getFloat8(idx));
+        return;
+      }
+    }
+
+    analyzeField(idx, tuple.get(idx));
+  }
+
+  private void analyzeLong(int idx, long value) {
+    if (collectDistribution) {
+      sketches[idx].offer(value);
+      int pos = nextSamplePosition(idx);
+      if (pos >= 0) {
+        samples[idx][pos] = createNumericDatum(idx, value);
+      }
+    }
+
+    if (!analyzed[idx]) {
+      minLongs[idx] = maxLongs[idx] = value;
+      analyzed[idx] = true;
+    } else if (value < minLongs[idx]) {
+      minLongs[idx] = value;
+    } else if (value > maxLongs[idx]) {
+      maxLongs[idx] = value;
+    }
+  }
+
+  private void analyzeDouble(int idx, double value) {
+    if (collectDistribution) {
+      sketches[idx].offer(Double.doubleToLongBits(value));
+      int pos = nextSamplePosition(idx);
+      if (pos >= 0) {
+        samples[idx][pos] = createNumericDatum(idx, value);
+      }
+    }
+
+    if (!analyzed[idx]) {
+      minDoubles[idx] = maxDoubles[idx] = value;
+      analyzed[idx] = true;
+    } else if (value < minDoubles[idx]) {
+      minDoubles[idx] = value;
+    } else if (value > maxDoubles[idx]) {
+      maxDoubles[idx] = value;
+    }
+  }
+
   public void analyzeField(int idx, Datum datum) {
     if (datum instanceof NullDatum) {
       numNulls[idx]++;
       return;
     }
 
+    if (datum != null && integral[idx]) {
+      analyzeLong(idx, datum.asInt8());
+      return;
+    }
+    if (datum != null && real[idx]) {
+      analyzeDouble(idx, datum.asFloat8());
+      return;
+    }
+
+    if (collectDistribution && datum != null) {
+      sketches[idx].offer(datum.asByteArray());
+      if (comparable[idx]) {
+        int pos = nextSamplePosition(idx);
+        if (pos >= 0) {
+          samples[idx][pos] = datum;
+        }
+      }
+    }
+
     if (comparable[idx]) {
       if (!maxValues.contains(idx) ||
           maxValues.get(idx).compareTo(datum) < 0) {
@@ -104,8 +247,21 @@ public class TableStatistics {
     for (int i = 0; i < schema.getColumnNum(); i++) {
       columnStats = new ColumnStats(schema.getColumn(i));
       columnStats.setNumNulls(numNulls[i]);
-      columnStats.setMinValue(minValues.get(i));
-      columnStats.setMaxValue(maxValues.get(i));
+      if (integral[i] || real[i]) {
+        columnStats.setMinValue(analyzed[i] ? createNumericDatum(i, true) : null);
+        columnStats.setMaxValue(analyzed[i] ? createNumericDatum(i, false) : null);
+      } else {
+        columnStats.setMinValue(minValues.get(i));
+        columnStats.setMaxValue(maxValues.get(i));
+      }
+      if (collectDistribution) {
+        // the estimation error may exceed the number of non-null values when they are only a few.
+        columnStats.setNumDistVals(Math.min(sketches[i].cardinality(), numRows - numNulls[i]));
+        columnStats.setDistValSketch(sketches[i].toBytes());
+        if (comparable[i]) {
+          columnStats.setHistogram(buildHistogram(i));
+        }
+      }
       stat.addColumnStat(columnStats);
     }
 
@@ -114,4 +270,67 @@ public class TableStatistics {
 
     return stat;
   }
+
+  /**
+   * Reservoir sampling of the values of a column
+   *
+   * @return the position in the sample where the offered value should be kept, or -1 if it is not sampled.
+   */
+  private int nextSamplePosition(int idx) {
+    if (samples[idx] == null) {
+      return -1;
+    }
+    long offered = offeredNums[idx]++;
+    if (offered < HISTOGRAM_SAMPLE_SIZE) {
+      return (int) offered;
+    }
+    long pos = (long) (random.nextDouble() * (offered + 1));
+    return pos < HISTOGRAM_SAMPLE_SIZE ? (int) pos : -1;
+  }
+
+  /**
+   * @return the bounds of equi-depth buckets, or null if the column has no value.
+   */
+  private List<Datum> buildHistogram(int idx) {
+    int sampleNum = (int) Math.min(offeredNums[idx], HISTOGRAM_SAMPLE_SIZE);
+    if (sampleNum == 0) {
+      return null;
+    }
+
+    Datum [] sorted = Arrays.copyOf(samples[idx], sampleNum);
+    Arrays.sort(sorted);
+    int bucketNum = Math.min(HISTOGRAM_BUCKET_NUM, sampleNum);
+    List<Datum> bounds = new ArrayList<Datum>(bucketNum + 1);
+    for (int i = 0; i <= bucketNum; i++) {
+      bounds.add(sorted[(int) ((long) i * (sampleNum - 1) / bucketNum)]);
+    }
+    return bounds;
+  }
+
+  private Datum createNumericDatum(int idx, boolean min) {
+    if (integral[idx]) {
+      return createNumericDatum(idx, min ? minLongs[idx] : maxLongs[idx]);
+    } else {
+      return createNumericDatum(idx, min ? minDoubles[idx] : maxDoubles[idx]);
+    }
+  }
+
+  private Datum createNumericDatum(int idx, long value) {
+    switch (types[idx]) {
+      case INT2:
+        return DatumFactory.createInt2((short) value);
+      case INT4:
+        return DatumFactory.createInt4((int) value);
+      default:
+        return DatumFactory.createInt8(value);
+    }
+  }
+
+  private Datum createNumericDatum(int idx, double value) {
+    if (types[idx] == Type.FLOAT4) {
+      return DatumFactory.createFloat4((float) value);
+    } else {
+      return DatumFactory.createFloat8(value);
+    }
+  }
 }
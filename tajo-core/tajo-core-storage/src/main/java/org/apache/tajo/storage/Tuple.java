@@ -63,6 +63,16 @@ public interface Tuple extends Cloneable {
 	public Float4Datum getFloat(int fieldId);
 	
 	public Float8Datum getDouble(int fieldId);
+
+  /**
+   * Primitive accessors read a numeric field without materializing a Datum
+   * if the underlying tuple keeps the field in a primitive form.
+   */
+  public int getInt4(int fieldId);
+
+  public long getInt8(int fieldId);
+
+  public double getFloat8(int fieldId);
 	
 	public Inet4Datum getIPv4(int fieldId);
 	
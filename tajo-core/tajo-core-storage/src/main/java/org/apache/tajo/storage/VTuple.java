@@ -35,8 +35,14 @@ public class VTuple implements Tuple {
 
   public VTuple(Tuple tuple) {
     this.values = new Datum[tuple.size()];
-    System.arraycopy(((VTuple)tuple).values, 0, values, 0, tuple.size());
-    this.offset = ((VTuple)tuple).offset;
+    if (tuple instanceof VTuple) {
+      System.arraycopy(((VTuple)tuple).values, 0, values, 0, tuple.size());
+    } else {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = tuple.get(i);
+      }
+    }
+    this.offset = tuple.getOffset();
   }
 
   public VTuple(Datum [] datum) {
@@ -142,6 +148,21 @@ public class VTuple implements Tuple {
 		return (Float8Datum) values[fieldId];
 	}
 
+  @Override
+  public int getInt4(int fieldId) {
+    return values[fieldId].asInt4();
+  }
+
+  @Override
+  public long getInt8(int fieldId) {
+    return values[fieldId].asInt8();
+  }
+
+  @Override
+  public double getFloat8(int fieldId) {
+    return values[fieldId].asFloat8();
+  }
+
 	public Inet4Datum getIPv4(int fieldId) {
 		return (Inet4Datum) values[fieldId];
 	}
@@ -214,6 +235,9 @@ public class VTuple implements Tuple {
     } else if (obj instanceof LazyTuple) {
       LazyTuple other = (LazyTuple) obj;
       return Arrays.equals(values, other.toArray());
+    } else if (obj instanceof PrimitiveTuple) {
+      PrimitiveTuple other = (PrimitiveTuple) obj;
+      return Arrays.equals(values, other.toArray());
     }
 
     return false;
@@ -0,0 +1,108 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.columnfile;
+
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.storage.BinarySerializerDeserializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The location, encoding and statistics of a column chunk, which keeps the values of
+ * a column in a row group.
+ */
+public class ColumnChunkMeta {
+  long offset;
+  int length;
+  ColumnEncoding encoding = ColumnEncoding.PLAIN;
+  int nullNum;
+  /** the minimum value. It is null if the column type does not have an order. */
+  Datum min;
+  /** the maximum value. It is null if the column type does not have an order. */
+  Datum max;
+
+  public long getOffset() {
+    return offset;
+  }
+
+  public int getLength() {
+    return length;
+  }
+
+  public ColumnEncoding getEncoding() {
+    return encoding;
+  }
+
+  public int getNullNum() {
+    return nullNum;
+  }
+
+  public Datum getMin() {
+    return min;
+  }
+
+  public Datum getMax() {
+    return max;
+  }
+
+  void write(DataOutput out, Column column, BinarySerializerDeserializer serde) throws IOException {
+    out.writeLong(offset);
+    out.writeInt(length);
+    out.writeByte(encoding.ordinal());
+    out.writeInt(nullNum);
+    boolean hasMinMax = min != null && max != null;
+    out.writeBoolean(hasMinMax);
+    if (hasMinMax) {
+      writeDatum(out, column, min, serde);
+      writeDatum(out, column, max, serde);
+    }
+  }
+
+  static ColumnChunkMeta read(DataInput in, Column column, BinarySerializerDeserializer serde) throws IOException {
+    ColumnChunkMeta meta = new ColumnChunkMeta();
+    meta.offset = in.readLong();
+    meta.length = in.readInt();
+    meta.encoding = ColumnEncoding.values()[in.readByte()];
+    meta.nullNum = in.readInt();
+    if (in.readBoolean()) {
+      meta.min = readDatum(in, column, serde);
+      meta.max = readDatum(in, column, serde);
+    }
+    return meta;
+  }
+
+  private static void writeDatum(DataOutput out, Column column, Datum datum, BinarySerializerDeserializer serde)
+      throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    serde.serialize(column, datum, bytes, null);
+    WritableUtils.writeVInt(out, bytes.size());
+    out.write(bytes.toByteArray());
+  }
+
+  private static Datum readDatum(DataInput in, Column column, BinarySerializerDeserializer serde) throws IOException {
+    byte [] bytes = new byte[WritableUtils.readVInt(in)];
+    in.readFully(bytes);
+    return serde.deserialize(column, bytes, 0, bytes.length, null);
+  }
+}
@@ -0,0 +1,136 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.columnfile;
+
+import org.apache.hadoop.io.DataInputBuffer;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.storage.BinarySerializerDeserializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * ColumnChunkReader decodes a column chunk written by {@link ColumnChunkWriter}.
+ */
+class ColumnChunkReader {
+  private final Column column;
+  private final Type type;
+  private final boolean integral;
+  private final BinarySerializerDeserializer serde = new BinarySerializerDeserializer();
+  private final DataInputBuffer in = new DataInputBuffer();
+
+  ColumnChunkReader(Column column) {
+    this.column = column;
+    this.type = column.getDataType().getType();
+    this.integral = ColumnChunkWriter.isIntegral(type);
+  }
+
+  /**
+   * Decodes a column chunk.
+   *
+   * @param meta the meta of the chunk
+   * @param rowNum the number of rows in the row group
+   * @param bytes the bytes of the chunk
+   * @param values an array to be filled with the values. NullDatum is filled for a null value.
+   */
+  void read(ColumnChunkMeta meta, int rowNum, byte [] bytes, Datum [] values) throws IOException {
+    in.reset(bytes, 0, meta.length);
+
+    int nullNum = WritableUtils.readVInt(in);
+    if (nullNum == rowNum) {
+      Arrays.fill(values, 0, rowNum, NullDatum.get());
+      return;
+    }
+
+    byte [] nullFlags = null;
+    if (nullNum > 0) {
+      nullFlags = new byte[(rowNum + 7) / 8];
+      in.readFully(nullFlags);
+    }
+
+    int valueNum = rowNum - nullNum;
+    Datum [] decoded = nullNum > 0 ? new Datum[valueNum] : values;
+    switch (meta.encoding) {
+      case PLAIN:
+        for (int i = 0; i < valueNum; i++) {
+          decoded[i] = readValue();
+        }
+        break;
+
+      case DELTA: {
+        long value = WritableUtils.readVLong(in);
+        decoded[0] = ColumnChunkWriter.createIntegral(type, value);
+        for (int i = 1; i < valueNum; i++) {
+          value += WritableUtils.readVLong(in);
+          decoded[i] = ColumnChunkWriter.createIntegral(type, value);
+        }
+        break;
+      }
+
+      case RLE: {
+        int runNum = WritableUtils.readVInt(in);
+        int pos = 0;
+        for (int i = 0; i < runNum; i++) {
+          Datum value = ColumnChunkWriter.createIntegral(type, WritableUtils.readVLong(in));
+          int runLength = WritableUtils.readVInt(in);
+          Arrays.fill(decoded, pos, pos + runLength, value);
+          pos += runLength;
+        }
+        break;
+      }
+
+      case DICTIONARY: {
+        Datum [] dictionary = new Datum[WritableUtils.readVInt(in)];
+        for (int i = 0; i < dictionary.length; i++) {
+          dictionary[i] = readValue();
+        }
+        for (int i = 0; i < valueNum; i++) {
+          decoded[i] = dictionary[WritableUtils.readVInt(in)];
+        }
+        break;
+      }
+    }
+
+    if (nullNum > 0) {
+      int n = 0;
+      for (int i = 0; i < rowNum; i++) {
+        if ((nullFlags[i >> 3] & (1 << (i & 7))) != 0) {
+          values[i] = NullDatum.get();
+        } else {
+          values[i] = decoded[n++];
+        }
+      }
+    }
+  }
+
+  private Datum readValue() throws IOException {
+    if (integral) {
+      return ColumnChunkWriter.createIntegral(type, WritableUtils.readVLong(in));
+    } else {
+      // some datums, such as blob, refer to the given bytes, so they must not share the chunk buffer
+      byte [] bytes = new byte[WritableUtils.readVInt(in)];
+      in.readFully(bytes);
+      return serde.deserialize(column, bytes, 0, bytes.length, null);
+    }
+  }
+}
@@ -0,0 +1,308 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.columnfile;
+
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.storage.BinarySerializerDeserializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ColumnChunkWriter encodes the values of a column in a row group. A chunk consists of
+ * the number of nulls, a null bitmap if some values are null, and non-null values. Non-null values
+ * are written in the smallest encoding among the encodings available for the column type.
+ */
+class ColumnChunkWriter {
+  static final int MAX_DICTIONARY_SIZE = 64 * 1024;
+
+  private final Column column;
+  private final Type type;
+  private final BinarySerializerDeserializer serde = new BinarySerializerDeserializer();
+  private final ByteArrayOutputStream valueBytes = new ByteArrayOutputStream();
+
+  ColumnChunkWriter(Column column) {
+    this.column = column;
+    this.type = column.getDataType().getType();
+  }
+
+  static boolean isIntegral(Type type) {
+    return type == Type.INT2 || type == Type.INT4 || type == Type.INT8;
+  }
+
+  static Datum createIntegral(Type type, long value) {
+    switch (type) {
+      case INT2:
+        return DatumFactory.createInt2((short) value);
+      case INT4:
+        return DatumFactory.createInt4((int) value);
+      default:
+        return DatumFactory.createInt8(value);
+    }
+  }
+
+  /**
+   * Writes a column chunk.
+   *
+   * @param values values of the column. A null element means a null value.
+   * @param rowNum the number of values
+   * @param out the output buffer
+   * @return the meta of the written chunk whose offset is not set
+   */
+  ColumnChunkMeta write(Datum [] values, int rowNum, DataOutputBuffer out) throws IOException {
+    ColumnChunkMeta meta = new ColumnChunkMeta();
+    int start = out.getLength();
+
+    byte [] nullFlags = new byte[(rowNum + 7) / 8];
+    int nullNum = 0;
+    for (int i = 0; i < rowNum; i++) {
+      if (values[i] == null || values[i].isNull()) {
+        nullFlags[i >> 3] |= 1 << (i & 7);
+        nullNum++;
+      }
+    }
+    WritableUtils.writeVInt(out, nullNum);
+    if (nullNum > 0 && nullNum < rowNum) {
+      out.write(nullFlags);
+    }
+
+    int valueNum = rowNum - nullNum;
+    if (valueNum > 0) {
+      if (isIntegral(type)) {
+        writeIntegers(values, rowNum, valueNum, meta, out);
+      } else {
+        writeBytes(values, rowNum, valueNum, meta, out);
+      }
+    }
+
+    meta.nullNum = nullNum;
+    meta.length = out.getLength() - start;
+    return meta;
+  }
+
+  private static boolean isNull(Datum datum) {
+    return datum == null || datum.isNull();
+  }
+
+  private void writeIntegers(Datum [] values, int rowNum, int valueNum, ColumnChunkMeta meta, DataOutputBuffer out)
+      throws IOException {
+    long [] longs = new long[valueNum];
+    int n = 0;
+    for (int i = 0; i < rowNum; i++) {
+      if (!isNull(values[i])) {
+        longs[n++] = values[i].asInt8();
+      }
+    }
+
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    long plainSize = 0;
+    long deltaSize = 0;
+    long rleSize = 0;
+    int runNum = 0;
+    int runLength = 0;
+    Map<Long, Integer> dictionary = new HashMap<Long, Integer>();
+    boolean dictionaryAvailable = true;
+    long dictionarySize = 0;
+
+    for (int i = 0; i < valueNum; i++) {
+      long value = longs[i];
+      min = Math.min(min, value);
+      max = Math.max(max, value);
+
+      plainSize += WritableUtils.getVIntSize(value);
+      deltaSize += WritableUtils.getVIntSize(i == 0 ? value : value - longs[i - 1]);
+      if (i > 0 && value == longs[i - 1]) {
+        runLength++;
+      } else {
+        if (i > 0) {
+          rleSize += WritableUtils.getVIntSize(longs[i - 1]) + WritableUtils.getVIntSize(runLength);
+        }
+        runNum++;
+        runLength = 1;
+      }
+      if (dictionaryAvailable && !dictionary.containsKey(value)) {
+        if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+          dictionary.put(value, dictionary.size());
+          dictionarySize += WritableUtils.getVIntSize(value);
+        } else {
+          dictionaryAvailable = false;
+        }
+      }
+    }
+    rleSize += WritableUtils.getVIntSize(longs[valueNum - 1]) + WritableUtils.getVIntSize(runLength);
+    rleSize += WritableUtils.getVIntSize(runNum);
+    dictionarySize += WritableUtils.getVIntSize(dictionary.size()) +
+        (long) valueNum * WritableUtils.getVIntSize(dictionary.size() - 1);
+
+    meta.min = createIntegral(type, min);
+    meta.max = createIntegral(type, max);
+
+    ColumnEncoding encoding = ColumnEncoding.PLAIN;
+    long size = plainSize;
+    if (deltaSize < size) {
+      encoding = ColumnEncoding.DELTA;
+      size = deltaSize;
+    }
+    if (rleSize < size) {
+      encoding = ColumnEncoding.RLE;
+      size = rleSize;
+    }
+    if (dictionaryAvailable && dictionarySize < size) {
+      encoding = ColumnEncoding.DICTIONARY;
+    }
+    meta.encoding = encoding;
+
+    switch (encoding) {
+      case PLAIN:
+        for (int i = 0; i < valueNum; i++) {
+          WritableUtils.writeVLong(out, longs[i]);
+        }
+        break;
+
+      case DELTA:
+        WritableUtils.writeVLong(out, longs[0]);
+        for (int i = 1; i < valueNum; i++) {
+          WritableUtils.writeVLong(out, longs[i] - longs[i - 1]);
+        }
+        break;
+
+      case RLE: {
+        WritableUtils.writeVInt(out, runNum);
+        int runStart = 0;
+        for (int i = 1; i <= valueNum; i++) {
+          if (i == valueNum || longs[i] != longs[runStart]) {
+            WritableUtils.writeVLong(out, longs[runStart]);
+            WritableUtils.writeVInt(out, i - runStart);
+            runStart = i;
+          }
+        }
+        break;
+      }
+
+      case DICTIONARY: {
+        long [] entries = new long[dictionary.size()];
+        for (Map.Entry<Long, Integer> entry : dictionary.entrySet()) {
+          entries[entry.getValue()] = entry.getKey();
+        }
+        WritableUtils.writeVInt(out, entries.length);
+        for (long entry : entries) {
+          WritableUtils.writeVLong(out, entry);
+        }
+        for (int i = 0; i < valueNum; i++) {
+          WritableUtils.writeVInt(out, dictionary.get(longs[i]));
+        }
+        break;
+      }
+    }
+  }
+
+  private boolean hasOrder() {
+    return type == Type.FLOAT4 || type == Type.FLOAT8 || type == Type.TEXT;
+  }
+
+  private void writeBytes(Datum [] values, int rowNum, int valueNum, ColumnChunkMeta meta, DataOutputBuffer out)
+      throws IOException {
+    byte [][] serialized = new byte[valueNum][];
+    Datum min = null;
+    Datum max = null;
+    // min and max are not kept if there is NaN, because NaN is not ordered.
+    boolean ordered = hasOrder();
+    int n = 0;
+    for (int i = 0; i < rowNum; i++) {
+      if (isNull(values[i])) {
+        continue;
+      }
+
+      Datum value = values[i];
+      valueBytes.reset();
+      serde.serialize(column, value, valueBytes, null);
+      serialized[n++] = valueBytes.toByteArray();
+
+      if (ordered) {
+        if ((type == Type.FLOAT4 || type == Type.FLOAT8) && Double.isNaN(value.asFloat8())) {
+          ordered = false;
+        } else {
+          if (min == null || value.compareTo(min) < 0) {
+            min = value;
+          }
+          if (max == null || value.compareTo(max) > 0) {
+            max = value;
+          }
+        }
+      }
+    }
+    if (ordered) {
+      meta.min = min;
+      meta.max = max;
+    }
+
+    long plainSize = 0;
+    Map<ByteBuffer, Integer> dictionary = new HashMap<ByteBuffer, Integer>();
+    boolean dictionaryAvailable = true;
+    long dictionarySize = 0;
+    for (int i = 0; i < valueNum; i++) {
+      int entrySize = WritableUtils.getVIntSize(serialized[i].length) + serialized[i].length;
+      plainSize += entrySize;
+      if (dictionaryAvailable) {
+        ByteBuffer key = ByteBuffer.wrap(serialized[i]);
+        if (!dictionary.containsKey(key)) {
+          if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+            dictionary.put(key, dictionary.size());
+            dictionarySize += entrySize;
+          } else {
+            dictionaryAvailable = false;
+          }
+        }
+      }
+    }
+    dictionarySize += WritableUtils.getVIntSize(dictionary.size()) +
+        (long) valueNum * WritableUtils.getVIntSize(dictionary.size() - 1);
+
+    if (dictionaryAvailable && dictionarySize < plainSize) {
+      meta.encoding = ColumnEncoding.DICTIONARY;
+      byte [][] entries = new byte[dictionary.size()][];
+      for (Map.Entry<ByteBuffer, Integer> entry : dictionary.entrySet()) {
+        entries[entry.getValue()] = entry.getKey().array();
+      }
+      WritableUtils.writeVInt(out, entries.length);
+      for (byte [] entry : entries) {
+        WritableUtils.writeVInt(out, entry.length);
+        out.write(entry);
+      }
+      for (int i = 0; i < valueNum; i++) {
+        WritableUtils.writeVInt(out, dictionary.get(ByteBuffer.wrap(serialized[i])));
+      }
+    } else {
+      meta.encoding = ColumnEncoding.PLAIN;
+      for (int i = 0; i < valueNum; i++) {
+        WritableUtils.writeVInt(out, serialized[i].length);
+        out.write(serialized[i]);
+      }
+    }
+  }
+}
@@ -0,0 +1,381 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.columnfile;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DataOutputBuffer;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.storage.*;
+import org.apache.tajo.storage.exception.AlreadyExistsStorageException;
+import org.apache.tajo.storage.fragment.FileFragment;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ColumnFile is a columnar file format. Rows are divided into row groups, and the values of each column
+ * in a row group are stored together as a column chunk. Each chunk is encoded in PLAIN, RLE, DELTA or
+ * DICTIONARY encoding, and it keeps the number of nulls and the minimum and maximum values.
+ *
+ * <pre>
+ * file   := MAGIC row_group* footer footer_offset(long) MAGIC
+ * footer := row_group_num(int) row_group_meta*
+ * </pre>
+ *
+ * A fragment reads the row groups starting in the range of the fragment. A scanner skips
+ * the row groups whose statistics cannot satisfy a {@link ScanFilter}, and it reads only
+ * the chunks of projected columns.
+ */
+public class ColumnFile {
+  /** the maximum number of rows in a row group */
+  public static final String ROW_GROUP_SIZE = "columnfile.row-group.size";
+  public static final int DEFAULT_ROW_GROUP_SIZE = 64 * 1024;
+
+  static final byte [] MAGIC = new byte[] {'T', 'C', 'F', 1};
+  static final int TAIL_SIZE = (Long.SIZE / 8) + MAGIC.length;
+
+  public static class ColumnFileAppender extends FileAppender {
+    private static final Log LOG = LogFactory.getLog(ColumnFileAppender.class);
+
+    private FileSystem fs;
+    private FSDataOutputStream out;
+    private int rowGroupSize;
+    private ColumnChunkWriter [] writers;
+    private Datum [][] buffered;
+    private int bufferedNum;
+    private DataOutputBuffer chunkBuffer;
+    private List<RowGroupMeta> rowGroups;
+
+    private TableStatistics stats;
+
+    public ColumnFileAppender(Configuration conf, Schema schema, TableMeta meta, Path path) throws IOException {
+      super(conf, schema, meta, path);
+    }
+
+    @Override
+    public void init() throws IOException {
+      fs = path.getFileSystem(conf);
+
+      if (!fs.exists(path.getParent())) {
+        throw new FileNotFoundException(path.toString());
+      }
+
+      if (fs.exists(path)) {
+        throw new AlreadyExistsStorageException(path);
+      }
+
+      rowGroupSize = Integer.parseInt(meta.getOption(ROW_GROUP_SIZE, String.valueOf(DEFAULT_ROW_GROUP_SIZE)));
+      writers = new ColumnChunkWriter[schema.getColumnNum()];
+      buffered = new Datum[schema.getColumnNum()][rowGroupSize];
+      for (int i = 0; i < schema.getColumnNum(); i++) {
+        writers[i] = new ColumnChunkWriter(schema.getColumn(i));
+      }
+      bufferedNum = 0;
+      chunkBuffer = new DataOutputBuffer();
+      rowGroups = new ArrayList<RowGroupMeta>();
+
+      out = fs.create(path);
+      out.write(MAGIC);
+
+      if (enabledStats) {
+        this.stats = new TableStatistics(this.schema);
+      }
+
+      super.init();
+    }
+
+    @Override
+    public long getOffset() throws IOException {
+      return out.getPos();
+    }
+
+    @Override
+    public void addTuple(Tuple t) throws IOException {
+      for (int i = 0; i < schema.getColumnNum(); i++) {
+        buffered[i][bufferedNum] = t.get(i);
+        if (enabledStats) {
+          stats.analyzeField(i, t);
+        }
+      }
+      bufferedNum++;
+
+      if (enabledStats) {
+        stats.incrementRow();
+      }
+
+      if (bufferedNum == rowGroupSize) {
+        writeRowGroup();
+      }
+    }
+
+    private void writeRowGroup() throws IOException {
+      if (bufferedNum == 0) {
+        return;
+      }
+
+      RowGroupMeta rowGroup = new RowGroupMeta();
+      rowGroup.offset = out.getPos();
+      rowGroup.rowNum = bufferedNum;
+      rowGroup.chunks = new ColumnChunkMeta[schema.getColumnNum()];
+      for (int i = 0; i < schema.getColumnNum(); i++) {
+        chunkBuffer.reset();
+        ColumnChunkMeta chunk = writers[i].write(buffered[i], bufferedNum, chunkBuffer);
+        chunk.offset = out.getPos();
+        out.write(chunkBuffer.getData(), 0, chunkBuffer.getLength());
+        rowGroup.chunks[i] = chunk;
+        Arrays.fill(buffered[i], 0, bufferedNum, null);
+      }
+      rowGroups.add(rowGroup);
+      bufferedNum = 0;
+    }
+
+    /**
+     * Buffered rows are written when a row group is full or this appender is closed.
+     */
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      writeRowGroup();
+
+      long footerOffset = out.getPos();
+      BinarySerializerDeserializer serde = new BinarySerializerDeserializer();
+      out.writeInt(rowGroups.size());
+      for (RowGroupMeta rowGroup : rowGroups) {
+        rowGroup.write(out, schema, serde);
+      }
+      out.writeLong(footerOffset);
+      out.write(MAGIC);
+
+      if (enabledStats) {
+        stats.setNumBytes(getOffset());
+      }
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("ColumnFileAppender written: " + getOffset() + " bytes, " + rowGroups.size() + " row groups, path: "
+            + path);
+      }
+      out.close();
+    }
+
+    @Override
+    public TableStats getStats() {
+      if (enabledStats) {
+        return stats.getTableStat();
+      } else {
+        return null;
+      }
+    }
+  }
+
+  public static class ColumnFileScanner extends FileScanner {
+    private static final Log LOG = LogFactory.getLog(ColumnFileScanner.class);
+
+    private FSDataInputStream in;
+    private List<RowGroupMeta> rowGroups;
+    private int [] targetIds;
+    private ColumnChunkReader [] readers;
+    private ScanFilter filter;
+    /** the column id of each predicate of the filter. It is -1 if the column is not found. */
+    private int [] filterColumnIds;
+
+    private int nextRowGroup;
+    private int rowNum;
+    private int rowId;
+    private Datum [][] columns;
+    private byte [] chunkBytes = new byte[64 * 1024];
+    private int skippedRowGroupNum;
+
+    public ColumnFileScanner(Configuration conf, Schema schema, TableMeta meta, FileFragment fragment)
+        throws IOException {
+      super(conf, schema, meta, fragment);
+    }
+
+    @Override
+    public void init() throws IOException {
+      if (targets == null) {
+        targets = schema.toArray();
+      }
+      targetIds = new int[targets.length];
+      readers = new ColumnChunkReader[targets.length];
+      columns = new Datum[targets.length][];
+      for (int i = 0; i < targets.length; i++) {
+        targetIds[i] = schema.getColumnIdByName(targets[i].getColumnName());
+        readers[i] = new ColumnChunkReader(schema.getColumn(targetIds[i]));
+      }
+
+      if (filter != null) {
+        filterColumnIds = filter.getColumnIds(schema);
+      }
+
+      Path path = fragment.getPath();
+      FileSystem fs = path.getFileSystem(conf);
+      long fileLength = fs.getFileStatus(path).getLen();
+      in = fs.open(path);
+      readFooter(fileLength);
+
+      reset();
+      super.init();
+    }
+
+    private void readFooter(long fileLength) throws IOException {
+      in.seek(fileLength - TAIL_SIZE);
+      long footerOffset = in.readLong();
+      byte [] magic = new byte[MAGIC.length];
+      in.readFully(magic);
+      if (!Arrays.equals(MAGIC, magic)) {
+        throw new IOException(fragment.getPath() + " is not a ColumnFile");
+      }
+
+      in.seek(footerOffset);
+      BinarySerializerDeserializer serde = new BinarySerializerDeserializer();
+      int rowGroupNum = in.readInt();
+      long start = fragment.getStartKey();
+      long end = start + fragment.getEndKey();
+      rowGroups = new ArrayList<RowGroupMeta>();
+      for (int i = 0; i < rowGroupNum; i++) {
+        RowGroupMeta rowGroup = RowGroupMeta.read(in, schema, serde);
+        if (rowGroup.offset >= start && rowGroup.offset < end) {
+          rowGroups.add(rowGroup);
+        }
+      }
+    }
+
+    /**
+     * @return false if no row in a row group can satisfy the filter.
+     */
+    private boolean canMatch(RowGroupMeta rowGroup) {
+      List<ScanFilter.Predicate> predicates = filter.getPredicates();
+      for (int i = 0; i < predicates.size(); i++) {
+        if (filterColumnIds[i] < 0) {
+          continue;
+        }
+        ColumnChunkMeta chunk = rowGroup.chunks[filterColumnIds[i]];
+        if (!predicates.get(i).canMatch(chunk.min, chunk.max, chunk.nullNum, rowGroup.rowNum)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean readNextRowGroup() throws IOException {
+      while (nextRowGroup < rowGroups.size()) {
+        RowGroupMeta rowGroup = rowGroups.get(nextRowGroup++);
+        if (filter != null && !canMatch(rowGroup)) {
+          skippedRowGroupNum++;
+          continue;
+        }
+
+        for (int i = 0; i < targetIds.length; i++) {
+          ColumnChunkMeta chunk = rowGroup.chunks[targetIds[i]];
+          if (chunkBytes.length < chunk.length) {
+            chunkBytes = new byte[chunk.length];
+          }
+          in.readFully(chunk.offset, chunkBytes, 0, chunk.length);
+          if (columns[i] == null || columns[i].length < rowGroup.rowNum) {
+            columns[i] = new Datum[rowGroup.rowNum];
+          }
+          readers[i].read(chunk, rowGroup.rowNum, chunkBytes, columns[i]);
+        }
+        rowNum = rowGroup.rowNum;
+        rowId = 0;
+        return true;
+      }
+      return false;
+    }
+
+    @Override
+    public Tuple next() throws IOException {
+      while (rowId >= rowNum) {
+        if (!readNextRowGroup()) {
+          return null;
+        }
+      }
+
+      Tuple tuple = new VTuple(columnNum);
+      for (int i = 0; i < targetIds.length; i++) {
+        tuple.put(targetIds[i], columns[i][rowId]);
+      }
+      rowId++;
+      return tuple;
+    }
+
+    @Override
+    public void reset() throws IOException {
+      nextRowGroup = 0;
+      rowNum = 0;
+      rowId = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (filter != null && LOG.isDebugEnabled()) {
+        LOG.debug("ColumnFileScanner skipped " + skippedRowGroupNum + " of " + rowGroups.size() +
+            " row groups by (" + filter + "), path: " + fragment.getPath());
+      }
+      if (in != null) {
+        in.close();
+      }
+    }
+
+    /**
+     * @return the number of row groups skipped by the filter
+     */
+    public int getSkippedRowGroupNum() {
+      return skippedRowGroupNum;
+    }
+
+    @Override
+    public boolean isProjectable() {
+      return true;
+    }
+
+    @Override
+    public boolean isSelectable() {
+      return true;
+    }
+
+    @Override
+    public void setSearchCondition(Object expr) {
+      super.setSearchCondition(expr);
+      if (expr instanceof ScanFilter && !((ScanFilter) expr).isEmpty()) {
+        this.filter = (ScanFilter) expr;
+      }
+    }
+
+    @Override
+    public boolean isSplittable() {
+      return true;
+    }
+  }
+}
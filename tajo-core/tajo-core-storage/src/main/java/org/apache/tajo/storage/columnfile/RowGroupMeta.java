@@ -0,0 +1,66 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.columnfile;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.storage.BinarySerializerDeserializer;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * The location and column chunks of a row group
+ */
+public class RowGroupMeta {
+  long offset;
+  int rowNum;
+  ColumnChunkMeta [] chunks;
+
+  public long getOffset() {
+    return offset;
+  }
+
+  public int getRowNum() {
+    return rowNum;
+  }
+
+  public ColumnChunkMeta getChunk(int columnId) {
+    return chunks[columnId];
+  }
+
+  void write(DataOutput out, Schema schema, BinarySerializerDeserializer serde) throws IOException {
+    out.writeLong(offset);
+    out.writeInt(rowNum);
+    for (int i = 0; i < chunks.length; i++) {
+      chunks[i].write(out, schema.getColumn(i), serde);
+    }
+  }
+
+  static RowGroupMeta read(DataInput in, Schema schema, BinarySerializerDeserializer serde) throws IOException {
+    RowGroupMeta meta = new RowGroupMeta();
+    meta.offset = in.readLong();
+    meta.rowNum = in.readInt();
+    meta.chunks = new ColumnChunkMeta[schema.getColumnNum()];
+    for (int i = 0; i < meta.chunks.length; i++) {
+      meta.chunks[i] = ColumnChunkMeta.read(in, schema.getColumn(i), serde);
+    }
+    return meta;
+  }
+}
@@ -43,6 +43,8 @@ import java.io.*;
 import java.rmi.server.UID;
 import java.security.MessageDigest;
 import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * <code>RCFile</code>s, short of Record Columnar File, are flat files
@@ -1154,6 +1156,13 @@ public class RCFile {
     private byte[] nullChars;
     private SerializerDeserializer serde;
 
+    // for the search condition
+    private ScanFilter filter;
+    private int[] filterColumnIds;
+    /** true if the j'th selected column is referred by the filter */
+    private boolean[] filterSelected;
+    private int filteredRowNum = 0;
+
     public RCFileScanner(Configuration conf, final Schema schema, final TableMeta meta,
                          final FileFragment fragment) throws IOException {
       super(conf, schema, meta, fragment);
@@ -1183,11 +1192,32 @@ public class RCFile {
         targets = schema.toArray();
       }
 
-      targetColumnIndexes = new int[targets.length];
+      Set<Integer> columnIds = new TreeSet<Integer>();
       for (int i = 0; i < targets.length; i++) {
-        targetColumnIndexes[i] = schema.getColumnIdByName(targets[i].getColumnName());
+        columnIds.add(schema.getColumnIdByName(targets[i].getColumnName()));
+      }
+      // the columns referred by the filter must be read even if they are not projected
+      if (filter != null) {
+        filterColumnIds = filter.getColumnIds(schema);
+        for (int id : filterColumnIds) {
+          if (id >= 0) {
+            columnIds.add(id);
+          }
+        }
+      }
+      targetColumnIndexes = new int[columnIds.size()];
+      int idx = 0;
+      for (int id : columnIds) {
+        targetColumnIndexes[idx++] = id;
+      }
+      if (filter != null) {
+        filterSelected = new boolean[targetColumnIndexes.length];
+        for (int i = 0; i < targetColumnIndexes.length; i++) {
+          for (int id : filterColumnIds) {
+            filterSelected[i] |= id == targetColumnIndexes[i];
+          }
+        }
       }
-      Arrays.sort(targetColumnIndexes);
 
       FileSystem fs = fragment.getPath().getFileSystem(conf);
       end = fs.getFileStatus(fragment.getPath()).getLen();
@@ -1599,7 +1629,15 @@ public class RCFile {
       }
 
       Tuple tuple = new VTuple(schema.getColumnNum());
-      getCurrentRow(tuple);
+      while (!getCurrentRow(tuple)) {
+        filteredRowNum++;
+        more = nextBuffer(rowId);
+        if (!more || lastSeenSyncPos() >= endOffset) {
+          more = false;
+          return null;
+        }
+        tuple.clear();
+      }
       return tuple;
     }
 
@@ -1636,33 +1674,75 @@ public class RCFile {
      * get the current row used,make sure called {@link #next()}
      * first.
      *
+     * @return false if the row cannot satisfy the search condition. Its columns are not deserialized.
      * @throws IOException
      */
-    public void getCurrentRow(Tuple tuple) throws IOException {
+    public boolean getCurrentRow(Tuple tuple) throws IOException {
       if (!keyInit || rowFetched) {
-        return;
+        return true;
       }
 
       if (!currentValue.inited) {
         currentValueBuffer();
       }
 
-      for (int j = 0; j < selectedColumns.length; ++j) {
-        SelectedColumn col = selectedColumns[j];
-        int i = col.colIndex;
+      if (filter == null) {
+        for (int j = 0; j < selectedColumns.length; ++j) {
+          readColumn(j, tuple);
+        }
+      } else {
+        // the columns referred by the filter are read first
+        for (int j = 0; j < selectedColumns.length; ++j) {
+          if (filterSelected[j]) {
+            readColumn(j, tuple);
+          }
+        }
 
-        if (col.isNulled) {
-          tuple.put(i, NullDatum.get());
-        } else {
-          colAdvanceRow(j, col);
+        if (!filter.accept(tuple, filterColumnIds)) {
+          for (int j = 0; j < selectedColumns.length; ++j) {
+            if (!filterSelected[j]) {
+              skipColumn(j);
+            }
+          }
+          rowFetched = true;
+          return false;
+        }
 
-          Datum datum = serde.deserialize(schema.getColumn(i),
-              currentValue.loadedColumnsValueBuffer[j].getData(), col.rowReadIndex, col.prvLength, nullChars);
-          tuple.put(i, datum);
-          col.rowReadIndex += col.prvLength;
+        for (int j = 0; j < selectedColumns.length; ++j) {
+          if (!filterSelected[j]) {
+            readColumn(j, tuple);
+          }
         }
       }
       rowFetched = true;
+      return true;
+    }
+
+    private void readColumn(int j, Tuple tuple) throws IOException {
+      SelectedColumn col = selectedColumns[j];
+      int i = col.colIndex;
+
+      if (col.isNulled) {
+        tuple.put(i, NullDatum.get());
+      } else {
+        colAdvanceRow(j, col);
+
+        Datum datum = serde.deserialize(schema.getColumn(i),
+            currentValue.loadedColumnsValueBuffer[j].getData(), col.rowReadIndex, col.prvLength, nullChars);
+        tuple.put(i, datum);
+        col.rowReadIndex += col.prvLength;
+      }
+    }
+
+    /**
+     * Advances the j'th selected column to the next row without deserializing the value.
+     */
+    private void skipColumn(int j) throws IOException {
+      SelectedColumn col = selectedColumns[j];
+      if (!col.isNulled) {
+        colAdvanceRow(j, col);
+        col.rowReadIndex += col.prvLength;
+      }
     }
 
     /**
@@ -1723,7 +1803,15 @@ public class RCFile {
 
     @Override
     public boolean isSelectable() {
-      return false;
+      return true;
+    }
+
+    @Override
+    public void setSearchCondition(Object expr) {
+      super.setSearchCondition(expr);
+      if (expr instanceof ScanFilter && !((ScanFilter) expr).isEmpty()) {
+        this.filter = (ScanFilter) expr;
+      }
     }
 
     @Override
@@ -1733,6 +1821,9 @@ public class RCFile {
 
     @Override
     public void close() throws IOException {
+      if (filter != null && LOG.isDebugEnabled()) {
+        LOG.debug("RCFileScanner filtered " + filteredRowNum + " rows by (" + filter + "), path: " + fragment.getPath());
+      }
       IOUtils.closeStream(in);
       currentValue.close();
       if (keyDecompressor != null) {
@@ -67,7 +67,8 @@ public class TestCompressionStorages {
   public static Collection<Object[]> generateParameters() {
     return Arrays.asList(new Object[][]{
         {StoreType.CSV},
-        {StoreType.RCFILE}
+        {StoreType.RCFILE},
+        {StoreType.RAW}
     });
   }
 
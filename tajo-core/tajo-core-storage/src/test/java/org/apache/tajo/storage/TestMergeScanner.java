@@ -66,6 +66,7 @@ public class TestMergeScanner {
         {StoreType.RAW},
         {StoreType.RCFILE},
         {StoreType.TREVNI},
+        {StoreType.COLUMNFILE},
         // RowFile requires Byte-buffer read support, so we omitted RowFile.
         //{StoreType.ROWFILE},
 
@@ -171,6 +172,7 @@ public class TestMergeScanner {
       case RCFILE:
       case TREVNI:
       case CSV:
+      case COLUMNFILE:
         return true;
       default:
         return false;
@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.SortSpec;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.DatumFactory;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TestNormalizedKeyEncoder {
+  private static final String [] WORDS = {"", "a", "ab", "abc", "abd", "b", "ba", "été", "zzzzzzzzzzzzzzzzzzz"};
+
+  private Schema schema;
+  private List<Tuple> tuples;
+
+  @Before
+  public void setUp() throws Exception {
+    schema = new Schema();
+    schema.addColumn("col1", Type.INT4);
+    schema.addColumn("col2", Type.INT8);
+    schema.addColumn("col3", Type.FLOAT8);
+    schema.addColumn("col4", Type.TEXT);
+
+    Random rnd = new Random(1234);
+    tuples = new ArrayList<Tuple>();
+    for (int i = 0; i < 300; i++) {
+      Tuple tuple = new VTuple(4);
+      tuple.put(0, rnd.nextInt(10) == 0 ? DatumFactory.createNullDatum() : DatumFactory.createInt4(rnd.nextInt(7) - 3));
+      tuple.put(1, rnd.nextInt(10) == 0 ? DatumFactory.createNullDatum() :
+          DatumFactory.createInt8(rnd.nextBoolean() ? rnd.nextLong() : rnd.nextInt(5) - 2));
+      tuple.put(2, rnd.nextInt(10) == 0 ? DatumFactory.createNullDatum() :
+          DatumFactory.createFloat8(rnd.nextBoolean() ? rnd.nextGaussian() * 1000 : (rnd.nextInt(3) - 1) * 0.0d));
+      tuple.put(3, rnd.nextInt(10) == 0 ? DatumFactory.createNullDatum() :
+          DatumFactory.createText(WORDS[rnd.nextInt(WORDS.length)]));
+      tuples.add(tuple);
+    }
+  }
+
+  private SortSpec [] createSortSpecs(String [] columns, boolean [] asc, boolean [] nullFirst) {
+    SortSpec [] sortSpecs = new SortSpec[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      sortSpecs[i] = new SortSpec(schema.getColumnByFQN(columns[i]), asc[i], nullFirst[i]);
+    }
+    return sortSpecs;
+  }
+
+  /**
+   * Verifies that every pair of different prefixes is ordered in the same way as TupleComparator.
+   */
+  private void assertConsistent(SortSpec [] sortSpecs, int maxLength) {
+    NormalizedKeyEncoder encoder = new NormalizedKeyEncoder(schema, sortSpecs, maxLength);
+    TupleComparator comparator = new TupleComparator(schema, sortSpecs);
+
+    byte [][] keys = new byte[tuples.size()][];
+    for (int i = 0; i < tuples.size(); i++) {
+      keys[i] = encoder.encode(tuples.get(i));
+      assertEquals(encoder.getLength(), keys[i].length);
+    }
+
+    for (int i = 0; i < tuples.size(); i++) {
+      for (int j = 0; j < tuples.size(); j++) {
+        int prefixCmp = Integer.signum(NormalizedKeyEncoder.compare(keys[i], keys[j]));
+        int fullCmp = Integer.signum(comparator.compare(tuples.get(i), tuples.get(j)));
+        if (prefixCmp != 0 || encoder.isExact()) {
+          assertEquals(fullCmp, prefixCmp);
+        }
+      }
+    }
+
+    List<Tuple> sorted = new ArrayList<Tuple>(tuples);
+    encoder.sort(sorted, comparator);
+    for (int i = 1; i < sorted.size(); i++) {
+      assertTrue(comparator.compare(sorted.get(i - 1), sorted.get(i)) <= 0);
+    }
+  }
+
+  @Test
+  public final void testNumericKeys() {
+    String [] columns = {"col1", "col2", "col3"};
+    boolean [][] ascs = {{true, true, true}, {false, false, false}, {true, false, true}, {false, true, false}};
+    boolean [][] nullFirsts = {{false, false, false}, {true, true, true}, {true, false, true}};
+    for (boolean [] asc : ascs) {
+      for (boolean [] nullFirst : nullFirsts) {
+        SortSpec [] sortSpecs = createSortSpecs(columns, asc, nullFirst);
+        NormalizedKeyEncoder encoder = new NormalizedKeyEncoder(schema, sortSpecs, 27);
+        assertTrue(encoder.isExact());
+        assertConsistent(sortSpecs, 27);
+        // only a part of keys are encoded
+        assertFalse(new NormalizedKeyEncoder(schema, sortSpecs, 18).isExact());
+        assertConsistent(sortSpecs, 18);
+      }
+    }
+  }
+
+  @Test
+  public final void testTextKeys() {
+    String [] columns = {"col1", "col4", "col3"};
+    boolean [][] ascs = {{true, true, true}, {false, false, true}, {true, false, false}};
+    boolean [][] nullFirsts = {{false, false, false}, {true, true, true}, {false, true, false}};
+    for (boolean [] asc : ascs) {
+      for (boolean [] nullFirst : nullFirsts) {
+        SortSpec [] sortSpecs = createSortSpecs(columns, asc, nullFirst);
+        NormalizedKeyEncoder encoder = new NormalizedKeyEncoder(schema, sortSpecs, 16);
+        assertFalse(encoder.isExact());
+        assertEquals(16, encoder.getLength());
+        assertConsistent(sortSpecs, 16);
+        // a truncated text key
+        assertConsistent(sortSpecs, 12);
+      }
+    }
+  }
+
+  @Test
+  public final void testNotEncodable() {
+    Schema schema = new Schema();
+    schema.addColumn("col1", Type.BOOLEAN);
+    schema.addColumn("col2", Type.INT4);
+    SortSpec [] sortSpecs = new SortSpec[] {
+        new SortSpec(schema.getColumnByFQN("col1"), true, false),
+        new SortSpec(schema.getColumnByFQN("col2"), true, false)};
+
+    // keys after a non-encodable key cannot be encoded.
+    assertFalse(new NormalizedKeyEncoder(schema, sortSpecs, 16).isEncodable());
+  }
+}
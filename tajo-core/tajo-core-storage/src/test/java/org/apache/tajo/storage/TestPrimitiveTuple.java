@@ -0,0 +1,183 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestPrimitiveTuple {
+
+  private static Schema createSchema() {
+    Schema schema = new Schema();
+    schema.addColumn("col1", Type.INT4);
+    schema.addColumn("col2", Type.INT8);
+    schema.addColumn("col3", Type.FLOAT8);
+    schema.addColumn("col4", Type.TEXT);
+    schema.addColumn("col5", Type.BOOLEAN);
+    return schema;
+  }
+
+  @Test
+  public void testPutAndGet() {
+    PrimitiveTuple t1 = new PrimitiveTuple(createSchema());
+    t1.putInt4(0, 1);
+    t1.putInt8(1, 2l);
+    t1.putFloat8(2, 0.5d);
+    byte [] bytes = "tajo".getBytes();
+    t1.putBytes(3, bytes, 0, bytes.length);
+    t1.put(4, DatumFactory.createBool(true));
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(t1.contains(i));
+      assertFalse(t1.isNull(i));
+    }
+
+    assertEquals(1, t1.getInt4(0));
+    assertEquals(2l, t1.getInt8(1));
+    assertTrue(0.5d == t1.getFloat8(2));
+
+    assertEquals(DatumFactory.createInt4(1), t1.get(0));
+    assertEquals(DatumFactory.createInt8(2l), t1.get(1));
+    assertEquals(DatumFactory.createFloat8(0.5d), t1.get(2));
+    assertEquals(DatumFactory.createText("tajo"), t1.get(3));
+    assertEquals(DatumFactory.createBool(true), t1.get(4));
+    // a materialized datum is cached
+    assertSame(t1.get(0), t1.get(0));
+
+    t1.setNull(0);
+    assertTrue(t1.isNull(0));
+    assertEquals(NullDatum.get(), t1.get(0));
+
+    t1.clear();
+    for (int i = 0; i < 5; i++) {
+      assertFalse(t1.contains(i));
+    }
+  }
+
+  @Test
+  public void testVariableLengthReuse() {
+    Schema schema = new Schema();
+    schema.addColumn("col1", Type.TEXT);
+    schema.addColumn("col2", Type.BLOB);
+    PrimitiveTuple t1 = new PrimitiveTuple(schema);
+
+    // overwriting fields without clear() must not break the live values
+    for (int i = 0; i < 1000; i++) {
+      t1.put(0, DatumFactory.createText("text_" + i));
+      byte [] bytes = ("blob_" + i).getBytes();
+      t1.putBytes(1, bytes, 0, bytes.length);
+      assertEquals(DatumFactory.createText("text_" + i), t1.get(0));
+      assertArrayEquals(bytes, t1.get(1).asByteArray());
+      assertEquals(bytes.length, t1.getBytesLength(1));
+    }
+  }
+
+  @Test
+  public void testEqualsAndHashCode() {
+    PrimitiveTuple t1 = new PrimitiveTuple(createSchema());
+    PrimitiveTuple t2 = new PrimitiveTuple(createSchema());
+
+    t1.putInt4(0, 1);
+    t1.setNull(1);
+    t1.putFloat8(2, 0.5d);
+    t1.put(3, DatumFactory.createText("tajo"));
+    t1.put(4, DatumFactory.createBool(false));
+
+    t2.put(0, DatumFactory.createInt4(1));
+    t2.put(1, NullDatum.get());
+    t2.put(2, DatumFactory.createFloat8(0.5d));
+    byte [] bytes = "tajo".getBytes();
+    t2.putBytes(3, bytes, 0, bytes.length);
+    t2.put(4, DatumFactory.createBool(false));
+
+    assertEquals(t1, t2);
+    assertEquals(t1.hashCode(), t2.hashCode());
+
+    VTuple t3 = new VTuple(5);
+    t3.put(new Datum [] {DatumFactory.createInt4(1), NullDatum.get(), DatumFactory.createFloat8(0.5d),
+        DatumFactory.createText("tajo"), DatumFactory.createBool(false)});
+    assertEquals(t1, t3);
+    assertEquals(t3, t1);
+
+    t2.putInt4(0, 2);
+    assertFalse(t1.equals(t2));
+  }
+
+  @Test
+  public void testCopyFrom() {
+    PrimitiveTuple t1 = new PrimitiveTuple(createSchema());
+    t1.putInt4(0, 1);
+    t1.putInt8(1, 2l);
+    t1.setNull(2);
+    t1.put(3, DatumFactory.createText("tajo"));
+    t1.put(4, DatumFactory.createBool(true));
+
+    // build a key tuple of (col4, col1)
+    int [] keyIds = new int[] {3, 0};
+    PrimitiveTuple key = new PrimitiveTuple(createSchema(), keyIds);
+    key.copyFrom(t1, keyIds);
+    assertEquals(DatumFactory.createText("tajo"), key.get(0));
+    assertEquals(1, key.getInt4(1));
+
+    // a key of a vtuple is equivalent to a key of a primitive tuple
+    PrimitiveTuple key2 = new PrimitiveTuple(createSchema(), keyIds);
+    key2.copyFrom(new VTuple(t1), keyIds);
+    assertEquals(key, key2);
+    assertEquals(key.hashCode(), key2.hashCode());
+
+    PrimitiveTuple copied = new PrimitiveTuple(t1);
+    assertEquals(t1, copied);
+    t1.putInt4(0, 5);
+    assertEquals(1, copied.getInt4(0));
+    assertTrue(copied.isNull(2));
+  }
+
+  @Test
+  public void testNewEmptyTuple() {
+    // a tuple without variable-length fields
+    PrimitiveTuple t1 = new PrimitiveTuple(new Type [] {Type.INT4, Type.FLOAT8});
+    t1.putInt4(0, 3);
+    t1.putFloat8(1, 0.5d);
+    assertEquals(DatumFactory.createInt4(3), t1.get(0));
+
+    PrimitiveTuple t2 = t1.newEmptyTuple();
+    assertEquals(2, t2.size());
+    assertFalse(t2.contains(0));
+    t2.put(0, DatumFactory.createInt4(3));
+    t2.put(1, DatumFactory.createFloat8(0.5d));
+    assertEquals(t1, t2);
+    assertEquals(t1.hashCode(), t2.hashCode());
+
+    // the bytes of a text field are copied into a new tuple
+    PrimitiveTuple t3 = new PrimitiveTuple(new Type [] {Type.TEXT});
+    t3.putBytes(0, "tajo".getBytes(), 0, 4);
+    PrimitiveTuple t4 = t3.newEmptyTuple();
+    t4.copyFrom(t3, new int [] {0});
+    t3.putBytes(0, "hadoop".getBytes(), 0, 6);
+    assertEquals(DatumFactory.createText("tajo"), t4.get(0));
+    t4.put(0, DatumFactory.createText("a longer text than the copied one"));
+    assertEquals("a longer text than the copied one", t4.get(0).asChars());
+  }
+}
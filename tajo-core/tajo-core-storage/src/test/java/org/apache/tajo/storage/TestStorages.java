@@ -83,6 +83,7 @@ public class TestStorages {
         {StoreType.RAW, false, false},
         {StoreType.RCFILE, true, true},
         {StoreType.TREVNI, false, true},
+        {StoreType.COLUMNFILE, true, true},
     });
   }
 		
@@ -175,7 +176,8 @@ public class TestStorages {
     int tupleCnt = 0;
     Tuple tuple;
     while ((tuple = scanner.next()) != null) {
-      if (storeType == StoreType.RCFILE || storeType == StoreType.TREVNI || storeType == StoreType.CSV) {
+      if (storeType == StoreType.RCFILE || storeType == StoreType.TREVNI || storeType == StoreType.CSV
+          || storeType == StoreType.COLUMNFILE) {
         assertTrue(tuple.get(0) == null);
       }
       assertEquals(DatumFactory.createInt8(tupleCnt + 2), tuple.getLong(1));
@@ -187,6 +189,68 @@ public class TestStorages {
     assertEquals(tupleNum, tupleCnt);
   }
 
+  @Test
+  public void testSearchCondition() throws IOException {
+    Schema schema = new Schema();
+    schema.addColumn("id", Type.INT4);
+    schema.addColumn("name", Type.TEXT);
+    schema.addColumn("score", Type.FLOAT8);
+
+    TableMeta meta = CatalogUtil.newTableMeta(storeType);
+
+    Path tablePath = new Path(testDir, "testSearchCondition.data");
+    Appender appender = StorageManagerFactory.getStorageManager(conf).getAppender(meta, schema, tablePath);
+    appender.init();
+    int tupleNum = 10000;
+    VTuple vTuple;
+
+    for (int i = 0; i < tupleNum; i++) {
+      vTuple = new VTuple(3);
+      vTuple.put(0, DatumFactory.createInt4(i));
+      vTuple.put(1, DatumFactory.createText("name_" + i));
+      vTuple.put(2, i % 2 == 0 ? NullDatum.get() : DatumFactory.createFloat8(i));
+      appender.addTuple(vTuple);
+    }
+    appender.close();
+
+    FileStatus status = fs.getFileStatus(tablePath);
+    FileFragment fragment = new FileFragment("testSearchCondition", tablePath, 0, status.getLen());
+
+    Schema target = new Schema();
+    target.addColumn(schema.getColumn("name"));
+    Scanner scanner = StorageManagerFactory.getStorageManager(conf).getScanner(meta, schema, fragment, target);
+    if (!scanner.isSelectable()) {
+      return;
+    }
+
+    // id >= 9000 AND score IS NOT NULL
+    ScanFilter filter = new ScanFilter();
+    filter.addPredicate(schema.getColumn("id"), ScanFilter.Operator.GEQ, DatumFactory.createInt4(9000));
+    filter.addPredicate(schema.getColumn("score"), ScanFilter.Operator.IS_NOT_NULL, null);
+    scanner.setSearchCondition(filter);
+    scanner.init();
+
+    int tupleCnt = 0;
+    Tuple tuple;
+    while ((tuple = scanner.next()) != null) {
+      if (storeType == StoreType.COLUMNFILE) {
+        // only blocks of rows are skipped
+        tupleCnt++;
+        continue;
+      }
+      int id = Integer.parseInt(tuple.get(1).asChars().substring("name_".length()));
+      assertTrue(id >= 9000 && id % 2 == 1);
+      tupleCnt++;
+    }
+    scanner.close();
+
+    if (storeType == StoreType.COLUMNFILE) {
+      assertTrue(tupleCnt >= 500);
+    } else {
+      assertEquals(500, tupleCnt);
+    }
+  }
+
   @Test
   public void testVariousTypes() throws IOException {
     Schema schema = new Schema();
@@ -0,0 +1,131 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage;
+
+import org.apache.tajo.catalog.Schema;
+import com.google.common.collect.Lists;
+import org.apache.tajo.catalog.statistics.ColumnStats;
+import org.apache.tajo.catalog.statistics.StatisticsUtil;
+import org.apache.tajo.catalog.statistics.TableStats;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.datum.Datum;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestTableStatistics {
+  private static Schema schema = new Schema();
+
+  static {
+    schema.addColumn("id", Type.INT4);
+    schema.addColumn("name", Type.TEXT);
+    schema.addColumn("score", Type.FLOAT8);
+  }
+
+  private static TableStats analyze(TableStatistics statistics, int rowNum) {
+    return analyze(statistics, 0, rowNum);
+  }
+
+  private static TableStats analyze(TableStatistics statistics, int start, int end) {
+    for (int i = start; i < end; i++) {
+      Tuple tuple = new VTuple(3);
+      tuple.put(0, DatumFactory.createInt4(i));
+      tuple.put(1, i % 10 == 0 ? NullDatum.get() : DatumFactory.createText("name" + (i % 100)));
+      tuple.put(2, DatumFactory.createFloat8(i % 2));
+
+      statistics.incrementRow();
+      for (int j = 0; j < 3; j++) {
+        statistics.analyzeField(j, tuple);
+      }
+    }
+    return statistics.getTableStat();
+  }
+
+  @Test
+  public void testMinMax() {
+    TableStats stats = analyze(new TableStatistics(schema), 1000);
+    assertEquals(1000, stats.getNumRows().longValue());
+
+    ColumnStats id = stats.getColumnStats().get(0);
+    assertEquals(DatumFactory.createInt4(0), id.getMinValue());
+    assertEquals(DatumFactory.createInt4(999), id.getMaxValue());
+    assertEquals(0, id.getNumDistValues().longValue());
+    assertFalse(id.hasHistogram());
+    assertEquals(100, stats.getColumnStats().get(1).getNumNulls().longValue());
+  }
+
+  @Test
+  public void testDistribution() {
+    int rowNum = 50000;
+    TableStats stats = analyze(new TableStatistics(schema, true), rowNum);
+
+    ColumnStats id = stats.getColumnStats().get(0);
+    assertTrue(Math.abs(id.getNumDistValues() - rowNum) < rowNum * 0.03);
+    // 90 names without nulls
+    assertEquals(90, stats.getColumnStats().get(1).getNumDistValues().longValue());
+    assertEquals(2, stats.getColumnStats().get(2).getNumDistValues().longValue());
+
+    assertTrue(id.hasHistogram());
+    List<Datum> histogram = id.getHistogram();
+    assertEquals(TableStatistics.HISTOGRAM_BUCKET_NUM + 1, histogram.size());
+    for (int i = 1; i < histogram.size(); i++) {
+      assertTrue(histogram.get(i - 1).compareTo(histogram.get(i)) <= 0);
+    }
+    // the median of uniformly distributed values
+    int median = histogram.get(TableStatistics.HISTOGRAM_BUCKET_NUM / 2).asInt4();
+    assertTrue(Math.abs(median - rowNum / 2) < rowNum * 0.05);
+  }
+
+  @Test
+  public void testMergeDistribution() {
+    // two table parts sharing the ids between 20000 and 29999
+    TableStats part1 = analyze(new TableStatistics(schema, true), 0, 30000);
+    TableStats part2 = analyze(new TableStatistics(schema, true), 20000, 50000);
+    TableStats stats = StatisticsUtil.aggregateTableStat(Lists.newArrayList(part1, part2));
+    assertEquals(60000, stats.getNumRows().longValue());
+
+    // the shared values are not counted twice
+    ColumnStats id = stats.getColumnStats().get(0);
+    assertTrue(Math.abs(id.getNumDistValues() - 50000) < 50000 * 0.03);
+    assertEquals(90, stats.getColumnStats().get(1).getNumDistValues().longValue());
+    assertEquals(2, stats.getColumnStats().get(2).getNumDistValues().longValue());
+    assertEquals(DatumFactory.createInt4(0), id.getMinValue());
+    assertEquals(DatumFactory.createInt4(49999), id.getMaxValue());
+
+    assertTrue(id.hasHistogram());
+    List<Datum> histogram = id.getHistogram();
+    assertEquals(TableStatistics.HISTOGRAM_BUCKET_NUM + 1, histogram.size());
+    assertEquals(DatumFactory.createInt4(0), histogram.get(0));
+    for (int i = 1; i < histogram.size(); i++) {
+      assertTrue(histogram.get(i - 1).compareTo(histogram.get(i)) <= 0);
+    }
+    // the shared values are twice as frequent as the others, so the median is 25000.
+    int median = histogram.get(TableStatistics.HISTOGRAM_BUCKET_NUM / 2).asInt4();
+    assertTrue(Math.abs(median - 25000) < 50000 * 0.05);
+
+    // the statistics without sketches, such as the statistics of a table write, are just summed up.
+    part1.getColumnStats().get(1).setDistValSketch(null);
+    stats = StatisticsUtil.aggregateTableStat(Lists.newArrayList(part1, part2));
+    assertEquals(180, stats.getColumnStats().get(1).getNumDistValues().longValue());
+  }
+}
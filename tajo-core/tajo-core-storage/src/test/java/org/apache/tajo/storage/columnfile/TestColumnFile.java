@@ -0,0 +1,215 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.tajo.storage.columnfile;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.tajo.catalog.CatalogUtil;
+import org.apache.tajo.catalog.Column;
+import org.apache.tajo.catalog.Options;
+import org.apache.tajo.catalog.Schema;
+import org.apache.tajo.catalog.TableMeta;
+import org.apache.tajo.catalog.proto.CatalogProtos.StoreType;
+import org.apache.tajo.common.TajoDataTypes.Type;
+import org.apache.tajo.conf.TajoConf;
+import org.apache.tajo.datum.DatumFactory;
+import org.apache.tajo.datum.NullDatum;
+import org.apache.tajo.storage.*;
+import org.apache.tajo.storage.fragment.FileFragment;
+import org.apache.tajo.util.CommonTestingUtil;
+import org.apache.tajo.util.TUtil;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+public class TestColumnFile {
+  private static final String TEST_PATH = "target/test-data/TestColumnFile";
+  private static final int TUPLE_NUM = 10000;
+  private static final int ROW_GROUP_SIZE = 1000;
+
+  private TajoConf conf;
+  private Path testDir;
+  private FileSystem fs;
+  private Schema schema;
+  private TableMeta meta;
+
+  @Before
+  public void setUp() throws Exception {
+    conf = new TajoConf();
+    testDir = CommonTestingUtil.getTestDir(TEST_PATH);
+    fs = testDir.getFileSystem(conf);
+
+    schema = new Schema();
+    schema.addColumn("id", Type.INT8);
+    schema.addColumn("code", Type.INT4);
+    schema.addColumn("category", Type.INT2);
+    schema.addColumn("name", Type.TEXT);
+    schema.addColumn("score", Type.FLOAT8);
+
+    Options options = new Options();
+    options.put(ColumnFile.ROW_GROUP_SIZE, String.valueOf(ROW_GROUP_SIZE));
+    meta = CatalogUtil.newTableMeta(StoreType.COLUMNFILE, options);
+  }
+
+  private static Tuple createTuple(int i) {
+    Tuple tuple = new VTuple(5);
+    // sorted values are delta encoded, runs are run-length encoded, and few distinct values are dictionary encoded
+    tuple.put(0, DatumFactory.createInt8(i));
+    tuple.put(1, DatumFactory.createInt4(i / 100));
+    tuple.put(2, DatumFactory.createInt2((short) (i % 7)));
+    tuple.put(3, i % 3 == 0 ? NullDatum.get() : DatumFactory.createText("name_" + (i % 10)));
+    // the last row group has only nulls in score
+    tuple.put(4, i >= TUPLE_NUM - ROW_GROUP_SIZE ? NullDatum.get() : DatumFactory.createFloat8(i * 0.5d));
+    return tuple;
+  }
+
+  private FileFragment writeTable(String name) throws IOException {
+    Path tablePath = new Path(testDir, name);
+    Appender appender = StorageManagerFactory.getStorageManager(conf).getAppender(meta, schema, tablePath);
+    appender.enableStats();
+    appender.init();
+    for (int i = 0; i < TUPLE_NUM; i++) {
+      appender.addTuple(createTuple(i));
+    }
+    appender.close();
+    assertEquals(TUPLE_NUM, appender.getStats().getNumRows().longValue());
+
+    return new FileFragment(name, tablePath, 0, fs.getFileStatus(tablePath).getLen());
+  }
+
+  @Test
+  public void testReadAndWrite() throws IOException {
+    FileFragment fragment = writeTable("testReadAndWrite.data");
+
+    Scanner scanner = StorageManagerFactory.getStorageManager(conf).getScanner(meta, schema, fragment);
+    scanner.init();
+    int i = 0;
+    Tuple tuple;
+    while ((tuple = scanner.next()) != null) {
+      Tuple expected = createTuple(i);
+      for (int j = 0; j < schema.getColumnNum(); j++) {
+        assertEquals(expected.get(j), tuple.get(j));
+      }
+      i++;
+    }
+    scanner.close();
+    assertEquals(TUPLE_NUM, i);
+  }
+
+  @Test
+  public void testSplit() throws IOException {
+    FileFragment fragment = writeTable("testSplit.data");
+    long half = fragment.getEndKey() / 2;
+
+    FileFragment [] splits = new FileFragment[] {
+        new FileFragment("testSplit", fragment.getPath(), 0, half),
+        new FileFragment("testSplit", fragment.getPath(), half, fragment.getEndKey() - half)
+    };
+
+    int i = 0;
+    for (FileFragment split : splits) {
+      Scanner scanner = StorageManagerFactory.getStorageManager(conf).getScanner(meta, schema, split);
+      scanner.init();
+      Tuple tuple;
+      while ((tuple = scanner.next()) != null) {
+        assertEquals(createTuple(i).get(0), tuple.get(0));
+        i++;
+      }
+      scanner.close();
+    }
+    assertEquals(TUPLE_NUM, i);
+  }
+
+  private int scanWithFilter(FileFragment fragment, ScanFilter filter, int expectedSkipped) throws IOException {
+    Schema target = new Schema();
+    target.addColumn(schema.getColumn("id"));
+
+    ColumnFile.ColumnFileScanner scanner = (ColumnFile.ColumnFileScanner)
+        StorageManagerFactory.getStorageManager(conf).getScanner(meta, schema, fragment, target);
+    assertTrue(scanner.isSelectable());
+    scanner.setSearchCondition(filter);
+    scanner.init();
+    int count = 0;
+    Tuple tuple;
+    while ((tuple = scanner.next()) != null) {
+      assertNotNull(tuple.get(0));
+      assertNull(tuple.get(3));
+      count++;
+    }
+    scanner.close();
+    assertEquals(expectedSkipped, scanner.getSkippedRowGroupNum());
+    return count;
+  }
+
+  @Test
+  public void testRowGroupSkipping() throws IOException {
+    FileFragment fragment = writeTable("testRowGroupSkipping.data");
+    Column id = schema.getColumn("id");
+    Column code = schema.getColumn("code");
+    Column score = schema.getColumn("score");
+
+    ScanFilter filter = new ScanFilter();
+    filter.addPredicate(id, ScanFilter.Operator.GEQ, DatumFactory.createInt8(8500));
+    assertEquals(2 * ROW_GROUP_SIZE, scanWithFilter(fragment, filter, 8));
+
+    // predicates are conjunctive, and a constant of a different numeric type is comparable
+    filter = new ScanFilter();
+    filter.addPredicate(id, ScanFilter.Operator.GTH, DatumFactory.createInt4(1500));
+    filter.addPredicate(code, ScanFilter.Operator.LTH, DatumFactory.createInt4(30));
+    assertEquals(2 * ROW_GROUP_SIZE, scanWithFilter(fragment, filter, 8));
+
+    filter = new ScanFilter();
+    filter.addPredicate(id, ScanFilter.Operator.EQUAL, DatumFactory.createInt8(TUPLE_NUM));
+    assertEquals(0, scanWithFilter(fragment, filter, 10));
+
+    // only the last row group contains nulls in score
+    filter = new ScanFilter();
+    filter.addPredicate(score, ScanFilter.Operator.IS_NULL, null);
+    assertEquals(ROW_GROUP_SIZE, scanWithFilter(fragment, filter, 9));
+
+    // the last row group cannot satisfy any comparison on score
+    filter = new ScanFilter();
+    filter.addPredicate(score, ScanFilter.Operator.NOT_EQUAL, DatumFactory.createFloat8(-1.0d));
+    assertEquals(TUPLE_NUM - ROW_GROUP_SIZE, scanWithFilter(fragment, filter, 1));
+  }
+
+  @Test
+  public void testMergeScannerWithFilter() throws IOException {
+    FileFragment fragment1 = writeTable("testMergeScannerWithFilter1.data");
+    FileFragment fragment2 = writeTable("testMergeScannerWithFilter2.data");
+
+    ScanFilter filter = new ScanFilter();
+    filter.addPredicate(schema.getColumn("id"), ScanFilter.Operator.LTH, DatumFactory.createInt8(ROW_GROUP_SIZE));
+
+    Scanner scanner = new MergeScanner(conf, schema, meta,
+        TUtil.newList(fragment1, fragment2));
+    assertTrue(scanner.isSelectable());
+    scanner.setSearchCondition(filter);
+    scanner.init();
+    int count = 0;
+    while (scanner.next() != null) {
+      count++;
+    }
+    scanner.close();
+    assertEquals(2 * ROW_GROUP_SIZE, count);
+  }
+}
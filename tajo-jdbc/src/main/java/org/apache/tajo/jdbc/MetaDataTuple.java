@@ -149,6 +149,21 @@ public class MetaDataTuple implements Tuple {
     return new Float8Datum(Float.parseFloat(values.get(fieldId).toString()));
   }
 
+  @Override
+  public int getInt4(int fieldId) {
+    return Integer.parseInt(values.get(fieldId).toString());
+  }
+
+  @Override
+  public long getInt8(int fieldId) {
+    return Long.parseLong(values.get(fieldId).toString());
+  }
+
+  @Override
+  public double getFloat8(int fieldId) {
+    return Double.parseDouble(values.get(fieldId).toString());
+  }
+
   @Override
   public Inet4Datum getIPv4(int fieldId) {
     throw new UnsupportedException("getIPv4");